@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import com.opengamma.analytics.math.function.Function1D;
 import com.opengamma.analytics.math.statistics.distribution.NormalDistribution;
 import com.opengamma.analytics.math.statistics.distribution.ProbabilityDistribution;
+import com.opengamma.analytics.math.statistics.distribution.fnlib.DERFC;
 import com.opengamma.lang.annotation.ExternalFunction;
 import com.opengamma.util.ArgumentChecker;
 
@@ -34,6 +35,9 @@ public abstract class BlackFormulaRepository {
   private static final double EPS = 1e-15;
   private static final int MAX_ITERATIONS = 20; // something's wrong if Newton-Raphson taking longer than this
   private static final double VOL_TOL = 1e-9; // 1 part in 100,000 basis points will do for implied vol
+  private static final int MAX_BRACKETED_ITERATIONS = 100; // bisection from a wide bracket needs more steps than Newton-Raphson
+  private static final double ROOT2 = Math.sqrt(2);
+  private static final double INV_ROOT_TWO_PI = 1.0 / Math.sqrt(2.0 * Math.PI);
 
   /**
    * The <b>forward</b> price of an option using the Black formula
@@ -1068,4 +1072,280 @@ public abstract class BlackFormulaRepository {
     return strike;
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * The <b>forward</b> prices of a batch of options using the Black formula, for example a whole strike/expiry grid of a surface flattened into arrays.
+   * <p>
+   * Each price is the same as {@link #price(double, double, double, double, boolean)} would give for that option. The batch is worked through in passes over primitive arrays, with no
+   * boxing or other allocation per option, and the passes which are only arithmetic can be compiled to SIMD instructions by the JIT. Options on the edges of the domain of the formula (zero
+   * or very large volatility, strike equal to forward, ...) are priced by the scalar formula.
+   * @param forward The forward values of the underlying, not null
+   * @param strike The strikes, not null
+   * @param timeToExpiry The times-to-expiry, not null
+   * @param lognormalVol The log-normal volatilities, not null
+   * @param isCall True for calls, false for puts, not null
+   * @return The <b>forward</b> prices
+   */
+  public static double[] price(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] lognormalVol, final boolean[] isCall) {
+    final int n = checkBatch(forward, strike, timeToExpiry, lognormalVol, "lognormalVol", isCall);
+    final double[] rootT = new double[n];
+    final double[] sigmaRootT = new double[n];
+    final double[] d1 = new double[n];
+    final boolean[] regular = batchD1(forward, strike, timeToExpiry, lognormalVol, rootT, sigmaRootT, d1);
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (regular[i]) {
+        final int sign = isCall[i] ? 1 : -1;
+        final double nF = normalCdf(sign * d1[i]);
+        final double nS = normalCdf(sign * (d1[i] - sigmaRootT[i]));
+        final double first = nF == 0. ? 0. : forward[i] * nF;
+        final double second = nS == 0. ? 0. : strike[i] * nS;
+        res[i] = Math.max(0., sign * (first - second));
+      } else {
+        res[i] = price(forward[i], strike[i], timeToExpiry[i], lognormalVol[i], isCall[i]);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * The forward (i.e. driftless) deltas of a batch of options. Each delta is the same as {@link #delta(double, double, double, double, boolean)} would give for that option;
+   * see {@link #price(double[], double[], double[], double[], boolean[])} for how the batch is calculated.
+   * @param forward The forward values of the underlying, not null
+   * @param strike The strikes, not null
+   * @param timeToExpiry The times-to-expiry, not null
+   * @param lognormalVol The log-normal volatilities, not null
+   * @param isCall True for calls, false for puts, not null
+   * @return The forward deltas
+   */
+  public static double[] delta(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] lognormalVol, final boolean[] isCall) {
+    final int n = checkBatch(forward, strike, timeToExpiry, lognormalVol, "lognormalVol", isCall);
+    final double[] rootT = new double[n];
+    final double[] sigmaRootT = new double[n];
+    final double[] d1 = new double[n];
+    final boolean[] regular = batchD1(forward, strike, timeToExpiry, lognormalVol, rootT, sigmaRootT, d1);
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (regular[i]) {
+        final int sign = isCall[i] ? 1 : -1;
+        res[i] = sign * normalCdf(sign * d1[i]);
+      } else {
+        res[i] = delta(forward[i], strike[i], timeToExpiry[i], lognormalVol[i], isCall[i]);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * The forward (i.e. driftless) gammas of a batch of options. Each gamma is the same as {@link #gamma(double, double, double, double)} would give for that option;
+   * see {@link #price(double[], double[], double[], double[], boolean[])} for how the batch is calculated.
+   * @param forward The forward values of the underlying, not null
+   * @param strike The strikes, not null
+   * @param timeToExpiry The times-to-expiry, not null
+   * @param lognormalVol The log-normal volatilities, not null
+   * @return The forward gammas
+   */
+  public static double[] gamma(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] lognormalVol) {
+    final int n = checkBatch(forward, strike, timeToExpiry, lognormalVol, "lognormalVol", null);
+    final double[] rootT = new double[n];
+    final double[] sigmaRootT = new double[n];
+    final double[] d1 = new double[n];
+    final boolean[] regular = batchD1(forward, strike, timeToExpiry, lognormalVol, rootT, sigmaRootT, d1);
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (regular[i]) {
+        final double nVal = normalPdf(d1[i]);
+        res[i] = nVal == 0. ? 0. : nVal / forward[i] / sigmaRootT[i];
+      } else {
+        res[i] = gamma(forward[i], strike[i], timeToExpiry[i], lognormalVol[i]);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * The forward vegas of a batch of options. Each vega is the same as {@link #vega(double, double, double, double)} would give for that option;
+   * see {@link #price(double[], double[], double[], double[], boolean[])} for how the batch is calculated.
+   * @param forward The forward values of the underlying, not null
+   * @param strike The strikes, not null
+   * @param timeToExpiry The times-to-expiry, not null
+   * @param lognormalVol The log-normal volatilities, not null
+   * @return The forward vegas
+   */
+  public static double[] vega(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] lognormalVol) {
+    final int n = checkBatch(forward, strike, timeToExpiry, lognormalVol, "lognormalVol", null);
+    final double[] rootT = new double[n];
+    final double[] sigmaRootT = new double[n];
+    final double[] d1 = new double[n];
+    final boolean[] regular = batchD1(forward, strike, timeToExpiry, lognormalVol, rootT, sigmaRootT, d1);
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (regular[i]) {
+        final double nVal = normalPdf(d1[i]);
+        res[i] = nVal == 0. ? 0. : forward[i] * rootT[i] * nVal;
+      } else {
+        res[i] = vega(forward[i], strike[i], timeToExpiry[i], lognormalVol[i]);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Get the log-normal (Black) implied volatilities of a batch of European options, for example all the quotes of a surface.
+   * <p>
+   * Each volatility is that given by {@link #impliedVolatility(double, double, double, double, boolean)} for that option, to within the solver tolerance, and the same
+   * exceptions are thrown for prices which have no implied volatility. Each option starts from the explicit approximation of
+   * {@link BlackImpliedVolatilityFormula#impliedVolatilityApproximated(double[], double[], double[], double[], boolean[])}, which is then refined by Newton-Raphson steps
+   * kept inside a bracket of the root, with bisection whenever a step would leave the bracket or Newton-Raphson is slow to converge. The prices and vegas for the steps are calculated on primitives, with no
+   * function objects or boxing.
+   * @param price The <b>forward</b> prices - i.e. the market prices divided by the numeraire, not null
+   * @param forward The forward values of the underlying, not null
+   * @param strike The strikes, not null
+   * @param timeToExpiry The times-to-expiry, not null
+   * @param isCall true for calls, not null
+   * @return log-normal (Black) implied volatilities
+   */
+  public static double[] impliedVolatility(final double[] price, final double[] forward, final double[] strike, final double[] timeToExpiry, final boolean[] isCall) {
+    final int n = checkBatch(forward, strike, timeToExpiry, price, "price", isCall);
+    final double[] guess = BlackImpliedVolatilityFormula.corradoMiller(price, forward, strike, timeToExpiry, isCall);
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      if (!(forward[i] > 0.0) || Double.isInfinite(forward[i]) || Double.isInfinite(strike[i]) || Double.isInfinite(timeToExpiry[i])) {
+        // Throws the exception the scalar method would
+        impliedVolatility(price[i], forward[i], strike[i], timeToExpiry[i], isCall[i]);
+      }
+      final double intrinsicPrice = Math.max(0., (isCall[i] ? 1 : -1) * (forward[i] - strike[i]));
+      final double otmPrice = price[i] - intrinsicPrice;
+      if (otmPrice == 0) {
+        res[i] = 0;
+        continue;
+      }
+      ArgumentChecker.isTrue(otmPrice >= 0.0, "negative/NaN otmPrice; have {}", otmPrice);
+      ArgumentChecker.isTrue(otmPrice < Math.min(forward[i], strike[i]), "otmPrice of {} exceeded upper bound of {}", otmPrice, Math.min(forward[i], strike[i]));
+      if (forward[i] == strike[i]) {
+        res[i] = NORMAL.getInverseCDF(0.5 * (otmPrice / forward[i] + 1)) * 2 / Math.sqrt(timeToExpiry[i]);
+      } else {
+        final double volGuess = guess[i] > 0 && !Double.isInfinite(guess[i]) ? guess[i] : 0.3;
+        res[i] = impliedVolatilityBracketed(otmPrice, forward[i], strike[i], timeToExpiry[i], volGuess);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Solves for the implied volatility of an out-the-money option by Newton-Raphson, keeping the volatility inside a bracket of the root. The bracket starts as
+   * [0, infinity) and is closed from above by the first volatility which gives too high a price; until then a step which would leave it doubles the volatility,
+   * afterwards it bisects the bracket. Newton-Raphson can crawl far out-the-money, where the price is very convex, so as for {@link GenericImpliedVolatiltySolver}
+   * only bisection is used after MAX_ITERATIONS steps. At expiry every volatility gives a zero price, so a positive price is rejected without iterating.
+   */
+  private static double impliedVolatilityBracketed(final double otmPrice, final double forward, final double strike, final double timeToExpiry, final double volGuess) {
+    if (timeToExpiry == 0.) {
+      throw new IllegalArgumentException("No implied Volatility for this price at expiry. [price: " + otmPrice + "]");
+    }
+    final boolean isCall = strike >= forward;
+    final int sign = isCall ? 1 : -1;
+    final double rootT = Math.sqrt(timeToExpiry);
+    final double logFK = Math.log(forward / strike);
+    final boolean regular = Math.abs(forward - strike) >= SMALL && !(forward > LARGE && strike > LARGE);
+    double lower = 0.;
+    double upper = Double.POSITIVE_INFINITY;
+    double sigma = volGuess;
+    for (int count = 0; count < MAX_BRACKETED_ITERATIONS; count++) {
+      final double sigmaRootT = sigma * rootT;
+      final double modelPrice;
+      final double modelVega;
+      if (regular && sigmaRootT >= SMALL && sigmaRootT <= LARGE) {
+        final double d1 = logFK / sigmaRootT + 0.5 * sigmaRootT;
+        final double nF = normalCdf(sign * d1);
+        final double nS = normalCdf(sign * (d1 - sigmaRootT));
+        final double first = nF == 0. ? 0. : forward * nF;
+        final double second = nS == 0. ? 0. : strike * nS;
+        modelPrice = Math.max(0., sign * (first - second));
+        final double nVal = normalPdf(d1);
+        modelVega = nVal == 0. ? 0. : forward * rootT * nVal;
+      } else {
+        modelPrice = price(forward, strike, timeToExpiry, sigma, isCall);
+        modelVega = vega(forward, strike, timeToExpiry, sigma);
+      }
+      if (modelPrice == otmPrice) {
+        return sigma;
+      }
+      if (modelPrice > otmPrice) {
+        upper = sigma;
+      } else {
+        lower = sigma;
+      }
+      double next = sigma - (modelPrice - otmPrice) / modelVega;
+      if (count >= MAX_ITERATIONS || !(next > lower && next < upper)) {
+        next = upper == Double.POSITIVE_INFINITY ? 2. * sigma : 0.5 * (lower + upper);
+      }
+      if (Math.abs(next - sigma) < VOL_TOL) {
+        return next;
+      }
+      sigma = next;
+    }
+    throw new IllegalArgumentException("No implied Volatility for this price. [price: " + otmPrice + "]");
+  }
+
+  /**
+   * Checks the inputs of a batch. The checks on the values are only done one by one, with boxing of the values for the message, for an option which fails them.
+   * @return The size of the batch
+   */
+  private static int checkBatch(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] fourth, final String fourthName, final boolean[] isCall) {
+    ArgumentChecker.notNull(forward, "forward");
+    ArgumentChecker.notNull(strike, "strike");
+    ArgumentChecker.notNull(timeToExpiry, "timeToExpiry");
+    ArgumentChecker.notNull(fourth, fourthName);
+    final int n = forward.length;
+    ArgumentChecker.isTrue(strike.length == n && timeToExpiry.length == n && fourth.length == n, "Arrays must all have the same length");
+    ArgumentChecker.isTrue(isCall == null || isCall.length == n, "Arrays must all have the same length");
+    for (int i = 0; i < n; i++) {
+      if (!(forward[i] >= 0.0 && strike[i] >= 0.0 && timeToExpiry[i] >= 0.0 && fourth[i] >= 0.0)) {
+        ArgumentChecker.isTrue(forward[i] >= 0.0, "negative/NaN forward at index {}; have {}", i, forward[i]);
+        ArgumentChecker.isTrue(strike[i] >= 0.0, "negative/NaN strike at index {}; have {}", i, strike[i]);
+        ArgumentChecker.isTrue(timeToExpiry[i] >= 0.0, "negative/NaN timeToExpiry at index {}; have {}", i, timeToExpiry[i]);
+        ArgumentChecker.isTrue(fourth[i] >= 0.0, "negative/NaN " + fourthName + " at index {}; have {}", i, fourth[i]);
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Fills sqrt(t), sigma * sqrt(t) and d1 for a batch, and flags the options which take the common case of the scalar formulas. d1 is only meaningful for those.
+   * The square roots and the last pass are straight-line arithmetic over the arrays, which the JIT can vectorise.
+   */
+  private static boolean[] batchD1(final double[] forward, final double[] strike, final double[] timeToExpiry, final double[] lognormalVol, final double[] rootT,
+      final double[] sigmaRootT, final double[] d1) {
+    final int n = forward.length;
+    for (int i = 0; i < n; i++) {
+      rootT[i] = Math.sqrt(timeToExpiry[i]);
+      sigmaRootT[i] = lognormalVol[i] * rootT[i];
+    }
+    final boolean[] regular = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      regular[i] = sigmaRootT[i] >= SMALL && sigmaRootT[i] <= LARGE && Math.abs(forward[i] - strike[i]) >= SMALL && !(forward[i] > LARGE && strike[i] > LARGE);
+    }
+    for (int i = 0; i < n; i++) {
+      d1[i] = Math.log(forward[i] / strike[i]);
+    }
+    for (int i = 0; i < n; i++) {
+      d1[i] = d1[i] / sigmaRootT[i] + 0.5 * sigmaRootT[i];
+    }
+    return regular;
+  }
+
+  /**
+   * The standard normal cumulative distribution on a primitive, giving the same values as {@link NormalDistribution#getCDF(Double)}.
+   */
+  private static double normalCdf(final double x) {
+    return DERFC.getErfc(-x / ROOT2) / 2;
+  }
+
+  /**
+   * The standard normal density on a primitive, giving the same values as {@link NormalDistribution#getPDF(Double)}.
+   */
+  private static double normalPdf(final double x) {
+    return INV_ROOT_TWO_PI * Math.exp(-(x * x) / 2.0);
+  }
+
 }
@@ -21,6 +21,7 @@ public class BlackImpliedVolatilityFormula {
   /** Limit defining "close of ATM forward" to avoid the formula singularity. **/
   private static final double ATM_LIMIT = 1.0E-3;
   private static final double ROOT_ACCURACY = 1.0E-7;
+  private static final double ROOT_TWO_PI = Math.sqrt(2 * Math.PI);
   private static final NewtonRaphsonSingleRootFinder ROOT_FINDER = new NewtonRaphsonSingleRootFinder(ROOT_ACCURACY);
  
   /**
@@ -44,6 +45,125 @@ public class BlackImpliedVolatilityFormula {
     final double fwdPrice = optionPrice / discountFactor;
     return BlackFormulaRepository.impliedVolatility(fwdPrice, f, k, t, isCall);
   }
+
+  /**
+   * Computes the implied volatilities of a batch of options from their prices in a log-normally distributed asset price world, for example all the quotes
+   * of a surface in one call. See {@link BlackFormulaRepository#impliedVolatility(double[], double[], double[], double[], boolean[])}.
+   * @param data The model data, one per option. The data volatilities are not used.
+   * @param options The options.
+   * @param optionPrices The option prices.
+   * @return The implied volatilities.
+   */
+  public double[] getImpliedVolatility(
+      BlackFunctionData[] data,
+      EuropeanVanillaOption[] options,
+      double[] optionPrices) {
+    Validate.noNullElements(data, "null data");
+    Validate.noNullElements(options, "null options");
+    Validate.notNull(optionPrices, "null prices");
+    final int n = data.length;
+    Validate.isTrue(options.length == n && optionPrices.length == n, "data, options and prices must have the same length");
+    final double[] fwdPrice = new double[n];
+    final double[] f = new double[n];
+    final double[] k = new double[n];
+    final double[] t = new double[n];
+    final boolean[] isCall = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      fwdPrice[i] = optionPrices[i] / data[i].getDiscountFactor();
+      f[i] = data[i].getForward();
+      k[i] = options[i].getStrike();
+      t[i] = options[i].getTimeToExpiry();
+      isCall[i] = options[i].isCall();
+    }
+    return BlackFormulaRepository.impliedVolatility(fwdPrice, f, k, t, isCall);
+  }
+
+  /**
+   * Computes the implied volatility from the forward price of an option using the explicit approximation of Corrado and Miller.
+   * <p>
+   * The approximation is best near the money and degrades away from it; for moderate moneyness and volatility the error is typically a few tenths of a
+   * volatility point. It is a fast alternative to solving for the implied volatility when that is acceptable, and a good initial guess for a root-finding
+   * procedure otherwise. Use
+   * {@link BlackFormulaRepository#impliedVolatility(double, double, double, double, boolean)} for more precision.
+   * <p>
+   * Reference: Corrado, C. J. and Miller, T. W. A note on a simple, accurate formula to compute implied standard deviations. Journal of Banking and Finance, 20 (1996), 595-603.
+   * 
+   * @param forwardPrice  the <b>forward</b> price of the option
+   * @param forward  the forward rate/price
+   * @param strike  the option strike
+   * @param timeToExpiry  the option time to maturity
+   * @param isCall  true for call
+   * @return the implied volatility
+   */
+  public static double impliedVolatilityApproximated(
+      final double forwardPrice,
+      final double forward,
+      final double strike,
+      final double timeToExpiry,
+      final boolean isCall) {
+    return impliedVolatilityApproximated(new double[] {forwardPrice }, new double[] {forward }, new double[] {strike }, new double[] {timeToExpiry },
+        new boolean[] {isCall })[0];
+  }
+
+  /**
+   * Computes the implied volatilities from the forward prices of a batch of options using the explicit approximation of Corrado and Miller.
+   * See {@link #impliedVolatilityApproximated(double, double, double, double, boolean)}.
+   * <p>
+   * The approximation is straight-line arithmetic with square roots, so the JIT can vectorise the loop over the batch.
+   * 
+   * @param forwardPrice  the <b>forward</b> prices of the options, not null
+   * @param forward  the forward rates/prices, not null
+   * @param strike  the option strikes, not null
+   * @param timeToExpiry  the option times to maturity, not null
+   * @param isCall  true for call, not null
+   * @return the implied volatilities
+   */
+  public static double[] impliedVolatilityApproximated(
+      final double[] forwardPrice,
+      final double[] forward,
+      final double[] strike,
+      final double[] timeToExpiry,
+      final boolean[] isCall) {
+    ArgumentChecker.notNull(forwardPrice, "forwardPrice");
+    ArgumentChecker.notNull(forward, "forward");
+    ArgumentChecker.notNull(strike, "strike");
+    ArgumentChecker.notNull(timeToExpiry, "timeToExpiry");
+    ArgumentChecker.notNull(isCall, "isCall");
+    final int n = forwardPrice.length;
+    ArgumentChecker.isTrue(forward.length == n && strike.length == n && timeToExpiry.length == n && isCall.length == n, "Arrays must all have the same length");
+    for (int i = 0; i < n; i++) {
+      if (!(forward[i] > 0 && strike[i] > 0 && timeToExpiry[i] > 0 && forwardPrice[i] >= Math.max(0, (isCall[i] ? 1 : -1) * (forward[i] - strike[i])))) {
+        ArgumentChecker.isTrue(forward[i] > 0, "forward must be strictly positive; have {}", forward[i]);
+        ArgumentChecker.isTrue(strike[i] > 0, "strike must be strictly positive; have {}", strike[i]);
+        ArgumentChecker.isTrue(timeToExpiry[i] > 0, "timeToExpiry must be strictly positive; have {}", timeToExpiry[i]);
+        ArgumentChecker.isTrue(false, "price {} below intrinsic value", forwardPrice[i]);
+      }
+    }
+    return corradoMiller(forwardPrice, forward, strike, timeToExpiry, isCall);
+  }
+
+  /**
+   * The Corrado-Miller approximation, without checks on the inputs. The put prices are turned into call prices by put-call parity.
+   */
+  /* package */static double[] corradoMiller(
+      final double[] forwardPrice,
+      final double[] forward,
+      final double[] strike,
+      final double[] timeToExpiry,
+      final boolean[] isCall) {
+    final int n = forwardPrice.length;
+    final double[] res = new double[n];
+    for (int i = 0; i < n; i++) {
+      res[i] = isCall[i] ? forwardPrice[i] : forwardPrice[i] + forward[i] - strike[i];
+    }
+    for (int i = 0; i < n; i++) {
+      final double moneyness = forward[i] - strike[i];
+      final double x = res[i] - 0.5 * moneyness;
+      final double root = Math.sqrt(Math.max(0, x * x - moneyness * moneyness / Math.PI));
+      res[i] = ROOT_TWO_PI / (forward[i] + strike[i]) * (x + root) / Math.sqrt(timeToExpiry[i]);
+    }
+    return res;
+  }
   
   /**
    * Compute the implied volatility from a normal volatility using an approximate initial guess and a root-finder.
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.provider.curve.multicurve;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates one row per calibration instrument, splitting the instruments between the threads of a fork-join pool.
+ * <p>
+ * Each row is typically the value or parameter sensitivity of one instrument, so is expensive enough to be a task on its own. The rows must be independent of each other and write only to their own
+ * slot of any shared result array.
+ */
+/* package */final class InstrumentRowsAction extends RecursiveAction {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The calculation of a single row.
+   */
+  /* package */interface Row {
+
+    /**
+     * Evaluates a row.
+     * @param index The instrument index.
+     */
+    void evaluate(int index);
+
+  }
+
+  private final Row _row;
+  private final int _start;
+  private final int _end;
+
+  private InstrumentRowsAction(final Row row, final int start, final int end) {
+    _row = row;
+    _start = start;
+    _end = end;
+  }
+
+  @Override
+  protected void compute() {
+    if (_end - _start == 1) {
+      _row.evaluate(_start);
+      return;
+    }
+    final int middle = (_start + _end) >>> 1;
+    invokeAll(new InstrumentRowsAction(_row, _start, middle), new InstrumentRowsAction(_row, middle, _end));
+  }
+
+  /**
+   * Evaluates the rows for all of the instruments. If called from a fork-join task, the rows are evaluated in the pool that task is running in.
+   * @param pool The pool, null to evaluate the rows one after another in the calling thread.
+   * @param nbRows The number of rows.
+   * @param row The row calculation.
+   */
+  /* package */static void evaluate(final ForkJoinPool pool, final int nbRows, final Row row) {
+    if ((pool == null) || (nbRows < 2)) {
+      for (int i = 0; i < nbRows; i++) {
+        row.evaluate(i);
+      }
+      return;
+    }
+    final InstrumentRowsAction action = new InstrumentRowsAction(row, 0, nbRows);
+    if (ForkJoinTask.inForkJoinPool()) {
+      action.invoke();
+    } else {
+      pool.invoke(action);
+    }
+  }
+
+}
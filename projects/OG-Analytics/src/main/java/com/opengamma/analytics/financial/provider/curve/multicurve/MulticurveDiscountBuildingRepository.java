@@ -6,16 +6,27 @@
 package com.opengamma.analytics.financial.provider.curve.multicurve;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Multimap;
+import com.opengamma.analytics.financial.curve.interestrate.generator.GeneratorCurveAddYieldExisiting;
+import com.opengamma.analytics.financial.curve.interestrate.generator.GeneratorCurveAddYieldFixed;
 import com.opengamma.analytics.financial.curve.interestrate.generator.GeneratorYDCurve;
 import com.opengamma.analytics.financial.instrument.index.IborIndex;
 import com.opengamma.analytics.financial.instrument.index.IndexON;
@@ -29,7 +40,9 @@ import com.opengamma.analytics.financial.provider.description.interestrate.Multi
 import com.opengamma.analytics.financial.provider.description.interestrate.ParameterProviderInterface;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.MulticurveSensitivity;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ParameterSensitivityMulticurveUnderlyingMatrixCalculator;
+import com.opengamma.analytics.math.MathException;
 import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
 import com.opengamma.analytics.math.linearalgebra.DecompositionFactory;
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
@@ -40,14 +53,19 @@ import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.tuple.ObjectsPair;
 import com.opengamma.util.tuple.Pair;
-import com.opengamma.util.tuple.Pairs;
 
 /**
  * Functions to build curves.
+ * <p>
+ * By default the units of curves are calibrated one after another in the calling thread, each from the starting point in its curve bundle. An instance can instead be created with a fork-join
+ * pool, to value the instruments and compute the Jacobian rows in parallel and to calibrate units which do not use each other's curves at the same time, and with warm starts, to start each unit
+ * from the parameters and the final Broyden estimate of the Jacobian left by the previous calibration of the same curves.
  */
 // TODO: REVIEW: Embed in a better object.
 public class MulticurveDiscountBuildingRepository {
 
+  private static final Logger s_logger = LoggerFactory.getLogger(MulticurveDiscountBuildingRepository.class);
+
   /**
    * The absolute tolerance for the root finder.
    */
@@ -64,6 +82,18 @@ public class MulticurveDiscountBuildingRepository {
    * The root finder used for curve calibration.
    */
   private final BroydenVectorRootFinder _rootFinder;
+  /**
+   * The decomposition used by the root finder.
+   */
+  private final Decomposition<?> _decomposition;
+  /**
+   * The pool used to calibrate in parallel, null to calibrate in the calling thread.
+   */
+  private final ForkJoinPool _pool;
+  /**
+   * The parameters and final Jacobian estimate of the last calibration of each unit, by the names of the curves in the unit. Null if warm starts are not used.
+   */
+  private final ConcurrentMap<List<String>, WarmStart> _warmStarts;
   /**
    * The matrix algebra used for matrix inversion.
    */
@@ -76,41 +106,105 @@ public class MulticurveDiscountBuildingRepository {
    * @param stepMaximum The maximum number of step for the root finder.
    */
   public MulticurveDiscountBuildingRepository(final double toleranceAbs, final double toleranceRel, final int stepMaximum) {
+    this(toleranceAbs, toleranceRel, stepMaximum, null, false);
+  }
+
+  /**
+   * Constructor for parallel or warm started calibration.
+   * <p>
+   * If a pool is given the calculators passed to the build methods must be safe to use from several threads. If warm starts are used, the same instance should be kept between calibrations of the
+   * same curves (for example from one cycle to the next); a unit which cannot be calibrated from its previous result is calibrated again from the starting point in its curve bundle.
+   * @param toleranceAbs The absolute tolerance for the root finder.
+   * @param toleranceRel The relative tolerance for the root finder.
+   * @param stepMaximum The maximum number of step for the root finder.
+   * @param pool The pool used to calibrate in parallel, null to calibrate in the calling thread.
+   * @param warmStart Whether to start each unit from the result of its previous calibration by this instance.
+   */
+  public MulticurveDiscountBuildingRepository(final double toleranceAbs, final double toleranceRel, final int stepMaximum, final ForkJoinPool pool, final boolean warmStart) {
     _toleranceAbs = toleranceAbs;
     _toleranceRel = toleranceRel;
     _stepMaximum = stepMaximum;
-    _rootFinder = new BroydenVectorRootFinder(_toleranceAbs, _toleranceRel, _stepMaximum, DecompositionFactory.getDecomposition(DecompositionFactory.SV_COLT_NAME));
+    _decomposition = DecompositionFactory.getDecomposition(DecompositionFactory.SV_COLT_NAME);
+    _rootFinder = new BroydenVectorRootFinder(_toleranceAbs, _toleranceRel, _stepMaximum, _decomposition);
+    _pool = pool;
+    _warmStarts = warmStart ? new ConcurrentHashMap<List<String>, WarmStart>() : null;
     // TODO: [PLAT-5761] make the root finder flexible.
     // TODO: create a way to select the SensitivityMatrixMulticurve calculator (with underlying curve or not)
   }
 
+  /**
+   * Discards the results kept for warm starts, so the next calibration of each unit starts from the starting point in its curve bundle.
+   */
+  public void clearWarmStarts() {
+    if (_warmStarts != null) {
+      _warmStarts.clear();
+    }
+  }
+
   /**
    * Build a unit of curves.
-   * @param instruments The instruments used for the unit calibration.
-   * @param initGuess The initial parameters guess.
+   * @param unit The instruments, starting point and generators of the unit.
    * @param knownData The known data (fx rates, other curves, model parameters, ...)
    * @param discountingMap The discounting curves names map.
    * @param forwardIborMap The forward curves names map.
    * @param forwardONMap The forward curves names map.
-   * @param generatorsMap The generators map.
    * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
    * @param sensitivityCalculator The parameter sensitivity calculator.
-   * @return The new curves and the calibrated parameters.
+   * @return The known data with the new curves.
    */
-  private MulticurveProviderDiscount makeUnit(final InstrumentDerivative[] instruments, final double[] initGuess, 
-      final MulticurveProviderDiscount knownData,
-      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, 
-      final LinkedHashMap<String, IndexON[]> forwardONMap,
-      final LinkedHashMap<String, GeneratorYDCurve> generatorsMap, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+  private MulticurveProviderDiscount makeUnit(final Unit unit, final MulticurveProviderDiscount knownData,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap,
+      final LinkedHashMap<String, IndexON[]> forwardONMap, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    final double[] parameters = calibrateUnit(unit, knownData, discountingMap, forwardIborMap, forwardONMap, calculator, sensitivityCalculator);
+    return new GeneratorMulticurveProviderDiscount(knownData, discountingMap, forwardIborMap, forwardONMap, unit.getGenerators()).evaluate(new DoubleMatrix1D(parameters));
+  }
+
+  /**
+   * Calibrates a unit of curves.
+   * @param unit The instruments, starting point and generators of the unit.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @return The calibrated parameters.
+   */
+  private double[] calibrateUnit(final Unit unit, final MulticurveProviderDiscount knownData,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap,
+      final LinkedHashMap<String, IndexON[]> forwardONMap, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
       final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
-    final GeneratorMulticurveProviderDiscount generator = new GeneratorMulticurveProviderDiscount(knownData, discountingMap, forwardIborMap, forwardONMap, generatorsMap);
-    final MulticurveDiscountBuildingData data = new MulticurveDiscountBuildingData(instruments, generator);
-    final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MulticurveDiscountFinderFunction(calculator, data);
+    final GeneratorMulticurveProviderDiscount generator = new GeneratorMulticurveProviderDiscount(knownData, discountingMap, forwardIborMap, forwardONMap, unit.getGenerators());
+    final MulticurveDiscountBuildingData data = new MulticurveDiscountBuildingData(unit.getInstruments(), generator);
+    final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MulticurveDiscountFinderFunction(calculator, data, _pool);
     final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MulticurveDiscountFinderJacobian(
-        new ParameterSensitivityMulticurveUnderlyingMatrixCalculator(sensitivityCalculator), data);
-    final double[] parameters = _rootFinder.getRoot(curveCalculator, jacobianCalculator, new DoubleMatrix1D(initGuess)).getData();
-    final MulticurveProviderDiscount newCurves = data.getGeneratorMarket().evaluate(new DoubleMatrix1D(parameters));
-    return newCurves;
+        new ParameterSensitivityMulticurveUnderlyingMatrixCalculator(sensitivityCalculator), data, _pool);
+    if (_warmStarts == null) {
+      return _rootFinder.getRoot(curveCalculator, jacobianCalculator, new DoubleMatrix1D(unit.getParametersGuess())).getData();
+    }
+    final WarmStart previous = _warmStarts.get(unit.getNames());
+    if ((previous != null) && (previous.getParameters().length == unit.getParametersGuess().length)) {
+      // The Broyden updates continue from the previous estimate, which is only recalculated if they stop converging
+      try {
+        return warmStart(unit, _rootFinder.getRootAndEstimate(curveCalculator, jacobianCalculator, new DoubleMatrix1D(previous.getParameters()), previous.getJacobian()));
+      } catch (final MathException e) {
+        s_logger.debug("Could not calibrate {} from the previous result, using the starting point: {}", unit.getNames(), e.getMessage());
+      }
+    }
+    return warmStart(unit, _rootFinder.getRootAndEstimate(curveCalculator, jacobianCalculator, new DoubleMatrix1D(unit.getParametersGuess()), null));
+  }
+
+  /**
+   * Keeps the result of a calibration for the next calibration of the unit.
+   * @param unit The unit calibrated.
+   * @param result The calibrated parameters and the final Jacobian estimate.
+   * @return The calibrated parameters.
+   */
+  private double[] warmStart(final Unit unit, final Pair<DoubleMatrix1D, DoubleMatrix2D> result) {
+    final double[] parameters = result.getFirst().getData();
+    _warmStarts.put(unit.getNames(), new WarmStart(parameters, result.getSecond()));
+    return parameters;
   }
 
   /**
@@ -164,10 +258,13 @@ public class MulticurveDiscountBuildingRepository {
     // Sensitivity to parameters
     final int nbIns = instruments.length;
     final double[][] res = new double[nbParametersCurrentTotal][];
-    for (int loopinstrument = 0; loopinstrument < nbIns; loopinstrument++) {
-      res[loopinstrument] = parameterSensitivityCalculator.calculateSensitivity(instruments[loopinstrument], multicurves, allCurveName).getData();
-      // The sensitivity is to all parameters in the order provided by the allCurveName
-    }
+    InstrumentRowsAction.evaluate(_pool, nbIns, new InstrumentRowsAction.Row() {
+      @Override
+      public void evaluate(final int loopinstrument) {
+        res[loopinstrument] = parameterSensitivityCalculator.calculateSensitivity(instruments[loopinstrument], multicurves, allCurveName).getData();
+        // The sensitivity is to all parameters in the order provided by the allCurveName
+      }
+    });
 
     final int nbParametersAllCurvesTotal = res[0].length;
     // Jacobian direct
@@ -349,19 +446,208 @@ public class MulticurveDiscountBuildingRepository {
     ArgumentChecker.notNull(calculator, "calculator");
     ArgumentChecker.notNull(sensitivityCalculator, "sensitivity calculator");
     final int nbUnits = curveBundles.length;
-    MulticurveProviderDiscount knownSoFarData = knownData.copy();
     final CurveBuildingBlockBundle totalBundle = new CurveBuildingBlockBundle();
     totalBundle.addAll(knownBlockBundle);
+    final Unit[] units = new Unit[nbUnits];
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      units[iUnits] = new Unit(curveBundles[iUnits]);
+    }
+    if ((_pool != null) && (nbUnits > 1)) {
+      return makeUnitsInParallel(units, knownData, totalBundle, discountingMap, forwardIborMap, forwardONMap, calculator, sensitivityCalculator);
+    }
+    MulticurveProviderDiscount knownSoFarData = knownData.copy();
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      knownSoFarData = makeUnit(units[iUnits], knownSoFarData, discountingMap, forwardIborMap, forwardONMap, calculator, sensitivityCalculator);
+      updateBlockBundle(units[iUnits].getInstruments(), knownSoFarData, units[iUnits].getNames(), totalBundle, sensitivityCalculator);
+    }
+    return ObjectsPair.of(knownSoFarData, totalBundle);
+  }
+
+  /**
+   * Builds the units, calibrating those which do not use each other's curves at the same time.
+   * <p>
+   * The Jacobian blocks are then computed one unit after another, with the curves of the earlier units only, so the result is the same as building the units in order.
+   * @param units The units.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param totalBundle The CurveBuildingBlockBundle, containing the known blocks, to which the blocks of the units are added.
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param calculator The calculator of the value on which the calibration is done (usually ParSpreadMarketQuoteCalculator (recommended) or converted present value).
+   * @param sensitivityCalculator The parameter sensitivity calculator.
+   * @return A pair with the calibrated yield curve bundle (including the known data) and the CurveBuildingBlockBundle with the relevant inverse Jacobian Matrix.
+   */
+  @SuppressWarnings("synthetic-access")
+  private Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeUnitsInParallel(final Unit[] units, final MulticurveProviderDiscount knownData,
+      final CurveBuildingBlockBundle totalBundle, final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap,
+      final LinkedHashMap<String, IndexON[]> forwardONMap, final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    final int nbUnits = units.length;
+    final int[] levels = getLevels(units, knownData, discountingMap, forwardIborMap, forwardONMap, sensitivityCalculator);
+    int nbLevels = 0;
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      nbLevels = Math.max(nbLevels, levels[iUnits] + 1);
+    }
+    final double[][] parameters = new double[nbUnits][];
+    MulticurveProviderDiscount knownSoFarData = knownData.copy();
+    for (int loopLevel = 0; loopLevel < nbLevels; loopLevel++) {
+      final MulticurveProviderDiscount knownLevelData = knownSoFarData;
+      final List<RecursiveAction> tasks = new ArrayList<>();
+      for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+        if (levels[iUnits] == loopLevel) {
+          final int unitIndex = iUnits;
+          tasks.add(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+              parameters[unitIndex] = calibrateUnit(units[unitIndex], knownLevelData, discountingMap, forwardIborMap, forwardONMap, calculator, sensitivityCalculator);
+            }
+          });
+        }
+      }
+      invokeAll(tasks);
+      for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+        if (levels[iUnits] == loopLevel) {
+          knownSoFarData = new GeneratorMulticurveProviderDiscount(knownSoFarData, discountingMap, forwardIborMap, forwardONMap, units[iUnits].getGenerators())
+              .evaluate(new DoubleMatrix1D(parameters[iUnits]));
+        }
+      }
+    }
+    knownSoFarData = knownData.copy();
+    for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
+      knownSoFarData = new GeneratorMulticurveProviderDiscount(knownSoFarData, discountingMap, forwardIborMap, forwardONMap, units[iUnits].getGenerators())
+          .evaluate(new DoubleMatrix1D(parameters[iUnits]));
+      updateBlockBundle(units[iUnits].getInstruments(), knownSoFarData, units[iUnits].getNames(), totalBundle, sensitivityCalculator);
+    }
+    return ObjectsPair.of(knownSoFarData, totalBundle);
+  }
+
+  /**
+   * Runs tasks in the pool, or in the pool of the calling task if there is one, and waits for them to finish.
+   * @param tasks The tasks.
+   */
+  private void invokeAll(final List<RecursiveAction> tasks) {
+    if (tasks.size() == 1) {
+      tasks.get(0).invoke();
+    } else if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(tasks);
+    } else {
+      _pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          ForkJoinTask.invokeAll(tasks);
+        }
+      });
+    }
+  }
 
-    final List<InstrumentDerivative> instrumentsSoFar = new ArrayList<>();
-    final LinkedHashMap<String, GeneratorYDCurve> generatorsSoFar = new LinkedHashMap<>();
-    final LinkedHashMap<String, Pair<Integer, Integer>> unitMap = new LinkedHashMap<>();
-    int startUnit = 0;
+  /**
+   * Returns the level at which each unit is calibrated when the units are built in parallel. The units in a level do not use each other's curves and are calibrated at the same time, after
+   * the units in lower levels.
+   * @param curveBundles The curve bundles, one for each unit, in the order they would be built one after another.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param sensitivityCalculator The curve sensitivity calculator.
+   * @return The level of each unit, starting at zero.
+   */
+  public int[] getCalibrationLevels(final MultiCurveBundle<GeneratorYDCurve>[] curveBundles, final MulticurveProviderDiscount knownData,
+      final LinkedHashMap<String, Currency> discountingMap, final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    ArgumentChecker.notNull(curveBundles, "curve bundles");
+    ArgumentChecker.notNull(knownData, "known data");
+    final Unit[] units = new Unit[curveBundles.length];
+    for (int iUnits = 0; iUnits < curveBundles.length; iUnits++) {
+      units[iUnits] = new Unit(curveBundles[iUnits]);
+    }
+    return getLevels(units, knownData, discountingMap, forwardIborMap, forwardONMap, sensitivityCalculator);
+  }
+
+  /**
+   * Groups the units into levels, so that each unit only uses the curves of units in lower levels and the units in a level can be calibrated at the same time.
+   * <p>
+   * The curves used by a unit are found from the curve sensitivities of its instruments, with the curves built so far at their starting points. A unit with a generator which may build on an
+   * existing curve is put after all of the units before it.
+   * @param units The units, in the order they would be built one after another.
+   * @param knownData The known data (fx rates, other curves, model parameters, ...)
+   * @param discountingMap The discounting curves names map.
+   * @param forwardIborMap The forward curves names map.
+   * @param forwardONMap The forward curves names map.
+   * @param sensitivityCalculator The curve sensitivity calculator.
+   * @return The level of each unit, starting at zero.
+   */
+  private int[] getLevels(final Unit[] units, final MulticurveProviderDiscount knownData, final LinkedHashMap<String, Currency> discountingMap,
+      final LinkedHashMap<String, IborIndex[]> forwardIborMap, final LinkedHashMap<String, IndexON[]> forwardONMap,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    final int nbUnits = units.length;
+    final int[] levels = new int[nbUnits];
+    final Map<String, Integer> unitByCurve = new HashMap<>();
+    MulticurveProviderDiscount guessSoFarData = knownData.copy();
     for (int iUnits = 0; iUnits < nbUnits; iUnits++) {
-      final MultiCurveBundle<GeneratorYDCurve> curveBundle = curveBundles[iUnits];
+      final Unit unit = units[iUnits];
+      guessSoFarData = new GeneratorMulticurveProviderDiscount(guessSoFarData, discountingMap, forwardIborMap, forwardONMap, unit.getGenerators())
+          .evaluate(new DoubleMatrix1D(unit.getParametersGuess()));
+      int level = 0;
+      if (unit.isUsingExistingCurves()) {
+        for (int loopprev = 0; loopprev < iUnits; loopprev++) {
+          level = Math.max(level, levels[loopprev] + 1);
+        }
+      } else {
+        for (final String name : getCurvesUsed(unit.getInstruments(), guessSoFarData, sensitivityCalculator)) {
+          final Integer used = unitByCurve.get(name);
+          if (used != null) {
+            level = Math.max(level, levels[used] + 1);
+          }
+        }
+      }
+      levels[iUnits] = level;
+      for (final String name : unit.getNames()) {
+        unitByCurve.put(name, iUnits);
+      }
+    }
+    return levels;
+  }
+
+  /**
+   * Returns the names of the curves to which any of the instruments are sensitive.
+   * @param instruments The instruments.
+   * @param multicurves The curves.
+   * @param sensitivityCalculator The curve sensitivity calculator.
+   * @return The curve names.
+   */
+  private Set<String> getCurvesUsed(final InstrumentDerivative[] instruments, final MulticurveProviderDiscount multicurves,
+      final InstrumentDerivativeVisitor<ParameterProviderInterface, MulticurveSensitivity> sensitivityCalculator) {
+    final MulticurveSensitivity[] sensitivities = new MulticurveSensitivity[instruments.length];
+    InstrumentRowsAction.evaluate(_pool, instruments.length, new InstrumentRowsAction.Row() {
+      @Override
+      public void evaluate(final int index) {
+        sensitivities[index] = instruments[index].accept(sensitivityCalculator, multicurves);
+      }
+    });
+    final Set<String> names = new HashSet<>();
+    for (final MulticurveSensitivity sensitivity : sensitivities) {
+      names.addAll(sensitivity.getYieldDiscountingSensitivities().keySet());
+      names.addAll(sensitivity.getForwardSensitivities().keySet());
+    }
+    return names;
+  }
+
+  /**
+   * The instruments, starting point and generators of a unit of curves.
+   */
+  private static final class Unit {
+    private final InstrumentDerivative[] _instruments;
+    private final double[] _parametersGuess;
+    private final LinkedHashMap<String, GeneratorYDCurve> _generators;
+    private final List<String> _names;
+
+    Unit(final MultiCurveBundle<GeneratorYDCurve> curveBundle) {
       final int nbCurve = curveBundle.size();
       final int[] startCurve = new int[nbCurve]; // First parameter index of the curve in the unit.
-      final LinkedHashMap<String, GeneratorYDCurve> gen = new LinkedHashMap<>();
       final int[] nbIns = new int[nbCurve];
       int nbInsUnit = 0; // Number of instruments in the unit.
       for (int iCurve = 0; iCurve < nbCurve; iCurve++) {
@@ -369,27 +655,71 @@ public class MulticurveDiscountBuildingRepository {
         startCurve[iCurve] = nbInsUnit;
         nbIns[iCurve] = singleCurve.size();
         nbInsUnit += nbIns[iCurve];
-        instrumentsSoFar.addAll(Arrays.asList(singleCurve.getDerivatives()));
       }
-      final InstrumentDerivative[] instrumentsUnit = new InstrumentDerivative[nbInsUnit];
-      final double[] parametersGuess = new double[nbInsUnit];
+      _instruments = new InstrumentDerivative[nbInsUnit];
+      _parametersGuess = new double[nbInsUnit];
+      _generators = new LinkedHashMap<>();
       for (int iCurve = 0; iCurve < nbCurve; iCurve++) {
         final SingleCurveBundle<GeneratorYDCurve> singleCurve = curveBundle.getCurveBundle(iCurve);
         final InstrumentDerivative[] derivatives = singleCurve.getDerivatives();
-        System.arraycopy(derivatives, 0, instrumentsUnit, startCurve[iCurve], nbIns[iCurve]);
-        System.arraycopy(singleCurve.getStartingPoint(), 0, parametersGuess, startCurve[iCurve], nbIns[iCurve]);
-        final GeneratorYDCurve tmp = singleCurve.getCurveGenerator().finalGenerator(derivatives);
-        final String curveName = singleCurve.getCurveName();
-        gen.put(curveName, tmp);
-        generatorsSoFar.put(curveName, tmp);
-        unitMap.put(curveName, Pairs.of(startUnit + startCurve[iCurve], nbIns[iCurve]));
+        System.arraycopy(derivatives, 0, _instruments, startCurve[iCurve], nbIns[iCurve]);
+        System.arraycopy(singleCurve.getStartingPoint(), 0, _parametersGuess, startCurve[iCurve], nbIns[iCurve]);
+        _generators.put(singleCurve.getCurveName(), singleCurve.getCurveGenerator().finalGenerator(derivatives));
       }
-      knownSoFarData = makeUnit(instrumentsUnit, parametersGuess, knownSoFarData,
-          discountingMap, forwardIborMap, forwardONMap, gen, calculator, sensitivityCalculator);
-      updateBlockBundle(instrumentsUnit, knownSoFarData, curveBundle.getNames(), totalBundle, sensitivityCalculator);
-      startUnit = startUnit + nbInsUnit;
+      _names = new ArrayList<>(curveBundle.getNames());
     }
-    return ObjectsPair.of(knownSoFarData, totalBundle);
+
+    public InstrumentDerivative[] getInstruments() {
+      return _instruments;
+    }
+
+    public double[] getParametersGuess() {
+      return _parametersGuess;
+    }
+
+    public LinkedHashMap<String, GeneratorYDCurve> getGenerators() {
+      return _generators;
+    }
+
+    public List<String> getNames() {
+      return _names;
+    }
+
+    /**
+     * Returns true if any of the curves may be built on a curve from the known data rather than from the parameters alone.
+     * @return true if the unit may use existing curves
+     */
+    public boolean isUsingExistingCurves() {
+      for (final GeneratorYDCurve generator : _generators.values()) {
+        if ((generator instanceof GeneratorCurveAddYieldExisiting) || (generator instanceof GeneratorCurveAddYieldFixed)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  /**
+   * The parameters found by the last calibration of a unit and the final Jacobian estimate of the root finder.
+   */
+  private static final class WarmStart {
+    private final double[] _parameters;
+    private final DoubleMatrix2D _jacobian;
+
+    WarmStart(final double[] parameters, final DoubleMatrix2D jacobian) {
+      _parameters = parameters;
+      _jacobian = jacobian;
+    }
+
+    public double[] getParameters() {
+      return _parameters;
+    }
+
+    public DoubleMatrix2D getJacobian() {
+      return _jacobian;
+    }
+
   }
 
 }
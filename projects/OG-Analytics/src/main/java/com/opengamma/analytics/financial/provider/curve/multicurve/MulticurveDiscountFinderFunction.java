@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.financial.provider.curve.multicurve;
 
+import java.util.concurrent.ForkJoinPool;
+
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivativeVisitor;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.provider.description.interestrate.ParameterProviderInterface;
@@ -25,6 +27,10 @@ public class MulticurveDiscountFinderFunction extends Function1D<DoubleMatrix1D,
    * The data required for curve building.
    */
   private final MulticurveDiscountBuildingData _data;
+  /**
+   * The pool used to value the instruments in parallel, null to value them in the calling thread.
+   */
+  private final ForkJoinPool _pool;
 
   /**
    * Constructor.
@@ -32,10 +38,22 @@ public class MulticurveDiscountFinderFunction extends Function1D<DoubleMatrix1D,
    * @param data The data required for curve building.
    */
   public MulticurveDiscountFinderFunction(final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator, final MulticurveDiscountBuildingData data) {
+    this(calculator, data, null);
+  }
+
+  /**
+   * Constructor.
+   * @param calculator The instrument value calculator. Must be safe to use from several threads if a pool is given.
+   * @param data The data required for curve building.
+   * @param pool The pool used to value the instruments in parallel, null to value them in the calling thread.
+   */
+  public MulticurveDiscountFinderFunction(final InstrumentDerivativeVisitor<ParameterProviderInterface, Double> calculator, final MulticurveDiscountBuildingData data,
+      final ForkJoinPool pool) {
     ArgumentChecker.notNull(calculator, "Calculator");
     ArgumentChecker.notNull(data, "Data");
     _calculator = calculator;
     _data = data;
+    _pool = pool;
   }
 
   @Override
@@ -44,9 +62,12 @@ public class MulticurveDiscountFinderFunction extends Function1D<DoubleMatrix1D,
     final MulticurveProviderDiscount newCurves = _data.getGeneratorMarket().evaluate(x);
     bundle.setAll(newCurves);
     final double[] res = new double[_data.getNumberOfInstruments()];
-    for (int i = 0; i < _data.getNumberOfInstruments(); i++) {
-      res[i] = _data.getInstrument(i).accept(_calculator, bundle);
-    }
+    InstrumentRowsAction.evaluate(_pool, _data.getNumberOfInstruments(), new InstrumentRowsAction.Row() {
+      @Override
+      public void evaluate(final int i) {
+        res[i] = _data.getInstrument(i).accept(_calculator, bundle);
+      }
+    });
     return new DoubleMatrix1D(res);
   }
 
@@ -6,8 +6,8 @@
 package com.opengamma.analytics.financial.provider.curve.multicurve;
 
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
-import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.provider.description.interestrate.MulticurveProviderDiscount;
 import com.opengamma.analytics.financial.provider.sensitivity.multicurve.ParameterSensitivityMulticurveMatrixAbstractCalculator;
 import com.opengamma.analytics.math.function.Function1D;
@@ -27,6 +27,10 @@ public class MulticurveDiscountFinderJacobian extends Function1D<DoubleMatrix1D,
    * The data required for curve building.
    */
   private final MulticurveDiscountBuildingData _data;
+  /**
+   * The pool used to compute the rows in parallel, null to compute them in the calling thread.
+   */
+  private final ForkJoinPool _pool;
 
   /**
    * Constructor.
@@ -35,8 +39,20 @@ public class MulticurveDiscountFinderJacobian extends Function1D<DoubleMatrix1D,
    */
   public MulticurveDiscountFinderJacobian(final ParameterSensitivityMulticurveMatrixAbstractCalculator parameterSensitivityCalculator,
       final MulticurveDiscountBuildingData data) {
+    this(parameterSensitivityCalculator, data, null);
+  }
+
+  /**
+   * Constructor.
+   * @param parameterSensitivityCalculator The instrument parameter sensitivity calculator. Must be safe to use from several threads if a pool is given.
+   * @param data The data required for curve building.
+   * @param pool The pool used to compute the rows (one per instrument) in parallel, null to compute them in the calling thread.
+   */
+  public MulticurveDiscountFinderJacobian(final ParameterSensitivityMulticurveMatrixAbstractCalculator parameterSensitivityCalculator,
+      final MulticurveDiscountBuildingData data, final ForkJoinPool pool) {
     _parameterSensitivityCalculator = parameterSensitivityCalculator;
     _data = data;
+    _pool = pool;
   }
 
   @Override
@@ -47,10 +63,12 @@ public class MulticurveDiscountFinderJacobian extends Function1D<DoubleMatrix1D,
     final Set<String> curvesSet = _data.getGeneratorMarket().getCurvesList();
     final int nbParameters = _data.getNumberOfInstruments();
     final double[][] res = new double[nbParameters][nbParameters];
-    for (int loopinstrument = 0; loopinstrument < _data.getNumberOfInstruments(); loopinstrument++) {
-      final InstrumentDerivative deriv = _data.getInstrument(loopinstrument);
-      res[loopinstrument] = _parameterSensitivityCalculator.calculateSensitivity(deriv, bundle, curvesSet).getData();
-    }
+    InstrumentRowsAction.evaluate(_pool, _data.getNumberOfInstruments(), new InstrumentRowsAction.Row() {
+      @Override
+      public void evaluate(final int loopinstrument) {
+        res[loopinstrument] = _parameterSensitivityCalculator.calculateSensitivity(_data.getInstrument(loopinstrument), bundle, curvesSet).getData();
+      }
+    });
     return new DoubleMatrix2D(res);
   }
 
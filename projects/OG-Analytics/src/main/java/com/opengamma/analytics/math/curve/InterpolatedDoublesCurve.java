@@ -538,7 +538,7 @@ public class InterpolatedDoublesCurve extends ArraysDoublesCurve implements Seri
   @Override
   public Double getYValue(final Double x) {
     ArgumentChecker.notNull(x, "x");
-    return _interpolator.interpolate(_dataBundle, x);
+    return _interpolator.interpolate(_dataBundle, x.doubleValue());
   }
 
   @Override
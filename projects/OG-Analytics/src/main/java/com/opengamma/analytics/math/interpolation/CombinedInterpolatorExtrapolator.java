@@ -81,6 +81,40 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
     return _interpolator.interpolate(data, value);
   }
 
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
+    final double[] keys = data.getKeys();
+    return interpolate(data, value, keys[0], keys[keys.length - 1]);
+  }
+
+  @Override
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    Validate.notNull(result, "result");
+    Validate.isTrue(result.length >= values.length, "result array too short");
+    final double[] keys = data.getKeys();
+    final double firstKey = keys[0];
+    final double lastKey = keys[keys.length - 1];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolate(data, values[i], firstKey, lastKey);
+    }
+  }
+
+  private double interpolate(final Interpolator1DDataBundle data, final double value, final double firstKey, final double lastKey) {
+    if (value < firstKey) {
+      if (_leftExtrapolator != null) {
+        return _leftExtrapolator.interpolate(data, value);
+      }
+    } else if (value > lastKey) {
+      if (_rightExtrapolator != null) {
+        return _rightExtrapolator.interpolate(data, value);
+      }
+    }
+    return _interpolator.interpolate(data, value);
+  }
+
   @Override
   public double firstDerivative(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
@@ -97,6 +131,22 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
     return _interpolator.firstDerivative(data, value);
   }
 
+  @Override
+  public double firstDerivative(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
+    final double[] keys = data.getKeys();
+    if (value < keys[0]) {
+      if (_leftExtrapolator != null) {
+        return _leftExtrapolator.firstDerivative(data, value);
+      }
+    } else if (value > keys[keys.length - 1]) {
+      if (_rightExtrapolator != null) {
+        return _rightExtrapolator.firstDerivative(data, value);
+      }
+    }
+    return _interpolator.firstDerivative(data, value);
+  }
+
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(data, "data");
@@ -28,6 +28,34 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
   @Override
   public abstract Double interpolate(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Computes the interpolated value without boxing.
+   * <p>
+   * Note: this delegates to {@link #interpolate(Interpolator1DDataBundle, Double)} - this method is expected to be overridden for concrete classes that are used on hot paths
+   * @param data Interpolation Data
+   * @param value The value for which the interpolation is computed
+   * @return The interpolated value
+   */
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
+    return interpolate(data, Double.valueOf(value));
+  }
+
+  /**
+   * Computes the interpolated values at a number of points.
+   * @param data Interpolation Data
+   * @param values The values for which the interpolation is computed
+   * @param result The array to write the interpolated values to, at least as long as values
+   */
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] result) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    Validate.notNull(result, "result");
+    Validate.isTrue(result.length >= values.length, "result array too short");
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolate(data, values[i]);
+    }
+  }
+
   /**
    * Computes the gradient of the interpolant at the value.
    * <p>
@@ -51,6 +79,18 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
     return gradFunc.evaluate(value);
   }
 
+  /**
+   * Computes the gradient of the interpolant at the value without boxing.
+   * <p>
+   * Note: this delegates to {@link #firstDerivative(Interpolator1DDataBundle, Double)} - this method is expected to be overridden for concrete classes that are used on hot paths
+   * @param data Interpolation Data
+   * @param value The value for which the gradient is computed
+   * @return The gradient
+   */
+  public double firstDerivative(final Interpolator1DDataBundle data, final double value) {
+    return firstDerivative(data, Double.valueOf(value));
+  }
+
   /**
    * Generate a 1D function of the interpolant from the interpolator and the data bundle
    * @param data The knots and computed values used by the interpolator
@@ -25,37 +25,43 @@ public class LinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "Value to be interpolated must not be null");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "Data bundle must not be null");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    final int index = model.getLowerBoundIndex(value);
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    final double y1 = y[index];
+    if (index == model.size() - 1) {
       return y1;
     }
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double y2 = boundedValues.getHigherBoundValue();
-    return y1 + (value - x1) / (x2 - x1) * (y2 - y1);
+    final double x1 = x[index];
+    return y1 + (value - x1) / (x[index + 1] - x1) * (y[index + 1] - y1);
   }
 
   @Override
   public double firstDerivative(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "Value to be interpolated must not be null");
+    return firstDerivative(model, value.doubleValue());
+  }
+
+  @Override
+  public double firstDerivative(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "Data bundle must not be null");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
-      if (value > model.lastKey()) {
+    final int index = model.getLowerBoundIndex(value);
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    if (index == model.size() - 1) {
+      if (value > x[index]) {
         throw new MathException("Value of " + value + " after last key. Use exstrapolator");
       }
-      final double[] x = model.getKeys();
-      final double[] y = model.getValues();
       final int n = x.length;
       return n == 1 ? 0.0 : (y[n - 1] - y[n - 2]) / (x[n - 1] - x[n - 2]);
     }
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double y2 = boundedValues.getHigherBoundValue();
-    return (y2 - y1) / (x2 - x1);
+    return (y[index + 1] - y[index]) / (x[index + 1] - x[index]);
   }
 
   @Override
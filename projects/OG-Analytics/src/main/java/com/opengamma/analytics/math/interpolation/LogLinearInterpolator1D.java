@@ -8,7 +8,6 @@ package com.opengamma.analytics.math.interpolation;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
-import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -28,30 +27,42 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "data bundle");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final Double x1 = boundedValues.getLowerBoundKey();
-    final Double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    final int index = model.getLowerBoundIndex(value);
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    final double y1 = y[index];
+    if (index == model.size() - 1) {
       return y1;
     }
-    final Double x2 = boundedValues.getHigherBoundKey();
-    final Double y2 = boundedValues.getHigherBoundValue();
-    return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
+    final double x1 = x[index];
+    return Math.pow(y[index + 1] / y1, (value - x1) / (x[index + 1] - x1)) * y1;
   }
 
   @Override
   public double firstDerivative(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "value");
+    return firstDerivative(model, value.doubleValue());
+  }
+
+  @Override
+  public double firstDerivative(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "data bundle");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final Double x1 = boundedValues.getLowerBoundKey();
-    final Double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    final int index = model.getLowerBoundIndex(value);
+    if (index == model.size() - 1) {
       return 0.;
     }
-    final Double x2 = boundedValues.getHigherBoundKey();
-    final Double y2 = boundedValues.getHigherBoundValue();
+    final double[] x = model.getKeys();
+    final double[] y = model.getValues();
+    final double x1 = x[index];
+    final double y1 = y[index];
+    final double x2 = x[index + 1];
+    final double y2 = y[index + 1];
     return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1 * Math.log(y2 / y1) / (x2 - x1);
   }
 
@@ -14,12 +14,19 @@ import com.opengamma.util.ParallelArrayBinarySort;
 /**
  * An implementation of {@link Interpolator1DDataBundle} which holds all data in two
  * parallel-sorted double arrays.
+ * <p>
+ * The segment found by the last lower bound search is cached, so that repeated lookups in the same or the next segment do not need to search the keys.
  */
 public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle, Serializable {
   private static final long serialVersionUID = 1L;
   private final double[] _keys;
   private final double[] _values;
   private final int _n;
+  /**
+   * The index found by the last call to {@link #getLowerBoundIndex(double)}. Lookups from a curve are often for increasing values close together, so this is tried before searching the keys. It
+   * is only a hint so is not synchronized; any index read will be validated before use.
+   */
+  private transient int _lastIndex;
 
   public ArrayInterpolator1DDataBundle(final double[] keys, final double[] values) {
     this(keys, values, false);
@@ -92,6 +99,11 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle,
 
   @Override
   public int getLowerBoundIndex(final Double value) {
+    return getLowerBoundIndex(value.doubleValue());
+  }
+
+  @Override
+  public int getLowerBoundIndex(final double value) {
     if (value < _keys[0]) {
       throw new IllegalArgumentException("Could not get lower bound index for " + value + ": lowest x-value is "
           + _keys[0]);
@@ -100,9 +112,22 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle,
       throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is "
           + _keys[_keys.length - 1]);
     }
-    int index = Arrays.binarySearch(_keys, value);
+    // Try the segment found by the previous search, and the one after it, before searching the whole array
+    int index = _lastIndex;
+    if ((index < _n - 1) && (_keys[index] <= value)) {
+      if (value < _keys[index + 1]) {
+        return index;
+      }
+      index++;
+      if ((index < _n - 1) && (value < _keys[index + 1])) {
+        _lastIndex = index;
+        return index;
+      }
+    }
+    index = Arrays.binarySearch(_keys, value);
     if (index >= 0) {
       // Fast break out if it's an exact match.
+      _lastIndex = index;
       return index;
     }
     if (index < 0) {
@@ -112,6 +137,7 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle,
     if (value == -0. && index < _n - 1 && _keys[index + 1] == 0.) {
       ++index;
     }
+    _lastIndex = index;
     return index;
   }
 
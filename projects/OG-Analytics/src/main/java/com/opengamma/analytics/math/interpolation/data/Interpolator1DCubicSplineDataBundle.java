@@ -118,6 +118,11 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int getLowerBoundIndex(final double value) {
+    return _underlyingData.getLowerBoundIndex(value);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
@@ -18,6 +18,14 @@ public interface Interpolator1DDataBundle {
 
   int getLowerBoundIndex(Double value);
 
+  /**
+   * Returns the index of the lower bound key of a value without boxing it.
+   * 
+   * @param value the value
+   * @return the index, as {@link #getLowerBoundIndex(Double)}
+   */
+  int getLowerBoundIndex(double value);
+
   Double get(Double key);
 
   Double firstKey();
@@ -137,6 +137,11 @@ public class Interpolator1DDoubleQuadraticDataBundle implements Interpolator1DDa
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int getLowerBoundIndex(final double value) {
+    return _underlyingData.getLowerBoundIndex(value);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
@@ -123,6 +123,11 @@ public class Interpolator1DPiecewisePoynomialDataBundle implements Interpolator1
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int getLowerBoundIndex(final double value) {
+    return _underlyingData.getLowerBoundIndex(value);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
@@ -158,6 +158,11 @@ public class Interpolator1DPiecewisePoynomialWithExtraKnotsDataBundle
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int getLowerBoundIndex(final double value) {
+    return _underlyingData.getLowerBoundIndex(value);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
@@ -81,6 +81,11 @@ public class Interpolator1DQuadraticSplineDataBundle implements Interpolator1DDa
 
   @Override
   public int getLowerBoundIndex(final Double value) {
+    return getLowerBoundIndex(value.doubleValue());
+  }
+
+  @Override
+  public int getLowerBoundIndex(final double value) {
     final double[] keys = _underlyingData.getKeys();
     final int n = _underlyingData.size();
     if (value < keys[0]) {
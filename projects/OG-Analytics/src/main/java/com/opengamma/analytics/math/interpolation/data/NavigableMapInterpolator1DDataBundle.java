@@ -52,6 +52,11 @@ public class NavigableMapInterpolator1DDataBundle implements Interpolator1DDataB
     return i;
   }
 
+  @Override
+  public int getLowerBoundIndex(final double value) {
+    return getLowerBoundIndex(Double.valueOf(value));
+  }
+
   @Override
   public Double get(final Double key) {
     return _backingMap.get(key);
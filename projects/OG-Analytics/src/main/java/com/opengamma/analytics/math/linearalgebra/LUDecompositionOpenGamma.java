@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.RowMajorDoubleMatrix2D;
+
+/**
+ * OpenGamma implementation of LU decomposition with partial pivoting, working directly on the array of a {@link RowMajorDoubleMatrix2D}.
+ * <p>
+ * The factors are held packed into a single array, in the same layout as the matrix, and are not copied to or from any third-party matrix type.
+ */
+public class LUDecompositionOpenGamma extends Decomposition<LUDecompositionResult> {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The default absolute value below which a pivot is treated as zero and the matrix as singular. This matches the Commons implementation.
+   */
+  public static final double DEFAULT_SINGULARITY_THRESHOLD = 1.0E-11;
+
+  private final double _singularityThreshold;
+
+  /**
+   * Creates an instance using the default singularity threshold.
+   */
+  public LUDecompositionOpenGamma() {
+    this(DEFAULT_SINGULARITY_THRESHOLD);
+  }
+
+  /**
+   * @param singularityThreshold The absolute value below which a pivot is treated as zero
+   */
+  public LUDecompositionOpenGamma(final double singularityThreshold) {
+    Validate.isTrue(singularityThreshold >= 0, "singularity threshold must not be negative");
+    _singularityThreshold = singularityThreshold;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public LUDecompositionResult evaluate(final DoubleMatrix2D x) {
+    Validate.notNull(x);
+    return evaluateInPlace(new RowMajorDoubleMatrix2D(x));
+  }
+
+  /**
+   * Decomposes a matrix, leaving it unchanged.
+   * @param x The matrix, not null
+   * @return The decomposition
+   */
+  public LUDecompositionOpenGammaResult evaluate(final RowMajorDoubleMatrix2D x) {
+    Validate.notNull(x);
+    return evaluateInPlace(new RowMajorDoubleMatrix2D(x.getNumberOfRows(), x.getNumberOfColumns(), x.getData()));
+  }
+
+  /**
+   * Decomposes a matrix, overwriting it with the packed factors. The matrix must not be used again by the caller.
+   * @param x The matrix, not null
+   * @return The decomposition
+   */
+  public LUDecompositionOpenGammaResult evaluateInPlace(final RowMajorDoubleMatrix2D x) {
+    Validate.notNull(x);
+    final int n = x.getNumberOfRows();
+    Validate.isTrue(n == x.getNumberOfColumns(), "Matrix not square");
+    final double[] lu = x.getData();
+    final int[] pivot = new int[n];
+    for (int i = 0; i < n; i++) {
+      pivot[i] = i;
+    }
+    boolean even = true;
+    for (int k = 0; k < n; k++) {
+      final int rowK = k * n;
+      // Choose the largest remaining element of the column as the pivot
+      int p = k;
+      double max = Math.abs(lu[rowK + k]);
+      for (int i = k + 1; i < n; i++) {
+        final double value = Math.abs(lu[i * n + k]);
+        if (value > max) {
+          max = value;
+          p = i;
+        }
+      }
+      Validate.isTrue(max >= _singularityThreshold, "Matrix is singular; could not perform LU decomposition");
+      if (p != k) {
+        final int rowP = p * n;
+        for (int j = 0; j < n; j++) {
+          final double temp = lu[rowK + j];
+          lu[rowK + j] = lu[rowP + j];
+          lu[rowP + j] = temp;
+        }
+        final int temp = pivot[k];
+        pivot[k] = pivot[p];
+        pivot[p] = temp;
+        even = !even;
+      }
+      // Eliminate below the pivot, updating the trailing rows in place
+      final double pivotValue = lu[rowK + k];
+      for (int i = k + 1; i < n; i++) {
+        final int rowI = i * n;
+        final double l = lu[rowI + k] / pivotValue;
+        lu[rowI + k] = l;
+        if (l != 0.0) {
+          for (int j = k + 1; j < n; j++) {
+            lu[rowI + j] -= l * lu[rowK + j];
+          }
+        }
+      }
+    }
+    return new LUDecompositionOpenGammaResult(lu, n, pivot, even);
+  }
+
+}
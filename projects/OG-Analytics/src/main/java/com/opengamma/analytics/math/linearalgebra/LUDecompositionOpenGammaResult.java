@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.RowMajorDoubleMatrix2D;
+
+/**
+ * Results of the OpenGamma implementation of LU decomposition ({@link LUDecompositionOpenGamma}).
+ * <p>
+ * $\mathbf{L}$, without its unit diagonal, and $\mathbf{U}$ are held packed into a single row-major array. The solvers work on that array directly.
+ */
+public class LUDecompositionOpenGammaResult implements LUDecompositionResult, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final double[] _lu;
+  private final int _n;
+  private final int[] _pivot;
+  private final double _determinant;
+
+  /**
+   * @param lu The packed factors, in row-major order, not null
+   * @param n The size of the matrix
+   * @param pivot The pivot permutation vector, not null
+   * @param even Whether the permutation is even
+   */
+  public LUDecompositionOpenGammaResult(final double[] lu, final int n, final int[] pivot, final boolean even) {
+    Validate.notNull(lu, "lu");
+    Validate.notNull(pivot, "pivot");
+    Validate.isTrue(lu.length == n * n, "factors are not square");
+    Validate.isTrue(pivot.length == n, "pivot vector does not match factors");
+    _lu = lu;
+    _n = n;
+    _pivot = pivot;
+    double determinant = even ? 1 : -1;
+    for (int i = 0; i < n; i++) {
+      determinant *= lu[i * n + i];
+    }
+    _determinant = determinant;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDeterminant() {
+    return _determinant;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getL() {
+    final double[][] l = new double[_n][_n];
+    for (int i = 0; i < _n; i++) {
+      System.arraycopy(_lu, i * _n, l[i], 0, i);
+      l[i][i] = 1;
+    }
+    return new DoubleMatrix2D(l);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getU() {
+    final double[][] u = new double[_n][_n];
+    for (int i = 0; i < _n; i++) {
+      System.arraycopy(_lu, i * _n + i, u[i], i, _n - i);
+    }
+    return new DoubleMatrix2D(u);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getP() {
+    final double[][] p = new double[_n][_n];
+    for (int i = 0; i < _n; i++) {
+      p[i][_pivot[i]] = 1;
+    }
+    return new DoubleMatrix2D(p);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] getPivot() {
+    return _pivot.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix1D solve(final DoubleMatrix1D b) {
+    Validate.notNull(b);
+    return new DoubleMatrix1D(solve(b.getData()), false);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double[] solve(final double[] b) {
+    Validate.notNull(b);
+    Validate.isTrue(b.length == _n, "b array of incorrect size");
+    final double[] x = new double[_n];
+    for (int i = 0; i < _n; i++) {
+      x[i] = b[_pivot[i]];
+    }
+    // Forward substitution with the unit lower triangle
+    for (int i = 1; i < _n; i++) {
+      final int row = i * _n;
+      double sum = x[i];
+      for (int j = 0; j < i; j++) {
+        sum -= _lu[row + j] * x[j];
+      }
+      x[i] = sum;
+    }
+    // Back substitution with the upper triangle
+    for (int i = _n - 1; i >= 0; i--) {
+      final int row = i * _n;
+      double sum = x[i];
+      for (int j = i + 1; j < _n; j++) {
+        sum -= _lu[row + j] * x[j];
+      }
+      x[i] = sum / _lu[row + i];
+    }
+    return x;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D solve(final DoubleMatrix2D b) {
+    Validate.notNull(b);
+    return solve(new RowMajorDoubleMatrix2D(b)).toDoubleMatrix2D();
+  }
+
+  /**
+   * Solves $\mathbf{A}x = \mathbf{B}$ for all of the columns of $\mathbf{B}$ together, working along the rows of both matrices.
+   * @param b matrix, not null
+   * @return the matrix x
+   */
+  public RowMajorDoubleMatrix2D solve(final RowMajorDoubleMatrix2D b) {
+    Validate.notNull(b);
+    Validate.isTrue(b.getNumberOfRows() == _n, "b matrix of incorrect size");
+    final int m = b.getNumberOfColumns();
+    final double[] data = b.getData();
+    final double[] x = new double[_n * m];
+    for (int i = 0; i < _n; i++) {
+      System.arraycopy(data, _pivot[i] * m, x, i * m, m);
+    }
+    for (int i = 1; i < _n; i++) {
+      final int row = i * _n;
+      final int xi = i * m;
+      for (int j = 0; j < i; j++) {
+        final double l = _lu[row + j];
+        if (l != 0.0) {
+          final int xj = j * m;
+          for (int k = 0; k < m; k++) {
+            x[xi + k] -= l * x[xj + k];
+          }
+        }
+      }
+    }
+    for (int i = _n - 1; i >= 0; i--) {
+      final int row = i * _n;
+      final int xi = i * m;
+      for (int j = i + 1; j < _n; j++) {
+        final double u = _lu[row + j];
+        if (u != 0.0) {
+          final int xj = j * m;
+          for (int k = 0; k < m; k++) {
+            x[xi + k] -= u * x[xj + k];
+          }
+        }
+      }
+      final double diagonal = _lu[row + i];
+      for (int k = 0; k < m; k++) {
+        x[xi + k] /= diagonal;
+      }
+    }
+    return new RowMajorDoubleMatrix2D(_n, m, x, false);
+  }
+
+}
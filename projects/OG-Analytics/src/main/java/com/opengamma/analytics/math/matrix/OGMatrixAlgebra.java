@@ -14,9 +14,16 @@ import com.opengamma.util.ArgumentChecker;
 /**
  * An absolutely minimal implementation of matrix algebra - only various multiplications covered. For more advanced
  * stuff (e.g. calculating the inverse) use {@link ColtMatrixAlgebra} or {@link CommonsMatrixAlgebra}
+ * <p>
+ * Products of {@link RowMajorDoubleMatrix2D} are computed in blocks so that the parts of the operands being used stay in cache.
  */
 public class OGMatrixAlgebra extends MatrixAlgebra {
 
+  /**
+   * The number of rows or columns of each block of a matrix product. Three blocks of 64 by 64 doubles fit in a typical level 2 cache.
+   */
+  private static final int BLOCK_SIZE = 64;
+
   /**
    * {@inheritDoc}
    * @throws NotImplementedException
@@ -183,6 +190,31 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
     throw new IllegalArgumentException("Can only take transpose of DoubleMatrix2D; have " + m.getClass());
   }
 
+  /**
+   * Returns the transpose of a matrix, copying it a block at a time.
+   * @param m The matrix, not null
+   * @return The transpose
+   */
+  public RowMajorDoubleMatrix2D getTranspose(final RowMajorDoubleMatrix2D m) {
+    Validate.notNull(m, "m");
+    final double[] a = m.getData();
+    final int rows = m.getNumberOfRows();
+    final int cols = m.getNumberOfColumns();
+    final double[] res = new double[a.length];
+    for (int ii = 0; ii < rows; ii += BLOCK_SIZE) {
+      final int iEnd = Math.min(ii + BLOCK_SIZE, rows);
+      for (int jj = 0; jj < cols; jj += BLOCK_SIZE) {
+        final int jEnd = Math.min(jj + BLOCK_SIZE, cols);
+        for (int i = ii; i < iEnd; i++) {
+          for (int j = jj; j < jEnd; j++) {
+            res[j * rows + i] = a[i * cols + j];
+          }
+        }
+      }
+    }
+    return new RowMajorDoubleMatrix2D(cols, rows, res, false);
+  }
+
   /**
    * {@inheritDoc} The following combinations of input matrices m1 and m2 are allowed:
    * <ul>
@@ -190,6 +222,7 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
    * <li>m1 = 2-D matrix, m2 = 1-D matrix, returns $\mathbf{C} = \mathbf{A}b$
    * <li>m1 = 1-D matrix, m2 = 2-D matrix, returns $\mathbf{C} = a^T\mathbf{B}$
    * </ul>
+   * A {@link RowMajorDoubleMatrix2D} can be multiplied by another, giving a {@link RowMajorDoubleMatrix2D}, or by a 1-D matrix.
    */
   @Override
   public Matrix<?> multiply(final Matrix<?> m1, final Matrix<?> m2) {
@@ -215,6 +248,15 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
       throw new IllegalArgumentException("can only handle  DoubleMatrix2D or DoubleMatrix1D by IdentityMatrix, have " +
           m1.getClass() + " and " + m2.getClass());
     }
+    if (m1 instanceof RowMajorDoubleMatrix2D) {
+      if (m2 instanceof RowMajorDoubleMatrix2D) {
+        return multiply((RowMajorDoubleMatrix2D) m1, (RowMajorDoubleMatrix2D) m2);
+      } else if (m2 instanceof DoubleMatrix1D) {
+        return multiply((RowMajorDoubleMatrix2D) m1, (DoubleMatrix1D) m2);
+      }
+      throw new IllegalArgumentException("can only handle RowMajorDoubleMatrix2D by RowMajorDoubleMatrix2D or DoubleMatrix1D, have " +
+          m1.getClass() + " and " + m2.getClass());
+    }
     if (m1 instanceof TridiagonalMatrix && m2 instanceof DoubleMatrix1D) {
       return multiply((TridiagonalMatrix) m1, (DoubleMatrix1D) m2);
     } else if (m1 instanceof DoubleMatrix1D && m2 instanceof TridiagonalMatrix) {
@@ -269,21 +311,131 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
             m2.getNumberOfRows() + " by " + m2.getNumberOfColumns());
     final int m = a.length;
     final int n = b[0].length;
-    double sum;
     final double[][] res = new double[m][n];
     int i, j, k;
+    // Accumulate along the rows of b rather than down its columns; each element still sums its terms in order of k
     for (i = 0; i < m; i++) {
-      for (j = 0; j < n; j++) {
-        sum = 0.0;
-        for (k = 0; k < p; k++) {
-          sum += a[i][k] * b[k][j];
+      final double[] ai = a[i];
+      final double[] resi = res[i];
+      for (k = 0; k < p; k++) {
+        final double aik = ai[k];
+        final double[] bk = b[k];
+        for (j = 0; j < n; j++) {
+          resi[j] += aik * bk[j];
         }
-        res[i][j] = sum;
       }
     }
     return new DoubleMatrix2D(res);
   }
 
+  private RowMajorDoubleMatrix2D multiply(final RowMajorDoubleMatrix2D m1, final RowMajorDoubleMatrix2D m2) {
+    final int m = m1.getNumberOfRows();
+    final int p = m1.getNumberOfColumns();
+    final int n = m2.getNumberOfColumns();
+    Validate.isTrue(
+        m2.getNumberOfRows() == p,
+        "Matrix size mismatch. m1 is " + m + " by " + p + ", but m2 is " + m2.getNumberOfRows() + " by " + n);
+    final double[] res = new double[m * n];
+    multiplyAdd(m1.getData(), false, m2.getData(), m, p, n, res);
+    return new RowMajorDoubleMatrix2D(m, n, res, false);
+  }
+
+  /**
+   * Returns $\mathbf{A}^T\mathbf{B}$ without forming the transpose of $\mathbf{A}$, for example to form the normal equations $\mathbf{J}^T\mathbf{J}$ from a Jacobian.
+   * @param m1 The matrix $\mathbf{A}$, not null
+   * @param m2 The matrix $\mathbf{B}$, not null
+   * @return The product
+   */
+  public RowMajorDoubleMatrix2D getTransposeMultiply(final RowMajorDoubleMatrix2D m1, final RowMajorDoubleMatrix2D m2) {
+    Validate.notNull(m1, "m1");
+    Validate.notNull(m2, "m2");
+    final int p = m1.getNumberOfRows();
+    final int m = m1.getNumberOfColumns();
+    final int n = m2.getNumberOfColumns();
+    Validate.isTrue(
+        m2.getNumberOfRows() == p,
+        "Matrix size mismatch. m1 is " + p + " by " + m + ", but m2 is " + m2.getNumberOfRows() + " by " + n);
+    final double[] res = new double[m * n];
+    multiplyAdd(m1.getData(), true, m2.getData(), m, p, n, res);
+    return new RowMajorDoubleMatrix2D(m, n, res, false);
+  }
+
+  /**
+   * Adds $\mathbf{AB}$ to $\mathbf{C}$, in place.
+   * @param m1 The matrix $\mathbf{A}$, not null
+   * @param m2 The matrix $\mathbf{B}$, not null
+   * @param result The matrix $\mathbf{C}$, not null. This is updated.
+   */
+  public void multiplyAdd(final RowMajorDoubleMatrix2D m1, final RowMajorDoubleMatrix2D m2, final RowMajorDoubleMatrix2D result) {
+    Validate.notNull(m1, "m1");
+    Validate.notNull(m2, "m2");
+    Validate.notNull(result, "result");
+    final int m = m1.getNumberOfRows();
+    final int p = m1.getNumberOfColumns();
+    final int n = m2.getNumberOfColumns();
+    Validate.isTrue(
+        m2.getNumberOfRows() == p,
+        "Matrix size mismatch. m1 is " + m + " by " + p + ", but m2 is " + m2.getNumberOfRows() + " by " + n);
+    Validate.isTrue(result.getNumberOfRows() == m && result.getNumberOfColumns() == n, "Result matrix size mismatch");
+    multiplyAdd(m1.getData(), false, m2.getData(), m, p, n, result.getData());
+  }
+
+  /**
+   * Adds $\alpha xy^T$ to $\mathbf{C}$, in place. This is the rank-one update used by Broyden and Sherman-Morrison updates of a Jacobian or its inverse.
+   * @param result The matrix $\mathbf{C}$, not null. This is updated.
+   * @param alpha The scale factor
+   * @param x The vector $x$, not null
+   * @param y The vector $y$, not null
+   */
+  public void addOuterProduct(final RowMajorDoubleMatrix2D result, final double alpha, final DoubleMatrix1D x, final DoubleMatrix1D y) {
+    Validate.notNull(result, "result");
+    Validate.notNull(x, "x");
+    Validate.notNull(y, "y");
+    final int m = result.getNumberOfRows();
+    final int n = result.getNumberOfColumns();
+    Validate.isTrue(x.getNumberOfElements() == m && y.getNumberOfElements() == n, "Vector size mismatch");
+    final double[] c = result.getData();
+    final double[] a = x.getData();
+    final double[] b = y.getData();
+    for (int i = 0; i < m; i++) {
+      final double ai = alpha * a[i];
+      final int offset = i * n;
+      for (int j = 0; j < n; j++) {
+        c[offset + j] += ai * b[j];
+      }
+    }
+  }
+
+  /**
+   * Blocked kernel adding $\mathbf{AB}$, or $\mathbf{A}^T\mathbf{B}$, to $\mathbf{C}$. The innermost loop runs along a row of $\mathbf{B}$ and of $\mathbf{C}$; each element of
+   * $\mathbf{C}$ still has its terms added in order of $k$ so the result is the same as the unblocked product.
+   * @param a The elements of $\mathbf{A}$, m by p (or p by m if transposed)
+   * @param transposeA Whether to use the transpose of $\mathbf{A}$
+   * @param b The elements of $\mathbf{B}$, p by n
+   * @param m The number of rows of the product
+   * @param p The inner dimension
+   * @param n The number of columns of the product
+   * @param c The elements of $\mathbf{C}$, m by n
+   */
+  private static void multiplyAdd(final double[] a, final boolean transposeA, final double[] b, final int m, final int p, final int n, final double[] c) {
+    for (int kk = 0; kk < p; kk += BLOCK_SIZE) {
+      final int kEnd = Math.min(kk + BLOCK_SIZE, p);
+      for (int jj = 0; jj < n; jj += BLOCK_SIZE) {
+        final int jEnd = Math.min(jj + BLOCK_SIZE, n);
+        for (int i = 0; i < m; i++) {
+          final int ci = i * n;
+          for (int k = kk; k < kEnd; k++) {
+            final double aik = transposeA ? a[k * m + i] : a[i * p + k];
+            final int bk = k * n;
+            for (int j = jj; j < jEnd; j++) {
+              c[ci + j] += aik * b[bk + j];
+            }
+          }
+        }
+      }
+    }
+  }
+
   private DoubleMatrix1D multiply(final IdentityMatrix matrix, final DoubleMatrix1D vector) {
     ArgumentChecker.isTrue(matrix.getSize() == vector.getNumberOfElements(),
         "size of identity matrix ({}) does not match size of vector ({})", matrix.getSize(),
@@ -317,6 +469,24 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
     return new DoubleMatrix1D(res);
   }
 
+  private DoubleMatrix1D multiply(final RowMajorDoubleMatrix2D matrix, final DoubleMatrix1D vector) {
+    final double[] a = matrix.getData();
+    final double[] b = vector.getData();
+    final int n = b.length;
+    Validate.isTrue(matrix.getNumberOfColumns() == n, "Matrix/vector size mismatch");
+    final int m = matrix.getNumberOfRows();
+    final double[] res = new double[m];
+    for (int i = 0; i < m; i++) {
+      final int offset = i * n;
+      double sum = 0.0;
+      for (int j = 0; j < n; j++) {
+        sum += a[offset + j] * b[j];
+      }
+      res[i] = sum;
+    }
+    return new DoubleMatrix1D(res);
+  }
+
   private DoubleMatrix1D multiply(final TridiagonalMatrix matrix, final DoubleMatrix1D vector) {
     final double[] a = matrix.getLowerSubDiagonalData();
     final double[] b = matrix.getDiagonalData();
@@ -342,13 +512,13 @@ public class OGMatrixAlgebra extends MatrixAlgebra {
     final int m = b[0].length;
     final double[] res = new double[m];
     int i, j;
-    double sum;
-    for (i = 0; i < m; i++) {
-      sum = 0.0;
-      for (j = 0; j < n; j++) {
-        sum += a[j] * b[j][i];
+    // Accumulate along the rows of the matrix; each element still sums its terms in order of j
+    for (j = 0; j < n; j++) {
+      final double aj = a[j];
+      final double[] bj = b[j];
+      for (i = 0; i < m; i++) {
+        res[i] += aj * bj[i];
       }
-      res[i] = sum;
     }
     return new DoubleMatrix1D(res);
   }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A 2D matrix of doubles held in a single array in row-major order, so element $(i, j)$ is at index $i \times columns + j$.
+ * <p>
+ * Unlike {@link DoubleMatrix2D}, a row follows on directly from the one before it in memory. This suits the blocked kernels in {@link OGMatrixAlgebra} and decompositions which work on the array
+ * directly.
+ */
+public class RowMajorDoubleMatrix2D implements Matrix<Double>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final double[] _data;
+  private final int _rows;
+  private final int _columns;
+
+  /**
+   * Sets up a matrix of zeros.
+   * @param rows Number of rows
+   * @param columns Number of columns
+   */
+  public RowMajorDoubleMatrix2D(final int rows, final int columns) {
+    Validate.isTrue(rows > 0, "row number cannot be negative or zero");
+    Validate.isTrue(columns > 0, "column number cannot be negative or zero");
+    _rows = rows;
+    _columns = columns;
+    _data = new double[rows * columns];
+  }
+
+  /**
+   * @param rows Number of rows
+   * @param columns Number of columns
+   * @param data The data in row-major order, not null. This is copied.
+   */
+  public RowMajorDoubleMatrix2D(final int rows, final int columns, final double[] data) {
+    this(rows, columns, data, true);
+  }
+
+  /**
+   * @param rows Number of rows
+   * @param columns Number of columns
+   * @param data The data in row-major order, not null
+   * @param copy Whether to copy the data. If false the matrix will use the array, and changes to one will be visible in the other.
+   */
+  public RowMajorDoubleMatrix2D(final int rows, final int columns, final double[] data, final boolean copy) {
+    Validate.notNull(data, "data");
+    Validate.isTrue(rows >= 0, "row number cannot be negative");
+    Validate.isTrue(columns >= 0, "column number cannot be negative");
+    ArgumentChecker.isTrue(data.length == rows * columns, "data length {} does not match {} rows by {} columns", data.length, rows, columns);
+    _rows = rows;
+    _columns = columns;
+    _data = copy ? Arrays.copyOf(data, data.length) : data;
+  }
+
+  /**
+   * @param matrix The matrix to copy, not null
+   */
+  public RowMajorDoubleMatrix2D(final DoubleMatrix2D matrix) {
+    Validate.notNull(matrix, "matrix");
+    _rows = matrix.getNumberOfRows();
+    _columns = matrix.getNumberOfColumns();
+    _data = new double[_rows * _columns];
+    final double[][] data = matrix.getData();
+    for (int i = 0; i < _rows; i++) {
+      System.arraycopy(data[i], 0, _data, i * _columns, _columns);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getEntry(final int... index) {
+    ArgumentChecker.notNull(index, "indices");
+    return get(index[0], index[1]);
+  }
+
+  /**
+   * Returns an element.
+   * @param row The row index
+   * @param column The column index
+   * @return The element
+   */
+  public double get(final int row, final int column) {
+    ArgumentChecker.isTrue(row < _rows, "row index {} is greater than number of rows {}", row, _rows);
+    ArgumentChecker.isTrue(column < _columns, "column index {} is greater than number of columns {}", column, _columns);
+    return _data[row * _columns + column];
+  }
+
+  /**
+   * Sets an element.
+   * @param row The row index
+   * @param column The column index
+   * @param value The value
+   */
+  public void set(final int row, final int column, final double value) {
+    ArgumentChecker.isTrue(row < _rows, "row index {} is greater than number of rows {}", row, _rows);
+    ArgumentChecker.isTrue(column < _columns, "column index {} is greater than number of columns {}", column, _columns);
+    _data[row * _columns + column] = value;
+  }
+
+  /**
+   * Returns a copy of the row for a particular index.
+   * @param index The index
+   * @return The row
+   */
+  public DoubleMatrix1D getRowVector(final int index) {
+    return new DoubleMatrix1D(Arrays.copyOfRange(_data, index * _columns, (index + 1) * _columns), false);
+  }
+
+  /**
+   * Returns the underlying data in row-major order. If this is changed so is the matrix.
+   * @return The matrix elements
+   */
+  public double[] getData() {
+    return _data;
+  }
+
+  /**
+   * Copies the matrix to a {@link DoubleMatrix2D}.
+   * @return The copy
+   */
+  public DoubleMatrix2D toDoubleMatrix2D() {
+    final double[][] data = new double[_rows][];
+    for (int i = 0; i < _rows; i++) {
+      data[i] = Arrays.copyOfRange(_data, i * _columns, (i + 1) * _columns);
+    }
+    return new DoubleMatrix2D(data);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getNumberOfElements() {
+    return _data.length;
+  }
+
+  /**
+   * @return The number of rows in this matrix
+   */
+  public int getNumberOfRows() {
+    return _rows;
+  }
+
+  /**
+   * @return The number of columns in this matrix
+   */
+  public int getNumberOfColumns() {
+    return _columns;
+  }
+
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + _columns;
+    result = prime * result + _rows;
+    result = prime * result + Arrays.hashCode(_data);
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (getClass() != obj.getClass()) {
+      return false;
+    }
+    final RowMajorDoubleMatrix2D other = (RowMajorDoubleMatrix2D) obj;
+    return (_rows == other._rows) && (_columns == other._columns) && Arrays.equals(_data, other._data);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuffer sb = new StringBuffer();
+    for (int i = 0; i < _data.length; i++) {
+      sb.append(_data[i]);
+      sb.append((i % _columns) == _columns - 1 ? "\n" : "\t");
+    }
+    return sb.toString();
+  }
+
+}
@@ -18,6 +18,8 @@ import com.opengamma.analytics.math.matrix.MatrixAlgebra;
 import com.opengamma.analytics.math.matrix.OGMatrixAlgebra;
 import com.opengamma.analytics.math.rootfinding.VectorRootFinder;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
 
 /**
  * Base implementation for all Newton-Raphson style multi-dimensional root finding (i.e. using the Jacobian matrix as a basis for some iterative process)
@@ -60,8 +62,22 @@ public class NewtonVectorRootFinder extends VectorRootFinder {
   * @return the vector root of the collection of functions 
    */
 
-  @SuppressWarnings("synthetic-access")
   public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D startPosition) {
+    return getRootAndEstimate(function, jacobianFunction, startPosition, null).getFirst();
+  }
+
+  /**
+   * Finds the root, optionally starting from an existing estimate of the matrix (for example, the one left by a previous search) rather than initialising it at the start position.
+   * If the first step cannot be made with an existing estimate, the matrix is initialised and the step tried again.
+   * @param function a vector function (i.e. vector to vector)
+   * @param jacobianFunction calculates the Jacobian
+   * @param startPosition where to start the root finder for
+   * @param initialEstimate the matrix estimate to start from, in the form used by the direction and update functions; null to initialise it at the start position
+   * @return the vector root and the matrix estimate used for the last step
+   */
+  @SuppressWarnings("synthetic-access")
+  public Pair<DoubleMatrix1D, DoubleMatrix2D> getRootAndEstimate(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function,
+      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D startPosition, final DoubleMatrix2D initialEstimate) {
     checkInputs(function, startPosition);
 
     final DataBundle data = new DataBundle();
@@ -69,13 +85,23 @@ public class NewtonVectorRootFinder extends VectorRootFinder {
     data.setX(startPosition);
     data.setY(y);
     data.setG0(_algebra.getInnerProduct(y, y));
-    DoubleMatrix2D estimate = _initializationFunction.getInitializedMatrix(jacobianFunction, startPosition);
+    DoubleMatrix2D estimate = initialEstimate == null ? _initializationFunction.getInitializedMatrix(jacobianFunction, startPosition) : initialEstimate;
 
     if (!getNextPosition(function, estimate, data)) {
       if (isConverged(data)) {
-        return data.getX(); // this can happen if the starting position is the root
+        return Pairs.of(data.getX(), estimate); // this can happen if the starting position is the root
+      }
+      if (initialEstimate == null) {
+        throw new MathException("Cannot work with this starting position. Please choose another point");
+      }
+      // the existing estimate may be too far from the Jacobian here
+      estimate = _initializationFunction.getInitializedMatrix(jacobianFunction, startPosition);
+      if (!getNextPosition(function, estimate, data)) {
+        if (isConverged(data)) {
+          return Pairs.of(data.getX(), estimate);
+        }
+        throw new MathException("Cannot work with this starting position. Please choose another point");
       }
-      throw new MathException("Cannot work with this starting position. Please choose another point");
     }
 
     int count = 0;
@@ -95,7 +121,7 @@ public class NewtonVectorRootFinder extends VectorRootFinder {
         jacReconCount = 1;
         if (!getNextPosition(function, estimate, data)) {
           if (isConverged(data)) {
-            return data.getX(); //non-standard exit. Cannot find an improvement from this position, so provided we are close enough to the root, exit.
+            return Pairs.of(data.getX(), estimate); //non-standard exit. Cannot find an improvement from this position, so provided we are close enough to the root, exit.
           }
           String msg = "Failed to converge in backtracking, even after a Jacobian recalculation." + getErrorMessage(data, jacobianFunction);
           s_logger.info(msg);
@@ -107,7 +133,7 @@ public class NewtonVectorRootFinder extends VectorRootFinder {
         throw new MathException("Failed to converge - maximum iterations of " + _maxSteps + " reached." + getErrorMessage(data, jacobianFunction));
       }
     }
-    return data.getX();
+    return Pairs.of(data.getX(), estimate);
   }
 
   private String getErrorMessage(final DataBundle data, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction) {
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.differentiation.VectorFieldFirstOrderDifferentiator;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.matrix.OGMatrixAlgebra;
+import com.opengamma.analytics.math.rootfinding.VectorRootFinder;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Root finder for a sequence of closely related problems, such as recalibrating the same curve or surface each time its market data ticks.
+ * <p>
+ * The session keeps the root and the inverse Jacobian estimate from the last search. The next search starts from that root with that estimate, which is then updated with the Sherman-Morrison
+ * form of Broyden's formula ({@link ShermanMorrisonMatrixUpdateFunction}) as for {@link ShermanMorrisonVectorRootFinder}. The Jacobian is only calculated again when the updated estimate stops
+ * giving steps which reduce the function, or at the usual regular interval during a long search. When the inputs have moved only slightly, a search typically needs a few function evaluations
+ * and no Jacobian evaluation at all.
+ * <p>
+ * If a search from the previous root fails, it is repeated from the given start position with a freshly calculated Jacobian, so the session finds any root that
+ * {@link ShermanMorrisonVectorRootFinder} would. The starting point passed to each search is otherwise only used when there is no previous root of the same dimension.
+ * <p>
+ * This class is not thread-safe; each sequence of problems should have its own session.
+ */
+public class ShermanMorrisonVectorRootFinderSession extends VectorRootFinder {
+  private static final Logger s_logger = LoggerFactory.getLogger(ShermanMorrisonVectorRootFinderSession.class);
+  private static final double DEF_TOL = 1e-7;
+  private static final int MAX_STEPS = 100;
+  private final NewtonVectorRootFinder _rootFinder;
+  private DoubleMatrix1D _root;
+  private DoubleMatrix2D _inverseJacobian;
+
+  public ShermanMorrisonVectorRootFinderSession() {
+    this(DEF_TOL, DEF_TOL, MAX_STEPS);
+  }
+
+  public ShermanMorrisonVectorRootFinderSession(final double absoluteTol, final double relativeTol, final int maxSteps) {
+    this(absoluteTol, relativeTol, maxSteps, new LUDecompositionCommons());
+  }
+
+  public ShermanMorrisonVectorRootFinderSession(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp) {
+    this(absoluteTol, relativeTol, maxSteps, decomp, new OGMatrixAlgebra());
+  }
+
+  public ShermanMorrisonVectorRootFinderSession(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp, final MatrixAlgebra algebra) {
+    _rootFinder = new ShermanMorrisonVectorRootFinder(absoluteTol, relativeTol, maxSteps, decomp, algebra);
+  }
+
+  /**
+   * {@inheritDoc}
+   * The Jacobian is calculated by finite difference when it is needed.
+   */
+  @Override
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final DoubleMatrix1D startPosition) {
+    final VectorFieldFirstOrderDifferentiator jac = new VectorFieldFirstOrderDifferentiator();
+    return getRoot(function, jac.differentiate(function), startPosition);
+  }
+
+  /**
+   * Finds the root, starting from the previous root and inverse Jacobian estimate if there are any of the right size.
+   * @param function a vector function (i.e. vector to vector), not null
+   * @param jacobianFunction calculates the Jacobian, not null
+   * @param startPosition where to start if there is no previous root of the same size, or if the search from it fails, not null
+   * @return the vector root of the collection of functions
+   */
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction,
+      final DoubleMatrix1D startPosition) {
+    ArgumentChecker.notNull(jacobianFunction, "Jacobian function");
+    ArgumentChecker.notNull(startPosition, "start position");
+    if ((_root != null) && (_root.getNumberOfElements() == startPosition.getNumberOfElements())) {
+      try {
+        return setState(_rootFinder.getRootAndEstimate(function, jacobianFunction, _root, _inverseJacobian));
+      } catch (final MathException e) {
+        s_logger.debug("Could not find the root from the previous one, using the start position: {}", e.getMessage());
+      }
+    }
+    reset();
+    return setState(_rootFinder.getRootAndEstimate(function, jacobianFunction, startPosition, null));
+  }
+
+  private DoubleMatrix1D setState(final Pair<DoubleMatrix1D, DoubleMatrix2D> result) {
+    _root = result.getFirst();
+    _inverseJacobian = result.getSecond();
+    return _root;
+  }
+
+  /**
+   * Discards the previous root and inverse Jacobian estimate, so the next search starts from its start position.
+   */
+  public void reset() {
+    _root = null;
+    _inverseJacobian = null;
+  }
+
+  /**
+   * Gets the root found by the last search.
+   * @return the root, null if there has been no successful search since the session was created or reset
+   */
+  public DoubleMatrix1D getLastRoot() {
+    return _root;
+  }
+
+  /**
+   * Gets the inverse Jacobian estimate left by the last search.
+   * @return the estimate, null if there has been no successful search since the session was created or reset
+   */
+  public DoubleMatrix2D getInverseJacobianEstimate() {
+    return _inverseJacobian;
+  }
+
+}
@@ -8954,6 +8954,136 @@ public class BlackFormulaRepositoryTest {
     }
   }
 
+  /*
+   * 
+   * Batch tests
+   */
+  /**
+   * The batch formulas give the scalar results, including the edge cases which are delegated to the scalar formulas.
+   */
+  @Test
+  public void batchTest() {
+    final double[] extraForward = new double[] {FORWARD, FORWARD, FORWARD, FORWARD, FORWARD, 0., 2.e13, FORWARD };
+    final double[] extraStrike = new double[] {FORWARD, FORWARD + 1.e-14, 0., 95., 95., FORWARD, 3.e13, 1.e14 };
+    final double[] extraTime = new double[] {TIME_TO_EXPIRY, TIME_TO_EXPIRY, TIME_TO_EXPIRY, 0., TIME_TO_EXPIRY, TIME_TO_EXPIRY, TIME_TO_EXPIRY, 1.e-20 };
+    final double[] extraVol = new double[] {VOLS[2], VOLS[2], VOLS[2], VOLS[2], 1.e15, VOLS[2], VOLS[2], VOLS[2] };
+    final int nStrikes = STRIKES_INPUT.length;
+    final int nVols = VOLS.length;
+    final int nGrid = 2 * nStrikes * nVols;
+    final int n = nGrid + 2 * extraForward.length;
+    final double[] forward = new double[n];
+    final double[] strike = new double[n];
+    final double[] time = new double[n];
+    final double[] vol = new double[n];
+    final boolean[] isCall = new boolean[n];
+    int index = 0;
+    for (int i = 0; i < nStrikes; ++i) {
+      for (int j = 0; j < nVols; ++j) {
+        for (int k = 0; k < 2; ++k) {
+          forward[index] = FORWARD;
+          strike[index] = STRIKES_INPUT[i];
+          time[index] = TIME_TO_EXPIRY;
+          vol[index] = VOLS[j];
+          isCall[index++] = k == 0;
+        }
+      }
+    }
+    for (int i = 0; i < extraForward.length; ++i) {
+      for (int k = 0; k < 2; ++k) {
+        forward[index] = extraForward[i];
+        strike[index] = extraStrike[i];
+        time[index] = extraTime[i];
+        vol[index] = extraVol[i];
+        isCall[index++] = k == 0;
+      }
+    }
+    final double[] price = BlackFormulaRepository.price(forward, strike, time, vol, isCall);
+    final double[] delta = BlackFormulaRepository.delta(forward, strike, time, vol, isCall);
+    final double[] gamma = BlackFormulaRepository.gamma(forward, strike, time, vol);
+    final double[] vega = BlackFormulaRepository.vega(forward, strike, time, vol);
+    for (int i = 0; i < n; ++i) {
+      assertBatchEquals(BlackFormulaRepository.price(forward[i], strike[i], time[i], vol[i], isCall[i]), price[i]);
+      assertBatchEquals(BlackFormulaRepository.delta(forward[i], strike[i], time[i], vol[i], isCall[i]), delta[i]);
+      assertBatchEquals(BlackFormulaRepository.gamma(forward[i], strike[i], time[i], vol[i]), gamma[i]);
+      assertBatchEquals(BlackFormulaRepository.vega(forward[i], strike[i], time[i], vol[i]), vega[i]);
+    }
+    for (int i = 0; i < nGrid; ++i) {
+      assertEquals(PRE_COMPUTER_PRICES[i / (2 * nVols)][(i / 2) % nVols], isCall[i] ? price[i] : price[i] + FORWARD - strike[i], EPS);
+    }
+  }
+
+  private static void assertBatchEquals(final double expected, final double actual) {
+    assertEquals(expected, actual, 1.e-14 * Math.max(1., Math.abs(expected)));
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void batchVolRecoveryTest() {
+    final int nStrikes = STRIKES_INPUT.length;
+    final int nVols = VOLS.length;
+    final int n = 2 * nStrikes * nVols;
+    final double[] forward = new double[n];
+    final double[] strike = new double[n];
+    final double[] time = new double[n];
+    final double[] vol = new double[n];
+    final boolean[] isCall = new boolean[n];
+    for (int i = 0; i < n; ++i) {
+      forward[i] = FORWARD;
+      strike[i] = STRIKES_INPUT[i / (2 * nVols)];
+      time[i] = TIME_TO_EXPIRY;
+      vol[i] = VOLS[(i / 2) % nVols];
+      isCall[i] = i % 2 == 0;
+    }
+    final double[] price = BlackFormulaRepository.price(forward, strike, time, vol, isCall);
+    final double[] res = BlackFormulaRepository.impliedVolatility(price, forward, strike, time, isCall);
+    for (int i = 0; i < n; ++i) {
+      assertEquals(vol[i], res[i], Math.abs(vol[i]) * 1.e-8);
+      assertEquals(BlackFormulaRepository.impliedVolatility(price[i], forward[i], strike[i], time[i], isCall[i]), res[i], Math.abs(vol[i]) * 1.e-8);
+    }
+    // ATM and zero time value
+    final double[] atm = BlackFormulaRepository.impliedVolatility(new double[] {10., FORWARD - 95. }, new double[] {FORWARD, FORWARD }, new double[] {FORWARD, 95. },
+        new double[] {TIME_TO_EXPIRY, TIME_TO_EXPIRY }, new boolean[] {true, true });
+    assertEquals(BlackFormulaRepository.impliedVolatility(10., FORWARD, FORWARD, TIME_TO_EXPIRY, true), atm[0], 1.e-13);
+    assertEquals(0., atm[1], 0.);
+  }
+
+  /**
+   *
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void batchNegativeVolErrorTest() {
+    BlackFormulaRepository.price(new double[] {FORWARD, FORWARD }, new double[] {95., 95. }, new double[] {TIME_TO_EXPIRY, TIME_TO_EXPIRY }, new double[] {0.2, -0.2 },
+        new boolean[] {true, true });
+  }
+
+  /**
+   *
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void batchLengthErrorTest() {
+    BlackFormulaRepository.vega(new double[] {FORWARD, FORWARD }, new double[] {95. }, new double[] {TIME_TO_EXPIRY, TIME_TO_EXPIRY }, new double[] {0.2, 0.2 });
+  }
+
+  /**
+   *
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void batchPriceAboveBoundErrorImpliedVolatilityTest() {
+    BlackFormulaRepository.impliedVolatility(new double[] {1., 1.1 * FORWARD }, new double[] {FORWARD, FORWARD }, new double[] {95., 95. },
+        new double[] {TIME_TO_EXPIRY, TIME_TO_EXPIRY }, new boolean[] {true, true });
+  }
+
+  /**
+   *
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void batchPriceAtExpiryErrorImpliedVolatilityTest() {
+    BlackFormulaRepository.impliedVolatility(new double[] {1., 1. }, new double[] {FORWARD, FORWARD }, new double[] {95., 105. }, new double[] {TIME_TO_EXPIRY, 0. },
+        new boolean[] {true, true });
+  }
+
   /*
    * 
    * Tests below are for debugging
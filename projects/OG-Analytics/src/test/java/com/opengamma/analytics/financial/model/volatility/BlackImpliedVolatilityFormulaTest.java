@@ -148,4 +148,43 @@ public class BlackImpliedVolatilityFormulaTest {
     }
   }
 
+  @Test
+  public void batchTest() {
+    final BlackImpliedVolatilityFormula formula = new BlackImpliedVolatilityFormula();
+    final double[] vols = formula.getImpliedVolatility(DATA, OPTIONS, PRICES);
+    for (int i = 0; i < N; i++) {
+      assertEquals(formula.getImpliedVolatility(DATA[i], OPTIONS[i], PRICES[i]), vols[i], 1e-8);
+    }
+  }
+
+  @Test
+  public void approximatedTest() {
+    final double[] fwdPrices = new double[N];
+    final double[] forwards = new double[N];
+    final double[] times = new double[N];
+    final boolean[] isCall = new boolean[N];
+    for (int i = 0; i < N; i++) {
+      fwdPrices[i] = PRICES[i] / DF;
+      forwards[i] = FORWARD;
+      times[i] = T;
+      isCall[i] = true;
+    }
+    final double[] vols = BlackImpliedVolatilityFormula.impliedVolatilityApproximated(fwdPrices, forwards, STRIKES, times, isCall);
+    for (int i = 0; i < N; i++) {
+      assertEquals(SIGMA, vols[i], 2.5E-3);
+      assertEquals(vols[i], BlackImpliedVolatilityFormula.impliedVolatilityApproximated(fwdPrices[i], FORWARD, STRIKES[i], T, true), 1.0E-15);
+      // Same volatility from the put with the same strike
+      final double putPrice = fwdPrices[i] - FORWARD + STRIKES[i];
+      assertEquals(vols[i], BlackImpliedVolatilityFormula.impliedVolatilityApproximated(putPrice, FORWARD, STRIKES[i], T, false), 1.0E-12);
+    }
+    // Brenner-Subrahmanyam at the money
+    final double atmPrice = BlackFormulaRepository.price(FORWARD, FORWARD, T, SIGMA, true);
+    assertEquals(Math.sqrt(2 * Math.PI / T) * atmPrice / FORWARD, BlackImpliedVolatilityFormula.impliedVolatilityApproximated(atmPrice, FORWARD, FORWARD, T, true), 1.0E-14);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void wrongPriceApproximated() {
+    BlackImpliedVolatilityFormula.impliedVolatilityApproximated(FORWARD - STRIKES[0] - 1.0, FORWARD, STRIKES[0], T, true);
+  }
+
 }
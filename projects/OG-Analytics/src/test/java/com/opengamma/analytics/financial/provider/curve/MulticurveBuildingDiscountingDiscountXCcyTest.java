@@ -11,6 +11,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
@@ -59,6 +60,7 @@ import com.opengamma.analytics.financial.provider.sensitivity.parameter.Paramete
 import com.opengamma.analytics.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
 import com.opengamma.analytics.math.interpolation.Interpolator1D;
 import com.opengamma.analytics.math.interpolation.Interpolator1DFactory;
+import com.opengamma.analytics.util.AssertMatrix;
 import com.opengamma.financial.convention.calendar.Calendar;
 import com.opengamma.financial.convention.calendar.MondayToFridayCalendar;
 import com.opengamma.timeseries.precise.zdt.ImmutableZonedDateTimeDoubleTimeSeries;
@@ -355,6 +357,26 @@ public class MulticurveBuildingDiscountingDiscountXCcyTest {
     }
   }
 
+  /** Market values for a dsc JPY curve from overnight deposits and OIS only, which uses no other curve. 10 nodes */
+  private static final double[] DSC_JPY_OIS_MARKET_QUOTES = new double[] {0.0005, 0.0005, 0.0004, 0.0004, 0.0005, 0.0006, 0.0008, 0.0010, 0.0015, 0.0020 };
+  /** Generators for the OIS dsc JPY curve */
+  private static final GeneratorInstrument<? extends GeneratorAttribute>[] DSC_JPY_OIS_GENERATORS =
+      new GeneratorInstrument<?>[] {GENERATOR_DEPOSIT_ON_JPY, GENERATOR_DEPOSIT_ON_JPY,
+        GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY, GENERATOR_OIS_JPY };
+  /** Tenors for the OIS dsc JPY curve */
+  private static final Period[] DSC_JPY_OIS_TENOR = new Period[] {Period.ofDays(0), Period.ofDays(1), Period.ofMonths(1), Period.ofMonths(3),
+    Period.ofMonths(6), Period.ofYears(1), Period.ofYears(2), Period.ofYears(3), Period.ofYears(5), Period.ofYears(10) };
+  private static final GeneratorAttributeIR[] DSC_JPY_OIS_ATTR = new GeneratorAttributeIR[DSC_JPY_OIS_TENOR.length];
+  static {
+    for (int loopins = 0; loopins < 2; loopins++) {
+      DSC_JPY_OIS_ATTR[loopins] = new GeneratorAttributeIR(DSC_JPY_OIS_TENOR[loopins], Period.ZERO);
+    }
+    for (int loopins = 2; loopins < DSC_JPY_OIS_TENOR.length; loopins++) {
+      DSC_JPY_OIS_ATTR[loopins] = new GeneratorAttributeIR(DSC_JPY_OIS_TENOR[loopins]);
+    }
+  }
+  private static final String CURVE_NAME_DSC_JPY_OIS = "JPY Dsc OIS";
+
   /** Standard USD discounting curve instrument definitions */
   private static final InstrumentDefinition<?>[] DEFINITIONS_DSC_USD;
   /** Standard USD Forward 3M curve instrument definitions */
@@ -494,6 +516,8 @@ public class MulticurveBuildingDiscountingDiscountXCcyTest {
   private static final MulticurveDiscountBuildingRepository CURVE_BUILDING_REPOSITORY = new MulticurveDiscountBuildingRepository(TOLERANCE_ROOT, TOLERANCE_ROOT, STEP_MAX);
 
   private static final double TOLERANCE_CAL = 1.0E-9;
+  private static final double TOLERANCE_JACOBIAN = 1.0E-6;
+  private static final double TOLERANCE_CURVE = 1.0E-8;
 
   @BeforeSuite
   static void initClass() {
@@ -534,6 +558,135 @@ public class MulticurveBuildingDiscountingDiscountXCcyTest {
     }
   } //TODO: test parSpreadMarketQuote
 
+  @Test
+  /**
+   * Builds the USD/JPY units twice in parallel, the second time from the first result, and compares with the units built one after another.
+   */
+  public void parallelWarmStart() {
+    final int block = 1;
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final MulticurveDiscountBuildingRepository repository = new MulticurveDiscountBuildingRepository(TOLERANCE_ROOT, TOLERANCE_ROOT, STEP_MAX, pool, true);
+      final CurveBuildingBlockBundle expected = CURVES_PAR_SPREAD_MQ_WITHOUT_TODAY_BLOCK.get(block).getSecond();
+      for (int loopcycle = 0; loopcycle < 2; loopcycle++) {
+        final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> parallel = CurveCalibrationTestsUtils.makeCurvesFromDefinitionsMulticurve(CALIBRATION_DATE,
+            DEFINITIONS_UNITS[block], GENERATORS_UNITS[block], NAMES_UNITS[block],
+            MULTICURVE_KNOWN_DATA, PSMQDC, PSMQCSDC, false, DSC_MAP, FWD_ON_MAP, FWD_IBOR_MAP, repository,
+            TS_FIXED_OIS_USD_WITH_TODAY, TS_FIXED_OIS_USD_WITHOUT_TODAY,
+            TS_FIXED_IBOR_EUR3M_WITH_TODAY, TS_FIXED_IBOR_EUR3M_WITHOUT_TODAY);
+        curveConstructionTest(DEFINITIONS_UNITS[block], parallel.getFirst(), false, block);
+        for (final String[] names : NAMES_UNITS[block]) {
+          for (final String name : names) {
+            assertEquals("Parallel curve construction: " + name, expected.getBlock(name).getFirst(), parallel.getSecond().getBlock(name).getFirst());
+            AssertMatrix.assertEqualsMatrix(expected.getBlock(name).getSecond(), parallel.getSecond().getBlock(name).getSecond(), TOLERANCE_JACOBIAN);
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** Units in which the USD and JPY discounting curves do not use each other's curves: USD dsc, JPY OIS dsc, USD Fwd 3M */
+  private static final String[][] NAMES_INDEPENDENT = new String[][] { {CURVE_NAME_DSC_USD }, {CURVE_NAME_DSC_JPY_OIS }, {CURVE_NAME_FWD3_USD } };
+  private static final GeneratorYDCurve[][] GENERATORS_INDEPENDENT = new GeneratorYDCurve[][] {
+    {new GeneratorCurveYieldInterpolated(MATURITY_CALCULATOR, INTERPOLATOR_LINEAR) }, {new GeneratorCurveYieldInterpolated(MATURITY_CALCULATOR, INTERPOLATOR_LINEAR) },
+    {new GeneratorCurveYieldInterpolated(MATURITY_CALCULATOR, INTERPOLATOR_LINEAR) } };
+  private static final LinkedHashMap<String, Currency> DSC_MAP_INDEPENDENT = new LinkedHashMap<>();
+  private static final LinkedHashMap<String, IndexON[]> FWD_ON_MAP_INDEPENDENT = new LinkedHashMap<>();
+  private static final LinkedHashMap<String, IborIndex[]> FWD_IBOR_MAP_INDEPENDENT = new LinkedHashMap<>();
+  static {
+    DSC_MAP_INDEPENDENT.put(CURVE_NAME_DSC_USD, USD);
+    DSC_MAP_INDEPENDENT.put(CURVE_NAME_DSC_JPY_OIS, JPY);
+    FWD_ON_MAP_INDEPENDENT.put(CURVE_NAME_DSC_USD, new IndexON[] {INDEX_ON_USD });
+    FWD_ON_MAP_INDEPENDENT.put(CURVE_NAME_DSC_JPY_OIS, new IndexON[] {INDEX_ON_JPY });
+    FWD_IBOR_MAP_INDEPENDENT.put(CURVE_NAME_FWD3_USD, new IborIndex[] {USDLIBOR3M });
+  }
+
+  private static double[] shift(final double[] marketQuotes, final double shift) {
+    final double[] shifted = new double[marketQuotes.length];
+    for (int loopmv = 0; loopmv < marketQuotes.length; loopmv++) {
+      shifted[loopmv] = marketQuotes[loopmv] + shift;
+    }
+    return shifted;
+  }
+
+  private static InstrumentDefinition<?>[][][] getIndependentDefinitions(final double shift) {
+    return new InstrumentDefinition<?>[][][] { {getDefinitions(shift(DSC_USD_MARKET_QUOTES, shift), DSC_USD_GENERATORS, DSC_USD_ATTR) },
+      {getDefinitions(shift(DSC_JPY_OIS_MARKET_QUOTES, shift), DSC_JPY_OIS_GENERATORS, DSC_JPY_OIS_ATTR) },
+      {getDefinitions(shift(FWD3_USD_MARKET_QUOTES, shift), FWD3_USD_GENERATORS, FWD3_USD_ATTR) } };
+  }
+
+  private static Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> makeIndependentCurves(final InstrumentDefinition<?>[][][] definitions,
+      final MulticurveDiscountBuildingRepository repository) {
+    return CurveCalibrationTestsUtils.makeCurvesFromDefinitionsMulticurve(CALIBRATION_DATE, definitions, GENERATORS_INDEPENDENT, NAMES_INDEPENDENT,
+        MULTICURVE_KNOWN_DATA, PSMQDC, PSMQCSDC, false, DSC_MAP_INDEPENDENT, FWD_ON_MAP_INDEPENDENT, FWD_IBOR_MAP_INDEPENDENT, repository,
+        TS_FIXED_OIS_USD_WITH_TODAY, TS_FIXED_OIS_USD_WITHOUT_TODAY,
+        TS_FIXED_IBOR_EUR3M_WITH_TODAY, TS_FIXED_IBOR_EUR3M_WITHOUT_TODAY);
+  }
+
+  private static void assertSameCurves(final String message, final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> expected,
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> actual, final double toleranceCurve) {
+    for (final String[] names : NAMES_INDEPENDENT) {
+      for (final String name : names) {
+        assertEquals(message + ": " + name, expected.getSecond().getBlock(name).getFirst(), actual.getSecond().getBlock(name).getFirst());
+        AssertMatrix.assertEqualsMatrix(expected.getSecond().getBlock(name).getSecond(), actual.getSecond().getBlock(name).getSecond(), TOLERANCE_JACOBIAN);
+      }
+    }
+    for (final double time : new double[] {0.1, 0.5, 1.0, 2.5, 5.0, 9.0 }) {
+      assertEquals(message + ": USD discount factor at " + time, expected.getFirst().getDiscountFactor(USD, time), actual.getFirst().getDiscountFactor(USD, time), toleranceCurve);
+      assertEquals(message + ": JPY discount factor at " + time, expected.getFirst().getDiscountFactor(JPY, time), actual.getFirst().getDiscountFactor(JPY, time), toleranceCurve);
+      assertEquals(message + ": USD Libor 3M forward at " + time, expected.getFirst().getSimplyCompoundForwardRate(USDLIBOR3M, time, time + 0.25, 0.25),
+          actual.getFirst().getSimplyCompoundForwardRate(USDLIBOR3M, time, time + 0.25, 0.25), toleranceCurve);
+    }
+  }
+
+  @Test
+  /**
+   * Builds units where the USD and JPY discounting curves do not use each other's curves, so they are calibrated at the same level, and compares with the units built one after another.
+   */
+  public void parallelIndependentUnits() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final MulticurveDiscountBuildingRepository repository = new MulticurveDiscountBuildingRepository(TOLERANCE_ROOT, TOLERANCE_ROOT, STEP_MAX, pool, false);
+      final InstrumentDefinition<?>[][][] definitions = getIndependentDefinitions(0.0);
+      final int[] levels = repository.getCalibrationLevels(CurveCalibrationTestsUtils.makeCurveBundlesMulticurve(CALIBRATION_DATE, definitions, GENERATORS_INDEPENDENT,
+          NAMES_INDEPENDENT, false, TS_FIXED_OIS_USD_WITH_TODAY, TS_FIXED_OIS_USD_WITHOUT_TODAY, TS_FIXED_IBOR_EUR3M_WITH_TODAY, TS_FIXED_IBOR_EUR3M_WITHOUT_TODAY),
+          MULTICURVE_KNOWN_DATA, DSC_MAP_INDEPENDENT, FWD_IBOR_MAP_INDEPENDENT, FWD_ON_MAP_INDEPENDENT, PSMQCSDC);
+      assertEquals("Levels", 3, levels.length);
+      assertEquals("USD dsc level", 0, levels[0]);
+      assertEquals("JPY OIS dsc level", 0, levels[1]);
+      assertEquals("USD Fwd 3M level", 1, levels[2]);
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> serial = makeIndependentCurves(definitions, CURVE_BUILDING_REPOSITORY);
+      final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> parallel = makeIndependentCurves(definitions, repository);
+      curveConstructionTest(definitions, parallel.getFirst(), false, NB_BLOCKS);
+      assertSameCurves("Parallel curve construction", serial, parallel, TOLERANCE_CURVE);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  /**
+   * Builds the independent units in parallel from warm starts after the market quotes move, and compares with the units built one after another from the starting point.
+   */
+  public void parallelWarmStartShiftedQuotes() {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final MulticurveDiscountBuildingRepository repository = new MulticurveDiscountBuildingRepository(TOLERANCE_ROOT, TOLERANCE_ROOT, STEP_MAX, pool, true);
+      makeIndependentCurves(getIndependentDefinitions(0.0), repository);
+      for (final double shift : new double[] {0.0001, -0.0002, 0.0010 }) {
+        final InstrumentDefinition<?>[][][] definitions = getIndependentDefinitions(shift);
+        final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> serial = makeIndependentCurves(definitions, CURVE_BUILDING_REPOSITORY);
+        final Pair<MulticurveProviderDiscount, CurveBuildingBlockBundle> warm = makeIndependentCurves(definitions, repository);
+        curveConstructionTest(definitions, warm.getFirst(), false, NB_BLOCKS);
+        assertSameCurves("Warm start curve construction, shift " + shift, serial, warm, TOLERANCE_CURVE);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   @Test(enabled = true)
   /**
    * Analyzes the shape of the forward curve.
@@ -144,4 +144,20 @@ public class CombinedInterpolatorExtrapolatorTest {
       assertEquals("dy/dx at " + value, 3d, COMBINED3.firstDerivative(DATA, value), 1e-4);
     }
   }
+
+  @Test
+  public void testBatch() {
+    final double[] values = new double[] {-5., 0., 0.5, 3.6, 3.7, 2.1, 9., 12. };
+    final double[] result = new double[values.length];
+    COMBINED3.interpolate(DATA, values, result);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(COMBINED3.interpolate(DATA, Double.valueOf(values[i])), result[i], 0);
+      assertEquals(COMBINED3.interpolate(DATA, values[i]), result[i], 0);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBatchShortResult() {
+    COMBINED3.interpolate(DATA, new double[] {1., 2. }, new double[1]);
+  }
 }
@@ -105,4 +105,18 @@ public class ArrayInterpolator1DDataBundleTest extends Interpolator1DDataBundleT
     i = bundle.getLowerBoundIndex(-0.);
     assertEquals(0, i);
   }
+
+  /**
+   * Test getLowerBoundIndex gives the same result whatever the previous search was
+   */
+  @Test
+  public void getLowerBoundIndexSequenceTest() {
+    final double[] xValues = new double[] {0., 1., 2., 3., 5., 8. };
+    final double[] yValues = new double[] {1., 2., 3., 4., 5., 6. };
+    final double[] lookups = new double[] {0., 0.5, 1., 1.5, 1.7, 4., 8., 0.2, 7.9, 5., 2.5, 2., 3., -0. };
+    final ArrayInterpolator1DDataBundle bundle = new ArrayInterpolator1DDataBundle(xValues, yValues);
+    for (final double lookup : lookups) {
+      assertEquals(new ArrayInterpolator1DDataBundle(xValues, yValues).getLowerBoundIndex(lookup), bundle.getLowerBoundIndex(lookup));
+    }
+  }
 }
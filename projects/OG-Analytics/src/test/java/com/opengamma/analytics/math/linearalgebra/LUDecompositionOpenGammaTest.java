@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.matrix.DoubleMatrixUtils;
+import com.opengamma.analytics.math.matrix.MatrixAlgebra;
+import com.opengamma.analytics.math.matrix.OGMatrixAlgebra;
+import com.opengamma.analytics.math.matrix.RowMajorDoubleMatrix2D;
+import com.opengamma.analytics.util.AssertMatrix;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Test.
+ */
+@Test(groups = TestGroup.UNIT)
+public class LUDecompositionOpenGammaTest {
+  private static final MatrixAlgebra ALGEBRA = new OGMatrixAlgebra();
+  private static final LUDecompositionOpenGamma LU = new LUDecompositionOpenGamma();
+  private static final LUDecompositionCommons LU_COMMONS = new LUDecompositionCommons();
+  private static final DoubleMatrix2D A = new DoubleMatrix2D(new double[][] {new double[] {1, 2, -1}, new double[] {4, 3, 1}, new double[] {2, 2, 3}});
+  private static final double EPS = 1e-9;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullObjectMatrix() {
+    LU.evaluate((DoubleMatrix2D) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSingular() {
+    LU.evaluate(new DoubleMatrix2D(new double[][] {new double[] {1, 2}, new double[] {2, 4}}));
+  }
+
+  @Test
+  public void testRecoverOrginal() {
+    final LUDecompositionResult lu = LU.evaluate(A);
+    final DoubleMatrix2D a = (DoubleMatrix2D) ALGEBRA.multiply(lu.getL(), lu.getU());
+    AssertMatrix.assertEqualsMatrix((DoubleMatrix2D) ALGEBRA.multiply(lu.getP(), A), a, EPS);
+  }
+
+  @Test
+  public void testAgainstCommons() {
+    final LUDecompositionResult lu = LU.evaluate(A);
+    final LUDecompositionResult commons = LU_COMMONS.evaluate(A);
+    assertEquals(commons.getDeterminant(), lu.getDeterminant(), EPS);
+    final DoubleMatrix1D b = new DoubleMatrix1D(new double[] {1, -2, 3});
+    AssertMatrix.assertEqualsVectors(commons.solve(b), lu.solve(b), EPS);
+    AssertMatrix.assertEqualsMatrix(commons.solve(A), lu.solve(A), EPS);
+  }
+
+  @Test
+  public void testInPlace() {
+    final RowMajorDoubleMatrix2D a = new RowMajorDoubleMatrix2D(A);
+    final LUDecompositionOpenGammaResult copy = LU.evaluate(a);
+    assertEquals(new RowMajorDoubleMatrix2D(A), a);
+    final LUDecompositionOpenGammaResult inPlace = LU.evaluateInPlace(a);
+    assertEquals(copy.getDeterminant(), inPlace.getDeterminant(), 0);
+    AssertMatrix.assertEqualsMatrix(DoubleMatrixUtils.getIdentityMatrix2D(3), inPlace.solve(new RowMajorDoubleMatrix2D(A)).toDoubleMatrix2D(), EPS);
+  }
+
+}
@@ -29,6 +29,7 @@ public class OGMatrixAlgebraTest {
   private static final DoubleMatrix1D D = new DoubleMatrix1D(new double[] {1, 1, 1 });
   private static final DoubleMatrix1D E = new DoubleMatrix1D(new double[] {-1, 2, 3 });
   private static final DoubleMatrix1D F = new DoubleMatrix1D(new double[] {2, -2, 1 });
+  private static final OGMatrixAlgebra OG_ALGEBRA = new OGMatrixAlgebra();
 
   @Test(expectedExceptions = IllegalArgumentException.class)
   public void testMatrixSizeMismatch() {
@@ -123,4 +124,45 @@ public class OGMatrixAlgebraTest {
     AssertMatrix.assertEqualsMatrix(aTaRef, aTa, 1e-15);
   }
 
+  private static DoubleMatrix2D randomMatrix(final int rows, final int columns) {
+    final double[][] data = new double[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        data[i][j] = RANDOM.nextRandom();
+      }
+    }
+    return new DoubleMatrix2D(data);
+  }
+
+  @Test
+  public void testRowMajorMultiply() {
+    // Larger than a block in each direction, and not a multiple of the block size
+    final DoubleMatrix2D a = randomMatrix(70, 130);
+    final DoubleMatrix2D b = randomMatrix(130, 90);
+    final RowMajorDoubleMatrix2D c = (RowMajorDoubleMatrix2D) ALGEBRA.multiply(new RowMajorDoubleMatrix2D(a), new RowMajorDoubleMatrix2D(b));
+    AssertMatrix.assertEqualsMatrix((DoubleMatrix2D) ALGEBRA.multiply(a, b), c.toDoubleMatrix2D(), 0);
+    final DoubleMatrix1D x = new DoubleMatrix1D(b.getColumnVector(0).getData());
+    AssertMatrix.assertEqualsVectors((DoubleMatrix1D) ALGEBRA.multiply(a, x), (DoubleMatrix1D) ALGEBRA.multiply(new RowMajorDoubleMatrix2D(a), x), 0);
+  }
+
+  @Test
+  public void testRowMajorTransposeMultiply() {
+    final DoubleMatrix2D a = randomMatrix(130, 70);
+    final DoubleMatrix2D b = randomMatrix(130, 20);
+    final RowMajorDoubleMatrix2D c = OG_ALGEBRA.getTransposeMultiply(new RowMajorDoubleMatrix2D(a), new RowMajorDoubleMatrix2D(b));
+    AssertMatrix.assertEqualsMatrix((DoubleMatrix2D) ALGEBRA.multiply(ALGEBRA.getTranspose(a), b), c.toDoubleMatrix2D(), 0);
+    AssertMatrix.assertEqualsMatrix(ALGEBRA.getTranspose(a), OG_ALGEBRA.getTranspose(new RowMajorDoubleMatrix2D(a)).toDoubleMatrix2D(), 0);
+  }
+
+  @Test
+  public void testRowMajorUpdates() {
+    final RowMajorDoubleMatrix2D c = new RowMajorDoubleMatrix2D(A);
+    OG_ALGEBRA.addOuterProduct(c, 2, E, F);
+    final DoubleMatrix2D expected = (DoubleMatrix2D) ALGEBRA.add(A, ALGEBRA.scale(ALGEBRA.getOuterProduct(E, F), 2));
+    AssertMatrix.assertEqualsMatrix(expected, c.toDoubleMatrix2D(), 1e-15);
+    final RowMajorDoubleMatrix2D d = new RowMajorDoubleMatrix2D(C);
+    OG_ALGEBRA.multiplyAdd(new RowMajorDoubleMatrix2D(A), new RowMajorDoubleMatrix2D(B), d);
+    AssertMatrix.assertEqualsMatrix((DoubleMatrix2D) ALGEBRA.scale(C, 2), d.toDoubleMatrix2D(), 1e-15);
+  }
+
 }
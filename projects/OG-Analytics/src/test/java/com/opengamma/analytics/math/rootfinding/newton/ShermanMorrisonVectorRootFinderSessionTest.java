@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import static com.opengamma.analytics.math.matrix.MatrixAlgebraFactory.OG_ALGEBRA;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Test.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ShermanMorrisonVectorRootFinderSessionTest extends VectorRootFinderTest {
+
+  @Test
+  public void test() {
+    final ShermanMorrisonVectorRootFinderSession session = new ShermanMorrisonVectorRootFinderSession(TOLERANCE, TOLERANCE, MAXSTEPS);
+    assertLinear(session, EPS);
+    // Starts from the previous root
+    assertLinear(session, EPS);
+    // Different size, so starts from the start position
+    assertYieldCurveBootstrap(session, EPS);
+  }
+
+  @Test
+  public void testWarmStart() {
+    final ShermanMorrisonVectorRootFinderSession session = new ShermanMorrisonVectorRootFinderSession(TOLERANCE, TOLERANCE, MAXSTEPS);
+    final CountingJacobian jacobian = new CountingJacobian();
+    final DoubleMatrix1D x0 = new DoubleMatrix1D(new double[] {0.8, 0.2, -0.7});
+    DoubleMatrix1D x1 = session.getRoot(FUNCTION3D, jacobian, x0);
+    assertEquals(1.0, x1.getEntry(0), EPS);
+    assertEquals(0.0, x1.getEntry(1), EPS);
+    assertEquals(-1.0, x1.getEntry(2), EPS);
+    final int coldCount = jacobian.getCount();
+    assertTrue(coldCount > 0);
+    // Move the root a little at a time, as a recalibration on each tick would
+    final int nbTicks = 10;
+    for (int i = 1; i <= nbTicks; i++) {
+      final double[] root = new double[] {1.0 + 1.0E-4 * i, -2.0E-4 * i, -1.0 + 5.0E-5 * i };
+      x1 = session.getRoot(shifted(new DoubleMatrix1D(root)), jacobian, x0);
+      for (int j = 0; j < 3; j++) {
+        assertEquals(root[j], x1.getEntry(j), EPS);
+      }
+    }
+    assertTrue("Jacobian evaluations: " + (jacobian.getCount() - coldCount), jacobian.getCount() - coldCount < nbTicks);
+  }
+
+  @Test
+  public void testReset() {
+    final ShermanMorrisonVectorRootFinderSession session = new ShermanMorrisonVectorRootFinderSession(TOLERANCE, TOLERANCE, MAXSTEPS);
+    assertNull(session.getLastRoot());
+    assertNull(session.getInverseJacobianEstimate());
+    final DoubleMatrix1D x1 = session.getRoot(FUNCTION3D, JACOBIAN3D, new DoubleMatrix1D(new double[] {0.8, 0.2, -0.7}));
+    assertEquals(x1, session.getLastRoot());
+    assertEquals(3, session.getInverseJacobianEstimate().getNumberOfRows());
+    session.reset();
+    assertNull(session.getLastRoot());
+    assertNull(session.getInverseJacobianEstimate());
+  }
+
+  /**
+   * FUNCTION3D moved so that its root is at a given point.
+   */
+  private static Function1D<DoubleMatrix1D, DoubleMatrix1D> shifted(final DoubleMatrix1D root) {
+    final DoubleMatrix1D shift = FUNCTION3D.evaluate(root);
+    return new Function1D<DoubleMatrix1D, DoubleMatrix1D>() {
+
+      @Override
+      public DoubleMatrix1D evaluate(final DoubleMatrix1D x) {
+        return (DoubleMatrix1D) OG_ALGEBRA.subtract(FUNCTION3D.evaluate(x), shift);
+      }
+
+    };
+  }
+
+  private static final class CountingJacobian extends Function1D<DoubleMatrix1D, DoubleMatrix2D> {
+    private int _count;
+
+    @Override
+    public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+      _count++;
+      return JACOBIAN3D.evaluate(x);
+    }
+
+    public int getCount() {
+      return _count;
+    }
+
+  }
+
+}
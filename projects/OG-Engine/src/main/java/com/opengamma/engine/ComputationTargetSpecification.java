@@ -44,6 +44,11 @@ public final class ComputationTargetSpecification extends ComputationTargetRefer
    */
   private final UniqueId _uniqueId;
 
+  /**
+   * The cached hash code.
+   */
+  private transient volatile int _hashCode;
+
   /**
    * Creates a lightweight specification of a computation target.
    * 
@@ -177,6 +182,10 @@ public final class ComputationTargetSpecification extends ComputationTargetRefer
     }
     if (obj instanceof ComputationTargetSpecification) {
       final ComputationTargetSpecification other = (ComputationTargetSpecification) obj;
+      // Most instances are interned, so unequal hashes are the common case for a non-identical object
+      if (hashCode() != other.hashCode()) {
+        return false;
+      }
       return super.equals(obj) && ObjectUtils.equals(_uniqueId, other._uniqueId);
     }
     return false;
@@ -184,12 +193,15 @@ public final class ComputationTargetSpecification extends ComputationTargetRefer
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = super.hashCode();
-    if (_uniqueId != null) {
-      result = prime * result + _uniqueId.hashCode();
+    if (_hashCode == 0) {
+      final int prime = 31;
+      int result = super.hashCode();
+      if (_uniqueId != null) {
+        result = prime * result + _uniqueId.hashCode();
+      }
+      _hashCode = result;
     }
-    return result;
+    return _hashCode;
   }
 
   @Override
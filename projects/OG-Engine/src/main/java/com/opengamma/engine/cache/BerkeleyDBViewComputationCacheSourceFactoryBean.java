@@ -16,6 +16,7 @@ public class BerkeleyDBViewComputationCacheSourceFactoryBean extends SingletonFa
   
   private BerkeleyDBIdentifierMapFactoryBean _identifierMapFactory = new BerkeleyDBIdentifierMapFactoryBean();
   private BerkeleyDBBinaryDataStoreFactoryFactoryBean _dataStoreFactoryFactory = new BerkeleyDBBinaryDataStoreFactoryFactoryBean();
+  private ValueCodecRegistry _valueCodecs;
 
   public void setIdentifierMapFactory(final BerkeleyDBIdentifierMapFactoryBean identifierMapFactory) {
     _identifierMapFactory = identifierMapFactory;
@@ -73,9 +74,22 @@ public class BerkeleyDBViewComputationCacheSourceFactoryBean extends SingletonFa
     return getDataStoreFactoryFactory().getDataStoreFolder();
   }
 
+  public void setValueCodecs(final ValueCodecRegistry valueCodecs) {
+    _valueCodecs = valueCodecs;
+  }
+
+  public ValueCodecRegistry getValueCodecs() {
+    return _valueCodecs;
+  }
+
   @Override
   protected BerkeleyDBViewComputationCacheSource createObject() {
-    return new BerkeleyDBViewComputationCacheSource(getIdentifierMapFactory().createObject(), getDataStoreFactoryFactory().createDataStoreEnvironment(), getFudgeContext());
+    final BerkeleyDBViewComputationCacheSource source = new BerkeleyDBViewComputationCacheSource(getIdentifierMapFactory().createObject(),
+        getDataStoreFactoryFactory().createDataStoreEnvironment(), getFudgeContext());
+    if (getValueCodecs() != null) {
+      source.setValueCodecs(getValueCodecs());
+    }
+    return source;
   }
 
 }
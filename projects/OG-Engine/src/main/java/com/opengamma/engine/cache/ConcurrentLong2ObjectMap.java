@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open addressed hash map from primitive {@code long} keys to objects. Reads take no lock; writers are serialized on the map instance.
+ * <p>
+ * A value is published before its key so a reader that finds the key always sees the value. The table is only ever grown by building a complete copy and
+ * publishing it through a volatile field, so a reader holding the old table still sees a consistent set of entries. Entries cannot be removed individually.
+ *
+ * @param <V> the value type
+ */
+/* package */final class ConcurrentLong2ObjectMap<V> {
+
+  private static final long FREE = 0L;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final class Table {
+
+    private final AtomicLongArray _keys;
+    private final AtomicReferenceArray<Object> _values;
+    private final int _mask;
+
+    public Table(final int capacity) {
+      _keys = new AtomicLongArray(capacity);
+      _values = new AtomicReferenceArray<Object>(capacity);
+      _mask = capacity - 1;
+    }
+
+  }
+
+  private volatile Table _table = new Table(INITIAL_CAPACITY);
+
+  /**
+   * The value held against the key that is used to mark free slots.
+   */
+  private volatile V _freeKeyValue;
+
+  /**
+   * The number of slots in use in the current table, guarded by the map's monitor.
+   */
+  private int _size;
+
+  private static int hash(final long key) {
+    final long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final long key) {
+    if (key == FREE) {
+      return _freeKeyValue;
+    }
+    final Table table = _table;
+    int i = hash(key) & table._mask;
+    while (true) {
+      final long k = table._keys.get(i);
+      if (k == key) {
+        return (V) table._values.get(i);
+      }
+      if (k == FREE) {
+        return null;
+      }
+      i = (i + 1) & table._mask;
+    }
+  }
+
+  public synchronized void put(final long key, final V value) {
+    if (key == FREE) {
+      _freeKeyValue = value;
+      return;
+    }
+    Table table = _table;
+    int i = hash(key) & table._mask;
+    while (true) {
+      final long k = table._keys.get(i);
+      if (k == key) {
+        table._values.set(i, value);
+        return;
+      }
+      if (k == FREE) {
+        break;
+      }
+      i = (i + 1) & table._mask;
+    }
+    if ((_size + 1) * 2 > table._keys.length()) {
+      table = resize(table);
+      _table = table;
+      i = hash(key) & table._mask;
+      while (table._keys.get(i) != FREE) {
+        i = (i + 1) & table._mask;
+      }
+    }
+    table._values.set(i, value);
+    table._keys.set(i, key);
+    _size++;
+  }
+
+  private static Table resize(final Table table) {
+    final Table resized = new Table(table._keys.length() * 2);
+    for (int j = 0; j < table._keys.length(); j++) {
+      final long key = table._keys.get(j);
+      if (key != FREE) {
+        int i = hash(key) & resized._mask;
+        while (resized._keys.get(i) != FREE) {
+          i = (i + 1) & resized._mask;
+        }
+        resized._values.set(i, table._values.get(j));
+        resized._keys.set(i, key);
+      }
+    }
+    return resized;
+  }
+
+  public synchronized void clear() {
+    _table = new Table(INITIAL_CAPACITY);
+    _freeKeyValue = null;
+    _size = 0;
+  }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open addressed hash map from objects to primitive {@code long} values. Reads take no lock; writers are serialized on the map instance.
+ * <p>
+ * The same publication scheme as {@link ConcurrentLong2ObjectMap} is used: a value is written before its key, and a grown table is only published once it is
+ * complete. Entries cannot be removed individually.
+ *
+ * @param <K> the key type
+ */
+/* package */final class ConcurrentObject2LongMap<K> {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private static final class Table {
+
+    private final AtomicReferenceArray<Object> _keys;
+    private final AtomicLongArray _values;
+    private final int _mask;
+
+    public Table(final int capacity) {
+      _keys = new AtomicReferenceArray<Object>(capacity);
+      _values = new AtomicLongArray(capacity);
+      _mask = capacity - 1;
+    }
+
+  }
+
+  private final long _defaultReturnValue;
+
+  private volatile Table _table = new Table(INITIAL_CAPACITY);
+
+  /**
+   * The number of slots in use in the current table, guarded by the map's monitor.
+   */
+  private int _size;
+
+  /**
+   * Creates an empty map.
+   *
+   * @param defaultReturnValue the value returned for keys that are not in the map
+   */
+  public ConcurrentObject2LongMap(final long defaultReturnValue) {
+    _defaultReturnValue = defaultReturnValue;
+  }
+
+  private static int hash(final Object key) {
+    final int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  public long getLong(final K key) {
+    final Table table = _table;
+    int i = hash(key) & table._mask;
+    while (true) {
+      final Object k = table._keys.get(i);
+      if (k == null) {
+        return _defaultReturnValue;
+      }
+      if (k.equals(key)) {
+        return table._values.get(i);
+      }
+      i = (i + 1) & table._mask;
+    }
+  }
+
+  public synchronized void put(final K key, final long value) {
+    Table table = _table;
+    int i = hash(key) & table._mask;
+    while (true) {
+      final Object k = table._keys.get(i);
+      if (k == null) {
+        break;
+      }
+      if (k.equals(key)) {
+        table._values.set(i, value);
+        return;
+      }
+      i = (i + 1) & table._mask;
+    }
+    if ((_size + 1) * 2 > table._keys.length()) {
+      table = resize(table);
+      _table = table;
+      i = hash(key) & table._mask;
+      while (table._keys.get(i) != null) {
+        i = (i + 1) & table._mask;
+      }
+    }
+    table._values.set(i, value);
+    table._keys.set(i, key);
+    _size++;
+  }
+
+  private static Table resize(final Table table) {
+    final Table resized = new Table(table._keys.length() * 2);
+    for (int j = 0; j < table._keys.length(); j++) {
+      final Object key = table._keys.get(j);
+      if (key != null) {
+        int i = hash(key) & resized._mask;
+        while (resized._keys.get(i) != null) {
+          i = (i + 1) & resized._mask;
+        }
+        resized._values.set(i, table._values.get(j));
+        resized._keys.set(i, key);
+      }
+    }
+    return resized;
+  }
+
+  public synchronized void clear() {
+    _table = new Table(INITIAL_CAPACITY);
+    _size = 0;
+  }
+
+}
@@ -60,6 +60,8 @@ public class DefaultViewComputationCache implements ViewComputationCache,
 
   private MissingValueLoader _missingValueLoader;
 
+  private ValueCodecRegistry _valueCodecs = ValueCodecRegistry.getDefault();
+
   /**
    * The size of recent values that have gone into or come out of this cache.
    */
@@ -113,7 +115,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     final Map<Class<?>, Integer> valueSizeByClass = new HashMap<Class<?>, Integer>(templates.size());
     for (final Object obj : templates) {
       final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
-      final FudgeMsg data = serializeValue(serializer, obj);
+      final FudgeMsg data = serializeValue(serializer, getValueCodecs(), obj);
       final int size = FudgeSize.calculateMessageSize(data);
       valueSizeByClass.put(obj.getClass(), size);
     }
@@ -128,6 +130,20 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     return _missingValueLoader;
   }
 
+  /**
+   * Sets the codecs used to write common value types without the general purpose Fudge object serialization.
+   * 
+   * @param valueCodecs the codec registry, not null
+   */
+  public void setValueCodecs(final ValueCodecRegistry valueCodecs) {
+    ArgumentChecker.notNull(valueCodecs, "valueCodecs");
+    _valueCodecs = valueCodecs;
+  }
+
+  public ValueCodecRegistry getValueCodecs() {
+    return _valueCodecs;
+  }
+
   /**
    * Gets the identifierSource field.
    * 
@@ -178,7 +194,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
       }
     }
     final FudgeDeserializer deserializer = new FudgeDeserializer(getFudgeContext());
-    final Object obj = deserializeValue(deserializer, data);
+    final Object obj = deserializeValue(deserializer, getValueCodecs(), data);
     cacheValueSize(specification, data, obj);
     return obj;
   }
@@ -193,7 +209,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
       return null;
     }
     final FudgeDeserializer deserializer = new FudgeDeserializer(getFudgeContext());
-    final Object obj = deserializeValue(deserializer, data);
+    final Object obj = deserializeValue(deserializer, getValueCodecs(), data);
     cacheValueSize(specification, data, obj);
     return obj;
   }
@@ -212,7 +228,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
         final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
         final FudgeMsg data = rawValues.get(identifier.getValue());
         if (data != null) {
-          final Object value = deserializeValue(deserializer, data);
+          final Object value = deserializeValue(deserializer, getValueCodecs(), data);
           cacheValueSize(identifier.getKey(), data, value);
           returnValues.add(Pairs.of(identifier.getKey(), value));
           identifierIterator.remove();
@@ -229,7 +245,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
         final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
         final FudgeMsg data = rawValues.get(identifier.getValue());
         if (data != null) {
-          final Object value = deserializeValue(deserializer, data);
+          final Object value = deserializeValue(deserializer, getValueCodecs(), data);
           cacheValueSize(identifier.getKey(), data, value);
           returnValues.add(Pairs.of(identifier.getKey(), value));
           identifierIterator.remove();
@@ -248,7 +264,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
           final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
           final FudgeMsg data = rawValues.get(identifier.getValue());
           if (data != null) {
-            final Object value = deserializeValue(deserializer, data);
+            final Object value = deserializeValue(deserializer, getValueCodecs(), data);
             cacheValueSize(identifier.getKey(), data, value);
             returnValues.add(Pairs.of(identifier.getKey(), value));
             identifierIterator.remove();
@@ -301,7 +317,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     for (final Map.Entry<ValueSpecification, Long> identifier : identifiers.entrySet()) {
       final FudgeMsg data = rawValues.get(identifier.getValue());
       if (data != null) {
-        final Object value = deserializeValue(deserializer, data);
+        final Object value = deserializeValue(deserializer, getValueCodecs(), data);
         cacheValueSize(identifier.getKey(), data, value);
         returnValues.add(Pairs.of(identifier.getKey(), value));
       } else {
@@ -316,7 +332,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     final long identifier = getIdentifierMap().getIdentifier(value.getSpecification());
     final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
     final Object obj = value.getValue();
-    final FudgeMsg data = serializeValue(serializer, obj);
+    final FudgeMsg data = serializeValue(serializer, getValueCodecs(), obj);
     cacheValueSize(value.getSpecification(), data, obj);
     dataStore.put(identifier, data);
   }
@@ -347,7 +363,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
     for (final ComputedValue value : values) {
       final Object obj = value.getValue();
-      final FudgeMsg valueData = serializeValue(serializer, obj);
+      final FudgeMsg valueData = serializeValue(serializer, getValueCodecs(), obj);
       cacheValueSize(value.getSpecification(), valueData, obj);
       data.put(identifiers.get(value.getSpecification()), valueData);
     }
@@ -377,7 +393,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     Map<Long, FudgeMsg> sharedData = null;
     for (final ComputedValue value : values) {
       final Object obj = value.getValue();
-      final FudgeMsg valueData = serializeValue(serializer, obj);
+      final FudgeMsg valueData = serializeValue(serializer, getValueCodecs(), obj);
       cacheValueSize(value.getSpecification(), valueData, value.getValue());
       if (filter.isPrivateValue(value.getSpecification())) {
         if (privateData == null) {
@@ -400,18 +416,28 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     }
   }
 
-  protected static FudgeMsg serializeValue(final FudgeSerializer serializer, final Object value) {
+  protected static FudgeMsg serializeValue(final FudgeSerializer serializer, final ValueCodecRegistry codecs, final Object value) {
     if (value instanceof Double) {
       //Make sure fudge doesn't faff around with reflection
       final MutableFudgeMsg newMessage = serializer.newMessage();
       final FudgeFieldType doubleFieldType = FudgeWireType.DOUBLE;
       newMessage.add(null, NATIVE_FIELD_INDEX, doubleFieldType, value);
       return newMessage;
+    } else if (value instanceof double[]) {
+      final MutableFudgeMsg newMessage = serializer.newMessage();
+      final FudgeFieldType doubleArrayFieldType = FudgeWireType.DOUBLE_ARRAY;
+      newMessage.add(null, NATIVE_FIELD_INDEX, doubleArrayFieldType, value);
+      return newMessage;
     } else if (value instanceof FudgeMsg) {
       final MutableFudgeMsg newMessage = serializer.newMessage();
       final FudgeFieldType messageFieldType = FudgeWireType.SUB_MESSAGE;
       newMessage.add(null, NATIVE_FIELD_INDEX, messageFieldType, value);
       return newMessage;
+    } else if (value != null) {
+      final FudgeMsg encoded = codecs.encode(serializer, value);
+      if (encoded != null) {
+        return encoded;
+      }
     }
     serializer.reset();
     final MutableFudgeMsg message = serializer.newMessage();
@@ -430,13 +456,18 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     }
   }
 
-  protected static Object deserializeValue(final FudgeDeserializer deserializer, final FudgeMsg message) {
+  protected static Object deserializeValue(final FudgeDeserializer deserializer, final ValueCodecRegistry codecs, final FudgeMsg message) {
     deserializer.reset();
     if (message.getNumFields() == 1) {
       final Object value = message.getValue(NATIVE_FIELD_INDEX);
       if (value != null) {
         return value;
       }
+    } else {
+      final Object value = codecs.decode(message);
+      if (value != null) {
+        return value;
+      }
     }
     return deserializer.fudgeMsgToObject(message);
   }
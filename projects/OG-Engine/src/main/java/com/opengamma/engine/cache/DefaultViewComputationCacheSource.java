@@ -60,6 +60,7 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
 
   private ReleaseCachesCallback _releaseCachesCallback;
   private MissingValueLoader _missingValueLoader;
+  private ValueCodecRegistry _valueCodecs = ValueCodecRegistry.getDefault();
 
   protected DefaultViewComputationCacheSource(final IdentifierMap identifierMap, final FudgeContext fudgeContext,
       final FudgeMessageStoreFactory dataStoreFactory) {
@@ -138,6 +139,7 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
         final FudgeMessageStore sharedDataStore = (_privateDataStoreFactory == _sharedDataStoreFactory) ? privateDataStore
             : _sharedDataStoreFactory.createMessageStore(key);
         cache = createViewComputationCache(getIdentifierMap(), privateDataStore, sharedDataStore, getFudgeContext());
+        cache.setValueCodecs(getValueCodecs());
         _cachesByKey.put(key, cache);
         List<ViewComputationCacheKey> caches = _activeCachesByCycle.get(key.getViewCycleId());
         if (caches == null) {
@@ -225,4 +227,18 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
     return _missingValueLoader;
   }
 
+  /**
+   * Sets the codecs that caches created by this source use for common value types. Every process sharing the caches must use equivalent codecs.
+   * 
+   * @param valueCodecs the codec registry, not null
+   */
+  public void setValueCodecs(final ValueCodecRegistry valueCodecs) {
+    ArgumentChecker.notNull(valueCodecs, "valueCodecs");
+    _valueCodecs = valueCodecs;
+  }
+
+  public ValueCodecRegistry getValueCodecs() {
+    return _valueCodecs;
+  }
+
 }
@@ -5,33 +5,75 @@
  */
 package com.opengamma.engine.cache;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
 /**
- * An implementation of {@link BinaryDataStore} backed by a
- * {@link ConcurrentMap}.
- * This class is internally synchronized.
+ * An implementation of {@link BinaryDataStore} backed by primitive keyed hash maps.
+ * This class is internally synchronized. Reads take no lock. The identifier space is split across
+ * a number of independently synchronized stripes so that concurrent writers rarely contend with each other.
  */
 public class InMemoryBinaryDataStore extends AbstractBinaryDataStore implements BinaryDataStore {
-  private final ConcurrentMap<Long, byte[]> _underlyingMap = new ConcurrentHashMap<Long, byte[]>();
+
+  /**
+   * The default number of stripes. Must be a power of two.
+   */
+  public static final int DEFAULT_STRIPES = 64;
+
+  private final ConcurrentLong2ObjectMap<byte[]>[] _stripes;
+  private final int _stripeMask;
+
+  public InMemoryBinaryDataStore() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a store with the given number of stripes.
+   * 
+   * @param stripes the number of stripes, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public InMemoryBinaryDataStore(final int stripes) {
+    final int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+    _stripes = new ConcurrentLong2ObjectMap[size];
+    for (int i = 0; i < size; i++) {
+      _stripes[i] = new ConcurrentLong2ObjectMap<byte[]>();
+    }
+    _stripeMask = size - 1;
+  }
+
+  /**
+   * Spreads the identifier across the stripes. Identifiers are typically allocated sequentially so
+   * the low bits alone would give a reasonable spread, but mixing protects against strided allocation.
+   * 
+   * @param identifier the identifier
+   * @return the stripe index
+   */
+  /* package */static int stripe(final long identifier, final int mask) {
+    int h = (int) (identifier ^ (identifier >>> 32));
+    h *= 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private ConcurrentLong2ObjectMap<byte[]> getStripe(final long identifier) {
+    return _stripes[stripe(identifier, _stripeMask)];
+  }
 
   @Override
   public void delete() {
     // Technically we don't have to do anything here. But just in case this isn't reclaimed
     // quickly enough by the garbage collector, or this instance has gone to old space or something,
     // we want to help out as much as we can.
-    _underlyingMap.clear();
+    for (ConcurrentLong2ObjectMap<byte[]> stripe : _stripes) {
+      stripe.clear();
+    }
   }
 
   @Override
-  public byte[] get(long identifier) {
-    return _underlyingMap.get(identifier);
+  public byte[] get(final long identifier) {
+    return getStripe(identifier).get(identifier);
   }
 
   @Override
-  public void put(long identifier, byte[] data) {
-    _underlyingMap.put(identifier, data);
+  public void put(final long identifier, final byte[] data) {
+    getStripe(identifier).put(identifier, data);
   }
 
 }
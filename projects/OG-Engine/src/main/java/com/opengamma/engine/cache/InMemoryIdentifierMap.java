@@ -5,49 +5,85 @@
  */
 package com.opengamma.engine.cache;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
 
 /**
- * An implementation of {@link IdentifierMap} which is backed by an in-memory
- * {@link ConcurrentMap}. This has no facilities for acting as a cache, or for persistence.
+ * An implementation of {@link IdentifierMap} which is backed by in-memory primitive keyed maps.
+ * This has no facilities for acting as a cache, or for persistence.
  * It should only be used for development and debugging purposes.
+ * <p>
+ * Lookups of existing mappings, which dominate once a graph has been executed, take no lock.
+ * Both directions of the mapping are split across independently synchronized stripes so that
+ * the many job threads of a calculation node sharing one instance do not serialize on a
+ * single lock when allocating identifiers.
  */
 public class InMemoryIdentifierMap extends AbstractIdentifierMap implements IdentifierMap {
 
+  private static final int STRIPES = InMemoryBinaryDataStore.DEFAULT_STRIPES;
+
+  private static final long NO_IDENTIFIER = 0L;
+
   private final AtomicLong _nextIdentifier = new AtomicLong(1L);
 
-  private final ConcurrentMap<ValueSpecification, Long> _identifiers = new ConcurrentHashMap<ValueSpecification, Long>();
-  private final ConcurrentMap<Long, ValueSpecification> _specifications = new ConcurrentHashMap<Long, ValueSpecification>();
+  private final ConcurrentObject2LongMap<ValueSpecification>[] _identifiers;
+  private final ConcurrentLong2ObjectMap<ValueSpecification>[] _specifications;
+
+  @SuppressWarnings("unchecked")
+  public InMemoryIdentifierMap() {
+    _identifiers = new ConcurrentObject2LongMap[STRIPES];
+    _specifications = new ConcurrentLong2ObjectMap[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      _identifiers[i] = new ConcurrentObject2LongMap<ValueSpecification>(NO_IDENTIFIER);
+      _specifications[i] = new ConcurrentLong2ObjectMap<ValueSpecification>();
+    }
+  }
+
+  private ConcurrentObject2LongMap<ValueSpecification> getIdentifierStripe(final ValueSpecification spec) {
+    int h = spec.hashCode();
+    h ^= (h >>> 16);
+    return _identifiers[h & (STRIPES - 1)];
+  }
+
+  private ConcurrentLong2ObjectMap<ValueSpecification> getSpecificationStripe(final long identifier) {
+    return _specifications[InMemoryBinaryDataStore.stripe(identifier, STRIPES - 1)];
+  }
 
   @Override
   public long getIdentifier(ValueSpecification spec) {
     ArgumentChecker.notNull(spec, "Value specification");
-    Long result = _identifiers.get(spec);
-    if (result != null) {
+    final ConcurrentObject2LongMap<ValueSpecification> identifiers = getIdentifierStripe(spec);
+    long result = identifiers.getLong(spec);
+    if (result != NO_IDENTIFIER) {
       return result;
     }
-    long freshIdentifier = _nextIdentifier.getAndIncrement();
-    result = _identifiers.putIfAbsent(spec, freshIdentifier);
-    if (result == null) {
-      result = freshIdentifier;
-      _specifications.put(freshIdentifier, spec);
+    synchronized (identifiers) {
+      // Another thread may have allocated the identifier since the unlocked read
+      result = identifiers.getLong(spec);
+      if (result != NO_IDENTIFIER) {
+        return result;
+      }
+      result = _nextIdentifier.getAndIncrement();
+      // Publish the reverse mapping first so that the identifier can always be resolved once it is visible;
+      // the specification stripe monitor is never held while acquiring another so this nesting can't deadlock
+      getSpecificationStripe(result).put(result, spec);
+      identifiers.put(spec, result);
+      return result;
     }
-    return result;
   }
 
   @Override
   public ValueSpecification getValueSpecification(long identifier) {
-    return _specifications.get(identifier);
+    return getSpecificationStripe(identifier).get(identifier);
   }
-  
+
   public void clear() {
-    _identifiers.clear();
-    _specifications.clear();
+    for (int i = 0; i < STRIPES; i++) {
+      _identifiers[i].clear();
+      _specifications[i].clear();
+    }
     // N.B. We don't actually reset the _nextIdentifier map just in case, so that we can diagnostically
     // check whether an ID has accidentally been reused.
   }
@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link BinaryDataStore} that holds the data outside of the Java heap.
+ * <p>
+ * Values are appended to large slabs which are either direct {@link ByteBuffer}s or memory mapped temporary files. Only a
+ * primitive index of identifier to slab location is held on the heap. A value stored again under the same identifier
+ * overwrites the original if it fits within the space first allocated for that identifier, otherwise it is appended and the
+ * original's space is lost. All of the slabs,
+ * and any slab files, are released together when {@link #delete} is called at the end of the cycle.
+ * <p>
+ * This class is internally synchronized. Reads may proceed concurrently with each other but are exclusive of writes.
+ */
+public class OffHeapBinaryDataStore extends AbstractBinaryDataStore implements BinaryDataStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(OffHeapBinaryDataStore.class);
+
+  /**
+   * The default size of each slab, in bytes.
+   */
+  public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The number of bytes stored before each value; the capacity of the slot followed by the length of the value in it.
+   */
+  /* package */static final int HEADER_SIZE = 8;
+
+  private static final int LENGTH_OFFSET = 4;
+
+  private static final long NOT_FOUND = -1L;
+
+  private final int _slabSize;
+  private final File _directory;
+  private final String _filePrefix;
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  private final Long2LongOpenHashMap _index = new Long2LongOpenHashMap();
+  private final List<ByteBuffer> _slabs = new ArrayList<ByteBuffer>();
+  private final List<File> _files = new ArrayList<File>();
+  private ByteBuffer _current;
+  private int _currentIndex;
+  private boolean _deleted;
+
+  /**
+   * Creates a store using direct buffers with the default slab size.
+   */
+  public OffHeapBinaryDataStore() {
+    this(DEFAULT_SLAB_SIZE, null, null);
+  }
+
+  /**
+   * Creates a store.
+   *
+   * @param slabSize the size of each slab in bytes, values larger than this are given a slab of their own
+   * @param directory the folder to create memory mapped slab files in, null to use direct buffers
+   * @param filePrefix the prefix for any slab files created, null for a default
+   */
+  public OffHeapBinaryDataStore(final int slabSize, final File directory, final String filePrefix) {
+    ArgumentChecker.isTrue(slabSize > HEADER_SIZE, "slabSize");
+    _slabSize = slabSize;
+    _directory = directory;
+    _filePrefix = (filePrefix != null) ? filePrefix : "OffHeapBinaryDataStore";
+    _index.defaultReturnValue(NOT_FOUND);
+  }
+
+  /**
+   * Returns the number of slabs currently allocated.
+   *
+   * @return the slab count
+   */
+  public int getSlabCount() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return _slabs.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of off-heap bytes currently allocated.
+   *
+   * @return the allocated capacity of all slabs
+   */
+  public long getAllocatedBytes() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      long total = 0;
+      for (ByteBuffer slab : _slabs) {
+        total += slab.capacity();
+      }
+      return total;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static long location(final int slab, final int offset) {
+    return ((long) slab << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int slab(final long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offset(final long location) {
+    return (int) location;
+  }
+
+  private ByteBuffer allocateSlab(final int size) {
+    if (_directory == null) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    try {
+      final File file = File.createTempFile(_filePrefix + "-", ".slab", _directory);
+      _files.add(file);
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      } finally {
+        // The mapping remains valid after the channel is closed
+        raf.close();
+      }
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't create memory mapped slab in " + _directory, e);
+    }
+  }
+
+  private byte[] getImpl(final long identifier) {
+    final long location = _index.get(identifier);
+    if (location == NOT_FOUND) {
+      return null;
+    }
+    final ByteBuffer slab = _slabs.get(slab(location)).duplicate();
+    final int offset = offset(location);
+    final byte[] data = new byte[slab.getInt(offset + LENGTH_OFFSET)];
+    slab.position(offset + HEADER_SIZE);
+    slab.get(data);
+    return data;
+  }
+
+  private void putImpl(final long identifier, final byte[] data) {
+    if (_deleted) {
+      throw new IllegalStateException("Data store has been deleted");
+    }
+    final long existing = _index.get(identifier);
+    if (existing != NOT_FOUND) {
+      final ByteBuffer slab = _slabs.get(slab(existing));
+      final int offset = offset(existing);
+      if (data.length <= slab.getInt(offset)) {
+        // Reuse the original's space; the capacity is kept so that a later, larger, value can still use all of it
+        final ByteBuffer target = slab.duplicate();
+        target.position(offset + LENGTH_OFFSET);
+        target.putInt(data.length);
+        target.put(data);
+        return;
+      }
+    }
+    final int required = data.length + HEADER_SIZE;
+    final ByteBuffer slab;
+    final int slabIndex;
+    if (required > _slabSize) {
+      // Oversize values get a slab of their own; the current slab remains open for smaller values
+      slab = allocateSlab(required);
+      slabIndex = _slabs.size();
+      _slabs.add(slab);
+    } else {
+      if ((_current == null) || (_current.remaining() < required)) {
+        _current = allocateSlab(_slabSize);
+        _currentIndex = _slabs.size();
+        _slabs.add(_current);
+      }
+      slab = _current;
+      slabIndex = _currentIndex;
+    }
+    final int offset = slab.position();
+    slab.putInt(data.length);
+    slab.putInt(data.length);
+    slab.put(data);
+    _index.put(identifier, location(slabIndex, offset));
+  }
+
+  @Override
+  public byte[] get(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return getImpl(identifier);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<Long, byte[]> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      for (Long identifier : identifiers) {
+        final byte[] data = getImpl(identifier);
+        if (data != null) {
+          result.put(identifier, data);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final byte[] data) {
+    ArgumentChecker.notNull(data, "data to store");
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      putImpl(identifier, data);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(final Map<Long, byte[]> data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      for (Map.Entry<Long, byte[]> entry : data.entrySet()) {
+        ArgumentChecker.notNull(entry.getValue(), "data to store");
+        putImpl(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete() {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      _deleted = true;
+      _index.clear();
+      _index.trim();
+      // Dropping the references lets the buffers be reclaimed by the collector; there is no portable way to unmap explicitly
+      _slabs.clear();
+      _current = null;
+      for (File file : _files) {
+        if (!file.delete() && file.exists()) {
+          s_logger.warn("Couldn't delete slab file {}", file);
+        }
+      }
+      _files.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
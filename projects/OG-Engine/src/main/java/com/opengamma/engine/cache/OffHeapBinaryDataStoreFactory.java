@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import java.io.File;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates {@link OffHeapBinaryDataStore} instances.
+ * <p>
+ * If a folder is set the slabs are memory mapped files created within it, otherwise direct buffers are used.
+ */
+public class OffHeapBinaryDataStoreFactory implements BinaryDataStoreFactory {
+
+  private int _slabSize = OffHeapBinaryDataStore.DEFAULT_SLAB_SIZE;
+  private File _dataStoreFolder;
+
+  public OffHeapBinaryDataStoreFactory() {
+  }
+
+  public OffHeapBinaryDataStoreFactory(final int slabSize, final File dataStoreFolder) {
+    setSlabSize(slabSize);
+    setDataStoreFolder(dataStoreFolder);
+  }
+
+  public int getSlabSize() {
+    return _slabSize;
+  }
+
+  public void setSlabSize(final int slabSize) {
+    ArgumentChecker.isTrue(slabSize > OffHeapBinaryDataStore.HEADER_SIZE, "slabSize");
+    _slabSize = slabSize;
+  }
+
+  public File getDataStoreFolder() {
+    return _dataStoreFolder;
+  }
+
+  public void setDataStoreFolder(final File dataStoreFolder) {
+    if (dataStoreFolder != null) {
+      dataStoreFolder.mkdirs();
+      ArgumentChecker.isTrue(dataStoreFolder.isDirectory(), "dataStoreFolder");
+    }
+    _dataStoreFolder = dataStoreFolder;
+  }
+
+  @Override
+  public BinaryDataStore createDataStore(final ViewComputationCacheKey cacheKey) {
+    final String prefix = cacheKey.getViewCycleId().getValue() + "-" + cacheKey.getCalculationConfigurationName().replaceAll("[^A-Za-z0-9]", "_");
+    return new OffHeapBinaryDataStore(getSlabSize(), getDataStoreFolder(), prefix);
+  }
+
+}
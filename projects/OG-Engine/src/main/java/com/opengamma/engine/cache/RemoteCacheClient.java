@@ -5,6 +5,9 @@
  */
 package com.opengamma.engine.cache;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.fudgemsg.FudgeContext;
 import org.fudgemsg.FudgeMsg;
 import org.fudgemsg.mapping.FudgeDeserializer;
@@ -50,6 +53,38 @@ public class RemoteCacheClient {
       return response;
     }
 
+    private <Request extends CacheMessage, Response extends CacheMessage> List<Response> sendMessages(final List<Request> requests, final Class<Response> responseClass) {
+      final FudgeSerializer scontext = new FudgeSerializer(getMessageSender().getFudgeContext());
+      final List<PendingRequest> pending = new ArrayList<PendingRequest>(requests.size());
+      try {
+        for (Request request : requests) {
+          final long correlationId = getNextCorrelationId();
+          request.setCorrelationId(correlationId);
+          pending.add(sendRequest(FudgeSerializer.addClassHeader(scontext.objectToFudgeMsg(request), request.getClass(), CacheMessage.class), correlationId));
+        }
+      } catch (RuntimeException e) {
+        for (PendingRequest request : pending) {
+          cancelRequest(request);
+        }
+        throw e;
+      }
+      final FudgeDeserializer dcontext = new FudgeDeserializer(getMessageSender().getFudgeContext());
+      final List<Response> responses = new ArrayList<Response>(requests.size());
+      int i = 0;
+      try {
+        while (i < pending.size()) {
+          responses.add(dcontext.fudgeMsgToObject(responseClass, waitForResponse(pending.get(i++))));
+        }
+      } catch (RuntimeException e) {
+        // Don't wait for the remainder; the transport has probably failed and each would need to time out
+        while (i < pending.size()) {
+          cancelRequest(pending.get(i++));
+        }
+        throw e;
+      }
+      return responses;
+    }
+
     private <Message extends CacheMessage> void postMessage(final Message message) {
       final FudgeSerializer scontext = new FudgeSerializer(getMessageSender().getFudgeContext());
       sendMessage(FudgeSerializer.addClassHeader(scontext.objectToFudgeMsg(message), message.getClass(), CacheMessage.class));
@@ -97,6 +132,32 @@ public class RemoteCacheClient {
     return _fudgeGets.sendMessage(request, expectedResponse);
   }
 
+  /**
+   * Sends a number of "get" requests without waiting for the earlier ones to be answered, then collects the responses. The
+   * server may process the requests concurrently (depending on its transport configuration) and the network latency is
+   * incurred once rather than per request.
+   * 
+   * @param <T> the response type
+   * @param requests the requests to send, not null
+   * @param expectedResponse the response type
+   * @return the responses, in the same order as the requests
+   */
+  protected <T extends CacheMessage> List<T> sendGetMessages(final List<? extends CacheMessage> requests, final Class<T> expectedResponse) {
+    return _fudgeGets.sendMessages(requests, expectedResponse);
+  }
+
+  /**
+   * Sends a number of "put" requests without waiting for the earlier ones to be acknowledged, then collects the responses.
+   * 
+   * @param <T> the response type
+   * @param requests the requests to send, not null
+   * @param expectedResponse the response type
+   * @return the responses, in the same order as the requests
+   */
+  protected <T extends CacheMessage> List<T> sendPutMessages(final List<? extends CacheMessage> requests, final Class<T> expectedResponse) {
+    return _fudgePuts.sendMessages(requests, expectedResponse);
+  }
+
   protected <T extends CacheMessage> T sendPutMessage(final CacheMessage request, final Class<T> expectedResponse) {
     return _fudgePuts.sendMessage(request, expectedResponse);
   }
@@ -14,19 +14,54 @@ import java.util.Map;
 
 import org.fudgemsg.FudgeMsg;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.cache.msg.CacheMessage;
 import com.opengamma.engine.cache.msg.DeleteRequest;
 import com.opengamma.engine.cache.msg.GetRequest;
 import com.opengamma.engine.cache.msg.GetResponse;
 import com.opengamma.engine.cache.msg.PutRequest;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Client to a {@link FudgeMessageStoreServer}. These are created by a {@link RemoteFudgeMessageStoreFactory}.
+ * <p>
+ * Concurrent "get" operations from the job threads of a node are coalesced. Identifiers requested while a limited number of requests are
+ * already outstanding are queued and sent together in the next request, and an identifier that is already being fetched for another job
+ * is not requested again. Large requests are split into chunks which are pipelined to the server without waiting for the earlier chunks to
+ * be answered.
  */
 public class RemoteFudgeMessageStore implements FudgeMessageStore {
 
+  /**
+   * The default maximum number of identifiers or values in a single message.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+  /**
+   * The default maximum number of coalesced "get" batches in flight at any one time.
+   */
+  public static final int DEFAULT_MAX_OUTSTANDING_GETS = 2;
+
+  /**
+   * A value being fetched for one or more callers.
+   */
+  private static final class PendingValue {
+
+    private FudgeMsg _value;
+    private boolean _done;
+    private RuntimeException _error;
+
+  }
+
   private final RemoteCacheClient _client;
   private final ViewComputationCacheKey _cacheKey;
+  private int _maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+  private int _maxOutstandingGets = DEFAULT_MAX_OUTSTANDING_GETS;
+
+  private final Object _getLock = new Object();
+  private final Map<Long, PendingValue> _fetching = new HashMap<Long, PendingValue>();
+  private List<Long> _queued = new ArrayList<Long>();
+  private int _outstandingGets;
 
   public RemoteFudgeMessageStore(final RemoteCacheClient client, final ViewComputationCacheKey cacheKey) {
     _client = client;
@@ -41,6 +76,35 @@ public class RemoteFudgeMessageStore implements FudgeMessageStore {
     return _cacheKey;
   }
 
+  public int getMaxBatchSize() {
+    return _maxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of identifiers or values to send in a single message. Larger operations are split into pipelined chunks.
+   *
+   * @param maxBatchSize the maximum batch size, greater than zero
+   */
+  public void setMaxBatchSize(final int maxBatchSize) {
+    ArgumentChecker.isTrue(maxBatchSize > 0, "maxBatchSize");
+    _maxBatchSize = maxBatchSize;
+  }
+
+  public int getMaxOutstandingGets() {
+    return _maxOutstandingGets;
+  }
+
+  /**
+   * Sets the maximum number of coalesced "get" batches that may be in flight at once. While this many are outstanding, further identifiers
+   * are queued to be sent together.
+   *
+   * @param maxOutstandingGets the maximum number of outstanding batches, greater than zero
+   */
+  public void setMaxOutstandingGets(final int maxOutstandingGets) {
+    ArgumentChecker.isTrue(maxOutstandingGets > 0, "maxOutstandingGets");
+    _maxOutstandingGets = maxOutstandingGets;
+  }
+
   @Override
   public void delete() {
     // [ENG-256] Don't need the delete messages if we propogate at the releaseCaches level
@@ -50,29 +114,117 @@ public class RemoteFudgeMessageStore implements FudgeMessageStore {
 
   @Override
   public FudgeMsg get(long identifier) {
-    final GetRequest request = new GetRequest(getCacheKey().getViewCycleId(), getCacheKey()
-        .getCalculationConfigurationName(), Collections.singleton(identifier));
-    final GetResponse response = getRemoteCacheClient().sendGetMessage(request, GetResponse.class);
-    final FudgeMsg data = response.getData().get(0);
-    return data.isEmpty() ? null : data;
+    return get(Collections.singleton(identifier)).get(identifier);
   }
 
   @Override
   public Map<Long, FudgeMsg> get(Collection<Long> identifiers) {
-    final GetRequest request = new GetRequest(getCacheKey().getViewCycleId(), getCacheKey()
-        .getCalculationConfigurationName(), identifiers);
-    final GetResponse response = getRemoteCacheClient().sendGetMessage(request, GetResponse.class);
+    final Map<Long, PendingValue> required = new HashMap<Long, PendingValue>();
+    synchronized (_getLock) {
+      for (Long identifier : identifiers) {
+        PendingValue value = _fetching.get(identifier);
+        if (value == null) {
+          value = new PendingValue();
+          _fetching.put(identifier, value);
+          _queued.add(identifier);
+        }
+        required.put(identifier, value);
+      }
+    }
+    // Any waiting thread may send the queued identifiers - its own and those of other callers - as soon as there is capacity
+    do {
+      List<Long> batch = null;
+      synchronized (_getLock) {
+        if (isComplete(required.values())) {
+          break;
+        }
+        if (!_queued.isEmpty() && (_outstandingGets < _maxOutstandingGets)) {
+          batch = _queued;
+          _queued = new ArrayList<Long>();
+          _outstandingGets++;
+        } else {
+          try {
+            _getLock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenGammaRuntimeException("Interrupted waiting for cache values", e);
+          }
+        }
+      }
+      if (batch != null) {
+        fetch(batch);
+      }
+    } while (true);
     final Map<Long, FudgeMsg> result = new HashMap<Long, FudgeMsg>();
-    final List<FudgeMsg> values = response.getData();
-    if (values.size() != identifiers.size()) {
-      // An error at the server end, possibly an invalid cache (gives a result with just one null in)
-      return Collections.emptyMap();
+    for (Map.Entry<Long, PendingValue> entry : required.entrySet()) {
+      final PendingValue value = entry.getValue();
+      if (value._error != null) {
+        throw value._error;
+      }
+      if (value._value != null) {
+        result.put(entry.getKey(), value._value);
+      }
     }
-    int i = 0;
-    for (Long identifier : request.getIdentifier()) {
-      final FudgeMsg value = values.get(i++);
-      if (!value.isEmpty()) {
-        result.put(identifier, value);
+    return result;
+  }
+
+  private static boolean isComplete(final Collection<PendingValue> values) {
+    for (PendingValue value : values) {
+      if (!value._done) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void fetch(final List<Long> batch) {
+    Map<Long, FudgeMsg> values = null;
+    RuntimeException error = null;
+    try {
+      values = fetchImpl(batch);
+    } catch (RuntimeException e) {
+      error = e;
+    } finally {
+      if ((values == null) && (error == null)) {
+        error = new OpenGammaRuntimeException("Couldn't fetch values from remote cache");
+      }
+      // Other callers may be waiting on these values so they must always be completed
+      synchronized (_getLock) {
+        for (Long identifier : batch) {
+          final PendingValue value = _fetching.remove(identifier);
+          if (error != null) {
+            value._error = error;
+          } else {
+            value._value = values.get(identifier);
+          }
+          value._done = true;
+        }
+        _outstandingGets--;
+        _getLock.notifyAll();
+      }
+    }
+  }
+
+  private Map<Long, FudgeMsg> fetchImpl(final List<Long> identifiers) {
+    final List<GetRequest> requests = new ArrayList<GetRequest>((identifiers.size() + _maxBatchSize - 1) / _maxBatchSize);
+    for (int i = 0; i < identifiers.size(); i += _maxBatchSize) {
+      requests.add(new GetRequest(getCacheKey().getViewCycleId(), getCacheKey().getCalculationConfigurationName(),
+          identifiers.subList(i, Math.min(i + _maxBatchSize, identifiers.size()))));
+    }
+    final List<GetResponse> responses = getRemoteCacheClient().sendGetMessages(requests, GetResponse.class);
+    final Map<Long, FudgeMsg> result = new HashMap<Long, FudgeMsg>();
+    for (int i = 0; i < requests.size(); i++) {
+      final List<Long> requested = requests.get(i).getIdentifier();
+      final List<FudgeMsg> values = responses.get(i).getData();
+      if (values.size() != requested.size()) {
+        // An error at the server end, possibly an invalid cache (gives a result with just one null in)
+        continue;
+      }
+      for (int j = 0; j < values.size(); j++) {
+        final FudgeMsg value = values.get(j);
+        if (!value.isEmpty()) {
+          result.put(requested.get(j), value);
+        }
       }
     }
     return result;
@@ -88,15 +240,26 @@ public class RemoteFudgeMessageStore implements FudgeMessageStore {
 
   @Override
   public void put(Map<Long, FudgeMsg> data) {
-    final List<Long> identifiers = new ArrayList<Long>(data.size());
-    final List<FudgeMsg> values = new ArrayList<FudgeMsg>(data.size());
+    final List<PutRequest> requests = new ArrayList<PutRequest>((data.size() + _maxBatchSize - 1) / _maxBatchSize);
+    List<Long> identifiers = new ArrayList<Long>(Math.min(data.size(), _maxBatchSize));
+    List<FudgeMsg> values = new ArrayList<FudgeMsg>(Math.min(data.size(), _maxBatchSize));
     for (Map.Entry<Long, FudgeMsg> entry : data.entrySet()) {
       identifiers.add(entry.getKey());
       values.add(entry.getValue());
+      if (identifiers.size() >= _maxBatchSize) {
+        requests.add(new PutRequest(getCacheKey().getViewCycleId(), getCacheKey().getCalculationConfigurationName(), identifiers, values));
+        identifiers = new ArrayList<Long>(_maxBatchSize);
+        values = new ArrayList<FudgeMsg>(_maxBatchSize);
+      }
+    }
+    if (!identifiers.isEmpty()) {
+      requests.add(new PutRequest(getCacheKey().getViewCycleId(), getCacheKey().getCalculationConfigurationName(), identifiers, values));
+    }
+    if (requests.size() == 1) {
+      getRemoteCacheClient().sendPutMessage(requests.get(0), CacheMessage.class);
+    } else if (!requests.isEmpty()) {
+      getRemoteCacheClient().sendPutMessages(requests, CacheMessage.class);
     }
-    final PutRequest request = new PutRequest(getCacheKey().getViewCycleId(), getCacheKey()
-        .getCalculationConfigurationName(), identifiers, values);
-    getRemoteCacheClient().sendPutMessage(request, CacheMessage.class);
   }
 
 }
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+
+/**
+ * Encodes values of a single type directly into primitive message fields, bypassing the general purpose object serialization of the Fudge context.
+ * <p>
+ * Codecs are registered with a {@link ValueCodecRegistry} and are only used for values whose class exactly matches {@link #getValueClass}.
+ *
+ * @param <T> the value type
+ */
+public interface ValueCodec<T> {
+
+  /**
+   * Returns the class of value handled by this codec.
+   *
+   * @return the value class, not null
+   */
+  Class<T> getValueClass();
+
+  /**
+   * Writes the value to the message. Fields must be added with non-negative ordinals and no names.
+   * <p>
+   * A codec may decline to encode a particular value, for example one with a non-primitive component, in which case the value is serialized through the
+   * normal Fudge mechanism.
+   *
+   * @param message the message to populate, not null
+   * @param value the value to encode, not null
+   * @return true if the value was encoded, false if it should be serialized normally
+   */
+  boolean encode(MutableFudgeMsg message, T value);
+
+  /**
+   * Reads a value previously written by {@link #encode}.
+   *
+   * @param message the message to read, not null
+   * @return the value, not null
+   */
+  T decode(FudgeMsg message);
+
+}
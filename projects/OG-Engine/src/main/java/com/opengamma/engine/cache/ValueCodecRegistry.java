@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeSerializer;
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Registry of {@link ValueCodec} instances used by {@link DefaultViewComputationCache} to write common value types in a compact form.
+ * <p>
+ * An encoded message holds the codec identifier in a field with ordinal {@link #CODEC_FIELD_INDEX} followed by the codec's own fields. The identifiers are
+ * written into cached data which may be read by other processes, so every process sharing a cache must register the same codecs with the same identifiers.
+ * Identifiers below {@link #FIRST_USER_CODEC} are reserved for codecs built into the engine. A message written by a codec that is not registered cannot be
+ * decoded and is reported as an error rather than being returned as the raw message.
+ */
+public class ValueCodecRegistry {
+
+  /**
+   * The field ordinal holding the codec identifier.
+   */
+  public static final int CODEC_FIELD_INDEX = -2;
+
+  /**
+   * The first identifier available to codecs registered outside of the engine.
+   */
+  public static final int FIRST_USER_CODEC = 16;
+
+  private static final int MAX_CODEC = Short.MAX_VALUE;
+
+  private static final ValueCodecRegistry s_default = new ValueCodecRegistry();
+
+  private final Map<Class<?>, Registration> _byClass = new ConcurrentHashMap<Class<?>, Registration>();
+  private volatile ValueCodec<?>[] _byIdentifier = new ValueCodec<?>[0];
+
+  private static final class Registration {
+
+    private final int _identifier;
+    private final ValueCodec<?> _codec;
+
+    public Registration(final int identifier, final ValueCodec<?> codec) {
+      _identifier = identifier;
+      _codec = codec;
+    }
+
+  }
+
+  /**
+   * Creates a registry containing the built-in codecs.
+   */
+  public ValueCodecRegistry() {
+    register(1, new DoubleArray2DCodec());
+  }
+
+  /**
+   * Returns the registry used by caches that have not been given one explicitly.
+   *
+   * @return the shared registry, not null
+   */
+  public static ValueCodecRegistry getDefault() {
+    return s_default;
+  }
+
+  /**
+   * Registers a codec. Registering another instance of an already registered codec class against the same identifier has no effect.
+   *
+   * @param identifier the identifier to write into encoded messages, must be the same in every process sharing a cache
+   * @param codec the codec, not null
+   */
+  public synchronized void register(final int identifier, final ValueCodec<?> codec) {
+    ArgumentChecker.notNull(codec, "codec");
+    ArgumentChecker.isTrue((identifier > 0) && (identifier <= MAX_CODEC), "identifier");
+    if (identifier < _byIdentifier.length) {
+      final ValueCodec<?> existing = _byIdentifier[identifier];
+      if (existing != null) {
+        if (existing.getClass() == codec.getClass()) {
+          return;
+        }
+        throw new IllegalArgumentException("Codec identifier " + identifier + " already used by " + existing);
+      }
+    }
+    final Registration existing = _byClass.get(codec.getValueClass());
+    if (existing != null) {
+      throw new IllegalArgumentException("Codec " + existing._codec + " already registered for " + codec.getValueClass());
+    }
+    final ValueCodec<?>[] byIdentifier = (identifier < _byIdentifier.length) ? _byIdentifier.clone() : Arrays.copyOf(_byIdentifier, identifier + 1);
+    byIdentifier[identifier] = codec;
+    _byIdentifier = byIdentifier;
+    _byClass.put(codec.getValueClass(), new Registration(identifier, codec));
+  }
+
+  /**
+   * Encodes the value if there is a codec registered for its class.
+   *
+   * @param serializer the serializer to create the message with, not null
+   * @param value the value to encode, not null
+   * @return the encoded message, or null if the value must be serialized normally
+   */
+  @SuppressWarnings({"unchecked", "rawtypes" })
+  public FudgeMsg encode(final FudgeSerializer serializer, final Object value) {
+    final Registration registration = _byClass.get(value.getClass());
+    if (registration == null) {
+      return null;
+    }
+    final MutableFudgeMsg message = serializer.newMessage();
+    message.add(null, CODEC_FIELD_INDEX, registration._identifier);
+    if (((ValueCodec) registration._codec).encode(message, value)) {
+      return message;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the message if it was written by a registered codec.
+   *
+   * @param message the message to decode, not null
+   * @return the decoded value, or null if the message was not written by a codec
+   * @throws OpenGammaRuntimeException if the message was written by a codec that is not registered
+   */
+  public Object decode(final FudgeMsg message) {
+    final Integer identifier = message.getInt(CODEC_FIELD_INDEX);
+    if (identifier == null) {
+      return null;
+    }
+    final ValueCodec<?>[] byIdentifier = _byIdentifier;
+    final int index = identifier;
+    if ((index <= 0) || (index >= byIdentifier.length) || (byIdentifier[index] == null)) {
+      throw new OpenGammaRuntimeException("No value codec registered for identifier " + identifier + "; the processes sharing the cache must register the same codecs");
+    }
+    return byIdentifier[index].decode(message);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Codec for rectangular {@code double[][]} values, written as a single flattened array rather than a sub-message per row. Ragged arrays, or arrays with null
+   * rows, are declined and left to the normal Fudge serialization.
+   */
+  private static final class DoubleArray2DCodec implements ValueCodec<double[][]> {
+
+    private static final int ROWS_FIELD = 0;
+    private static final int DATA_FIELD = 1;
+
+    @Override
+    public Class<double[][]> getValueClass() {
+      return double[][].class;
+    }
+
+    @Override
+    public boolean encode(final MutableFudgeMsg message, final double[][] value) {
+      final int rows = value.length;
+      for (int i = 0; i < rows; i++) {
+        if (value[i] == null) {
+          return false;
+        }
+      }
+      final int columns = (rows > 0) ? value[0].length : 0;
+      for (int i = 1; i < rows; i++) {
+        if (value[i].length != columns) {
+          return false;
+        }
+      }
+      final double[] data = new double[rows * columns];
+      for (int i = 0; i < rows; i++) {
+        System.arraycopy(value[i], 0, data, i * columns, columns);
+      }
+      message.add(null, ROWS_FIELD, rows);
+      message.add(null, DATA_FIELD, data);
+      return true;
+    }
+
+    @Override
+    public double[][] decode(final FudgeMsg message) {
+      final int rows = message.getInt(ROWS_FIELD);
+      final double[] data = (double[]) message.getValue(DATA_FIELD);
+      final int columns = (rows > 0) ? data.length / rows : 0;
+      final double[][] value = new double[rows][];
+      for (int i = 0; i < rows; i++) {
+        value[i] = Arrays.copyOfRange(data, i * columns, (i + 1) * columns);
+      }
+      return value;
+    }
+
+  }
+
+}
@@ -5,14 +5,12 @@
  */
 package com.opengamma.engine.calcnode;
 
-import com.codahale.metrics.Timer;
 import com.opengamma.engine.cache.DeferredStatistics;
 import com.opengamma.engine.calcnode.stats.FunctionInvocationStatisticsGatherer;
 import com.opengamma.engine.value.ComputedValue;
-import com.opengamma.util.metric.OpenGammaMetricRegistry;
 
 /**
- * Statistics for defered invocations. Some values exposed with {@code OpenGammaMetricRegistry}.
+ * Statistics for defered invocations. Some values exposed with {@code OpenGammaMetricRegistry} through {@link FunctionInvocationMetrics}.
  */
 /* package */ class DeferredInvocationStatistics implements DeferredStatistics {
 
@@ -23,23 +21,45 @@ import com.opengamma.util.metric.OpenGammaMetricRegistry;
   private int _dataOutputBytes;
   private int _dataOutputSamples;
   private int _expectedDataOutputSamples;
-  private Timer _timer;
-  private Timer.Context _context;
+  private final FunctionInvocationMetrics _metrics;
+  private final boolean _sampled;
+  private long _startTime;
+  private long _invocationTime;
+  private long _invocationEndTime;
   //TODO: Look at replacing (or simply exposing) IO metrics
 
   protected DeferredInvocationStatistics(final FunctionInvocationStatisticsGatherer gatherer, final String configuration, final String functionIdentifier) {
     _gatherer = gatherer;
     _configuration = configuration;
     _functionIdentifier = functionIdentifier;
-    _timer = OpenGammaMetricRegistry.getDetailedInstance().timer(functionIdentifier + ".invoke");
+    _metrics = FunctionInvocationMetrics.of(functionIdentifier);
+    _sampled = FunctionInvocationMetrics.isEnabled();
+    if (_sampled) {
+      _startTime = System.nanoTime();
+    }
+  }
+
+  protected void inputsFetched() {
+    if (_sampled) {
+      _metrics.inputsFetched(System.nanoTime() - _startTime);
+    }
   }
 
   protected void beginInvocation() {
-    _context = _timer.time();
+    _invocationTime = System.nanoTime();
   }
 
   protected void endInvocation() {
-    _context.close();
+    _invocationEndTime = System.nanoTime();
+    _invocationTime = _invocationEndTime - _invocationTime;
+    _metrics.invoked(_invocationTime);
+  }
+
+  protected void outputsWritten() {
+    if (_sampled) {
+      final long now = System.nanoTime();
+      _metrics.outputsWritten(now - _invocationEndTime, now - _startTime);
+    }
   }
 
   protected void setDataInputBytes(final int bytes, final int samples) {
@@ -62,7 +82,7 @@ import com.opengamma.util.metric.OpenGammaMetricRegistry;
     }
     _expectedDataOutputSamples--;
     if (_expectedDataOutputSamples == 0) {
-      _gatherer.functionInvoked(_configuration, _functionIdentifier, 1, _timer.getSnapshot().getMean(), _dataInputBytes, (_dataOutputSamples > 0) ? _dataOutputBytes / _dataOutputSamples : Double.NaN);
+      _gatherer.functionInvoked(_configuration, _functionIdentifier, 1, _invocationTime, _dataInputBytes, (_dataOutputSamples > 0) ? _dataOutputBytes / _dataOutputSamples : Double.NaN);
     }
   }
 
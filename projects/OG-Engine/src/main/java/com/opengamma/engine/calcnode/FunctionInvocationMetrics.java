@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.calcnode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.opengamma.util.metric.OpenGammaMetricRegistry;
+
+/**
+ * Per-function latency metrics for the job items executed by {@link SimpleCalculationNode}, exposed with {@code OpenGammaMetricRegistry}.
+ * <p>
+ * For a function with identifier {@code F} the detailed registry holds:
+ * <ul>
+ * <li>{@code F.invoke} - a timer of the function's execution, always sampled
+ * <li>{@code F.inputs} - a histogram of the nanoseconds spent resolving the target and fetching the inputs from the cache
+ * <li>{@code F.outputs} - a histogram of the nanoseconds spent writing the outputs to the cache (or queuing them, if the node writes behind)
+ * <li>{@code F.total} - a histogram of the nanoseconds from the start of the input fetch to the outputs being written
+ * </ul>
+ * The histograms are only sampled while {@link #isEnabled} is true, which can be changed at runtime. All of the metrics hold a sliding window of recent samples in a fixed size array so that
+ * recording a sample does not allocate; the metrics for a function are created and registered the first time it is invoked.
+ */
+public final class FunctionInvocationMetrics {
+
+  private static final int WINDOW_SIZE = 1028;
+
+  private static final ConcurrentMap<String, FunctionInvocationMetrics> s_instances = new ConcurrentHashMap<String, FunctionInvocationMetrics>();
+
+  private static volatile boolean s_enabled;
+
+  private final Timer _invoke;
+  private final Histogram _inputs;
+  private final Histogram _outputs;
+  private final Histogram _total;
+
+  private FunctionInvocationMetrics(final String functionIdentifier) {
+    final MetricRegistry registry = OpenGammaMetricRegistry.getDetailedInstance();
+    _invoke = register(registry, functionIdentifier + ".invoke", new Timer(new SlidingWindowReservoir(WINDOW_SIZE)));
+    _inputs = register(registry, functionIdentifier + ".inputs", new Histogram(new SlidingWindowReservoir(WINDOW_SIZE)));
+    _outputs = register(registry, functionIdentifier + ".outputs", new Histogram(new SlidingWindowReservoir(WINDOW_SIZE)));
+    _total = register(registry, functionIdentifier + ".total", new Histogram(new SlidingWindowReservoir(WINDOW_SIZE)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Metric> T register(final MetricRegistry registry, final String name, final T metric) {
+    try {
+      return registry.register(name, metric);
+    } catch (final IllegalArgumentException e) {
+      // Already registered, for example if the registry has been replaced by one that was populated elsewhere
+      final Metric existing = registry.getMetrics().get(name);
+      if ((existing != null) && metric.getClass().isInstance(existing)) {
+        return (T) existing;
+      }
+      // Registered as something else; keep sampling but don't publish
+      return metric;
+    }
+  }
+
+  /**
+   * Returns the metrics for a function.
+   *
+   * @param functionIdentifier the function identifier, not null
+   * @return the metrics, not null
+   */
+  public static FunctionInvocationMetrics of(final String functionIdentifier) {
+    FunctionInvocationMetrics metrics = s_instances.get(functionIdentifier);
+    if (metrics == null) {
+      synchronized (s_instances) {
+        metrics = s_instances.get(functionIdentifier);
+        if (metrics == null) {
+          metrics = new FunctionInvocationMetrics(functionIdentifier);
+          s_instances.put(functionIdentifier, metrics);
+        }
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * Tests whether the breakdown histograms are being sampled.
+   *
+   * @return true if the histograms are sampled, false otherwise
+   */
+  public static boolean isEnabled() {
+    return s_enabled;
+  }
+
+  /**
+   * Starts or stops sampling of the breakdown histograms. The change applies to job items that start after it is made.
+   *
+   * @param enabled true to sample the histograms, false to stop
+   */
+  public static void setEnabled(final boolean enabled) {
+    s_enabled = enabled;
+  }
+
+  public Timer getInvokeTimer() {
+    return _invoke;
+  }
+
+  public Histogram getInputsHistogram() {
+    return _inputs;
+  }
+
+  public Histogram getOutputsHistogram() {
+    return _outputs;
+  }
+
+  public Histogram getTotalHistogram() {
+    return _total;
+  }
+
+  /* package */void invoked(final long nanos) {
+    _invoke.update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /* package */void inputsFetched(final long nanos) {
+    _inputs.update(nanos);
+  }
+
+  /* package */void outputsWritten(final long outputNanos, final long totalNanos) {
+    _outputs.update(outputNanos);
+    _total.update(totalNanos);
+  }
+
+}
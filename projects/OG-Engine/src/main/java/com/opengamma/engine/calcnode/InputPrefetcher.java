@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.calcnode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.cache.CacheSelectHint;
+import com.opengamma.engine.cache.ViewComputationCache;
+import com.opengamma.engine.cache.ViewComputationCacheSource;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+
+/**
+ * Fetches shared cache inputs for jobs that are queued at a calculation node while earlier jobs are still running.
+ * <p>
+ * Jobs reach a node either immediately runnable, or as tails of another job (as planned by the {@link com.opengamma.engine.exec.plan.GraphExecutionPlan}) that are blocked until the jobs they
+ * require have completed. Any shared value consumed by a waiting job that is not produced by one of the jobs it is waiting for must already be in the shared cache, so can be fetched in advance.
+ * The prefetched values are then taken by the node when it starts the job, hiding the latency of a remote shared cache.
+ * <p>
+ * The total size of values held for jobs which have not yet started is bounded by a byte budget. Sizes are taken from the cache's estimates; values with no estimate are assumed to be
+ * {@link #DEFAULT_VALUE_SIZE} bytes. Values are fetched in batches of at most {@link #MAX_BATCH_SIZE}, each of which must fit within the budget at the default size before it is loaded, so
+ * the budget is overrun by no more than one batch. When the budget is exhausted, further inputs are left to be fetched by the node as normal.
+ */
+public class InputPrefetcher {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(InputPrefetcher.class);
+
+  /**
+   * The default byte budget.
+   */
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+  /**
+   * The size assumed for a value that the cache has no size estimate for.
+   */
+  public static final int DEFAULT_VALUE_SIZE = 256;
+
+  /**
+   * The maximum number of values fetched from the cache in one batch.
+   */
+  public static final int MAX_BATCH_SIZE = 64;
+
+  /**
+   * The inputs prefetched for a single job.
+   */
+  public static final class PrefetchedInputs {
+
+    private final InputPrefetcher _owner;
+    private final Map<ValueSpecification, Object> _values = new HashMap<ValueSpecification, Object>();
+    private long _bytes;
+    private boolean _closed;
+
+    private PrefetchedInputs(final InputPrefetcher owner) {
+      _owner = owner;
+    }
+
+    private synchronized boolean add(final ValueSpecification specification, final Object value, final long bytes) {
+      if (_closed) {
+        return false;
+      }
+      _values.put(specification, value);
+      _bytes += bytes;
+      return true;
+    }
+
+    private synchronized boolean isClosed() {
+      return _closed;
+    }
+
+    private synchronized void close(final boolean discard) {
+      if (!_closed) {
+        _closed = true;
+        _owner.release(_bytes);
+        _bytes = 0;
+      }
+      if (discard) {
+        _values.clear();
+      }
+    }
+
+    /**
+     * Returns the number of values held.
+     *
+     * @return the number of values
+     */
+    public synchronized int size() {
+      return _values.size();
+    }
+
+    /**
+     * Retrieves values from the prefetched set, falling back to the cache for anything that was not prefetched.
+     *
+     * @param cache the cache to query for values that were not prefetched, not null
+     * @param specifications the values to look up, not null
+     * @param filter identifies the shared or private data stores, not null
+     * @return the values, never null
+     */
+    public Collection<Pair<ValueSpecification, Object>> getValues(final ViewComputationCache cache, final Collection<ValueSpecification> specifications, final CacheSelectHint filter) {
+      final List<Pair<ValueSpecification, Object>> result = new ArrayList<Pair<ValueSpecification, Object>>(specifications.size());
+      List<ValueSpecification> remaining = null;
+      synchronized (this) {
+        for (ValueSpecification specification : specifications) {
+          final Object value = _values.get(specification);
+          if (value != null) {
+            result.add(Pairs.of(specification, value));
+          } else {
+            if (remaining == null) {
+              remaining = new ArrayList<ValueSpecification>(specifications.size());
+            }
+            remaining.add(specification);
+          }
+        }
+      }
+      if (remaining != null) {
+        result.addAll(cache.getValues(remaining, filter));
+      }
+      return result;
+    }
+
+  }
+
+  private final ViewComputationCacheSource _cacheSource;
+  private final long _maxBytes;
+  private final AtomicLong _bytes = new AtomicLong();
+  private final ConcurrentMap<Long, PrefetchedInputs> _jobs = new ConcurrentHashMap<Long, PrefetchedInputs>();
+
+  public InputPrefetcher(final ViewComputationCacheSource cacheSource) {
+    this(cacheSource, DEFAULT_MAX_BYTES);
+  }
+
+  public InputPrefetcher(final ViewComputationCacheSource cacheSource, final long maxBytes) {
+    ArgumentChecker.notNull(cacheSource, "cacheSource");
+    ArgumentChecker.isTrue(maxBytes > 0, "maxBytes");
+    _cacheSource = cacheSource;
+    _maxBytes = maxBytes;
+  }
+
+  public ViewComputationCacheSource getCacheSource() {
+    return _cacheSource;
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  /**
+   * Returns the estimated number of bytes currently held for jobs that have not started.
+   *
+   * @return the byte count
+   */
+  public long getHeldBytes() {
+    return _bytes.get();
+  }
+
+  private boolean reserve(final long bytes) {
+    if (_bytes.addAndGet(bytes) > _maxBytes) {
+      _bytes.addAndGet(-bytes);
+      return false;
+    }
+    return true;
+  }
+
+  private void release(final long bytes) {
+    if (bytes != 0) {
+      _bytes.addAndGet(-bytes);
+    }
+  }
+
+  /**
+   * Schedules a prefetch of the shared inputs to a job. Nothing is done if the job already has a prefetch scheduled or the byte budget is currently exhausted.
+   *
+   * @param job the job that will be executed, not null
+   * @param pending the values that will be produced by the jobs that this job is waiting for, not null
+   * @param executor the executor to fetch values with, not null
+   */
+  public void prefetch(final CalculationJob job, final Set<ValueSpecification> pending, final Executor executor) {
+    if (_bytes.get() >= _maxBytes) {
+      s_logger.debug("Byte budget exhausted; not prefetching inputs for {}", job);
+      return;
+    }
+    final Long jobId = job.getSpecification().getJobId();
+    final PrefetchedInputs inputs = new PrefetchedInputs(this);
+    if (_jobs.putIfAbsent(jobId, inputs) != null) {
+      return;
+    }
+    final CacheSelectHint hint = job.getCacheSelectHint();
+    final Set<ValueSpecification> required = new LinkedHashSet<ValueSpecification>();
+    for (CalculationJobItem item : job.getJobItems()) {
+      for (ValueSpecification input : item.getInputs()) {
+        if (!hint.isPrivateValue(input) && !pending.contains(input)) {
+          required.add(input);
+        }
+      }
+    }
+    if (required.isEmpty()) {
+      _jobs.remove(jobId, inputs);
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        fetch(job, required, inputs);
+      }
+    });
+  }
+
+  private void fetch(final CalculationJob job, final Collection<ValueSpecification> required, final PrefetchedInputs inputs) {
+    if (inputs.isClosed()) {
+      // Job has already started or been discarded
+      return;
+    }
+    try {
+      final ViewComputationCache cache = getCacheSource().getCache(job.getSpecification().getViewCycleId(), job.getSpecification().getCalcConfigName());
+      final Iterator<ValueSpecification> itr = required.iterator();
+      final List<ValueSpecification> batch = new ArrayList<ValueSpecification>(Math.min(required.size(), MAX_BATCH_SIZE));
+      int count = 0;
+      while (itr.hasNext()) {
+        // Reserve the batch at the default size before loading anything; actual sizes are only known once loaded
+        while (itr.hasNext() && (batch.size() < MAX_BATCH_SIZE) && reserve(DEFAULT_VALUE_SIZE)) {
+          batch.add(itr.next());
+        }
+        if (batch.isEmpty()) {
+          s_logger.debug("Byte budget exhausted after prefetching {} of {} inputs for {}", new Object[] {count, required.size(), job });
+          break;
+        }
+        if (inputs.isClosed()) {
+          release((long) batch.size() * DEFAULT_VALUE_SIZE);
+          break;
+        }
+        final Collection<Pair<ValueSpecification, Object>> values;
+        try {
+          values = cache.getValues(batch, job.getCacheSelectHint());
+        } finally {
+          release((long) batch.size() * DEFAULT_VALUE_SIZE);
+          batch.clear();
+        }
+        boolean exhausted = false;
+        for (Pair<ValueSpecification, Object> value : values) {
+          if ((value.getSecond() == null) || (value.getSecond() instanceof MissingValue)) {
+            continue;
+          }
+          final Integer estimate = cache.estimateValueSize(new ComputedValue(value.getFirst(), value.getSecond()));
+          final long bytes = (estimate != null) ? estimate : DEFAULT_VALUE_SIZE;
+          if (!reserve(bytes)) {
+            exhausted = true;
+            continue;
+          }
+          if (!inputs.add(value.getFirst(), value.getSecond(), bytes)) {
+            // Job has already started or been discarded
+            release(bytes);
+            s_logger.debug("Prefetched {} of {} inputs for {} before it started", new Object[] {count, required.size(), job });
+            return;
+          }
+          count++;
+        }
+        if (exhausted) {
+          s_logger.debug("Byte budget exhausted after prefetching {} of {} inputs for {}", new Object[] {count, required.size(), job });
+          break;
+        }
+      }
+      s_logger.debug("Prefetched {} inputs for {}", count, job);
+    } catch (RuntimeException e) {
+      // The node will fetch the values itself when the job runs
+      s_logger.warn("Couldn't prefetch inputs for {}: {}", job, e.getMessage());
+      s_logger.debug("Caught exception", e);
+    }
+  }
+
+  /**
+   * Takes the prefetched inputs for a job that is about to start. The values are no longer counted against the byte budget once taken, and a fetch that is still queued or running for the job
+   * will load nothing further.
+   *
+   * @param jobId the job identifier
+   * @return the prefetched inputs, or null if there are none
+   */
+  public PrefetchedInputs take(final long jobId) {
+    final PrefetchedInputs inputs = _jobs.remove(jobId);
+    if (inputs != null) {
+      inputs.close(false);
+    }
+    return inputs;
+  }
+
+  /**
+   * Discards any prefetched inputs for a job that will not be run.
+   *
+   * @param jobId the job identifier
+   */
+  public void discard(final long jobId) {
+    final PrefetchedInputs inputs = _jobs.remove(jobId);
+    if (inputs != null) {
+      inputs.close(true);
+    }
+  }
+
+}
@@ -6,14 +6,21 @@
 package com.opengamma.engine.calcnode;
 
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.concurrent.Cancellable;
 import org.slf4j.Logger;
@@ -28,6 +35,12 @@ import com.opengamma.util.async.Cancelable;
 
 /**
  * Manages a set of JobInvokers and dispatches jobs to them for execution.
+ * <p>
+ * By default all dispatch operations are serialized on the dispatcher and jobs which cannot be placed immediately are held in a single pending queue. In work-stealing mode (see
+ * {@link #setWorkStealing}) each invoker is given its own queue of jobs instead. A job is placed on the queue of a capable invoker, preferring one that is idle, and an invoker that becomes available
+ * takes jobs from its own queue before stealing from the queues of other invokers any jobs whose capability requirements it satisfies. No dispatcher-wide lock is held in this mode so many threads
+ * can dispatch jobs concurrently. An invoker that refuses a job is unregistered, as in the default mode, and the jobs left on its queue are dispatched again so that none are stranded should it
+ * never become available.
  */
 public class JobDispatcher implements JobInvokerRegister {
 
@@ -41,6 +54,35 @@ public class JobDispatcher implements JobInvokerRegister {
   private final Queue<JobInvoker> _invokers = new ConcurrentLinkedQueue<JobInvoker>();
   private final Map<JobInvoker, Collection<Capability>> _capabilityCache = new ConcurrentHashMap<JobInvoker, Collection<Capability>>();
 
+  /**
+   * The jobs waiting for, or taken by, a single invoker in work-stealing mode.
+   */
+  private static final class InvokerQueue {
+
+    private final JobInvoker _invoker;
+    private final Deque<DispatchableJob> _jobs = new ConcurrentLinkedDeque<DispatchableJob>();
+    private final AtomicBoolean _draining = new AtomicBoolean();
+    private volatile boolean _available = true;
+    /**
+     * Set when the invoker has been unregistered; no further jobs will be taken from this queue by its invoker.
+     */
+    private volatile boolean _removed;
+
+    private InvokerQueue(final JobInvoker invoker) {
+      _invoker = invoker;
+    }
+
+  }
+
+  private volatile boolean _workStealing;
+  private final ConcurrentMap<JobInvoker, InvokerQueue> _invokerQueues = new ConcurrentHashMap<JobInvoker, InvokerQueue>();
+  private final List<InvokerQueue> _invokerQueueList = new CopyOnWriteArrayList<InvokerQueue>();
+  /**
+   * Jobs which no registered invoker is capable of running, in work-stealing mode.
+   */
+  private final Deque<DispatchableJob> _unassigned = new ConcurrentLinkedDeque<DispatchableJob>();
+  private final AtomicInteger _nextInvokerQueue = new AtomicInteger();
+
   /**
    * Maximum number of times a job will be submitted in its entirety to remote nodes before it gets partitioned to isolate an individual failure.
    */
@@ -150,6 +192,22 @@ public class JobDispatcher implements JobInvokerRegister {
     return _capabilityRequirementsProvider;
   }
 
+  public boolean isWorkStealing() {
+    return _workStealing;
+  }
+
+  /**
+   * Selects work-stealing dispatch, giving each invoker its own queue of jobs rather than serializing dispatch through a single pending queue. This must be set before any invokers are registered.
+   * 
+   * @param workStealing true to use work-stealing dispatch, false for the default behavior
+   */
+  public synchronized void setWorkStealing(final boolean workStealing) {
+    if (!getCapabilityCache().isEmpty()) {
+      throw new IllegalStateException("Dispatch mode cannot be changed after invokers have been registered");
+    }
+    _workStealing = workStealing;
+  }
+
   protected Queue<DispatchableJob> getPending() {
     return _pending;
   }
@@ -163,13 +221,19 @@ public class JobDispatcher implements JobInvokerRegister {
   }
 
   @Override
-  public synchronized void registerJobInvoker(final JobInvoker invoker) {
+  public void registerJobInvoker(final JobInvoker invoker) {
     ArgumentChecker.notNull(invoker, "invoker");
-    s_logger.debug("Registering job invoker {}", invoker);
-    getInvokers().add(invoker);
-    getCapabilityCache().put(invoker, invoker.getCapabilities());
-    if (!getPending().isEmpty()) {
-      retryPending(0L);
+    if (isWorkStealing()) {
+      registerWorkStealingInvoker(invoker);
+      return;
+    }
+    synchronized (this) {
+      s_logger.debug("Registering job invoker {}", invoker);
+      getInvokers().add(invoker);
+      getCapabilityCache().put(invoker, invoker.getCapabilities());
+      if (!getPending().isEmpty()) {
+        retryPending(0L);
+      }
     }
   }
 
@@ -241,14 +305,193 @@ public class JobDispatcher implements JobInvokerRegister {
     return false;
   }
 
-  protected synchronized void dispatchJobImpl(final DispatchableJob job) {
-    if (!invoke(job)) {
-      s_logger.debug("Adding job to pending set");
-      getPending().add(job);
-      if (getInvokers() != null) {
-        retryPending(0L);
+  protected void dispatchJobImpl(final DispatchableJob job) {
+    if (isWorkStealing()) {
+      dispatchWorkStealing(job);
+      return;
+    }
+    synchronized (this) {
+      if (!invoke(job)) {
+        s_logger.debug("Adding job to pending set");
+        getPending().add(job);
+        if (getInvokers() != null) {
+          retryPending(0L);
+        }
+      }
+    }
+  }
+
+  private void registerWorkStealingInvoker(final JobInvoker invoker) {
+    InvokerQueue queue = _invokerQueues.get(invoker);
+    while ((queue == null) || queue._removed) {
+      if (queue != null) {
+        _invokerQueues.remove(invoker, queue);
+      }
+      s_logger.debug("Registering job invoker {}", invoker);
+      getCapabilityCache().put(invoker, invoker.getCapabilities());
+      final InvokerQueue newQueue = new InvokerQueue(invoker);
+      queue = _invokerQueues.putIfAbsent(invoker, newQueue);
+      if (queue == null) {
+        queue = newQueue;
+        _invokerQueueList.add(queue);
+        getInvokers().add(invoker);
+        break;
+      }
+    }
+    queue._available = true;
+    drain(queue);
+  }
+
+  /**
+   * Unregisters an invoker that has refused a job, dispatching the jobs from its queue again. The invoker will get a new queue if it registers again.
+   */
+  private void unregisterWorkStealingInvoker(final InvokerQueue queue) {
+    s_logger.debug("Unregistering job invoker {}", queue._invoker);
+    queue._available = false;
+    queue._removed = true;
+    _invokerQueues.remove(queue._invoker, queue);
+    _invokerQueueList.remove(queue);
+    getInvokers().remove(queue._invoker);
+    DispatchableJob job;
+    while ((job = queue._jobs.pollFirst()) != null) {
+      dispatchWorkStealing(job);
+    }
+  }
+
+  private void dispatchWorkStealing(final DispatchableJob job) {
+    if (job.isCompleted()) {
+      s_logger.info("Job {} cancelled", job);
+      return;
+    }
+    // Snapshot, as queues are removed when their invokers are unregistered
+    final InvokerQueue[] queues = getInvokerQueues();
+    final int count = queues.length;
+    final int start = (count > 0) ? ((_nextInvokerQueue.getAndIncrement() & Integer.MAX_VALUE) % count) : 0;
+    InvokerQueue target = null;
+    for (int i = 0; i < count; i++) {
+      final InvokerQueue queue = queues[(start + i) % count];
+      if (job.canRunOn(queue._invoker)) {
+        if (queue._available && queue._jobs.isEmpty()) {
+          // Idle invoker; it can start the job immediately
+          target = queue;
+          break;
+        }
+        if (target == null) {
+          target = queue;
+        }
+      }
+    }
+    if (target == null) {
+      s_logger.debug("No invokers available for job {}", job);
+      _unassigned.add(job);
+      // An invoker may have registered since we looked
+      for (InvokerQueue queue : _invokerQueueList) {
+        if (job.canRunOn(queue._invoker)) {
+          drain(queue);
+        }
+      }
+      return;
+    }
+    target._jobs.add(job);
+    drain(target);
+    if (target._removed) {
+      // The invoker was unregistered concurrently; if its queue was emptied before our job was added then it is ours to dispatch again
+      if (target._jobs.removeLastOccurrence(job)) {
+        dispatchWorkStealing(job);
+      }
+      return;
+    }
+    if (!target._available) {
+      // The job can be stolen by any idle invoker that is capable of running it
+      for (InvokerQueue queue : queues) {
+        if ((queue != target) && queue._available && job.canRunOn(queue._invoker)) {
+          drain(queue);
+          if (job.isCompleted() || !target._jobs.contains(job)) {
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  private InvokerQueue[] getInvokerQueues() {
+    return _invokerQueueList.toArray(new InvokerQueue[0]);
+  }
+
+  private void drain(final InvokerQueue queue) {
+    while (queue._available && queue._draining.compareAndSet(false, true)) {
+      try {
+        drainImpl(queue);
+      } finally {
+        queue._draining.set(false);
+      }
+      // Jobs may have been added, or the invoker become available, while we held the draining flag
+      if (queue._jobs.isEmpty()) {
+        break;
+      }
+    }
+  }
+
+  private void drainImpl(final InvokerQueue queue) {
+    final JobInvoker invoker = queue._invoker;
+    DispatchableJob job;
+    while (queue._available && ((job = nextJob(queue)) != null)) {
+      if (job.isCompleted()) {
+        s_logger.info("Job {} cancelled", job);
+        continue;
+      }
+      if (job.runOn(invoker)) {
+        s_logger.debug("Invoker {} accepted job {}", invoker, job);
+        continue;
+      }
+      s_logger.debug("Invoker {} refused to execute job {}", invoker, job);
+      queue._jobs.addFirst(job);
+      queue._available = false;
+      if (invoker.notifyWhenAvailable(this)) {
+        s_logger.info("Invoker {} requested immediate retry", invoker);
+        queue._available = true;
+      } else {
+        unregisterWorkStealingInvoker(queue);
+      }
+    }
+  }
+
+  private DispatchableJob nextJob(final InvokerQueue queue) {
+    final DispatchableJob job = queue._jobs.pollFirst();
+    if (job != null) {
+      return job;
+    }
+    DispatchableJob stolen = steal(_unassigned, queue._invoker);
+    if (stolen != null) {
+      return stolen;
+    }
+    // Snapshot, as queues are removed when their invokers are unregistered
+    final InvokerQueue[] queues = getInvokerQueues();
+    final int count = queues.length;
+    final int start = (count > 0) ? ((_nextInvokerQueue.get() & Integer.MAX_VALUE) % count) : 0;
+    for (int i = 0; i < count; i++) {
+      final InvokerQueue victim = queues[(start + i) % count];
+      if (victim != queue) {
+        stolen = steal(victim._jobs, queue._invoker);
+        if (stolen != null) {
+          s_logger.debug("Invoker {} stole job {} from {}", new Object[] {queue._invoker, stolen, victim._invoker });
+          return stolen;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static DispatchableJob steal(final Deque<DispatchableJob> jobs, final JobInvoker invoker) {
+    // Take from the tail to keep away from the owner which is working from the head
+    final Iterator<DispatchableJob> itr = jobs.descendingIterator();
+    while (itr.hasNext()) {
+      final DispatchableJob job = itr.next();
+      if (job.canRunOn(invoker) && jobs.removeLastOccurrence(job)) {
+        return job;
       }
     }
+    return null;
   }
 
   /**
@@ -21,6 +21,8 @@ public class LocalNodeJobInvokerFactoryBean extends SingletonFactoryBean<LocalNo
 
   private JobDispatcher _jobDispatcher;
 
+  private InputPrefetcher _inputPrefetcher;
+
   public Collection<SimpleCalculationNode> getNodes() {
     return _nodes;
   }
@@ -37,12 +39,21 @@ public class LocalNodeJobInvokerFactoryBean extends SingletonFactoryBean<LocalNo
     _jobDispatcher = jobDispatcher;
   }
 
+  public InputPrefetcher getInputPrefetcher() {
+    return _inputPrefetcher;
+  }
+
+  public void setInputPrefetcher(final InputPrefetcher inputPrefetcher) {
+    _inputPrefetcher = inputPrefetcher;
+  }
+
   @Override
   protected LocalNodeJobInvoker createObject() {
     final LocalNodeJobInvoker invoker = new LocalNodeJobInvoker();
     if (getNodes() != null) {
       invoker.addNodes(getNodes());
     }
+    invoker.setInputPrefetcher(getInputPrefetcher());
     if (getJobDispatcher() != null) {
       getJobDispatcher().registerJobInvoker(invoker);
     }
@@ -346,8 +346,31 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
    * @throws AsynchronousExecution if the job is completing asynchronously
    */
   public CalculationJobResult executeJob(final CalculationJob job) throws AsynchronousExecution {
+    return executeJob(job, null);
+  }
+
+  /**
+   * Invokes all of the items from a calculation job on this node, using any inputs that were prefetched while the job was queued. See {@link #executeJob(CalculationJob)} for details of the
+   * asynchronous behavior.
+   * 
+   * @param job the job to execute
+   * @param prefetchedInputs the inputs fetched in advance by an {@link InputPrefetcher}, null if none
+   * @return the job result
+   * @throws AsynchronousExecution if the job is completing asynchronously
+   */
+  public CalculationJobResult executeJob(final CalculationJob job, final InputPrefetcher.PrefetchedInputs prefetchedInputs) throws AsynchronousExecution {
     s_logger.info("Executing {} on {}", job, _nodeId);
     setJob(job);
+    setPrefetchedInputs(prefetchedInputs);
+    try {
+      return executeJobImpl(job);
+    } finally {
+      // Don't keep the values reachable from this node once the job has finished with them; a deferred remainder will fetch from the cache
+      setPrefetchedInputs(null);
+    }
+  }
+
+  private CalculationJobResult executeJobImpl(final CalculationJob job) throws AsynchronousExecution {
     final CalculationJobSpecification spec = job.getSpecification();
     getFunctionExecutionContext().setValuationTime(spec.getValuationTime());
     getFunctionExecutionContext().setValuationClock(DateUtils.fixedClockUTC(spec.getValuationTime()));
@@ -700,6 +723,7 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
       resultItemBuilder.withMissingOutputs(missing);
     }
     getCache().putValues(newResults, getJob().getCacheSelectHint(), statistics);
+    statistics.outputsWritten();
   }
 
   private void invokeException(final ValueSpecification[] outputs, final Throwable t, final CalculationJobResultItemBuilder resultItemBuilder) {
@@ -750,7 +774,10 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     int inputSamples = 0;
     final DeferredViewComputationCache cache = getCache();
     _inputs._inputs = inputValueSpecs;
-    for (final Pair<ValueSpecification, Object> input : cache.getValues(_inputs, getJob().getCacheSelectHint())) {
+    final InputPrefetcher.PrefetchedInputs prefetched = getPrefetchedInputs();
+    final Collection<Pair<ValueSpecification, Object>> inputValues = (prefetched != null) ? prefetched.getValues(cache, _inputs, getJob().getCacheSelectHint()) : cache.getValues(_inputs,
+        getJob().getCacheSelectHint());
+    for (final Pair<ValueSpecification, Object> input : inputValues) {
       if ((input.getSecond() == null) || (input.getSecond() instanceof MissingValue)) {
         missing.add(input.getFirst());
       } else {
@@ -764,6 +791,7 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
       }
     }
     statistics.setDataInputBytes(inputBytes, inputSamples);
+    statistics.inputsFetched();
     if (!missing.isEmpty()) {
       if (invoker.canHandleMissingInputs()) {
         s_logger.debug("Executing even with missing inputs {}", missing);
@@ -6,6 +6,7 @@
 package com.opengamma.engine.calcnode;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -23,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.Lifecycle;
 
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.async.AsynchronousExecution;
@@ -167,17 +169,28 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
     private Status _status;
     private Set<JobEntry> _blocked;
     private Pair<Thread, CalculationJob> _executor;
+    private CalculationJob _job;
 
-    public JobExecution(final long jobId) {
-      _jobId = jobId;
+    public JobExecution(final CalculationJob job) {
+      _jobId = job.getSpecification().getJobId();
       _timestamp = System.nanoTime();
       _status = Status.RUNNING;
+      _job = job;
     }
 
     public long getJobId() {
       return _jobId;
     }
 
+    /**
+     * Returns the job while it is running, queued or blocked. The reference is dropped when the job completes or fails.
+     * 
+     * @return the job, or null if it has completed or failed
+     */
+    public CalculationJob getJob() {
+      return _job;
+    }
+
     public long getAge() {
       return System.nanoTime() - _timestamp;
     }
@@ -188,6 +201,9 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
 
     public void setStatus(final Status status) {
       _status = status;
+      if (status != Status.RUNNING) {
+        _job = null;
+      }
     }
 
     public synchronized Pair<Thread, CalculationJob> getAndSetExecutor(final Pair<Thread, CalculationJob> executor) {
@@ -255,6 +271,11 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
    */
   private final Queue<PartialJobEntry> _partialJobs = new ConcurrentLinkedQueue<PartialJobEntry>();
 
+  /**
+   * The optional prefetcher for the inputs of queued and blocked jobs.
+   */
+  private volatile InputPrefetcher _inputPrefetcher;
+
   private ExecutorService _executorService = createExecutorService();
 
   private static ExecutorService createExecutorService() {
@@ -355,6 +376,19 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
     return _partialJobs.size();
   }
 
+  /**
+   * Sets a prefetcher to fetch shared cache inputs for jobs that are waiting to run - either for a node to become available or for the jobs they are a tail of to complete.
+   * 
+   * @param inputPrefetcher the prefetcher to use, null to disable prefetching
+   */
+  public void setInputPrefetcher(final InputPrefetcher inputPrefetcher) {
+    _inputPrefetcher = inputPrefetcher;
+  }
+
+  public InputPrefetcher getInputPrefetcher() {
+    return _inputPrefetcher;
+  }
+
   protected abstract void onNodeChange();
 
   protected void onJobExecutionComplete() {
@@ -364,12 +398,41 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
     return _executorService;
   }
 
-  private JobExecution createExecution(final Long jobId) {
-    final JobExecution jobexec = new JobExecution(jobId);
-    _executions.put(jobId, jobexec);
+  private JobExecution createExecution(final CalculationJob job) {
+    final JobExecution jobexec = new JobExecution(job);
+    _executions.put(jobexec.getJobId(), jobexec);
     return jobexec;
   }
 
+  /**
+   * Schedules a prefetch of the job's inputs. This must be called before the job can be taken from the runnable queue or released by another thread so that the prefetched values are always either
+   * taken or discarded.
+   */
+  private void prefetchInputs(final JobEntry jobEntry, final Set<ValueSpecification> pending) {
+    final InputPrefetcher prefetcher = getInputPrefetcher();
+    if (prefetcher != null) {
+      final ExecutorService executor = getExecutorService();
+      if (executor != null) {
+        prefetcher.prefetch(jobEntry.getJob(), pending, executor);
+        synchronized (jobEntry.getExecution()) {
+          if (jobEntry.getExecution().getStatus() == JobExecution.Status.FAILED) {
+            // Cancelled before the prefetch was registered
+            prefetcher.discard(jobEntry.getExecution().getJobId());
+          }
+        }
+      }
+    }
+  }
+
+  private InputPrefetcher.PrefetchedInputs takePrefetchedInputs(final JobExecution execution) {
+    final InputPrefetcher prefetcher = getInputPrefetcher();
+    if (prefetcher != null) {
+      return prefetcher.take(execution.getJobId());
+    } else {
+      return null;
+    }
+  }
+
   private JobExecution getExecution(final Long jobId) {
     return _executions.get(jobId);
   }
@@ -389,6 +452,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
           node = getNodes().poll();
           if (node == null) {
             s_logger.debug("Adding job {} to runnable queue", jobexec.getJob().getSpecification().getJobId());
+            prefetchInputs(jobexec, Collections.<ValueSpecification>emptySet());
             _runnableJobs.add(jobexec);
             return;
           }
@@ -436,6 +500,10 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
       _failures.put(execution.getJobId(), execution);
       _failureCount.incrementAndGet();
     }
+    final InputPrefetcher prefetcher = getInputPrefetcher();
+    if (prefetcher != null) {
+      prefetcher.discard(execution.getJobId());
+    }
     if (blocked != null) {
       for (final JobEntry tail : blocked) {
         tail.invalidate();
@@ -473,7 +541,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
    * @param node optional node to start a worker thread with
    */
   protected void addJob(final CalculationJob job, final ExecutionReceiver receiver, final SimpleCalculationNode node) {
-    final JobExecution jobExecution = createExecution(job.getSpecification().getJobId());
+    final JobExecution jobExecution = createExecution(job);
     final long[] requiredJobIds = job.getRequiredJobIds();
     final JobEntry jobEntry = new JobEntry(job, jobExecution, receiver);
     if (requiredJobIds != null) {
@@ -481,6 +549,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
       assert node == null;
       boolean failed = false;
       boolean blocked = false;
+      Set<ValueSpecification> pending = null;
       for (final Long requiredId : requiredJobIds) {
         JobExecution required = getExecution(requiredId);
         s_logger.debug("Job {} requires {}", jobExecution.getJobId(), requiredId);
@@ -503,6 +572,15 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
                 jobEntry.incrementBlockCount();
                 required.blockJob(jobEntry);
                 s_logger.debug("Required job {} blocking {}", requiredId, jobExecution.getJobId());
+                if ((getInputPrefetcher() != null) && (required.getJob() != null)) {
+                  // Values produced by the blocking job can't be prefetched
+                  if (pending == null) {
+                    pending = new HashSet<ValueSpecification>();
+                  }
+                  for (CalculationJobItem item : required.getJob().getJobItems()) {
+                    Collections.addAll(pending, item.getOutputs());
+                  }
+                }
                 break;
             }
           }
@@ -522,6 +600,10 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
         return;
       }
       if (blocked) {
+        if (pending != null) {
+          // The additional count from the initialization stops another thread releasing the job until this is registered
+          prefetchInputs(jobEntry, pending);
+        }
         // Decrement the additional count from the initialization
         if (!jobEntry.releaseBlockCount()) {
           s_logger.debug("Blocked execution of {}", jobExecution.getJobId());
@@ -592,7 +674,7 @@ public abstract class SimpleCalculationNodeInvocationContainer implements Lifecy
       if (job.getExecution().threadBusy(job.getJob())) {
         try {
           if (resumeJob == null) {
-            result = node.executeJob(job.getJob());
+            result = node.executeJob(job.getJob(), takePrefetchedInputs(job.getExecution()));
           } else {
             node.restoreState(resumeJob.getNodeState());
             result = resumeJob.getHandle().getResult().call(node);
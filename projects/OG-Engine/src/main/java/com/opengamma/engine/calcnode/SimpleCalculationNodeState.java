@@ -20,6 +20,7 @@ import com.opengamma.engine.function.FunctionExecutionContext;
   private DeferredViewComputationCache _cache;
   private String _calculationConfiguration;
   private long _executionTime;
+  private InputPrefetcher.PrefetchedInputs _prefetchedInputs;
 
   private SimpleCalculationNodeState(final SimpleCalculationNodeState copyFrom) {
     restoreState(copyFrom);
@@ -42,6 +43,7 @@ import com.opengamma.engine.function.FunctionExecutionContext;
     setCache(state.getCache());
     setConfiguration(state.getConfiguration());
     setExecutionStartTime(state.getExecutionStartTime());
+    setPrefetchedInputs(state.getPrefetchedInputs());
   }
 
   protected void setFunctionExecutionContext(FunctionExecutionContext functionExecutionContext) {
@@ -92,4 +94,12 @@ import com.opengamma.engine.function.FunctionExecutionContext;
     _executionTime = executionTime;
   }
 
+  protected InputPrefetcher.PrefetchedInputs getPrefetchedInputs() {
+    return _prefetchedInputs;
+  }
+
+  protected void setPrefetchedInputs(final InputPrefetcher.PrefetchedInputs prefetchedInputs) {
+    _prefetchedInputs = prefetchedInputs;
+  }
+
 }
@@ -26,4 +26,8 @@ public interface CalculationNodesMBean {
 
   String addNode();
 
+  boolean isFunctionMetricsEnabled();
+
+  void setFunctionMetricsEnabled(boolean enabled);
+
 }
@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.calcnode.FunctionInvocationMetrics;
 import com.opengamma.engine.calcnode.SimpleCalculationNode;
 import com.opengamma.engine.calcnode.SimpleCalculationNodeFactory;
 
@@ -111,4 +112,14 @@ public class SimpleCalculationNodeInvocationContainer<T extends com.opengamma.en
     return "Added " + node.getNodeId() + " to container";
   }
 
+  @Override
+  public boolean isFunctionMetricsEnabled() {
+    return FunctionInvocationMetrics.isEnabled();
+  }
+
+  @Override
+  public void setFunctionMetricsEnabled(final boolean enabled) {
+    FunctionInvocationMetrics.setEnabled(enabled);
+  }
+
 }
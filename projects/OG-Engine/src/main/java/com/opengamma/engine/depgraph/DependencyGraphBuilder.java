@@ -154,6 +154,9 @@ public final class DependencyGraphBuilder implements Cancelable {
   // The resolve task is NOT ref-counted (it is only used for parent comparisons), but the value producer is
   private final ConcurrentMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>> _specifications = new ConcurrentHashMap<ValueSpecification, MapEx<ResolveTask, ResolvedValueProducer>>();
 
+  // Target resolutions published in batches by the thread contexts
+  private final ConcurrentMap<ComputationTargetReference, ComputationTargetSpecification> _resolvedTargets = new ConcurrentHashMap<ComputationTargetReference, ComputationTargetSpecification>();
+
   /**
    * Number of additional threads to launch while requirements are being added or the graph is being built. The total number of threads used for graph construction may be up to this value or may be
    * one higher as a thread blocked on graph construction in the call to {@link #getDependencyGraph} will join in with the remaining construction.
@@ -371,6 +374,14 @@ public final class DependencyGraphBuilder implements Cancelable {
     return specification;
   }
 
+  protected ComputationTargetSpecification getResolvedTargetReference(final ComputationTargetReference reference) {
+    return _resolvedTargets.get(reference);
+  }
+
+  protected void addResolvedTargetReferences(final Map<ComputationTargetReference, ComputationTargetSpecification> resolutions) {
+    _resolvedTargets.putAll(resolutions);
+  }
+
   protected MapEx<ResolveTask, ResolvedValueProducer> getTasks(final ValueSpecification valueSpecification) {
     return _specifications.get(valueSpecification);
   }
@@ -984,6 +995,8 @@ public final class DependencyGraphBuilder implements Cancelable {
     if (context != null) {
       getContext().mergeThreadContext(context);
     }
+    // Target resolutions are cheap to repeat
+    _resolvedTargets.clear();
     if (s_logger.isInfoEnabled()) {
       if (removed > 0) {
         s_logger.info("Discarded {} production task(s)", removed);
@@ -1031,6 +1044,7 @@ public final class DependencyGraphBuilder implements Cancelable {
     // Help out the GC
     _requirements.clear();
     _specifications.clear();
+    _resolvedTargets.clear();
     return graph;
   }
 
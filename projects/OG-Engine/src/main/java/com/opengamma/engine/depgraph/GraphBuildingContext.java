@@ -44,9 +44,21 @@ import com.opengamma.util.tuple.Pairs;
 
   private static final int MAX_CALLBACK_DEPTH = 16;
 
+  /**
+   * The number of new target resolutions to hold locally before publishing them to the builder.
+   */
+  private static final int TARGET_PUBLISH_BATCH = 256;
+
+  /**
+   * The maximum number of target resolutions to hold locally. The local cache is discarded when this is reached; the entries remain in the builder's shared cache.
+   */
+  private static final int MAX_LOCAL_TARGETS = 8192;
+
   private final DependencyGraphBuilder _builder;
   private Map<ExceptionWrapper, ExceptionWrapper> _exceptions;
   private int _stackDepth;
+  private Map<ComputationTargetReference, ComputationTargetSpecification> _resolvedTargets;
+  private Map<ComputationTargetReference, ComputationTargetSpecification> _unpublishedTargets;
 
   public GraphBuildingContext(final DependencyGraphBuilder builder) {
     _builder = builder;
@@ -509,8 +521,47 @@ import com.opengamma.util.tuple.Pairs;
     getBuilder().addResolvedValue(resolvedValue);
   }
 
+  /**
+   * Resolves a target reference, using the resolutions already made by this context or published by others. New resolutions are published to the builder in batches so that threads don't contend
+   * on the shared cache for each one.
+   *
+   * @param reference the reference to resolve, not null
+   * @return the resolved specification, or null if it could not be resolved
+   */
   public ComputationTargetSpecification resolveTargetReference(final ComputationTargetReference reference) {
-    return getBuilder().resolveTargetReference(reference);
+    if (_resolvedTargets == null) {
+      _resolvedTargets = new HashMap<ComputationTargetReference, ComputationTargetSpecification>();
+    }
+    ComputationTargetSpecification specification = _resolvedTargets.get(reference);
+    if (specification != null) {
+      return specification;
+    }
+    specification = getBuilder().getResolvedTargetReference(reference);
+    if (specification == null) {
+      specification = getBuilder().resolveTargetReference(reference);
+      if (specification == null) {
+        return null;
+      }
+      if (_unpublishedTargets == null) {
+        _unpublishedTargets = new HashMap<ComputationTargetReference, ComputationTargetSpecification>();
+      }
+      _unpublishedTargets.put(reference, specification);
+      if (_unpublishedTargets.size() >= TARGET_PUBLISH_BATCH) {
+        publishResolvedTargets();
+      }
+    }
+    if (_resolvedTargets.size() >= MAX_LOCAL_TARGETS) {
+      _resolvedTargets.clear();
+    }
+    _resolvedTargets.put(reference, specification);
+    return specification;
+  }
+
+  private void publishResolvedTargets() {
+    if (_unpublishedTargets != null) {
+      getBuilder().addResolvedTargetReferences(_unpublishedTargets);
+      _unpublishedTargets = null;
+    }
   }
 
   /**
@@ -629,6 +680,7 @@ import com.opengamma.util.tuple.Pairs;
    * @param context the other context
    */
   public synchronized void mergeThreadContext(final GraphBuildingContext context) {
+    context.publishResolvedTargets();
     if (_exceptions == null) {
       _exceptions = new HashMap<ExceptionWrapper, ExceptionWrapper>();
     }
@@ -111,4 +111,19 @@ public abstract class RunQueueFactory {
     };
   }
 
+  /**
+   * Creates queues with a deque for each building thread. Threads work LIFO from their own deque and steal from the others when it is empty. This can scale better than
+   * {@link #getConcurrentLinkedQueue} or {@link #getConcurrentStack} when a large number of threads are used for graph building.
+   *
+   * @return the factory instance
+   */
+  public static RunQueueFactory getWorkStealing() {
+    return new RunQueueFactory() {
+      @Override
+      protected RunQueue createRunQueue() {
+        return new WorkStealingRunQueue();
+      }
+    };
+  }
+
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Run queue implementation based on a deque for each thread. A thread adds and takes tasks at the tail of its own deque, giving LIFO ordering which keeps related work (often on the same
+ * computation target) together. When its own deque is empty, a thread steals the oldest task from the head of another thread's deque. Threads only contend with each other when stealing, rather
+ * than on every operation as they do with a single shared queue.
+ * <p>
+ * The deques are held by the queue, keyed on their threads, rather than in a thread local. Pooled building threads outlive the builder and its queue, and would otherwise keep the deques of every
+ * discarded queue reachable.
+ */
+/* package */final class WorkStealingRunQueue implements RunQueue {
+
+  private static final class WorkerDeque extends ConcurrentLinkedDeque<ContextRunnable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int _index;
+
+    private WorkerDeque(final int index) {
+      _index = index;
+    }
+
+  }
+
+  private final List<WorkerDeque> _deques = new CopyOnWriteArrayList<WorkerDeque>();
+
+  private final ConcurrentMap<Thread, WorkerDeque> _local = new ConcurrentHashMap<Thread, WorkerDeque>();
+
+  private WorkerDeque local() {
+    final Thread thread = Thread.currentThread();
+    final WorkerDeque deque = _local.get(thread);
+    if (deque != null) {
+      return deque;
+    }
+    return register(thread);
+  }
+
+  private synchronized WorkerDeque register(final Thread thread) {
+    final WorkerDeque deque = new WorkerDeque(_deques.size());
+    _deques.add(deque);
+    _local.put(thread, deque);
+    return deque;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (WorkerDeque deque : _deques) {
+      if (!deque.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (WorkerDeque deque : _deques) {
+      size += deque.size();
+    }
+    return size;
+  }
+
+  @Override
+  public Iterator<ContextRunnable> iterator() {
+    final Collection<Iterator<ContextRunnable>> iterators = new ArrayList<Iterator<ContextRunnable>>(_deques.size());
+    for (WorkerDeque deque : _deques) {
+      iterators.add(deque.iterator());
+    }
+    return Iterators.concat(iterators.iterator());
+  }
+
+  @Override
+  public void add(final ContextRunnable runnable) {
+    local().addLast(runnable);
+  }
+
+  @Override
+  public ContextRunnable take() {
+    final WorkerDeque local = local();
+    final ContextRunnable runnable = local.pollLast();
+    if (runnable != null) {
+      return runnable;
+    }
+    return steal(local._index);
+  }
+
+  private ContextRunnable steal(final int self) {
+    // Start with the thread after this one so that idle threads don't all contend on the first deque
+    final List<WorkerDeque> deques = _deques;
+    final int count = deques.size();
+    for (int i = 1; i < count; i++) {
+      final ContextRunnable runnable = deques.get((self + i) % count).pollFirst();
+      if (runnable != null) {
+        return runnable;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkStealingRunQueue[" + _deques.size() + "]";
+  }
+
+}
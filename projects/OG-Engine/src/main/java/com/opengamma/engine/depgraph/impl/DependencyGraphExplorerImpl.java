@@ -28,6 +28,7 @@ public class DependencyGraphExplorerImpl implements DependencyGraphExplorer {
   private final DependencyGraph _graph;
   private volatile Map<ValueSpecification, DependencyNode> _nodesBySpecification;
   private volatile Set<ComputationTargetSpecification> _allTargets;
+  private volatile DependentNodeIndex _dependentNodes;
 
   public DependencyGraphExplorerImpl(DependencyGraph graph) {
     ArgumentChecker.notNull(graph, "graph");
@@ -108,4 +109,18 @@ public class DependencyGraphExplorerImpl implements DependencyGraphExplorer {
     return targets;
   }
 
+  /**
+   * Returns the reverse dependency index of the graph, building it on first use. The index of a {@link DependencyGraphImpl} is the one retained by the graph.
+   *
+   * @return the index, not null
+   */
+  public DependentNodeIndex getDependentNodeIndex() {
+    DependentNodeIndex index = _dependentNodes;
+    if (index == null) {
+      index = DependentNodeIndex.of(_graph);
+      _dependentNodes = index;
+    }
+    return index;
+  }
+
 }
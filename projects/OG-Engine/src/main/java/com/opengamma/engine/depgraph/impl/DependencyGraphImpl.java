@@ -61,6 +61,11 @@ public class DependencyGraphImpl implements DependencyGraph, Serializable {
    */
   private volatile int _hashCode;
 
+  /**
+   * The reverse dependency index, built on first use.
+   */
+  private transient volatile DependentNodeIndex _dependentNodes;
+
   /**
    * Creates a new dependency graph for the named configuration with given roots and terminal outputs.
    * 
@@ -96,6 +101,14 @@ public class DependencyGraphImpl implements DependencyGraph, Serializable {
     return _calculationConfigurationName;
   }
 
+  /* package */DependentNodeIndex getDependentNodeIndex() {
+    return _dependentNodes;
+  }
+
+  /* package */void setDependentNodeIndex(final DependentNodeIndex dependentNodes) {
+    _dependentNodes = dependentNodes;
+  }
+
   private static int calculateSize(final DependencyNode node, final Set<DependencyNode> nodes) {
     int count = 1;
     final int inputs = node.getInputCount();
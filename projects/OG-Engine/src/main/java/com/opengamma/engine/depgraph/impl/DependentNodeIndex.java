@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Reverse dependency index of a graph for propagating changes from inputs to the nodes that consume them.
+ * <p>
+ * Each node is given an integer identifier in execution order, so a node's identifier is always greater than the identifiers of its inputs. The dependents of each node are held in a flat array,
+ * making it possible to find every node affected by a set of changed nodes with a single forward scan over a {@link BitSet}. The cost of this is proportional to the size of the affected subgraph
+ * rather than the size of the whole graph.
+ * <p>
+ * The index is immutable once constructed and may be shared by any number of threads. It should be built once for a graph and held with it; {@link #of} does this for a
+ * {@link DependencyGraphImpl}. The index also keeps a spare {@link BitSet} of its size so that a marking pass need not allocate one each time it is used.
+ */
+public final class DependentNodeIndex {
+
+  /**
+   * The nodes, indexed by identifier.
+   */
+  private final DependencyNode[] _nodes;
+  /**
+   * The node identifiers.
+   */
+  private final Object2IntMap<DependencyNode> _identifiers;
+  /**
+   * The identifiers of the nodes producing each output value.
+   */
+  private final Object2IntMap<ValueSpecification> _producers;
+  /**
+   * The identifiers of the market data sourcing nodes.
+   */
+  private final int[] _marketData;
+  /**
+   * The dependents of node {@code i} are at {@code _dependents[_dependentOffset[i]]} to {@code _dependents[_dependentOffset[i + 1] - 1]}.
+   */
+  private final int[] _dependentOffset;
+  private final int[] _dependents;
+  /**
+   * A cleared bit set, available for reuse.
+   */
+  private final AtomicReference<BitSet> _spare = new AtomicReference<BitSet>();
+
+  private DependentNodeIndex(final DependencyNode[] nodes) {
+    final int size = nodes.length;
+    _nodes = nodes;
+    _identifiers = new Object2IntOpenHashMap<DependencyNode>(size);
+    _identifiers.defaultReturnValue(-1);
+    _producers = new Object2IntOpenHashMap<ValueSpecification>(size);
+    _producers.defaultReturnValue(-1);
+    int marketData = 0;
+    for (int i = 0; i < size; i++) {
+      final DependencyNode node = nodes[i];
+      _identifiers.put(node, i);
+      final int outputs = node.getOutputCount();
+      for (int j = 0; j < outputs; j++) {
+        _producers.put(node.getOutputValue(j), i);
+      }
+      if (isMarketData(node)) {
+        marketData++;
+      }
+    }
+    _marketData = new int[marketData];
+    marketData = 0;
+    _dependentOffset = new int[size + 1];
+    for (int i = 0; i < size; i++) {
+      final DependencyNode node = nodes[i];
+      if (isMarketData(node)) {
+        _marketData[marketData++] = i;
+      }
+      final int inputs = node.getInputCount();
+      for (int j = 0; j < inputs; j++) {
+        _dependentOffset[_identifiers.getInt(node.getInputNode(j)) + 1]++;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      _dependentOffset[i + 1] += _dependentOffset[i];
+    }
+    _dependents = new int[_dependentOffset[size]];
+    final int[] fill = new int[size];
+    for (int i = 0; i < size; i++) {
+      final DependencyNode node = nodes[i];
+      final int inputs = node.getInputCount();
+      for (int j = 0; j < inputs; j++) {
+        final int input = _identifiers.getInt(node.getInputNode(j));
+        _dependents[_dependentOffset[input] + fill[input]++] = i;
+      }
+    }
+  }
+
+  private static boolean isMarketData(final DependencyNode node) {
+    return (node.getInputCount() == 0) && MarketDataSourcingFunction.UNIQUE_ID.equals(node.getFunction().getFunctionId());
+  }
+
+  /**
+   * Returns the index for a graph. Building the index requires a traversal of the whole graph; if the graph is a {@link DependencyGraphImpl} the index is retained with it so that this only
+   * happens once. The index of any other graph should be retained by the caller rather than being rebuilt for each use.
+   *
+   * @param graph the graph to index, not null
+   * @return the index, not null
+   */
+  public static DependentNodeIndex of(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    if (graph instanceof DependencyGraphImpl) {
+      final DependencyGraphImpl graphImpl = (DependencyGraphImpl) graph;
+      DependentNodeIndex index = graphImpl.getDependentNodeIndex();
+      if (index == null) {
+        index = build(graph);
+        graphImpl.setDependentNodeIndex(index);
+      }
+      return index;
+    }
+    return build(graph);
+  }
+
+  private static DependentNodeIndex build(final DependencyGraph graph) {
+    final List<DependencyNode> nodes = new ArrayList<DependencyNode>(graph.getSize());
+    final Iterator<DependencyNode> itr = new ExecutionOrderNodeIterator(graph);
+    while (itr.hasNext()) {
+      nodes.add(itr.next());
+    }
+    return new DependentNodeIndex(nodes.toArray(new DependencyNode[nodes.size()]));
+  }
+
+  /**
+   * Returns the number of nodes in the index. Node identifiers are from zero to one less than this value.
+   *
+   * @return the number of nodes
+   */
+  public int getSize() {
+    return _nodes.length;
+  }
+
+  /**
+   * Returns the node with the given identifier.
+   *
+   * @param identifier the node identifier
+   * @return the node, not null
+   */
+  public DependencyNode getNode(final int identifier) {
+    return _nodes[identifier];
+  }
+
+  /**
+   * Returns the identifier of a node.
+   *
+   * @param node the node to look up, not null
+   * @return the identifier, or -1 if the node is not part of the indexed graph
+   */
+  public int getIdentifier(final DependencyNode node) {
+    return _identifiers.getInt(node);
+  }
+
+  /**
+   * Returns the identifier of the node producing a value.
+   *
+   * @param value the value to look up, not null
+   * @return the identifier, or -1 if the value is not produced by the indexed graph
+   */
+  public int getProducer(final ValueSpecification value) {
+    return _producers.getInt(value);
+  }
+
+  /**
+   * Returns the number of market data sourcing nodes in the graph.
+   *
+   * @return the number of market data nodes
+   */
+  public int getMarketDataCount() {
+    return _marketData.length;
+  }
+
+  /**
+   * Returns the identifier of a market data sourcing node.
+   *
+   * @param index the index of the market data node, from zero to one less than {@link #getMarketDataCount}
+   * @return the node identifier
+   */
+  public int getMarketData(final int index) {
+    return _marketData[index];
+  }
+
+  /**
+   * Tests whether a node is a market data sourcing node.
+   *
+   * @param identifier the node identifier
+   * @return true if the node sources market data, false otherwise
+   */
+  public boolean isMarketData(final int identifier) {
+    // Identifiers are allocated in order, so the array is sorted
+    return Arrays.binarySearch(_marketData, identifier) >= 0;
+  }
+
+  /**
+   * Returns a cleared bit set large enough for the node identifiers. This reuses the set last passed to {@link #releaseBitSet} if there is one.
+   *
+   * @return the bit set, not null
+   */
+  public BitSet borrowBitSet() {
+    final BitSet bitSet = _spare.getAndSet(null);
+    return (bitSet != null) ? bitSet : new BitSet(_nodes.length);
+  }
+
+  /**
+   * Returns a bit set obtained from {@link #borrowBitSet} for reuse. The caller must not use the set afterwards.
+   *
+   * @param bitSet the bit set, not null
+   */
+  public void releaseBitSet(final BitSet bitSet) {
+    bitSet.clear();
+    _spare.set(bitSet);
+  }
+
+  /**
+   * Marks every node that depends, directly or indirectly, on a node that is already marked. Nodes are visited in identifier order so the dependents of each marked node are always visited after
+   * it; only the marked nodes and their dependents are touched.
+   *
+   * @param dirty the initially marked nodes, updated in place to include all of their dependents, not null
+   */
+  public void markDependents(final BitSet dirty) {
+    for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+      final int end = _dependentOffset[i + 1];
+      for (int j = _dependentOffset[i]; j < end; j++) {
+        dirty.set(_dependents[j]);
+      }
+    }
+  }
+
+}
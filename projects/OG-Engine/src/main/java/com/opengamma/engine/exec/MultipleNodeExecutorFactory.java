@@ -137,6 +137,26 @@ public class MultipleNodeExecutorFactory extends PlanBasedGraphExecutorFactory i
     return _basePlanner.getMaximumConcurrency();
   }
 
+  /**
+   * Sets the number of calculation nodes that the planner should balance jobs for.
+   * 
+   * @param targetNodeCount the number of nodes, or 0 to use the configured job costs only
+   * @see MultipleNodeExecutionPlanner#setTargetNodeCount
+   */
+  public void setTargetNodeCount(final int targetNodeCount) {
+    _basePlanner.setTargetNodeCount(targetNodeCount);
+  }
+
+  /**
+   * Returns the number of calculation nodes that the planner balances jobs for.
+   * 
+   * @return the number of nodes, or 0 if the configured job costs are used as-is
+   * @see MultipleNodeExecutionPlanner#getTargetNodeCount
+   */
+  public int getTargetNodeCount() {
+    return _basePlanner.getTargetNodeCount();
+  }
+
   public void setFunctionCosts(final FunctionCosts functionCosts) {
     _basePlanner.setFunctionCosts(functionCosts);
   }
@@ -34,6 +34,9 @@ import com.opengamma.util.ArgumentChecker;
  * Set maximum concurrency to the average node count of the job invokers. Requires a {@link JobDispatcher}.
  * </p>
  * <p>
+ * If the factory is balancing jobs for a target node count, set it to the total node count of the job invokers. Requires a {@link JobDispatcher}.
+ * </p>
+ * <p>
  * TODO: [ENG-200] Tuning of job size and cost parameters
  * </p>
  */
@@ -133,6 +136,14 @@ public class MultipleNodeExecutorTuner implements Runnable {
           getFactory().setMaximumConcurrency(newMaxConcurrency);
           changed = true;
         }
+        if (getFactory().getTargetNodeCount() > 0) {
+          final int newTargetNodeCount = Math.max((int) Math.ceil(nodesPerInvoker), 1);
+          if (newTargetNodeCount != getFactory().getTargetNodeCount()) {
+            s_logger.info("Changing target node count to {}", newTargetNodeCount);
+            getFactory().setTargetNodeCount(newTargetNodeCount);
+            changed = true;
+          }
+        }
       }
       if (changed) {
         getFactory().invalidateCache();
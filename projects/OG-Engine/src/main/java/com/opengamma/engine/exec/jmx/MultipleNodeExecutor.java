@@ -69,6 +69,11 @@ public final class MultipleNodeExecutor implements MultipleNodeExecutorMBean {
     return getUnderlying().getMinimumJobItems();
   }
 
+  @Override
+  public int getTargetNodeCount() {
+    return getUnderlying().getTargetNodeCount();
+  }
+
   @Override
   public void setMaximumConcurrency(int maximumConcurrency) {
     getUnderlying().setMaximumConcurrency(maximumConcurrency);
@@ -99,4 +104,10 @@ public final class MultipleNodeExecutor implements MultipleNodeExecutorMBean {
     getUnderlying().invalidateCache();
   }
 
+  @Override
+  public void setTargetNodeCount(int targetNodeCount) {
+    getUnderlying().setTargetNodeCount(targetNodeCount);
+    getUnderlying().invalidateCache();
+  }
+
 }
@@ -301,6 +301,20 @@ import com.opengamma.engine.view.ExecutionLogMode;
     return cost <= maxCost;
   }
 
+  /**
+   * Estimates the data cost that {@link #prependFragment} would save. This is the cost of the values produced by the fragment that this currently reads from the shared cache.
+   */
+  public long getPrependDataSaving(final GraphFragment fragment) {
+    long saving = 0;
+    for (final ValueSpecification output : fragment.getOutputValues().keySet()) {
+      final Integer cost = getInputValues().get(output);
+      if (cost != null) {
+        saving += cost;
+      }
+    }
+    return saving;
+  }
+
   /**
    * Prepends a fragment. A fragment can be prepended if it produces values needed by this. If output from one doesn't feed into the other, use the cheaper append operation.
    */
@@ -5,9 +5,15 @@
  */
 package com.opengamma.engine.exec.plan;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,17 +48,26 @@ import com.opengamma.util.tuple.Pairs;
  * <p>
  * Job cost estimates are in nanoseconds. These are using the (normalized) time estimate for the function execution and the estimated input/output data volumes using an approximate data rate. The
  * actual jobs produced may take longer to execute because of additional scheduling and housekeeping overheads.
+ * <p>
+ * If a target node count is set, the job cost limits are derived for each graph from the measured function costs so that the work is spread evenly over the calculation nodes. Single dependencies
+ * are then merged in order of the shared cache data movement they save, and only where the merge does not lengthen the estimated critical path through the graph.
  */
 public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
 
   private static final Logger s_logger = LoggerFactory.getLogger(MultipleNodeExecutionPlanner.class);
   private static final GraphExecutionPlanner s_smallJobPlanner = new SingleNodeExecutionPlanner();
 
+  /**
+   * The number of jobs per calculation node to aim for when deriving job costs from a target node count. Having a few jobs per node allows the dispatcher to balance uneven cost estimates.
+   */
+  private static final int JOBS_PER_NODE = 4;
+
   private int _minimumJobItems = 1;
   private int _maximumJobItems = Integer.MAX_VALUE;
   private long _minimumJobCost;
   private long _maximumJobCost = Long.MAX_VALUE;
   private int _maximumConcurrency = Integer.MAX_VALUE;
+  private int _targetNodeCount;
   private FunctionCosts _functionCosts = new FunctionCosts();
 
   /**
@@ -163,6 +178,29 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
     return _maximumConcurrency;
   }
 
+  /**
+   * Sets the number of calculation nodes that plans should be balanced for.
+   * <p>
+   * When set, the minimum and maximum job costs used for each graph are derived from the total estimated cost of the graph so that each node receives a few jobs of similar cost. The configured
+   * minimum and maximum job costs still apply as bounds.
+   * 
+   * @param targetNodeCount the number of nodes, or 0 to use the configured job costs only
+   */
+  public void setTargetNodeCount(final int targetNodeCount) {
+    ArgumentChecker.isTrue(targetNodeCount >= 0, "targetNodeCount");
+    _targetNodeCount = targetNodeCount;
+  }
+
+  /**
+   * Returns the number of calculation nodes that plans are balanced for.
+   * 
+   * @return the number of nodes, or 0 if the configured job costs are used as-is
+   * @see #setTargetNodeCount
+   */
+  public int getTargetNodeCount() {
+    return _targetNodeCount;
+  }
+
   public void setFunctionCosts(final FunctionCosts functionCosts) {
     ArgumentChecker.notNull(functionCosts, "functionCosts");
     _functionCosts = functionCosts;
@@ -243,7 +281,7 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
   /**
    * Finds pairs of nodes with the same input set (i.e. that would execute concurrently) that are below the minimum job size and merge them together.
    */
-  private boolean mergeSharedInputs(final Set<GraphFragment> rootFragments, final Set<GraphFragment> allFragments) {
+  private boolean mergeSharedInputs(final Set<GraphFragment> rootFragments, final Set<GraphFragment> allFragments, final long minimumJobCost, final long maximumJobCost) {
     final Map<Set<GraphFragment>, GraphFragment> possibleCandidates = new HashMap<Set<GraphFragment>, GraphFragment>();
     final Map<GraphFragment, GraphFragment> validCandidates = new HashMap<GraphFragment, GraphFragment>();
     boolean result = false;
@@ -254,13 +292,13 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
           // No inputs to consider
           continue;
         }
-        if ((fragment.getJobCost() >= getMinimumJobCost()) && (fragment.getJobItems() >= getMinimumJobItems())) {
+        if ((fragment.getJobCost() >= minimumJobCost) && (fragment.getJobItems() >= getMinimumJobItems())) {
           // We already meet the minimum requirement for the graph
           continue;
         }
         final GraphFragment mergeCandidate = possibleCandidates.get(fragment.getInputFragments());
         if (mergeCandidate != null) {
-          if (mergeCandidate.canAppendFragment(fragment, getMaximumJobItems(), getMaximumJobCost())) {
+          if (mergeCandidate.canAppendFragment(fragment, getMaximumJobItems(), maximumJobCost)) {
             // Defer the merge because we're iterating through the dependent's inputs at the moment
             validCandidates.put(fragment, mergeCandidate);
             // Stop using the merge candidate
@@ -309,7 +347,7 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
   /**
    * If a fragment has only one dependency, and both it and its dependent are below the maximum job size they are merged.
    */
-  private boolean mergeSingleDependencies(final GraphFragmentContext context, final Set<GraphFragment> allFragments) {
+  private boolean mergeSingleDependencies(final GraphFragmentContext context, final Set<GraphFragment> allFragments, final long maximumJobCost) {
     int changes = 0;
     final Iterator<GraphFragment> fragmentIterator = allFragments.iterator();
     while (fragmentIterator.hasNext()) {
@@ -318,24 +356,148 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
         continue;
       }
       final GraphFragment dependency = fragment.getOutputFragments().iterator().next();
-      if (!dependency.canPrependFragment(fragment, getMaximumJobItems(), getMaximumJobCost())) {
+      if (!dependency.canPrependFragment(fragment, getMaximumJobItems(), maximumJobCost)) {
         // Can't merge
         continue;
       }
       // Merge fragment with it's dependency and slice it out of the graph
-      dependency.prependFragment(context, fragment);
       fragmentIterator.remove();
-      dependency.getInputFragments().remove(fragment);
-      for (final GraphFragment input : fragment.getInputFragments()) {
-        dependency.getInputFragments().add(input);
-        input.getOutputFragments().remove(fragment);
-        input.getOutputFragments().add(dependency);
-      }
+      prependToDependency(context, fragment, dependency);
       changes++;
     }
     return changes > 0;
   }
 
+  private static void prependToDependency(final GraphFragmentContext context, final GraphFragment fragment, final GraphFragment dependency) {
+    dependency.prependFragment(context, fragment);
+    dependency.getInputFragments().remove(fragment);
+    for (final GraphFragment input : fragment.getInputFragments()) {
+      dependency.getInputFragments().add(input);
+      input.getOutputFragments().remove(fragment);
+      input.getOutputFragments().add(dependency);
+    }
+  }
+
+  /**
+   * Estimates the time at which a fragment will complete, assuming unlimited calculation nodes. This is the cost of the longest path through the fragment graph that ends at the fragment.
+   * <p>
+   * The inputs are walked with an explicit stack rather than by recursion as the fragment graph may be deeper than the thread's stack allows.
+   */
+  private static long getFinishTime(final GraphFragment fragment, final Map<GraphFragment, Long> finishTimes) {
+    final Long finish = finishTimes.get(fragment);
+    if (finish != null) {
+      return finish;
+    }
+    final Deque<GraphFragment> stack = new ArrayDeque<GraphFragment>();
+    stack.push(fragment);
+    while (!stack.isEmpty()) {
+      final GraphFragment current = stack.peek();
+      if (finishTimes.containsKey(current)) {
+        // Reached through another path while its inputs were being evaluated
+        stack.pop();
+        continue;
+      }
+      long ready = 0;
+      boolean pending = false;
+      for (final GraphFragment input : current.getInputFragments()) {
+        final Long inputFinish = finishTimes.get(input);
+        if (inputFinish == null) {
+          stack.push(input);
+          pending = true;
+        } else if (inputFinish > ready) {
+          ready = inputFinish;
+        }
+      }
+      if (!pending) {
+        stack.pop();
+        finishTimes.put(current, ready + current.getJobCost());
+      }
+    }
+    return finishTimes.get(fragment);
+  }
+
+  /**
+   * Estimates the time at which all of the inputs to a fragment will be available, optionally ignoring one of them.
+   */
+  private static long getReadyTime(final GraphFragment fragment, final GraphFragment ignore, final Map<GraphFragment, Long> finishTimes) {
+    long ready = 0;
+    for (final GraphFragment input : fragment.getInputFragments()) {
+      if (input != ignore) {
+        final long finish = getFinishTime(input, finishTimes);
+        if (finish > ready) {
+          ready = finish;
+        }
+      }
+    }
+    return ready;
+  }
+
+  /**
+   * Estimates the length of the critical path through the fragment graph.
+   */
+  private static long getCriticalPath(final Set<GraphFragment> allFragments) {
+    final Map<GraphFragment, Long> finishTimes = Maps.newHashMapWithExpectedSize(allFragments.size());
+    long criticalPath = 0;
+    for (final GraphFragment fragment : allFragments) {
+      final long finish = getFinishTime(fragment, finishTimes);
+      if (finish > criticalPath) {
+        criticalPath = finish;
+      }
+    }
+    return criticalPath;
+  }
+
+  /**
+   * If a fragment has only one dependency, and both it and its dependent are below the maximum job size they may be merged. Candidates are merged in order of the shared cache data cost they save,
+   * and only if the merged fragment would not complete later than the dependency would have done. A merge can delay the work from the fragment if the dependency has other inputs which finish later.
+   */
+  private boolean mergeSingleDependenciesByCost(final GraphFragmentContext context, final Set<GraphFragment> allFragments, final long maximumJobCost) {
+    final Map<GraphFragment, Long> finishTimes = Maps.newHashMapWithExpectedSize(allFragments.size());
+    final List<Pair<GraphFragment, Long>> candidates = new ArrayList<Pair<GraphFragment, Long>>();
+    for (final GraphFragment fragment : allFragments) {
+      if (fragment.getOutputFragments().size() != 1) {
+        continue;
+      }
+      final GraphFragment dependency = fragment.getOutputFragments().iterator().next();
+      if (!dependency.canPrependFragment(fragment, getMaximumJobItems(), maximumJobCost)) {
+        continue;
+      }
+      final long saving = dependency.getPrependDataSaving(fragment);
+      final long fragmentReady = getReadyTime(fragment, null, finishTimes);
+      final long otherReady = getReadyTime(dependency, fragment, finishTimes);
+      final long separate = Math.max(fragmentReady + fragment.getJobCost(), otherReady) + dependency.getJobCost();
+      final long merged = Math.max(fragmentReady, otherReady) + fragment.getJobCost() + dependency.getJobCost() - saving;
+      if (merged > separate) {
+        // Merging would lengthen the path through the dependency
+        continue;
+      }
+      candidates.add(Pairs.of(fragment, saving));
+    }
+    if (candidates.isEmpty()) {
+      return false;
+    }
+    Collections.sort(candidates, new Comparator<Pair<GraphFragment, Long>>() {
+      @Override
+      public int compare(final Pair<GraphFragment, Long> o1, final Pair<GraphFragment, Long> o2) {
+        return o2.getSecond().compareTo(o1.getSecond());
+      }
+    });
+    // The estimates are only valid for fragments which haven't changed during this pass
+    final Set<GraphFragment> changed = new HashSet<GraphFragment>();
+    for (final Pair<GraphFragment, Long> candidate : candidates) {
+      final GraphFragment fragment = candidate.getFirst();
+      final GraphFragment dependency = fragment.getOutputFragments().iterator().next();
+      if (changed.contains(fragment) || changed.contains(dependency)) {
+        continue;
+      }
+      allFragments.remove(fragment);
+      prependToDependency(context, fragment, dependency);
+      changed.add(fragment);
+      changed.add(dependency);
+    }
+    return true;
+  }
+
   /**
    * If a fragment has only a single input, it can be a tail to the fragment generating that input. A fragment with multiple inputs can be a tail to all of them iff they are tails to a common fragment
    * (ie all will end up at the same calculation node).
@@ -461,16 +623,32 @@ public class MultipleNodeExecutionPlanner implements GraphExecutionPlanner {
     final Set<GraphFragment> rootFragments = createGraphFragments(graph, gatherer);
     final Set<GraphFragment> allFragments = gatherer.getAllFragments();
     gatherer = null;
+    long minimumJobCost = getMinimumJobCost();
+    long maximumJobCost = getMaximumJobCost();
+    final boolean balanced = getTargetNodeCount() > 0;
+    if (balanced) {
+      long totalCost = 0;
+      for (GraphFragment fragment : allFragments) {
+        totalCost += fragment.getJobCost();
+      }
+      final long targetJobCost = Math.max(totalCost / ((long) getTargetNodeCount() * JOBS_PER_NODE), 1L);
+      maximumJobCost = Math.max(Math.min(targetJobCost, getMaximumJobCost()), getMinimumJobCost());
+      minimumJobCost = Math.min(Math.max(targetJobCost / JOBS_PER_NODE, getMinimumJobCost()), maximumJobCost);
+      s_logger.info("Graph cost {}; using job costs from {} to {} for {} nodes", new Object[] {totalCost, minimumJobCost, maximumJobCost, getTargetNodeCount() });
+      if (s_logger.isDebugEnabled()) {
+        s_logger.debug("Critical path {}", getCriticalPath(allFragments));
+      }
+    }
     int failCount = 0;
     do {
-      if (mergeSharedInputs(rootFragments, allFragments)) {
+      if (mergeSharedInputs(rootFragments, allFragments, minimumJobCost, maximumJobCost)) {
         failCount = 0;
       } else {
         if (++failCount >= 2) {
           break;
         }
       }
-      if (mergeSingleDependencies(context, allFragments)) {
+      if (balanced ? mergeSingleDependenciesByCost(context, allFragments, maximumJobCost) : mergeSingleDependencies(context, allFragments, maximumJobCost)) {
         failCount = 0;
       } else {
         if (++failCount >= 2) {
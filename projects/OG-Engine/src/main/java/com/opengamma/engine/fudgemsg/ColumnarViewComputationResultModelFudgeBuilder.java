@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.Sets;
+import com.opengamma.engine.calcnode.InvocationResult;
+import com.opengamma.engine.exec.DefaultAggregatedExecutionLog;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.AggregatedExecutionLog;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel.Column;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.fudgemsg.WriteReplaceHelper;
+
+/**
+ * Fudge message builder for {@link ColumnarViewComputationResultModel}.
+ * <p>
+ * The targets are written once, in row order. Each column is written as a sub-message holding the rows and values of its {@code double} cells as primitive arrays, followed by the other cells and
+ * any execution metadata. A column of doubles therefore costs two arrays on the wire rather than a {@code ComputedValueResult} message for each cell.
+ */
+@FudgeBuilderFor(ColumnarViewComputationResultModel.class)
+public class ColumnarViewComputationResultModelFudgeBuilder implements FudgeBuilder<ColumnarViewComputationResultModel> {
+
+  private static final String FIELD_VIEWPROCESSID = "viewProcessId";
+  private static final String FIELD_VIEWCYCLEID = "viewCycleId";
+  private static final String FIELD_VIEW_CYCLE_EXECUTION_OPTIONS = "viewCycleExecutionOptions";
+  private static final String FIELD_CALCULATION_TIME = "calculationTime";
+  private static final String FIELD_CALCULATION_DURATION = "calculationDuration";
+  private static final String FIELD_VERSION_CORRECTION = "versionCorrection";
+  private static final String FIELD_TARGET = "target";
+  private static final String FIELD_COLUMN = "column";
+  private static final String FIELD_LIVEDATA = "liveData";
+
+  private static final String COLUMN_CONFIGURATION = "config";
+  private static final String COLUMN_VALUE_NAME = "valueName";
+  private static final String COLUMN_PROPERTIES = "properties";
+  private static final String COLUMN_DOUBLE_ROWS = "doubleRows";
+  private static final String COLUMN_DOUBLE_VALUES = "doubleValues";
+  private static final String COLUMN_OBJECT_ROWS = "objectRows";
+  private static final String COLUMN_OBJECT_VALUE = "objectValue";
+  private static final String COLUMN_NULL_ROWS = "nullRows";
+  private static final String COLUMN_METADATA_ROWS = "metadataRows";
+  private static final String COLUMN_METADATA = "metadata";
+
+  private static final String METADATA_LOG = "log";
+  private static final String METADATA_COMPUTE_NODE_ID = "computeNodeId";
+  private static final String METADATA_MISSING_INPUTS = "missingInputs";
+  private static final String METADATA_INVOCATION_RESULT = "result";
+
+  private static int[] toArray(final BitSet rows) {
+    final int[] result = new int[rows.cardinality()];
+    int i = 0;
+    for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+      result[i++] = row;
+    }
+    return result;
+  }
+
+  private static boolean hasMetadata(final Column column, final int row) {
+    return (column.getAggregatedExecutionLog(row) != null) || (column.getComputeNodeId(row) != null) || (column.getMissingInputs(row) != null) || (column.getInvocationResult(row) != null);
+  }
+
+  private static MutableFudgeMsg buildColumnMessage(final FudgeSerializer serializer, final Column column) {
+    final MutableFudgeMsg msg = serializer.newMessage();
+    msg.add(COLUMN_CONFIGURATION, column.getCalculationConfigurationName());
+    msg.add(COLUMN_VALUE_NAME, column.getValueName());
+    serializer.addToMessage(msg, COLUMN_PROPERTIES, null, column.getProperties());
+    final BitSet doubles = column.getDoubles();
+    final int[] doubleRows = toArray(doubles);
+    final double[] doubleValues = new double[doubleRows.length];
+    for (int i = 0; i < doubleRows.length; i++) {
+      doubleValues[i] = column.getDouble(doubleRows[i]);
+    }
+    msg.add(COLUMN_DOUBLE_ROWS, doubleRows);
+    msg.add(COLUMN_DOUBLE_VALUES, doubleValues);
+    final BitSet objectRows = new BitSet();
+    final BitSet nullRows = new BitSet();
+    final BitSet metadataRows = new BitSet();
+    final BitSet present = column.getPresent();
+    for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+      if (!doubles.get(row)) {
+        if (column.getValue(row) != null) {
+          objectRows.set(row);
+        } else {
+          nullRows.set(row);
+        }
+      }
+      if (hasMetadata(column, row)) {
+        metadataRows.set(row);
+      }
+    }
+    if (!objectRows.isEmpty()) {
+      msg.add(COLUMN_OBJECT_ROWS, toArray(objectRows));
+      for (int row = objectRows.nextSetBit(0); row >= 0; row = objectRows.nextSetBit(row + 1)) {
+        serializer.addToMessageWithClassHeaders(msg, COLUMN_OBJECT_VALUE, null, WriteReplaceHelper.writeReplace(column.getValue(row)));
+      }
+    }
+    if (!nullRows.isEmpty()) {
+      msg.add(COLUMN_NULL_ROWS, toArray(nullRows));
+    }
+    if (!metadataRows.isEmpty()) {
+      msg.add(COLUMN_METADATA_ROWS, toArray(metadataRows));
+      for (int row = metadataRows.nextSetBit(0); row >= 0; row = metadataRows.nextSetBit(row + 1)) {
+        final MutableFudgeMsg metadata = msg.addSubMessage(COLUMN_METADATA, null);
+        serializer.addToMessage(metadata, METADATA_LOG, null, column.getAggregatedExecutionLog(row));
+        if (column.getComputeNodeId(row) != null) {
+          metadata.add(METADATA_COMPUTE_NODE_ID, column.getComputeNodeId(row));
+        }
+        if (column.getMissingInputs(row) != null) {
+          final MutableFudgeMsg missingInputs = metadata.addSubMessage(METADATA_MISSING_INPUTS, null);
+          for (final ValueSpecification missingInput : column.getMissingInputs(row)) {
+            serializer.addToMessage(missingInputs, null, null, missingInput);
+          }
+        }
+        if (column.getInvocationResult(row) != null) {
+          metadata.add(METADATA_INVOCATION_RESULT, column.getInvocationResult(row).name());
+        }
+      }
+    }
+    return msg;
+  }
+
+  @Override
+  public MutableFudgeMsg buildMessage(final FudgeSerializer serializer, final ColumnarViewComputationResultModel resultModel) {
+    final MutableFudgeMsg message = serializer.newMessage();
+    message.add(FIELD_VIEWPROCESSID, resultModel.getViewProcessId());
+    message.add(FIELD_VIEWCYCLEID, resultModel.getViewCycleId());
+    message.add(FIELD_CALCULATION_TIME, resultModel.getCalculationTime());
+    serializer.addToMessage(message, FIELD_VIEW_CYCLE_EXECUTION_OPTIONS, null, resultModel.getViewCycleExecutionOptions());
+    serializer.addToMessage(message, FIELD_CALCULATION_DURATION, null, resultModel.getCalculationDuration());
+    serializer.addToMessage(message, FIELD_VERSION_CORRECTION, null, resultModel.getVersionCorrection());
+    final int targets = resultModel.getTargetCount();
+    for (int row = 0; row < targets; row++) {
+      serializer.addToMessage(message, FIELD_TARGET, null, resultModel.getTarget(row));
+    }
+    for (String calcConfigurationName : resultModel.getCalculationConfigurationNames()) {
+      for (Column column : resultModel.getColumns(calcConfigurationName)) {
+        message.add(FIELD_COLUMN, buildColumnMessage(serializer, column));
+      }
+    }
+    final MutableFudgeMsg liveDataMsg = message.addSubMessage(FIELD_LIVEDATA, null);
+    for (final ComputedValue value : resultModel.getAllMarketData()) {
+      serializer.addToMessage(liveDataMsg, null, 1, value);
+    }
+    return message;
+  }
+
+  private static int[] getRows(final FudgeMsg msg, final String name) {
+    final FudgeField field = msg.getByName(name);
+    if (field == null) {
+      return new int[0];
+    }
+    return msg.getFieldValue(int[].class, field);
+  }
+
+  private static void buildColumnObject(final FudgeDeserializer deserializer, final FudgeMsg msg, final ColumnarViewComputationResultModel resultModel) {
+    final String calcConfigurationName = msg.getString(COLUMN_CONFIGURATION);
+    final String valueName = msg.getString(COLUMN_VALUE_NAME);
+    final ValueProperties properties = deserializer.fieldValueToObject(ValueProperties.class, msg.getByName(COLUMN_PROPERTIES));
+    final Column column = resultModel.addColumn(calcConfigurationName, valueName, properties);
+    final int[] doubleRows = getRows(msg, COLUMN_DOUBLE_ROWS);
+    if (doubleRows.length > 0) {
+      final double[] doubleValues = msg.getFieldValue(double[].class, msg.getByName(COLUMN_DOUBLE_VALUES));
+      for (int i = 0; i < doubleRows.length; i++) {
+        column.setDouble(doubleRows[i], doubleValues[i]);
+      }
+    }
+    final int[] objectRows = getRows(msg, COLUMN_OBJECT_ROWS);
+    int i = 0;
+    for (FudgeField field : msg.getAllByName(COLUMN_OBJECT_VALUE)) {
+      column.setValue(objectRows[i++], deserializer.fieldValueToObject(field));
+    }
+    for (int row : getRows(msg, COLUMN_NULL_ROWS)) {
+      column.setValue(row, null);
+    }
+    final int[] metadataRows = getRows(msg, COLUMN_METADATA_ROWS);
+    i = 0;
+    for (FudgeField field : msg.getAllByName(COLUMN_METADATA)) {
+      final FudgeMsg metadata = (FudgeMsg) field.getValue();
+      final AggregatedExecutionLog log = deserializer.fieldValueToObject(DefaultAggregatedExecutionLog.class, metadata.getByName(METADATA_LOG));
+      Set<ValueSpecification> missingInputs = null;
+      final FudgeMsg missingInputsMsg = metadata.getMessage(METADATA_MISSING_INPUTS);
+      if (missingInputsMsg != null) {
+        missingInputs = Sets.newHashSetWithExpectedSize(missingInputsMsg.getNumFields());
+        for (final FudgeField missingInput : missingInputsMsg) {
+          missingInputs.add(deserializer.fieldValueToObject(ValueSpecification.class, missingInput));
+        }
+      }
+      final String invocationResultName = metadata.getString(METADATA_INVOCATION_RESULT);
+      column.setMetadata(metadataRows[i++], log, metadata.getString(METADATA_COMPUTE_NODE_ID), missingInputs,
+          (invocationResultName != null) ? InvocationResult.valueOf(invocationResultName) : null);
+    }
+  }
+
+  @Override
+  public ColumnarViewComputationResultModel buildObject(final FudgeDeserializer deserializer, final FudgeMsg message) {
+    final ColumnarViewComputationResultModel resultModel = new ColumnarViewComputationResultModel();
+    resultModel.setViewProcessId(message.getValue(UniqueId.class, FIELD_VIEWPROCESSID));
+    resultModel.setViewCycleId(message.getValue(UniqueId.class, FIELD_VIEWCYCLEID));
+    resultModel.setViewCycleExecutionOptions(deserializer.fieldValueToObject(ViewCycleExecutionOptions.class, message.getByName(FIELD_VIEW_CYCLE_EXECUTION_OPTIONS)));
+    resultModel.setCalculationTime(message.getFieldValue(Instant.class, message.getByName(FIELD_CALCULATION_TIME)));
+    final FudgeField durationField = message.getByName(FIELD_CALCULATION_DURATION);
+    resultModel.setCalculationDuration((durationField != null) ? deserializer.fieldValueToObject(Duration.class, durationField) : null);
+    resultModel.setVersionCorrection(deserializer.fieldValueToObject(VersionCorrection.class, message.getByName(FIELD_VERSION_CORRECTION)));
+    for (FudgeField field : message.getAllByName(FIELD_TARGET)) {
+      // Preserve the row numbering of the original
+      resultModel.addTarget(deserializer.fieldValueToObject(ComputationTargetReference.class, field).getSpecification());
+    }
+    for (FudgeField field : message.getAllByName(FIELD_COLUMN)) {
+      buildColumnObject(deserializer, (FudgeMsg) field.getValue(), resultModel);
+    }
+    for (final FudgeField field : message.getFieldValue(FudgeMsg.class, message.getByName(FIELD_LIVEDATA))) {
+      resultModel.addMarketData(deserializer.fieldValueToObject(ComputedValue.class, field));
+    }
+    return resultModel;
+  }
+
+}
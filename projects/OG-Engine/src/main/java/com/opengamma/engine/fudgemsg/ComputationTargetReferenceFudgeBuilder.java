@@ -19,6 +19,7 @@ import org.fudgemsg.mapping.FudgeSerializer;
 import org.fudgemsg.mapping.GenericFudgeBuilderFor;
 
 import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.target.ComputationTargetReference;
 import com.opengamma.engine.target.ComputationTargetReferenceVisitor;
 import com.opengamma.engine.target.ComputationTargetRequirement;
@@ -160,7 +161,7 @@ public class ComputationTargetReferenceFudgeBuilder implements FudgeBuilder<Comp
 
   @Override
   public ComputationTargetReference buildObject(final FudgeDeserializer deserializer, final FudgeMsg message) {
-    return buildObjectImpl(deserializer, message);
+    return MemoryUtils.instance(buildObjectImpl(deserializer, message));
   }
 
 }
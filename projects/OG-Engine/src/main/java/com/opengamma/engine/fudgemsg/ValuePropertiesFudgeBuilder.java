@@ -17,6 +17,7 @@ import org.fudgemsg.mapping.FudgeSerializer;
 import org.fudgemsg.mapping.GenericFudgeBuilderFor;
 import org.fudgemsg.wire.types.FudgeWireType;
 
+import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.value.ValueProperties;
 
 /**
@@ -81,7 +82,7 @@ public class ValuePropertiesFudgeBuilder implements FudgeBuilder<ValueProperties
             builder.withoutAny((String) field.getValue());
           }
         }
-        return builder.get();
+        return MemoryUtils.instance(builder.get());
       }
     }
     subMsg = message.getMessage(WITH_FIELD);
@@ -118,7 +119,7 @@ public class ValuePropertiesFudgeBuilder implements FudgeBuilder<ValueProperties
         }
       }
     }
-    return builder.get();
+    return MemoryUtils.instance(builder.get());
   }
 
 }
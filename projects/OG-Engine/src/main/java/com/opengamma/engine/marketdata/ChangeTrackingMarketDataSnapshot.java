@@ -0,0 +1,25 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import java.util.Set;
+
+import com.opengamma.engine.value.ValueSpecification;
+
+/**
+ * A {@link MarketDataSnapshot} which can report the values that have changed since an earlier snapshot, so that a delta cycle need only inspect those rather than compare every market data value.
+ */
+public interface ChangeTrackingMarketDataSnapshot extends MarketDataSnapshot {
+
+  /**
+   * Returns the values which may have been added, updated or removed since an earlier snapshot. The result may include values which have not changed, but must include every value which has.
+   * 
+   * @param previous the earlier snapshot, not null
+   * @return the specifications of the changed values, or null if the changes since {@code previous} cannot be determined
+   */
+  Set<ValueSpecification> getChangedValueKeys(MarketDataSnapshot previous);
+
+}
@@ -130,6 +130,17 @@ public class CombinedMarketDataProvider extends AbstractMarketDataProvider {
     return new ValueSpecification(underlying.getValueName(), underlying.getTargetSpecification(), properties.get());
   }
 
+  /**
+   * Converts a specification from one of the underlying providers to the form presented by this provider.
+   * 
+   * @param provider the underlying provider, not null
+   * @param underlying the specification from that provider, not null
+   * @return the specification presented by this provider
+   */
+  protected ValueSpecification convertUnderlyingSpecification(final MarketDataProvider provider, final ValueSpecification underlying) {
+    return createValueSpecification(underlying, (provider == _preferred) ? PREFERRED_PROVIDER : FALLBACK_PROVIDER);
+  }
+
   private Collection<ValueSpecification> createValueSpecifications(final Collection<ValueSpecification> underlyings, final String provider) {
     final Collection<ValueSpecification> result = new ArrayList<ValueSpecification>(underlyings.size());
     for (ValueSpecification underlying : underlyings) {
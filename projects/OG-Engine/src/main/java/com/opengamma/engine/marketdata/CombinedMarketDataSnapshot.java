@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.marketdata;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -18,9 +19,11 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.util.tuple.Pair;
 
 /**
- *
+ * Snapshot of a {@link CombinedMarketDataProvider}, taking each value from the snapshot of the provider that supplies it.
+ * <p>
+ * Releasing this snapshot releases the underlying ones, and changes are tracked if every underlying snapshot tracks them.
  */
-public class CombinedMarketDataSnapshot extends AbstractMarketDataSnapshot {
+public class CombinedMarketDataSnapshot extends AbstractMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
 
   private final Map<MarketDataProvider, MarketDataSnapshot> _snapshotByProvider;
   private final MarketDataSnapshot _preferredSnapshot;
@@ -102,4 +105,39 @@ public class CombinedMarketDataSnapshot extends AbstractMarketDataSnapshot {
     return result;
   }
 
+  @Override
+  public void release() {
+    for (MarketDataSnapshot snapshot : _snapshotByProvider.values()) {
+      if (snapshot instanceof ReleasableMarketDataSnapshot) {
+        ((ReleasableMarketDataSnapshot) snapshot).release();
+      }
+    }
+  }
+
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (!(previous instanceof CombinedMarketDataSnapshot)) {
+      return null;
+    }
+    final CombinedMarketDataSnapshot previousCombined = (CombinedMarketDataSnapshot) previous;
+    if (previousCombined._combinedMarketDataProvider != _combinedMarketDataProvider) {
+      return null;
+    }
+    final Set<ValueSpecification> changed = new HashSet<ValueSpecification>();
+    for (final Entry<MarketDataProvider, MarketDataSnapshot> entry : _snapshotByProvider.entrySet()) {
+      final MarketDataSnapshot previousSnapshot = previousCombined._snapshotByProvider.get(entry.getKey());
+      if ((previousSnapshot == null) || !(entry.getValue() instanceof ChangeTrackingMarketDataSnapshot)) {
+        return null;
+      }
+      final Set<ValueSpecification> snapshotChanged = ((ChangeTrackingMarketDataSnapshot) entry.getValue()).getChangedValueKeys(previousSnapshot);
+      if (snapshotChanged == null) {
+        return null;
+      }
+      for (ValueSpecification underlying : snapshotChanged) {
+        changed.add(_combinedMarketDataProvider.convertUnderlyingSpecification(entry.getKey(), underlying));
+      }
+    }
+    return changed;
+  }
+
 }
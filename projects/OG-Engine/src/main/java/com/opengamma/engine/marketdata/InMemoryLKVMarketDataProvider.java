@@ -6,10 +6,7 @@
 package com.opengamma.engine.marketdata;
 
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +19,14 @@ import com.opengamma.engine.value.ValueSpecification;
 
 /**
  * An implementation of {@link MarketDataProvider} which maintains an LKV cache of externally-provided values.
+ * <p>
+ * The values are held in a versioned store so that taking a snapshot only records the current version rather than copying the values.
  */
 public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider implements MarketDataInjector {
 
   private static final Logger s_logger = LoggerFactory.getLogger(InMemoryLKVMarketDataProvider.class);
 
-  private final Map<ValueSpecification, Object> _lastKnownValues = new ConcurrentHashMap<ValueSpecification, Object>();
+  private final LastKnownValueStore _lastKnownValues = new LastKnownValueStore();
   private final FixedMarketDataAvailabilityProvider _availability = new FixedMarketDataAvailabilityProvider();
   private final MarketDataPermissionProvider _permissionProvider;
 
@@ -100,7 +99,7 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   @Override
   public void removeValue(final ValueSpecification specification) {
     _availability.removeAvailableData(specification);
-    _lastKnownValues.remove(specification);
+    _lastKnownValues.put(specification, null);
     valueChanged(specification);
   }
 
@@ -112,17 +111,27 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
 
   //-------------------------------------------------------------------------
   public Set<ValueSpecification> getAllValueKeys() {
-    return Collections.unmodifiableSet(_lastKnownValues.keySet());
+    return Collections.unmodifiableSet(_lastKnownValues.getValueSpecifications());
   }
 
   public Object getCurrentValue(final ValueSpecification specification) {
     return _lastKnownValues.get(specification);
   }
 
+  /**
+   * Returns the number of versions of the store held by snapshots which have not been released. Each held version keeps superseded values reachable, so this should not grow while the provider
+   * is in use.
+   * 
+   * @return the number of held versions
+   */
+  public int getHeldVersionCount() {
+    return _lastKnownValues.getPinCount();
+  }
+
   //-------------------------------------------------------------------------
 
-  /*package*/Map<ValueSpecification, Object> doSnapshot() {
-    return new HashMap<>(_lastKnownValues);
+  /*package*/LastKnownValueStore getLastKnownValues() {
+    return _lastKnownValues;
   }
 
 }
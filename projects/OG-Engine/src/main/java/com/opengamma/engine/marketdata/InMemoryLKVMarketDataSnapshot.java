@@ -6,7 +6,6 @@
 package com.opengamma.engine.marketdata;
 
 import java.util.Collections;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -14,19 +13,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.threeten.bp.Instant;
 
+import com.opengamma.engine.marketdata.LastKnownValueStore.Version;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * An implementation of {@link MarketDataSnapshot} backed by an {@link InMemoryLKVMarketDataProvider}.
+ * <p>
+ * The snapshot holds a version of the provider's store rather than a copy of its values. The values at that version are retained by the provider until the snapshot is released.
  */
-public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot {
+public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
 
   private static final Logger s_logger = LoggerFactory.getLogger(InMemoryLKVMarketDataSnapshot.class);
 
   private final InMemoryLKVMarketDataProvider _provider;
   private Instant _snapshotTime;
-  private Map<ValueSpecification, Object> _snapshot;
+  private Version _version;
 
   public InMemoryLKVMarketDataSnapshot(final InMemoryLKVMarketDataProvider provider) {
     _provider = provider;
@@ -50,20 +53,24 @@ public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot {
 
   @Override
   public void init(final Set<ValueSpecification> valuesRequired, final long timeout, final TimeUnit unit) {
-    _snapshot = getProvider().doSnapshot();
+    final Version previous = _version;
+    _version = getProvider().getLastKnownValues().pin();
+    if (previous != null) {
+      previous.release();
+    }
     _snapshotTime = Instant.now();
     s_logger.debug("Snapshotted at {}", _snapshotTime);
   }
   
   @Override
   public boolean isInitialized() {
-    return _snapshot != null;
+    return _version != null;
   }
   
   @Override
   public boolean isEmpty() {
     assertInitialized();
-    return _snapshot.isEmpty();
+    return getProvider().getLastKnownValues().isEmpty(_version);
   }
 
   @Override
@@ -73,20 +80,63 @@ public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot {
 
   @Override
   public Object query(final ValueSpecification value) {
-    return getSnapshot().get(value);
+    return getProvider().getLastKnownValues().get(value, getVersion());
+  }
+
+  @Override
+  public void release() {
+    final Version version = _version;
+    if (version != null) {
+      version.release();
+    }
   }
 
   //-------------------------------------------------------------------------
   public Set<ValueSpecification> getAllValueKeys() {
-    return Collections.unmodifiableSet(getSnapshot().keySet());
+    return Collections.unmodifiableSet(getProvider().getLastKnownValues().getValueSpecifications(getVersion()));
+  }
+
+  /**
+   * Returns the values which have been added, updated or removed since an earlier snapshot from the same provider. This can be used to find the market data which has changed between two cycles
+   * without comparing the values.
+   * 
+   * @param previous the earlier snapshot, not null
+   * @return the specifications of the changed values, not null
+   */
+  public Set<ValueSpecification> getChangedValueKeys(final InMemoryLKVMarketDataSnapshot previous) {
+    ArgumentChecker.notNull(previous, "previous");
+    ArgumentChecker.isTrue(previous.getProvider() == getProvider(), "Snapshot must be from the same provider");
+    ArgumentChecker.isTrue(previous.getVersion().getVersion() <= getVersion().getVersion(), "Snapshot must be earlier");
+    return Collections.unmodifiableSet(getProvider().getLastKnownValues().getChanged(previous.getVersion(), getVersion()));
+  }
+
+  /**
+   * Returns the values which have been added, updated or removed since an earlier snapshot, if it is from the same provider and has not been released.
+   * 
+   * @param previous the earlier snapshot, not null
+   * @return the specifications of the changed values, or null if {@code previous} is not a usable snapshot of the same provider
+   */
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (!(previous instanceof InMemoryLKVMarketDataSnapshot)) {
+      return null;
+    }
+    final InMemoryLKVMarketDataSnapshot previousSnapshot = (InMemoryLKVMarketDataSnapshot) previous;
+    final Version previousVersion = previousSnapshot._version;
+    final Version version = _version;
+    if ((previousSnapshot.getProvider() != getProvider()) || (previousVersion == null) || (version == null) || !previousVersion.isValid()
+        || (previousVersion.getVersion() > version.getVersion())) {
+      return null;
+    }
+    return getChangedValueKeys(previousSnapshot);
   }
 
   //-------------------------------------------------------------------------
-  private Map<ValueSpecification, Object> getSnapshot() {
-    if (_snapshot == null) {
+  private Version getVersion() {
+    if (_version == null) {
       throw new IllegalStateException("Snapshot has not been initialised");
     }
-    return _snapshot;
+    return _version;
   }
 
   private InMemoryLKVMarketDataProvider getProvider() {
@@ -0,0 +1,469 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.value.ValueSpecification;
+
+/**
+ * Versioned store of last known values, used by {@link InMemoryLKVMarketDataProvider}.
+ * <p>
+ * Each update is assigned the next value of a global version counter and held in an immutable record which refers to the record it replaced. A reader obtains a {@link Version} and can then read
+ * the values as they were at that version, without the store being copied, by walking back along the records to the newest one no later than the version.
+ * <p>
+ * The records are split into stripes, each with its own lock, so that updates to different values do not contend with each other. Obtaining a version takes all of the locks so that no update can
+ * be in progress while the version is read. Whenever a value is updated, the records that no held {@link Version} can see are discarded. The holder of a version must {@link Version#release}
+ * it when it has finished reading; until then, each value keeps at most one record for each version that is held. If more than {@link #MAX_PINS} versions are held, the oldest are expired as
+ * if released and can no longer be read.
+ * <p>
+ * The specifications updated at each version are also logged, back to the oldest held version, so that the values present at, or changed between, held versions are found from the updates
+ * since rather than by scanning the whole store.
+ */
+/* package */final class LastKnownValueStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(LastKnownValueStore.class);
+
+  private static final int STRIPES = 16;
+
+  /**
+   * The maximum number of versions which may be held before the oldest is expired.
+   */
+  public static final int MAX_PINS = 1024;
+
+  private static final long[] NO_VERSIONS = new long[0];
+
+  /**
+   * A version of the store. Values can be read as they were at the version until it is released or expired.
+   */
+  public final class Version {
+
+    private final long _version;
+    private volatile boolean _valid = true;
+
+    private Version(final long version) {
+      _version = version;
+    }
+
+    public long getVersion() {
+      return _version;
+    }
+
+    /**
+     * Tests whether values can still be read at this version.
+     *
+     * @return true if the version has been neither released nor expired, false otherwise
+     */
+    public boolean isValid() {
+      return _valid;
+    }
+
+    /**
+     * Releases the version, allowing the records only it can see to be discarded. Releasing a version more than once has no effect.
+     */
+    public void release() {
+      unpin(this);
+    }
+
+    private long check() {
+      if (!_valid) {
+        throw new IllegalStateException("Version " + _version + " has been released or expired");
+      }
+      return _version;
+    }
+
+  }
+
+  /**
+   * A value, or the removal of a value, at a version.
+   */
+  private static class Record {
+
+    private final long _version;
+    private volatile Record _previous;
+
+    Record(final long version, final Record previous) {
+      _version = version;
+      _previous = previous;
+    }
+
+    /**
+     * Returns the value.
+     *
+     * @return the value, or null if this record is a removal
+     */
+    Object getValue() {
+      return null;
+    }
+
+  }
+
+  private static final class ObjectRecord extends Record {
+
+    private final Object _value;
+
+    ObjectRecord(final long version, final Object value, final Record previous) {
+      super(version, previous);
+      _value = value;
+    }
+
+    @Override
+    Object getValue() {
+      return _value;
+    }
+
+  }
+
+  /**
+   * Most ticks are prices so hold those unboxed.
+   */
+  private static final class DoubleRecord extends Record {
+
+    private final double _value;
+
+    DoubleRecord(final long version, final double value, final Record previous) {
+      super(version, previous);
+      _value = value;
+    }
+
+    @Override
+    Object getValue() {
+      return _value;
+    }
+
+  }
+
+  private final AtomicLong _version = new AtomicLong();
+  private final ReentrantLock[] _locks = new ReentrantLock[STRIPES];
+  @SuppressWarnings("unchecked")
+  private final Map<ValueSpecification, Record>[] _records = new Map[STRIPES];
+  /**
+   * The specifications of the latest values present.
+   */
+  private final Set<ValueSpecification> _present = Collections.newSetFromMap(new ConcurrentHashMap<ValueSpecification, Boolean>());
+  /**
+   * The specification updated at each version, back to the oldest held version.
+   */
+  private final ConcurrentSkipListMap<Long, ValueSpecification> _updates = new ConcurrentSkipListMap<Long, ValueSpecification>();
+  /**
+   * The held versions, oldest first. Guarded by its own monitor.
+   */
+  private final Set<Version> _pins = new LinkedHashSet<Version>();
+  /**
+   * The number of held versions with each version number. Guarded by the {@link #_pins} monitor.
+   */
+  private final NavigableMap<Long, int[]> _pinCounts = new TreeMap<Long, int[]>();
+  /**
+   * The distinct versions of the pins, newest first.
+   */
+  private volatile long[] _pinned = NO_VERSIONS;
+
+  public LastKnownValueStore() {
+    for (int i = 0; i < STRIPES; i++) {
+      _locks[i] = new ReentrantLock();
+      _records[i] = new ConcurrentHashMap<ValueSpecification, Record>();
+    }
+  }
+
+  private static int getStripe(final ValueSpecification valueSpecification) {
+    final int hc = valueSpecification.hashCode();
+    return (hc ^ (hc >>> 16)) & (STRIPES - 1);
+  }
+
+  /**
+   * Stores a value.
+   *
+   * @param valueSpecification the value specification, not null
+   * @param value the value, null to remove it
+   */
+  public void put(final ValueSpecification valueSpecification, final Object value) {
+    final int stripe = getStripe(valueSpecification);
+    final Map<ValueSpecification, Record> records = _records[stripe];
+    final ReentrantLock lock = _locks[stripe];
+    lock.lock();
+    try {
+      final Record previous = records.get(valueSpecification);
+      if ((value == null) && ((previous == null) || (previous.getValue() == null))) {
+        return;
+      }
+      final long version = _version.incrementAndGet();
+      final Record record;
+      if (value == null) {
+        record = new Record(version, previous);
+      } else if (value instanceof Double) {
+        record = new DoubleRecord(version, (Double) value, previous);
+      } else {
+        record = new ObjectRecord(version, value, previous);
+      }
+      final long[] pinned = _pinned;
+      // Readers of the updates only ask about those after a held version
+      _updates.headMap((pinned.length > 0) ? pinned[pinned.length - 1] : version, true).clear();
+      if (pinned.length > 0) {
+        _updates.put(version, valueSpecification);
+      }
+      prune(record, pinned);
+      if ((value == null) && (record._previous == null)) {
+        // Nothing can see the value any more
+        records.remove(valueSpecification);
+      } else {
+        records.put(valueSpecification, record);
+      }
+      if (value != null) {
+        _present.add(valueSpecification);
+      } else {
+        _present.remove(valueSpecification);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Discards the records from the chain which are not visible at any of the pinned versions.
+   *
+   * @param head the newest record, not null
+   * @param pinned the pinned versions, newest first, not null
+   */
+  private static void prune(final Record head, final long[] pinned) {
+    Record keep = head;
+    do {
+      final int i = firstBefore(pinned, keep._version);
+      if (i == pinned.length) {
+        keep._previous = null;
+        return;
+      }
+      Record record = keep._previous;
+      while ((record != null) && (record._version > pinned[i])) {
+        record = record._previous;
+      }
+      if (keep._previous != record) {
+        keep._previous = record;
+      }
+      keep = record;
+    } while (keep != null);
+  }
+
+  /**
+   * Finds the newest pinned version that is older than a version.
+   *
+   * @param pinned the pinned versions, newest first, not null
+   * @param version the version
+   * @return the index of the newest pinned version older than {@code version}, or the length of the array if there is none
+   */
+  private static int firstBefore(final long[] pinned, final long version) {
+    int low = 0;
+    int high = pinned.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (pinned[mid] >= version) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the current version of the store. The values visible at that version will remain available until the returned object is released, or expired when more than {@link #MAX_PINS}
+   * versions are held.
+   *
+   * @return the version, not null
+   */
+  public Version pin() {
+    // No updates can be in progress while all of the stripes are locked
+    for (int i = 0; i < STRIPES; i++) {
+      _locks[i].lock();
+    }
+    try {
+      final Version version = new Version(_version.get());
+      synchronized (_pins) {
+        _pins.add(version);
+        boolean changed = addPinCount(version.getVersion());
+        if (_pins.size() > MAX_PINS) {
+          final Iterator<Version> itr = _pins.iterator();
+          final Version expired = itr.next();
+          itr.remove();
+          expired._valid = false;
+          changed |= removePinCount(expired.getVersion());
+          s_logger.warn("Expired version {}; more than {} versions held", expired.getVersion(), MAX_PINS);
+        }
+        if (changed) {
+          updatePinned();
+        }
+      }
+      return version;
+    } finally {
+      for (int i = STRIPES; --i >= 0;) {
+        _locks[i].unlock();
+      }
+    }
+  }
+
+  private void unpin(final Version version) {
+    synchronized (_pins) {
+      if (_pins.remove(version)) {
+        version._valid = false;
+        if (removePinCount(version.getVersion())) {
+          updatePinned();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of versions currently held.
+   *
+   * @return the number of versions
+   */
+  public int getPinCount() {
+    synchronized (_pins) {
+      return _pins.size();
+    }
+  }
+
+  // Caller must hold the _pins monitor; returns true if the version wasn't already pinned
+  private boolean addPinCount(final long version) {
+    final int[] count = _pinCounts.get(version);
+    if (count != null) {
+      count[0]++;
+      return false;
+    }
+    _pinCounts.put(version, new int[] {1 });
+    return true;
+  }
+
+  // Caller must hold the _pins monitor; returns true if the version is no longer pinned
+  private boolean removePinCount(final long version) {
+    final int[] count = _pinCounts.get(version);
+    if (--count[0] > 0) {
+      return false;
+    }
+    _pinCounts.remove(version);
+    return true;
+  }
+
+  // Caller must hold the _pins monitor
+  private void updatePinned() {
+    final long[] pinned = new long[_pinCounts.size()];
+    int i = 0;
+    for (Long version : _pinCounts.descendingKeySet()) {
+      pinned[i++] = version;
+    }
+    _pinned = pinned;
+  }
+
+  private static Record getRecord(final Record head, final long version) {
+    Record record = head;
+    while ((record != null) && (record._version > version)) {
+      record = record._previous;
+    }
+    return record;
+  }
+
+  /**
+   * Returns the latest value.
+   *
+   * @param valueSpecification the value specification, not null
+   * @return the value, or null if there is none
+   */
+  public Object get(final ValueSpecification valueSpecification) {
+    final Record record = _records[getStripe(valueSpecification)].get(valueSpecification);
+    return (record != null) ? record.getValue() : null;
+  }
+
+  /**
+   * Returns a value as it was at a version.
+   *
+   * @param valueSpecification the value specification, not null
+   * @param version the version, not null
+   * @return the value, or null if there was none
+   */
+  public Object get(final ValueSpecification valueSpecification, final Version version) {
+    final Record record = getRecord(_records[getStripe(valueSpecification)].get(valueSpecification), version.check());
+    return (record != null) ? record.getValue() : null;
+  }
+
+  /**
+   * Returns the specifications of the latest values.
+   *
+   * @return the value specifications, not null
+   */
+  public Set<ValueSpecification> getValueSpecifications() {
+    return new HashSet<ValueSpecification>(_present);
+  }
+
+  private boolean isPresent(final ValueSpecification valueSpecification, final long version) {
+    final Record record = getRecord(_records[getStripe(valueSpecification)].get(valueSpecification), version);
+    return (record != null) && (record.getValue() != null);
+  }
+
+  /**
+   * Returns the specifications of the values that were present at a version.
+   *
+   * @param version the version, not null
+   * @return the value specifications, not null
+   */
+  public Set<ValueSpecification> getValueSpecifications(final Version version) {
+    final long v = version.check();
+    // Start from the latest values and correct for any updated since the version
+    final Set<ValueSpecification> result = new HashSet<ValueSpecification>(_present);
+    for (ValueSpecification updated : new HashSet<ValueSpecification>(_updates.tailMap(v, false).values())) {
+      if (isPresent(updated, v)) {
+        result.add(updated);
+      } else {
+        result.remove(updated);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Tests whether any values were present at a version.
+   *
+   * @param version the version, not null
+   * @return true if there were no values, false otherwise
+   */
+  public boolean isEmpty(final Version version) {
+    final long v = version.check();
+    int count = _present.size();
+    for (ValueSpecification updated : new HashSet<ValueSpecification>(_updates.tailMap(v, false).values())) {
+      if (isPresent(updated, v)) {
+        return false;
+      }
+      if (_present.contains(updated)) {
+        count--;
+      }
+    }
+    return count <= 0;
+  }
+
+  /**
+   * Returns the specifications of the values that were added, updated or removed after one version and no later than another.
+   *
+   * @param since the earlier version, not null
+   * @param version the later version, not null
+   * @return the value specifications, not null
+   */
+  public Set<ValueSpecification> getChanged(final Version since, final Version version) {
+    return new HashSet<ValueSpecification>(_updates.subMap(since.check(), false, version.check(), true).values());
+  }
+
+}
@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.marketdata;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -74,6 +75,10 @@ public class MarketDataInjectorImpl implements MarketDataInjector {
       return _valuesBySpecification.get(value);
     }
 
+    /* package */Map<ValueSpecification, Object> getValues() {
+      return Collections.unmodifiableMap(_valuesBySpecification);
+    }
+
   }
 
   private final ConcurrentMap<ValueRequirement, Object> _valuesByRequirement = new ConcurrentHashMap<ValueRequirement, Object>();
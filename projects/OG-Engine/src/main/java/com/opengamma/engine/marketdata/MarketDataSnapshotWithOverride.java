@@ -5,11 +5,13 @@
  */
 package com.opengamma.engine.marketdata;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.threeten.bp.Instant;
 
 import com.google.common.collect.Maps;
@@ -22,8 +24,11 @@ import com.opengamma.id.UniqueId;
  * <p>
  * Note that the overriding snapshot can provide instances of {@link OverrideOperation} instead of (or as well as) actual values for this to return. In this case the operation is applied to the
  * underlying.
+ * <p>
+ * Releasing this snapshot releases the underlying one. Changes are tracked if the underlying snapshot tracks them; values overridden with a fixed value are reported as changed only when the
+ * override itself changes.
  */
-public class MarketDataSnapshotWithOverride extends AbstractMarketDataSnapshot {
+public class MarketDataSnapshotWithOverride extends AbstractMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
 
   private final MarketDataSnapshot _underlying;
   private final MarketDataInjectorImpl.Snapshot _override;
@@ -138,6 +143,57 @@ public class MarketDataSnapshotWithOverride extends AbstractMarketDataSnapshot {
     }
   }
 
+  @Override
+  public void release() {
+    if (getUnderlying() instanceof ReleasableMarketDataSnapshot) {
+      ((ReleasableMarketDataSnapshot) getUnderlying()).release();
+    }
+  }
+
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (!(previous instanceof MarketDataSnapshotWithOverride) || !(getUnderlying() instanceof ChangeTrackingMarketDataSnapshot)) {
+      return null;
+    }
+    final MarketDataSnapshotWithOverride previousWithOverride = (MarketDataSnapshotWithOverride) previous;
+    final Set<ValueSpecification> underlyingChanged = ((ChangeTrackingMarketDataSnapshot) getUnderlying()).getChangedValueKeys(previousWithOverride.getUnderlying());
+    if (underlyingChanged == null) {
+      return null;
+    }
+    final Map<ValueSpecification, Object> overrides = getOverrideValues(this);
+    final Map<ValueSpecification, Object> previousOverrides = getOverrideValues(previousWithOverride);
+    if (overrides.isEmpty() && previousOverrides.isEmpty()) {
+      return underlyingChanged;
+    }
+    final Set<ValueSpecification> changed = new HashSet<ValueSpecification>();
+    for (ValueSpecification value : underlyingChanged) {
+      final Object override = overrides.get(value);
+      // A fixed override hides the underlying value; an operation is applied to it so must see its changes
+      if ((override == null) || (override instanceof OverrideOperation)) {
+        changed.add(value);
+      }
+    }
+    for (Map.Entry<ValueSpecification, Object> override : overrides.entrySet()) {
+      if (!ObjectUtils.equals(override.getValue(), previousOverrides.get(override.getKey()))) {
+        changed.add(override.getKey());
+      }
+    }
+    for (ValueSpecification value : previousOverrides.keySet()) {
+      if (!overrides.containsKey(value)) {
+        changed.add(value);
+      }
+    }
+    return changed;
+  }
+
+  private static Map<ValueSpecification, Object> getOverrideValues(final MarketDataSnapshotWithOverride snapshot) {
+    final MarketDataInjectorImpl.Snapshot override = snapshot.getOverride();
+    if (override == null) {
+      return Collections.emptyMap();
+    }
+    return override.getValues();
+  }
+
   private ValueRequirement getOverrideValueRequirement(final ValueSpecification subscription) {
     // TODO: Converting a value specification to a requirement like this is probably going to be wrong
     return new ValueRequirement(subscription.getValueName(), subscription.getTargetSpecification(), subscription.getProperties());
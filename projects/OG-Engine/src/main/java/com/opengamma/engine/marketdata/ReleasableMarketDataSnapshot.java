@@ -0,0 +1,18 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+/**
+ * A {@link MarketDataSnapshot} which holds resources of its provider, for example a version of the provider's store, until the owner of the snapshot releases it.
+ */
+public interface ReleasableMarketDataSnapshot extends MarketDataSnapshot {
+
+  /**
+   * Releases the resources held by the snapshot. The snapshot must not be queried after it has been released. Releasing a snapshot more than once has no effect.
+   */
+  void release();
+
+}
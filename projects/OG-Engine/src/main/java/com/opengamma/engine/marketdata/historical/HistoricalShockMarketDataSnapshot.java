@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.marketdata.historical;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -15,7 +16,9 @@ import org.threeten.bp.temporal.ChronoUnit;
 import org.threeten.bp.temporal.TemporalUnit;
 
 import com.google.common.collect.Maps;
+import com.opengamma.engine.marketdata.ChangeTrackingMarketDataSnapshot;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.ReleasableMarketDataSnapshot;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.ArgumentChecker;
@@ -25,8 +28,10 @@ import com.opengamma.util.OpenGammaClock;
  * Snapshot composed of 3 underlying snapshots. This snapshot's values are derived by finding the difference between
  * values in the first two snapshots and applying it to the value from the third snapshot. The change applied to the
  * base value can be the proportional or absolute difference between the two other values.
+ * <p>
+ * Releasing this snapshot releases the underlying ones. A value may have changed if it has changed in any of them.
  */
-public class HistoricalShockMarketDataSnapshot implements MarketDataSnapshot {
+public class HistoricalShockMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
 
   /**
    * The type of transformation to apply to the base value.
@@ -156,6 +161,49 @@ public class HistoricalShockMarketDataSnapshot implements MarketDataSnapshot {
     return values;
   }
 
+  @Override
+  public void release() {
+    release(_historicalSnapshot1);
+    release(_historicalSnapshot2);
+    release(_baseSnapshot);
+  }
+
+  private static void release(final MarketDataSnapshot snapshot) {
+    if (snapshot instanceof ReleasableMarketDataSnapshot) {
+      ((ReleasableMarketDataSnapshot) snapshot).release();
+    }
+  }
+
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (!(previous instanceof HistoricalShockMarketDataSnapshot)) {
+      return null;
+    }
+    final HistoricalShockMarketDataSnapshot previousShock = (HistoricalShockMarketDataSnapshot) previous;
+    if (previousShock._shockType != _shockType) {
+      return null;
+    }
+    final Set<ValueSpecification> changed = new HashSet<ValueSpecification>();
+    if (!addChanged(changed, _historicalSnapshot1, previousShock._historicalSnapshot1)
+        || !addChanged(changed, _historicalSnapshot2, previousShock._historicalSnapshot2)
+        || !addChanged(changed, _baseSnapshot, previousShock._baseSnapshot)) {
+      return null;
+    }
+    return changed;
+  }
+
+  private static boolean addChanged(final Set<ValueSpecification> changed, final MarketDataSnapshot snapshot, final MarketDataSnapshot previous) {
+    if (!(snapshot instanceof ChangeTrackingMarketDataSnapshot)) {
+      return false;
+    }
+    final Set<ValueSpecification> snapshotChanged = ((ChangeTrackingMarketDataSnapshot) snapshot).getChangedValueKeys(previous);
+    if (snapshotChanged == null) {
+      return false;
+    }
+    changed.addAll(snapshotChanged);
+    return true;
+  }
+
   private static TemporalUnit convertUnit(TimeUnit unit) {
     switch (unit) {
       case NANOSECONDS:
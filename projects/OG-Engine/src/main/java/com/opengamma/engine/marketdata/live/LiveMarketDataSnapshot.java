@@ -18,16 +18,18 @@ import org.slf4j.LoggerFactory;
 import org.threeten.bp.Instant;
 
 import com.opengamma.engine.marketdata.AbstractMarketDataSnapshot;
+import com.opengamma.engine.marketdata.ChangeTrackingMarketDataSnapshot;
 import com.opengamma.engine.marketdata.InMemoryLKVMarketDataSnapshot;
 import com.opengamma.engine.marketdata.MarketDataListener;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.ReleasableMarketDataSnapshot;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
 
 /**
  * A {@link MarketDataSnapshot} for live data.
  */
-public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot {
+public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
   private static final Logger s_logger = LoggerFactory.getLogger(LiveMarketDataSnapshot.class);
 
   private final InMemoryLKVMarketDataSnapshot _underlyingSnapshot;
@@ -134,4 +136,17 @@ public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot {
     return _underlyingSnapshot.query(value);
   }
 
+  @Override
+  public void release() {
+    _underlyingSnapshot.release();
+  }
+
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (previous instanceof LiveMarketDataSnapshot) {
+      return _underlyingSnapshot.getChangedValueKeys((MarketDataSnapshot) ((LiveMarketDataSnapshot) previous)._underlyingSnapshot);
+    }
+    return null;
+  }
+
 }
@@ -26,6 +26,7 @@ import com.opengamma.engine.marketdata.MarketDataListener;
 import com.opengamma.engine.marketdata.MarketDataPermissionProvider;
 import com.opengamma.engine.marketdata.MarketDataProvider;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.ReleasableMarketDataSnapshot;
 import com.opengamma.engine.marketdata.availability.MarketDataAvailabilityProvider;
 import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
 import com.opengamma.engine.marketdata.spec.RandomizingMarketDataSpecification;
@@ -182,7 +183,10 @@ import com.opengamma.util.OpenGammaClock;
     return value * (1 + signum * Math.random() * (double) _marketDataSpec.getMaxPercentageChange() / 100d);
   }
 
-  private class RandomizingMarketDataSnapshot implements MarketDataSnapshot {
+  /**
+   * Releasing this snapshot releases the underlying one. Changes are not tracked as the randomized values change independently of the underlying ones.
+   */
+  private class RandomizingMarketDataSnapshot implements ReleasableMarketDataSnapshot {
 
     private final MarketDataSnapshot _underlying;
 
@@ -261,6 +265,13 @@ import com.opengamma.util.OpenGammaClock;
       }
       return values;
     }
+
+    @Override
+    public void release() {
+      if (_underlying instanceof ReleasableMarketDataSnapshot) {
+        ((ReleasableMarketDataSnapshot) _underlying).release();
+      }
+    }
   }
 
   /**
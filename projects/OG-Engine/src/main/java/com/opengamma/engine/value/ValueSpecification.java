@@ -234,6 +234,10 @@ public class ValueSpecification implements Serializable {
     }
     if (obj instanceof ValueSpecification) {
       final ValueSpecification other = (ValueSpecification) obj;
+      // Most instances are interned, so unequal hashes are the common case for a non-identical object
+      if (hashCode() != other.hashCode()) {
+        return false;
+      }
       // valueName is interned
       return (_valueName == other._valueName) &&
           ObjectUtils.equals(_targetSpecification, other._targetSpecification) &&
@@ -44,8 +44,19 @@ public class NumberDeltaComparer implements DeltaComparer<Number> {
       return true;
     }
     
-    long previousCompare = (long) (previousValue.doubleValue() * _multiplier);
-    long newCompare = (long) (newValue.doubleValue() * _multiplier);
+    return isDelta(previousValue.doubleValue(), newValue.doubleValue());
+  }
+
+  /**
+   * Primitive form of {@link #isDelta(Number,Number)} for comparing {@code double} values without boxing them.
+   * 
+   * @param previousValue the previous value
+   * @param newValue the new value
+   * @return <tt>true</tt> if {@code newValue} should be treated as a delta, otherwise <tt>false</tt>
+   */
+  public boolean isDelta(final double previousValue, final double newValue) {
+    long previousCompare = (long) (previousValue * _multiplier);
+    long newCompare = (long) (newValue * _multiplier);
     return previousCompare != newCompare;
   }
   
@@ -62,6 +62,8 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   private ViewExecutionCache _viewExecutionCache = new InMemoryViewExecutionCache();
   private int _permissionCheckInterval;
   private boolean _useAutoStartViews;
+  private int _clientMaximumMergedValues = ViewProcessorImpl.DEFAULT_CLIENT_MAXIMUM_MERGED_VALUES;
+  private boolean _clientAdaptiveUpdatePeriod;
 
   //-------------------------------------------------------------------------
   public String getName() {
@@ -192,6 +194,22 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
     _permissionCheckInterval = permissionCheckInterval;
   }
 
+  public int getClientMaximumMergedValues() {
+    return _clientMaximumMergedValues;
+  }
+
+  public void setClientMaximumMergedValues(final int clientMaximumMergedValues) {
+    _clientMaximumMergedValues = clientMaximumMergedValues;
+  }
+
+  public boolean isClientAdaptiveUpdatePeriod() {
+    return _clientAdaptiveUpdatePeriod;
+  }
+
+  public void setClientAdaptiveUpdatePeriod(final boolean clientAdaptiveUpdatePeriod) {
+    _clientAdaptiveUpdatePeriod = clientAdaptiveUpdatePeriod;
+  }
+
   //-------------------------------------------------------------------------
   protected void checkInjectedInputs() {
     s_logger.debug("Checking injected inputs.");
@@ -211,7 +229,7 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   @Override
   public ViewProcessor createObject() {
     checkInjectedInputs();
-    return new ViewProcessorImpl(
+    final ViewProcessorImpl viewProcessor = new ViewProcessorImpl(
         getName(),
         getConfigSource(),
         getNamedMarketDataSpecificationRepository(),
@@ -231,6 +249,9 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
         getViewExecutionCache(),
         _permissionCheckInterval,
         _useAutoStartViews);
+    viewProcessor.setClientMaximumMergedValues(getClientMaximumMergedValues());
+    viewProcessor.setClientAdaptiveUpdatePeriod(isClientAdaptiveUpdatePeriod());
+    return viewProcessor;
   }
 
   public void setViewResultListenerFactory(final ViewResultListenerFactory viewResultListenerFactory) {
@@ -48,6 +48,7 @@ import com.opengamma.engine.view.permission.ViewPortfolioPermissionProvider;
 import com.opengamma.id.UniqueId;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.metric.OpenGammaMetricRegistry;
 import com.opengamma.util.tuple.Pair;
 
 /**
@@ -265,6 +266,10 @@ public class ViewClientImpl implements ViewClient {
 
     _mergingViewProcessListener = new RateLimitingMergingViewProcessListener(mergedViewProcessListener, getViewProcessor().getViewCycleManager(), timer);
     _mergingViewProcessListener.setPaused(true);
+    _mergingViewProcessListener.setMaximumMergedValues(viewProcessor.getClientMaximumMergedValues());
+    _mergingViewProcessListener.setAdaptive(viewProcessor.isClientAdaptiveUpdatePeriod());
+    // Removed again when the listener is terminated at client shutdown
+    _mergingViewProcessListener.registerMetrics(OpenGammaMetricRegistry.getSummaryInstance(), OpenGammaMetricRegistry.getDetailedInstance(), "ViewClient-" + id.getValue());
   }
 
   @Override
@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.view.client;
 
+import java.util.BitSet;
 import java.util.Map;
 
 import org.apache.commons.lang.ObjectUtils;
@@ -12,17 +13,25 @@ import org.apache.commons.lang.ObjectUtils;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.value.ComputedValueResult;
 import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.view.DeltaComparer;
 import com.opengamma.engine.view.DeltaDefinition;
+import com.opengamma.engine.view.NumberDeltaComparer;
 import com.opengamma.engine.view.ViewCalculationResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel.Column;
+import com.opengamma.engine.view.impl.ColumnarViewDeltaResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
 import com.opengamma.util.tuple.Pair;
 
 /**
  * Produces {@link ViewDeltaResultModel} instances by comparing two {@link ViewComputationResultModel}.
+ * <p>
+ * If the results are {@link ColumnarViewComputationResultModel} instances then the comparison is made column by column, with primitive comparison of {@code double} cells, and the delta is a
+ * {@link ColumnarViewDeltaResultModel} holding a bitmap of the changed cells of each column.
  */
 public class ViewDeltaResultCalculator {
 
@@ -35,6 +44,9 @@ public class ViewDeltaResultCalculator {
    * @return the delta between the two results, not null
    */
   public static ViewDeltaResultModel computeDeltaModel(ViewDefinition viewDefinition, ViewResultModel previousResult, ViewResultModel result) {
+    if ((result instanceof ColumnarViewComputationResultModel) && ((previousResult == null) || (previousResult instanceof ColumnarViewComputationResultModel))) {
+      return computeColumnarDeltaModel(viewDefinition, (ColumnarViewComputationResultModel) previousResult, (ColumnarViewComputationResultModel) result);
+    }
     InMemoryViewDeltaResultModel deltaModel = new InMemoryViewDeltaResultModel();
     deltaModel.setViewCycleExecutionOptions(result.getViewCycleExecutionOptions());
     deltaModel.setCalculationTime(result.getCalculationTime());
@@ -92,4 +104,121 @@ public class ViewDeltaResultCalculator {
     }
   }
 
+  /**
+   * Comparison of {@code double} cells according to a {@link DeltaDefinition}.
+   */
+  private abstract static class DoubleComparer {
+
+    public abstract boolean isDelta(double previousValue, double newValue);
+
+    public static DoubleComparer of(final DeltaComparer<Number> numberComparer) {
+      if (numberComparer == null) {
+        // Same as ObjectUtils.equals on the boxed values
+        return new DoubleComparer() {
+          @Override
+          public boolean isDelta(final double previousValue, final double newValue) {
+            return Double.doubleToLongBits(previousValue) != Double.doubleToLongBits(newValue);
+          }
+        };
+      } else if (numberComparer instanceof NumberDeltaComparer) {
+        final NumberDeltaComparer comparer = (NumberDeltaComparer) numberComparer;
+        return new DoubleComparer() {
+          @Override
+          public boolean isDelta(final double previousValue, final double newValue) {
+            return comparer.isDelta(previousValue, newValue);
+          }
+        };
+      } else {
+        return new DoubleComparer() {
+          @Override
+          public boolean isDelta(final double previousValue, final double newValue) {
+            return numberComparer.isDelta(previousValue, newValue);
+          }
+        };
+      }
+    }
+
+  }
+
+  private static boolean isObjectDelta(final DeltaComparer<Number> numberComparer, final Object previousValue, final Object newValue) {
+    // Matches DeltaDefinition#isDelta for values with the same specification
+    if ((numberComparer != null) && (previousValue instanceof Number) && (newValue instanceof Number)) {
+      return numberComparer.isDelta((Number) previousValue, (Number) newValue);
+    }
+    return !ObjectUtils.equals(previousValue, newValue);
+  }
+
+  /**
+   * Maps the rows of the new result to the rows of the previous result.
+   */
+  private static int[] getPreviousRows(final ColumnarViewComputationResultModel previousResult, final ColumnarViewComputationResultModel result) {
+    final int count = result.getTargetCount();
+    final int previousCount = previousResult.getTargetCount();
+    final int[] previousRows = new int[count];
+    for (int row = 0; row < count; row++) {
+      final ComputationTargetSpecification target = result.getTarget(row);
+      // Consecutive results normally have the same target dictionary
+      if ((row < previousCount) && target.equals(previousResult.getTarget(row))) {
+        previousRows[row] = row;
+      } else {
+        previousRows[row] = previousResult.getRow(target);
+      }
+    }
+    return previousRows;
+  }
+
+  private static BitSet computeChangedRows(final DeltaComparer<Number> numberComparer, final DoubleComparer doubleComparer, final int[] previousRows, final Column previousColumn,
+      final Column column) {
+    final BitSet present = column.getPresent();
+    if (previousColumn == null) {
+      // Everything is new/delta because this is a new column
+      return (BitSet) present.clone();
+    }
+    final BitSet changed = new BitSet();
+    final BitSet doubles = column.getDoubles();
+    final BitSet previousDoubles = previousColumn.getDoubles();
+    final BitSet previousPresent = previousColumn.getPresent();
+    for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+      final int previousRow = previousRows[row];
+      if ((previousRow < 0) || !previousPresent.get(previousRow)) {
+        // New target, or new value for the target
+        changed.set(row);
+        continue;
+      }
+      final boolean isDelta;
+      if (doubles.get(row) && previousDoubles.get(previousRow)) {
+        isDelta = doubleComparer.isDelta(previousColumn.getDouble(previousRow), column.getDouble(row));
+      } else {
+        isDelta = isObjectDelta(numberComparer, previousColumn.getValue(previousRow), column.getValue(row));
+      }
+      if (isDelta || !ObjectUtils.equals(previousColumn.getAggregatedExecutionLog(previousRow), column.getAggregatedExecutionLog(row))) {
+        changed.set(row);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Computes the delta between old and new columnar results by comparing them column by column.
+   * 
+   * @param viewDefinition the view definition to which the results apply
+   * @param previousResult the previous result, null if there is none
+   * @param result the new result, not null
+   * @return the delta between the two results, not null
+   */
+  public static ColumnarViewDeltaResultModel computeColumnarDeltaModel(final ViewDefinition viewDefinition, final ColumnarViewComputationResultModel previousResult,
+      final ColumnarViewComputationResultModel result) {
+    final ColumnarViewDeltaResultModel deltaModel = new ColumnarViewDeltaResultModel(result, (previousResult != null) ? previousResult.getCalculationTime() : null);
+    final int[] previousRows = (previousResult != null) ? getPreviousRows(previousResult, result) : null;
+    for (String calcConfigName : result.getCalculationConfigurationNames()) {
+      final DeltaComparer<Number> numberComparer = viewDefinition.getCalculationConfiguration(calcConfigName).getDeltaDefinition().getNumberComparer();
+      final DoubleComparer doubleComparer = DoubleComparer.of(numberComparer);
+      for (Column column : result.getColumns(calcConfigName)) {
+        final Column previousColumn = (previousResult != null) ? previousResult.getColumn(calcConfigName, column.getValueName(), column.getProperties()) : null;
+        deltaModel.addChangedRows(column, computeChangedRows(numberComparer, doubleComparer, previousRows, previousColumn, column));
+      }
+    }
+    return deltaModel;
+  }
+
 }
@@ -40,6 +40,9 @@ import com.opengamma.util.ArgumentChecker;
  * Fragments and delta results are merged so that those corresponding to the latest cycle will be available. Individual notifications from earlier cycles will be discarded. For example, if there is a
  * view compilation and a number of cycles run, the events released will be the compilation notification, merged events corresponding to the last full cycle, and anything available for any incomplete
  * cycle.
+ * <p>
+ * The merged delta result from a number of cycles may hold a copy of every value that changed in any of them. If a maximum number of merged values is set then a merged delta which grows past it is
+ * discarded in favor of one reporting every value of the latest full result as changed, so that a slow consumer does not cause an unbounded amount of memory to be held on its behalf.
  */
 public class MergingViewProcessListener implements ViewResultListener {
 
@@ -105,6 +108,26 @@ public class MergingViewProcessListener implements ViewResultListener {
    */
   private final AtomicLong _lastUpdateMillis = new AtomicLong(0);
 
+  /**
+   * The time at which the oldest update waiting in the queue was received, or 0 if the queue is empty.
+   */
+  private volatile long _queuedSinceMillis;
+
+  /**
+   * The number of results that have been merged into earlier ones instead of being delivered.
+   */
+  private final AtomicLong _mergedResults = new AtomicLong();
+
+  /**
+   * The number of merged delta results that have been discarded because they grew too large.
+   */
+  private final AtomicLong _discardedDeltas = new AtomicLong();
+
+  /**
+   * The maximum number of values to hold in a merged delta result, or 0 for no limit.
+   */
+  private volatile int _maximumMergedValues;
+
   private Call<?> _firstCall;
   private Call<?> _lastCall;
   /**
@@ -192,6 +215,48 @@ public class MergingViewProcessListener implements ViewResultListener {
     return _lastUpdateMillis.get();
   }
 
+  /**
+   * Gets the time at which the oldest update waiting to be released was received.
+   * 
+   * @return the time at which the oldest waiting update was received, in milliseconds, or 0 if there are no waiting updates
+   */
+  protected long getQueuedSinceMillis() {
+    return _queuedSinceMillis;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of results that have been merged into earlier ones instead of being delivered individually.
+   * 
+   * @return the number of merged results
+   */
+  public long getMergedResultCount() {
+    return _mergedResults.get();
+  }
+
+  /**
+   * Gets the number of merged delta results that were discarded, and replaced by one reporting all values of the latest full result, because they held more than the maximum number of values.
+   * 
+   * @return the number of discarded delta results
+   */
+  public long getDiscardedDeltaCount() {
+    return _discardedDeltas.get();
+  }
+
+  public int getMaximumMergedValues() {
+    return _maximumMergedValues;
+  }
+
+  /**
+   * Sets the maximum number of values that may be held in a merged delta result. This limits the memory that the merger can use on behalf of a slow consumer.
+   * 
+   * @param maximumMergedValues the maximum number of values, or 0 for no limit
+   */
+  public void setMaximumMergedValues(int maximumMergedValues) {
+    ArgumentChecker.notNegative(maximumMergedValues, "maximumMergedValues");
+    _maximumMergedValues = maximumMergedValues;
+  }
+
   //-------------------------------------------------------------------------
   public boolean isLatestResultCycleRetained() {
     return _isLatestResultCycleRetained;
@@ -288,7 +353,14 @@ public class MergingViewProcessListener implements ViewResultListener {
           // There's a previous cycle completed call in the queue - move to end
           putCallToEnd(_cycleCompleted);
           // Merge new cycle completed call into old one
-          _cycleCompleted.getFunction().update(fullResult, deltaResult);
+          final CycleCompletedCall merged = _cycleCompleted.getFunction();
+          merged.update(fullResult, deltaResult);
+          _mergedResults.incrementAndGet();
+          final int maximumMergedValues = getMaximumMergedValues();
+          if ((maximumMergedValues > 0) && (merged.getMergedDeltaValueCount() > maximumMergedValues) && merged.discardMergedDelta()) {
+            s_logger.debug("Discarded merged delta result with more than {} values", maximumMergedValues);
+            _discardedDeltas.incrementAndGet();
+          }
         } else {
           // No existing cycle completed call - add new one
           _cycleCompleted = addCall(new CycleCompletedCall(fullResult, deltaResult));
@@ -328,6 +400,7 @@ public class MergingViewProcessListener implements ViewResultListener {
           putCallToEnd(_latestCycleFragmentCompleted);
           // Merge new fragment completed call into old one
           _latestCycleFragmentCompleted.getFunction().update(fullFragment, deltaFragment);
+          _mergedResults.incrementAndGet();
         } else {
           // No existing fragment completed call - add new one
           _latestCycleFragmentCompleted = addCall(new CycleFragmentCompletedCall(fullFragment, deltaFragment));
@@ -432,6 +505,7 @@ public class MergingViewProcessListener implements ViewResultListener {
   private void clearCallQueue() {
     _firstCall = null;
     _lastCall = null;
+    _queuedSinceMillis = 0;
     _previousCompilation = null;
     _latestCompilation = null;
     _previousCycleStarted = null;
@@ -537,6 +611,7 @@ public class MergingViewProcessListener implements ViewResultListener {
     if (_firstCall == null) {
       // First element into the queue
       _firstCall = call;
+      _queuedSinceMillis = _lastUpdateMillis.get();
     }
     _lastCall = call;
     return call;
@@ -11,23 +11,64 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import com.opengamma.engine.resource.EngineResourceManagerInternal;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.metric.MetricProducer;
 
 /**
  * Merges view process results to satisfy a specified maximum downstream update rate (given in terms of a minimum period between updates). This maximum rate can be adjusted on-the-fly.
+ * <p>
+ * In adaptive mode the time taken by the underlying listener to consume each update is measured, and the period between updates is stretched so that a slow consumer spends no more than half of its
+ * time processing them. Results are merged while the consumer catches up rather than being queued for it. Adaptive mode is best combined with a maximum number of merged values (see
+ * {@link #setMaximumMergedValues}) to also bound the memory held for the consumer.
  */
-public class RateLimitingMergingViewProcessListener extends MergingViewProcessListener {
+public class RateLimitingMergingViewProcessListener extends MergingViewProcessListener implements MetricProducer {
 
   private static final long MIN_PERIOD = 50;
 
+  /**
+   * The longest period between updates that adaptive mode will choose.
+   */
+  private static final long MAX_ADAPTIVE_PERIOD = 30000;
+
   private final ScheduledExecutorService _timer;
   private ReentrantLock _taskSetupLock = new ReentrantLock();
   private Future<?> _asyncUpdateCheckerTask;
 
   private boolean _isPaused;
 
+  private volatile boolean _isAdaptive;
+
+  /**
+   * Moving average of the time taken by the underlying listener to consume an update, in nanoseconds.
+   */
+  private volatile long _consumerNanos;
+
+  /**
+   * The time taken to consume each update (replaced if registerMetrics called).
+   */
+  private Timer _drainTimer = new Timer();
+
+  /**
+   * The time between the oldest merged result being received and its delivery, in milliseconds (replaced if registerMetrics called).
+   */
+  private Histogram _lag = new Histogram(new UniformReservoir());
+
+  /**
+   * The registries and name prefix passed to registerMetrics, so that the metrics can be removed on termination.
+   */
+  private MetricRegistry _summaryRegistry;
+  private MetricRegistry _detailRegistry;
+  private String _metricsPrefix;
+
   private AtomicLong _minimumUpdatePeriodMillis = new AtomicLong(0);
 
   /**
@@ -41,10 +82,14 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
     _timer = timer;
   }
 
+  /**
+   * Stops the update timer and removes any metrics registered for this listener.
+   */
   public void terminate() {
     _taskSetupLock.lock();
     try {
       cancelTimerTask();
+      unregisterMetrics();
     } finally {
       _taskSetupLock.unlock();
     }
@@ -75,6 +120,58 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
     invoke(drain);
   }
 
+  //-------------------------------------------------------------------------
+  public boolean isAdaptive() {
+    return _isAdaptive;
+  }
+
+  /**
+   * Sets whether the period between updates should adapt to the speed of the underlying listener. When adaptive, the minimum update period is still respected but the actual period may be longer if
+   * the listener is slow to consume updates. Updates are always merged in adaptive mode, even if the minimum update period is 0.
+   * 
+   * @param isAdaptive true to adapt the update period to the underlying listener, false to use the minimum update period only
+   */
+  public void setAdaptive(boolean isAdaptive) {
+    final Call<?> drain;
+    _taskSetupLock.lock();
+    try {
+      if (_isAdaptive == isAdaptive) {
+        return;
+      }
+      _isAdaptive = isAdaptive;
+      drain = updateConfiguration();
+    } finally {
+      _taskSetupLock.unlock();
+    }
+    invoke(drain);
+  }
+
+  /**
+   * Gets the period that must currently elapse since the last update before an update is triggered. This is the minimum update period unless adaptive mode has stretched it to accommodate a slow
+   * listener.
+   * 
+   * @return the current update period, in milliseconds
+   */
+  public long getEffectiveUpdatePeriodMillis() {
+    final long minimumUpdatePeriodMillis = getMinimumUpdatePeriodMillis();
+    if (!isAdaptive()) {
+      return minimumUpdatePeriodMillis;
+    }
+    // Allow the consumer to be busy for at most half of the time
+    final long consumerPeriodMillis = Math.min(MAX_ADAPTIVE_PERIOD, TimeUnit.NANOSECONDS.toMillis(_consumerNanos * 2));
+    return Math.max(minimumUpdatePeriodMillis, consumerPeriodMillis);
+  }
+
+  /**
+   * Gets the time between the oldest result waiting to be released being received and now.
+   * 
+   * @return the lag of the underlying listener behind the view process, in milliseconds, or 0 if there are no results waiting
+   */
+  public long getLagMillis() {
+    final long queuedSince = getQueuedSinceMillis();
+    return (queuedSince != 0) ? Math.max(0, System.currentTimeMillis() - queuedSince) : 0;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Gets the minimum period which must have elapsed since the last update before an update is triggered.
@@ -122,8 +219,8 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
       return false;
     }
 
-    long minimumUpdatePeriodMillis = getMinimumUpdatePeriodMillis();
-    if (currentTime - lastUpdateTime < minimumUpdatePeriodMillis) {
+    long updatePeriodMillis = getEffectiveUpdatePeriodMillis();
+    if (currentTime - lastUpdateTime < updatePeriodMillis) {
       return false;
     }
 
@@ -132,15 +229,28 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
       return false;
     }
 
+    final long queuedSince = getQueuedSinceMillis();
+    if (queuedSince != 0) {
+      _lag.update(Math.max(0, currentTime - queuedSince));
+    }
+    final long start = System.nanoTime();
     drain();
+    final long elapsed = System.nanoTime() - start;
+    _drainTimer.update(elapsed, TimeUnit.NANOSECONDS);
+    // Exponentially weighted so that a single slow update does not dominate
+    _consumerNanos = (_consumerNanos * 3 + elapsed) >> 2;
     return true;
   }
 
   private Call<?> updateConfiguration() {
     long minimumUpdatePeriodMillis = getMinimumUpdatePeriodMillis();
     cancelTimerTask();
-    final Call<?> drain = setPassThrough(minimumUpdatePeriodMillis == 0 && !isPaused());
+    final Call<?> drain = setPassThrough(minimumUpdatePeriodMillis == 0 && !isPaused() && !isAdaptive());
     if (!isPaused() && !isPassThrough()) {
+      if (minimumUpdatePeriodMillis == 0) {
+        // Adaptive mode with no minimum; check at the finest granularity
+        minimumUpdatePeriodMillis = MIN_PERIOD;
+      }
       final Runnable task = new Runnable() {
         @Override
         public void run() {
@@ -152,6 +262,58 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
     return drain;
   }
 
+  //-------------------------------------------------------------------------
+  @Override
+  public void registerMetrics(MetricRegistry summaryRegistry, MetricRegistry detailRegistry, String namePrefix) {
+    _taskSetupLock.lock();
+    try {
+      unregisterMetrics();
+      _summaryRegistry = summaryRegistry;
+      _detailRegistry = detailRegistry;
+      _metricsPrefix = namePrefix + ".";
+    } finally {
+      _taskSetupLock.unlock();
+    }
+    _drainTimer = detailRegistry.timer(namePrefix + ".consume");
+    _lag = summaryRegistry.histogram(namePrefix + ".lag");
+    summaryRegistry.register(namePrefix + ".merged", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return getMergedResultCount();
+      }
+    });
+    summaryRegistry.register(namePrefix + ".discarded", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return getDiscardedDeltaCount();
+      }
+    });
+    detailRegistry.register(namePrefix + ".period", new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return getEffectiveUpdatePeriodMillis();
+      }
+    });
+  }
+
+  private void unregisterMetrics() {
+    if (_metricsPrefix == null) {
+      return;
+    }
+    final String prefix = _metricsPrefix;
+    final MetricFilter filter = new MetricFilter() {
+      @Override
+      public boolean matches(final String name, final Metric metric) {
+        return name.startsWith(prefix);
+      }
+    };
+    _summaryRegistry.removeMatching(filter);
+    _detailRegistry.removeMatching(filter);
+    _summaryRegistry = null;
+    _detailRegistry = null;
+    _metricsPrefix = null;
+  }
+
   private void cancelTimerTask() {
     if (_asyncUpdateCheckerTask != null) {
       _asyncUpdateCheckerTask.cancel(true);
@@ -8,7 +8,10 @@ package com.opengamma.engine.view.compilation;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -19,6 +22,7 @@ import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterables;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.LinkUtils;
 import com.opengamma.core.change.ChangeManager;
@@ -48,6 +52,11 @@ public final class SecurityLinkResolver {
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(SecurityLinkResolver.class);
 
+  /**
+   * The maximum number of identifiers to request from the security source in a single bulk call.
+   */
+  private static final int BATCH_SIZE = 1000;
+
   /**
    * The executor service.
    */
@@ -135,6 +144,8 @@ public final class SecurityLinkResolver {
         _securitySource.addToCache(security);
       }
     }
+    // Fetch the securities in bulk so that the resolution jobs below are satisfied from the cache
+    prefetch(securityLinkMap.keySet());
     s_logger.debug("Submitting {} resolution jobs for {} links", securityLinkMap.size(), securityLinks.size());
     // Submit a job for each "unique" link. The job will serially resolve all "identical" links as they will
     // be in the cache at that point.
@@ -173,6 +184,69 @@ public final class SecurityLinkResolver {
     }
   }
 
+  /**
+   * Fetches the securities for the given link keys into the cache with bulk requests to the underlying security source. Any that cannot be fetched this way will be left to be resolved individually.
+   * 
+   * @param keys the object and external identifiers of the links, not null
+   */
+  private void prefetch(final Collection<Pair<ObjectId, ExternalIdBundle>> keys) {
+    final Set<ObjectId> objectIds = new HashSet<ObjectId>();
+    final Set<ExternalIdBundle> bundles = new HashSet<ExternalIdBundle>();
+    for (Pair<ObjectId, ExternalIdBundle> key : keys) {
+      if (key.getFirst() != null) {
+        objectIds.add(key.getFirst());
+      } else if ((key.getSecond() != null) && (key.getSecond().size() > 0)) {
+        bundles.add(key.getSecond());
+      }
+    }
+    try {
+      for (List<ObjectId> batch : Iterables.partition(objectIds, BATCH_SIZE)) {
+        _securitySource.prefetch(batch, _versionCorrection);
+      }
+      for (List<ExternalIdBundle> batch : Iterables.partition(bundles, BATCH_SIZE)) {
+        _securitySource.prefetchSingle(batch, _versionCorrection);
+      }
+    } catch (RuntimeException e) {
+      s_logger.warn("Bulk security fetch failed; resolving individually: {}", e.getMessage());
+      s_logger.debug("Caught exception", e);
+    }
+  }
+
+  /**
+   * Resolves as many security links on the positions and trades of a portfolio node as possible using bulk requests to the security source.
+   * <p>
+   * Unlike {@link #resolveSecurities(PortfolioNode)} this does not fail if a security cannot be found, and does not make individual requests for anything that the bulk requests missed. It is intended
+   * to warm caches before the portfolio is used, leaving any remaining links to be resolved on demand.
+   * 
+   * @param node the node to resolve, not null
+   * @return the securities that were resolved, not null
+   */
+  public Collection<Security> prefetchSecurities(final PortfolioNode node) {
+    final Collection<SecurityLink> links = getSecurityLinks(node);
+    final Set<Pair<ObjectId, ExternalIdBundle>> keys = new HashSet<Pair<ObjectId, ExternalIdBundle>>();
+    for (SecurityLink link : links) {
+      final Security security = link.getTarget();
+      if (security == null) {
+        keys.add(Pairs.of(link.getObjectId(), link.getExternalId()));
+      } else if (security.getUniqueId() != null) {
+        _securitySource.addToCache(security);
+      }
+    }
+    s_logger.debug("Prefetching {} securities for {} links", keys.size(), links.size());
+    prefetch(keys);
+    final Map<UniqueId, Security> securities = new HashMap<UniqueId, Security>();
+    for (SecurityLink link : links) {
+      Security security = link.getTarget();
+      if ((security == null) && _securitySource.isCached(link.getObjectId(), link.getExternalId())) {
+        security = link.resolve(_securitySource, _versionCorrection);
+      }
+      if ((security != null) && (security.getUniqueId() != null)) {
+        securities.put(security.getUniqueId(), security);
+      }
+    }
+    return securities.values();
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Resolves a security link making use of the caching of this instance.
@@ -221,6 +295,10 @@ public final class SecurityLinkResolver {
    * @throws RuntimeException if unable to resolve all the securities
    */
   public void resolveSecurities(final PortfolioNode node) {
+    resolveSecurities(getSecurityLinks(node));
+  }
+
+  private static Collection<SecurityLink> getSecurityLinks(final PortfolioNode node) {
     final Collection<SecurityLink> links = new ArrayList<SecurityLink>(256);
     PortfolioNodeTraverser.depthFirst(new AbstractPortfolioNodeTraversalCallback() {
       @Override
@@ -239,7 +317,7 @@ public final class SecurityLinkResolver {
         }
       }
     }).traverse(node);
-    resolveSecurities(links);
+    return links;
   }
 
   //-------------------------------------------------------------------------
@@ -314,6 +392,46 @@ public final class SecurityLinkResolver {
       }
     }
 
+    void prefetch(Collection<ObjectId> objectIds, VersionCorrection versionCorrection) {
+      final Collection<ObjectId> misses = new ArrayList<ObjectId>(objectIds.size());
+      for (ObjectId objectId : objectIds) {
+        if (!_objectIdCache.containsKey(objectId)) {
+          misses.add(objectId);
+        }
+      }
+      if (!misses.isEmpty()) {
+        for (Map.Entry<ObjectId, Security> security : _underlying.get(misses, versionCorrection).entrySet()) {
+          if (security.getValue() != null) {
+            _objectIdCache.putIfAbsent(security.getKey(), security.getValue());
+          }
+        }
+      }
+    }
+
+    void prefetchSingle(Collection<ExternalIdBundle> bundles, VersionCorrection versionCorrection) {
+      final Collection<ExternalIdBundle> misses = new ArrayList<ExternalIdBundle>(bundles.size());
+      for (ExternalIdBundle bundle : bundles) {
+        if (!_weakIdCache.containsKey(bundle)) {
+          misses.add(bundle);
+        }
+      }
+      if (!misses.isEmpty()) {
+        for (Map.Entry<ExternalIdBundle, Security> security : _underlying.getSingle(misses, versionCorrection).entrySet()) {
+          if (security.getValue() != null) {
+            _weakIdCache.putIfAbsent(security.getKey(), security.getValue());
+          }
+        }
+      }
+    }
+
+    boolean isCached(ObjectId objectId, ExternalIdBundle bundle) {
+      if (objectId != null) {
+        return _objectIdCache.containsKey(objectId);
+      } else {
+        return (bundle != null) && _weakIdCache.containsKey(bundle);
+      }
+    }
+
     @Override
     public Security get(UniqueId uniqueId) {
       Security security = _objectIdCache.get(uniqueId.getObjectId());
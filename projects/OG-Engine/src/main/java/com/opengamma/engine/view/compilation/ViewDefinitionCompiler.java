@@ -37,6 +37,7 @@ import com.opengamma.core.position.Position;
 import com.opengamma.core.position.PositionSource;
 import com.opengamma.core.position.impl.PortfolioNodeTraverser;
 import com.opengamma.core.security.Security;
+import com.opengamma.engine.CachingComputationTargetResolver;
 import com.opengamma.engine.ComputationTarget;
 import com.opengamma.engine.ComputationTargetResolver;
 import com.opengamma.engine.ComputationTargetSpecification;
@@ -247,6 +248,31 @@ public final class ViewDefinitionCompiler {
       return target.getValue(ComputationTargetType.PORTFOLIO);
     }
 
+    /**
+     * Resolves the positions and securities referenced by the portfolio ahead of graph building. Securities are fetched with bulk requests and everything is written to the caching target resolver so
+     * that the lazy resolution of individual targets during graph building does not need a round trip to the underlying sources for each.
+     * <p>
+     * This is called once the portfolio resolution has been checked against any previous one.
+     * 
+     * @param portfolio the resolved portfolio, not null
+     */
+    protected void prefetchPortfolio(final Portfolio portfolio) {
+      final FunctionCompilationContext functionContext = getContext().getServices().getFunctionCompilationContext();
+      if (functionContext.getSecuritySource() == null) {
+        return;
+      }
+      final VersionCorrection versionCorrection = getContext().getResolverVersionCorrection();
+      long t = -System.nanoTime();
+      // Traversing the lazily resolved portfolio caches its nodes and positions with the target resolver
+      final Collection<Security> securities = new SecurityLinkResolver(getContext(), versionCorrection).prefetchSecurities(portfolio.getRootNode());
+      final ComputationTargetResolver resolver = functionContext.getRawComputationTargetResolver();
+      if (resolver instanceof CachingComputationTargetResolver) {
+        ((CachingComputationTargetResolver) resolver).cacheTargets(securities, versionCorrection);
+      }
+      t += System.nanoTime();
+      s_logger.info("Prefetched {} securities for portfolio {} in {}ms", new Object[] {securities.size(), portfolio.getUniqueId(), t / 1e6 });
+    }
+
     protected boolean isPortfolioOutputs() {
       return _portfolioOutputs;
     }
@@ -320,6 +346,7 @@ public final class ViewDefinitionCompiler {
               } else {
                 s_logger.debug("No previous portfolio to check new resolution against");
               }
+              prefetchPortfolio(_portfolio);
             }
             functionContext.setPortfolio(_portfolio);
           }
@@ -394,6 +421,15 @@ public final class ViewDefinitionCompiler {
       _changedPositions = changedPositions;
     }
 
+    /**
+     * Skips the bulk prefetch. The targets that the previous graphs were built from are already held by the caching target resolver, and any positions and securities that have changed
+     * are resolved as the changed parts of the portfolio are added to the graph.
+     */
+    @Override
+    protected void prefetchPortfolio(final Portfolio portfolio) {
+      s_logger.debug("Not prefetching portfolio {} for incremental compilation", portfolio.getUniqueId());
+    }
+
     @Override
     protected void compile(final DependencyGraphBuilder builder) {
       final ViewCalculationConfiguration calcConfig = getContext().getViewDefinition().getCalculationConfiguration(builder.getCalculationConfigurationName());
@@ -5,7 +5,10 @@
  */
 package com.opengamma.engine.view.cycle;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.commons.lang.ObjectUtils;
@@ -14,29 +17,38 @@ import com.opengamma.engine.cache.CacheSelectHint;
 import com.opengamma.engine.cache.ViewComputationCache;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
-import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.depgraph.impl.DependentNodeIndex;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
 
 /**
  * Determines which nodes in a graph have changed. A node has 'changed' if and only if its subtree contains a node for which PreviousLiveDataInput != CurrentLiveDataInput. Note that this excludes
  * changes due to passage of the system clock.
+ * <p>
+ * Only the market data nodes are inspected; the changes are then propagated to the affected nodes using a {@link DependentNodeIndex}. If the market data values which may have changed are known,
+ * for example from a {@link com.opengamma.engine.marketdata.ChangeTrackingMarketDataSnapshot}, only those are compared and the delta costs time proportional to the number of changes and the size of
+ * the affected subgraph rather than the size of the whole graph. Otherwise every market data value is compared.
+ * <p>
+ * The calculator borrows a bit set from the index which should be returned by calling {@link #release} once the changed and unchanged nodes are no longer needed.
  */
 public class LiveDataDeltaCalculator {
 
-  private final DependencyGraph _graph;
+  private final DependentNodeIndex _index;
   private final ViewComputationCache _cache;
   private final ViewComputationCache _previousCache;
   private final Set<ValueSpecification> _changedSpecifications;
+  private final Set<ValueSpecification> _changedMarketData;
 
-  private final Set<DependencyNode> _changedNodes = new HashSet<DependencyNode>();
-  private final Set<DependencyNode> _unchangedNodes = new HashSet<DependencyNode>();
+  private BitSet _changed;
+  private int _changedCount;
 
   private boolean _done; // = false
 
   /**
    * For the delta calculation to be meaningful, the caches should be populated with LiveData inputs required to compute the given dependency graph. See {@link DependencyNode#getRequiredLiveData()}
    * and {@link ViewComputationCache#getValue(ValueSpecification)}.
+   * <p>
+   * The index of the graph is obtained from {@link DependentNodeIndex#of}, which only builds it once for a {@link com.opengamma.engine.depgraph.impl.DependencyGraphImpl}.
    * 
    * @param graph Dependency graph
    * @param cache Contains CurrentLiveDataInputs (for the given graph)
@@ -44,85 +56,177 @@ public class LiveDataDeltaCalculator {
    * @param dirtySpecifications Value specifications that are to be considered "changed"
    */
   public LiveDataDeltaCalculator(final DependencyGraph graph, final ViewComputationCache cache, final ViewComputationCache previousCache, final Set<ValueSpecification> dirtySpecifications) {
-    ArgumentChecker.notNull(graph, "Graph");
+    this(DependentNodeIndex.of(ArgumentChecker.notNull(graph, "Graph")), cache, previousCache, dirtySpecifications, null);
+  }
+
+  /**
+   * For the delta calculation to be meaningful, the caches should be populated with LiveData inputs required to compute the indexed dependency graph. See
+   * {@link DependencyNode#getRequiredLiveData()} and {@link ViewComputationCache#getValue(ValueSpecification)}.
+   * 
+   * @param index Reverse dependency index of the dependency graph
+   * @param cache Contains CurrentLiveDataInputs (for the given graph)
+   * @param previousCache Contains PreviousLiveDataInputs (for the given graph)
+   * @param dirtySpecifications Value specifications that are to be considered "changed"
+   * @param changedMarketData Market data values which may have changed since the previous cache was populated, null to compare all of the market data
+   */
+  public LiveDataDeltaCalculator(final DependentNodeIndex index, final ViewComputationCache cache, final ViewComputationCache previousCache, final Set<ValueSpecification> dirtySpecifications,
+      final Set<ValueSpecification> changedMarketData) {
+    ArgumentChecker.notNull(index, "Index");
     ArgumentChecker.notNull(cache, "Cache");
     ArgumentChecker.notNull(previousCache, "Previous cache");
     ArgumentChecker.notNull(dirtySpecifications, "dirtySpecifications");
-    _graph = graph;
+    _index = index;
     _cache = cache;
     _previousCache = previousCache;
     _changedSpecifications = dirtySpecifications.isEmpty() ? null : dirtySpecifications;
+    _changedMarketData = changedMarketData;
+    _changed = index.borrowBitSet();
   }
 
-  public Set<DependencyNode> getChangedNodes() {
+  /**
+   * Set view of either the changed or unchanged nodes, backed by the bit set of changed node identifiers.
+   */
+  private final class NodeSet extends AbstractSet<DependencyNode> {
+
+    private final boolean _isChanged;
+
+    private NodeSet(final boolean isChanged) {
+      _isChanged = isChanged;
+    }
+
+    private int next(final int from) {
+      final int next = _isChanged ? _changed.nextSetBit(from) : _changed.nextClearBit(from);
+      return (next >= 0) && (next < _index.getSize()) ? next : -1;
+    }
+
+    @Override
+    public int size() {
+      return _isChanged ? _changedCount : _index.getSize() - _changedCount;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+      if (o instanceof DependencyNode) {
+        final int identifier = _index.getIdentifier((DependencyNode) o);
+        return (identifier >= 0) && (_changed.get(identifier) == _isChanged);
+      }
+      return false;
+    }
+
+    @Override
+    public Iterator<DependencyNode> iterator() {
+      return new Iterator<DependencyNode>() {
+
+        private int _next = next(0);
+
+        @Override
+        public boolean hasNext() {
+          return _next >= 0;
+        }
+
+        @Override
+        public DependencyNode next() {
+          if (_next < 0) {
+            throw new NoSuchElementException();
+          }
+          final DependencyNode node = _index.getNode(_next);
+          _next = next(_next + 1);
+          return node;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+
+      };
+    }
+
+  }
+
+  private void checkDone() {
     if (!_done) {
       throw new IllegalStateException("Call computeDelta() first");
     }
-    return _changedNodes;
+    if (_changed == null) {
+      throw new IllegalStateException("Calculator has been released");
+    }
+  }
+
+  public Set<DependencyNode> getChangedNodes() {
+    checkDone();
+    return new NodeSet(true);
   }
 
   public Set<DependencyNode> getUnchangedNodes() {
-    if (!_done) {
-      throw new IllegalStateException("Call computeDelta() first");
+    checkDone();
+    return new NodeSet(false);
+  }
+
+  /**
+   * Returns the bit set used by the calculator to its index for reuse. The sets returned by {@link #getChangedNodes} and {@link #getUnchangedNodes} must not be used afterwards.
+   */
+  public void release() {
+    final BitSet changed = _changed;
+    if (changed != null) {
+      _changed = null;
+      _index.releaseBitSet(changed);
     }
-    return _unchangedNodes;
   }
 
   public void computeDelta() {
     if (_done) {
       throw new IllegalStateException("Cannot determine delta twice");
     }
-    final int count = _graph.getRootCount();
-    for (int i = 0; i < count; i++) {
-      computeDelta(_graph.getRootNode(i));
+    if (_changed == null) {
+      throw new IllegalStateException("Calculator has been released");
     }
-    _done = true;
-  }
-
-  private boolean computeDelta(final DependencyNode node) {
-    if (_changedNodes.contains(node)) {
-      return true;
-    }
-    if (_unchangedNodes.contains(node)) {
-      return false;
-    }
-    boolean hasChanged = false;
-    int count = node.getInputCount();
-    if (count == 0) {
-      if (MarketDataSourcingFunction.UNIQUE_ID.equals(node.getFunction().getFunctionId())) {
-        // This is a graph leaf, but market data changes may affect the function of the node.
-        count = node.getOutputCount();
-        for (int i = 0; i < count; i++) {
-          final ValueSpecification liveData = node.getOutputValue(i);
-          // Market data is always in the shared cache
-          final Object oldValue = _previousCache.getValue(liveData, CacheSelectHint.allShared());
-          final Object newValue = _cache.getValue(liveData, CacheSelectHint.allShared());
-          if (!ObjectUtils.equals(oldValue, newValue)) {
-            hasChanged = true;
-            break;
-          }
+    if (_changedMarketData != null) {
+      for (ValueSpecification marketData : _changedMarketData) {
+        final int identifier = _index.getProducer(marketData);
+        if ((identifier >= 0) && _index.isMarketData(identifier) && hasMarketDataChanged(marketData)) {
+          _changed.set(identifier);
         }
       }
     } else {
+      final int count = _index.getMarketDataCount();
       for (int i = 0; i < count; i++) {
-        // if any children changed, this node requires recalculation
-        hasChanged |= computeDelta(node.getInputNode(i));
+        final int identifier = _index.getMarketData(i);
+        if (hasMarketDataChanged(_index.getNode(identifier))) {
+          _changed.set(identifier);
+        }
       }
-      if (!hasChanged && (_changedSpecifications != null)) {
-        count = node.getOutputCount();
-        for (int i = 0; i < count; i++) {
-          if (_changedSpecifications.contains(node.getOutputValue(i))) {
-            hasChanged = true;
-            break;
-          }
+    }
+    if (_changedSpecifications != null) {
+      for (ValueSpecification changedSpecification : _changedSpecifications) {
+        final int identifier = _index.getProducer(changedSpecification);
+        // Only nodes with inputs are considered; a market data node is changed only by its values
+        if ((identifier >= 0) && (_index.getNode(identifier).getInputCount() != 0)) {
+          _changed.set(identifier);
         }
       }
     }
-    if (hasChanged) {
-      _changedNodes.add(node);
-    } else {
-      _unchangedNodes.add(node);
+    // If any inputs changed, the dependent nodes require recalculation
+    _index.markDependents(_changed);
+    _changedCount = _changed.cardinality();
+    _done = true;
+  }
+
+  private boolean hasMarketDataChanged(final DependencyNode node) {
+    final int count = node.getOutputCount();
+    for (int i = 0; i < count; i++) {
+      if (hasMarketDataChanged(node.getOutputValue(i))) {
+        return true;
+      }
     }
-    return hasChanged;
+    return false;
+  }
+
+  private boolean hasMarketDataChanged(final ValueSpecification liveData) {
+    // Market data is always in the shared cache
+    final Object oldValue = _previousCache.getValue(liveData, CacheSelectHint.allShared());
+    final Object newValue = _cache.getValue(liveData, CacheSelectHint.allShared());
+    return !ObjectUtils.equals(oldValue, newValue);
   }
+
 }
@@ -40,7 +40,9 @@ import com.opengamma.engine.calcnode.MutableExecutionLog;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphExplorer;
 import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.depgraph.impl.DependencyGraphExplorerImpl;
 import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
+import com.opengamma.engine.depgraph.impl.DependentNodeIndex;
 import com.opengamma.engine.exec.DefaultAggregatedExecutionLog;
 import com.opengamma.engine.exec.DependencyNodeJobExecutionResult;
 import com.opengamma.engine.exec.DependencyNodeJobExecutionResultCache;
@@ -117,6 +119,11 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   private final Map<String, DependencyNodeJobExecutionResultCache> _jobResultCachesByCalculationConfiguration = new ConcurrentHashMap<String, DependencyNodeJobExecutionResultCache>();
   private final Map<String, ViewComputationCache> _cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
   private volatile SingleComputationCycleExecutor _executor;
+  /**
+   * Whether the inputs prepared by {@link #prepare} allow execution, or null if they have not been prepared.
+   */
+  private volatile Boolean _inputsPrepared;
+  private InMemoryViewComputationResultModel _preparedFragmentResultModel;
 
   // Output
   private final InMemoryViewComputationResultModel _resultModel;
@@ -307,27 +314,69 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     }
   }
 
+  /**
+   * Creates the caches and populates them with the market data inputs ahead of {@link #preExecute}. This does not depend on the previous cycle so can be done while that cycle is still executing. The
+   * market data results are not published to the fragment listener until {@code preExecute} is called.
+   * 
+   * @param marketDataSnapshot the market data snapshot with which to execute the cycle, not null
+   * @param suppressExecutionOnNoMarketData true if execution is to be suppressed when input data is entirely missing, false otherwise
+   */
+  public void prepare(final MarketDataSnapshot marketDataSnapshot, final boolean suppressExecutionOnNoMarketData) {
+    if (_state != ViewCycleState.AWAITING_EXECUTION) {
+      throw new IllegalStateException("State must be " + ViewCycleState.AWAITING_EXECUTION);
+    }
+    if (_inputsPrepared != null) {
+      throw new IllegalStateException("Inputs have already been prepared");
+    }
+    createAllCaches();
+    _inputsPrepared = prepareInputs(marketDataSnapshot, suppressExecutionOnNoMarketData, false);
+  }
+
   /**
    * Prepares the cycle for execution, organising the caches and copying any values salvaged from a previous cycle.
    * 
    * @param previousCycle the previous cycle from which a delta cycle should be performed, or null to perform a full cycle
-   * @param marketDataSnapshot the market data snapshot with which to execute the cycle, not null
+   * @param marketDataSnapshot the market data snapshot with which to execute the cycle, not null. This is not used if the inputs have already been prepared by {@link #prepare}.
    * @param suppressExecutionOnNoMarketData true if execution is to be suppressed when input data is entirely missing, false otherwise
    * @return true if execution should continue, false if execution should be suppressed
    */
   public boolean preExecute(final SingleComputationCycle previousCycle, final MarketDataSnapshot marketDataSnapshot, final boolean suppressExecutionOnNoMarketData) {
+    return preExecute(previousCycle, marketDataSnapshot, null, suppressExecutionOnNoMarketData);
+  }
+
+  /**
+   * Prepares the cycle for execution, organising the caches and copying any values salvaged from a previous cycle.
+   * 
+   * @param previousCycle the previous cycle from which a delta cycle should be performed, or null to perform a full cycle
+   * @param marketDataSnapshot the market data snapshot with which to execute the cycle, not null. This is not used if the inputs have already been prepared by {@link #prepare}.
+   * @param changedMarketData the market data values which may have changed since the snapshot used by {@code previousCycle}, or null to compare all of the market data
+   * @param suppressExecutionOnNoMarketData true if execution is to be suppressed when input data is entirely missing, false otherwise
+   * @return true if execution should continue, false if execution should be suppressed
+   */
+  public boolean preExecute(final SingleComputationCycle previousCycle, final MarketDataSnapshot marketDataSnapshot, final Set<ValueSpecification> changedMarketData,
+      final boolean suppressExecutionOnNoMarketData) {
     if (_state != ViewCycleState.AWAITING_EXECUTION) {
       throw new IllegalStateException("State must be " + ViewCycleState.AWAITING_EXECUTION);
     }
     _startTime = Instant.now();
     _state = ViewCycleState.EXECUTING;
-    createAllCaches();
-    if (!prepareInputs(marketDataSnapshot, suppressExecutionOnNoMarketData)) {
+    final boolean inputsPrepared;
+    if (_inputsPrepared != null) {
+      inputsPrepared = _inputsPrepared;
+      if (_preparedFragmentResultModel != null) {
+        notifyFragmentCompleted(_preparedFragmentResultModel);
+        _preparedFragmentResultModel = null;
+      }
+    } else {
+      createAllCaches();
+      inputsPrepared = prepareInputs(marketDataSnapshot, suppressExecutionOnNoMarketData, true);
+    }
+    if (!inputsPrepared) {
       generateSuppressedOutputs();
       return false;
     }
     if (previousCycle != null) {
-      computeDelta(previousCycle);
+      computeDelta(previousCycle, changedMarketData);
     }
     return true;
   }
@@ -453,9 +502,10 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
    * 
    * @param snapshot the market data snapshot from which to source the input data, not null
    * @param suppressExecutionOnNoMarketData true if execution is to be suppressed when input data is entirely missing, false otherwise
+   * @param notify true to publish the market data results to the fragment listener, false to hold them until {@link #preExecute}
    * @return true if execution should continue, false if execution should be suppressed
    */
-  private boolean prepareInputs(final MarketDataSnapshot snapshot, boolean suppressExecutionOnNoMarketData) {
+  private boolean prepareInputs(final MarketDataSnapshot snapshot, boolean suppressExecutionOnNoMarketData, final boolean notify) {
     int missingMarketData = 0;
     final Set<ValueSpecification> allRequiredMarketData = getCompiledViewDefinition().getMarketDataRequirements();
     s_logger.debug("Populating {} market data items using snapshot {}", allRequiredMarketData.size(), snapshot);
@@ -513,7 +563,11 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       s_logger.info("Missing {} market data elements", missingMarketData);
     }
     fragmentResultModel.setCalculationTime(Instant.now());
-    notifyFragmentCompleted(fragmentResultModel);
+    if (notify) {
+      notifyFragmentCompleted(fragmentResultModel);
+    } else {
+      _preparedFragmentResultModel = fragmentResultModel;
+    }
     return true;
   }
 
@@ -540,8 +594,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
    * </ul>
    * 
    * @param previousCycle Previous iteration. It must not have been cleaned yet ({@link #releaseResources()}).
+   * @param changedMarketData Market data values which may have changed since the previous iteration, or null to compare all of the market data
    */
-  private void computeDelta(final SingleComputationCycle previousCycle) {
+  private void computeDelta(final SingleComputationCycle previousCycle, final Set<ValueSpecification> changedMarketData) {
     if (previousCycle.getState() != ViewCycleState.EXECUTED) {
       throw new IllegalArgumentException("State of previous cycle must be " + ViewCycleState.EXECUTED);
     }
@@ -557,8 +612,11 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       final ViewComputationCache previousCache = previousCycle.getComputationCache(calcConfig);
       final DependencyNodeJobExecutionResultCache jobExecutionResultCache = getJobExecutionResultCache(calcConfig);
       final DependencyNodeJobExecutionResultCache previousJobExecutionResultCache = previousCycle.getJobExecutionResultCache(calcConfig);
-      final LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(depGraph, cache, previousCache, parameterDelta.getValueSpecifications(calcConfig, previousViewDefinition,
-          viewDefinition));
+      // The index is retained by the explorer or graph so is only built for the first delta cycle on each compilation
+      final DependentNodeIndex dependentNodes = (depGraphExplorer instanceof DependencyGraphExplorerImpl) ? ((DependencyGraphExplorerImpl) depGraphExplorer).getDependentNodeIndex()
+          : DependentNodeIndex.of(depGraph);
+      final LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(dependentNodes, cache, previousCache, parameterDelta.getValueSpecifications(calcConfig,
+          previousViewDefinition, viewDefinition), changedMarketData);
       deltaCalculator.computeDelta();
       s_logger.info("Computed delta for calculation configuration '{}'. {} nodes out of {} require recomputation.", calcConfig, deltaCalculator.getChangedNodes().size(), depGraph.getSize());
       final Collection<ValueSpecification> specsToCopy = new LinkedList<>();
@@ -590,6 +648,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
         }
         jobExecutionResultCache.put(unchangedNode, previousExecutionResult);
       }
+      deltaCalculator.release();
       if (!specsToCopy.isEmpty()) {
         final ComputationCycleQuery reusableResultsQuery = new ComputationCycleQuery();
         reusableResultsQuery.setCalculationConfigurationName(depGraph.getCalculationConfigurationName());
@@ -127,6 +127,26 @@ public final class ExecutionFlags {
     return this;
   }
 
+  /**
+   * Adds {@link ViewExecutionFlags#INCREMENTAL_PORTFOLIO_COMPILATION}
+   * 
+   * @return this
+   */
+  public ExecutionFlags incrementalPortfolioCompilation() {
+    _flags.add(ViewExecutionFlags.INCREMENTAL_PORTFOLIO_COMPILATION);
+    return this;
+  }
+
+  /**
+   * Adds {@link ViewExecutionFlags#PIPELINED_EXECUTION}
+   * 
+   * @return this
+   */
+  public ExecutionFlags pipelinedExecution() {
+    _flags.add(ViewExecutionFlags.PIPELINED_EXECUTION);
+    return this;
+  }
+
   /**
    * Modes of operation for the {@link #parallelCompilation} flag.
    */
@@ -112,6 +112,24 @@ public enum ViewExecutionFlags {
   /**
    * Indicates that the results should be stored in batch database.
    */
-  BATCH
+  BATCH,
+
+  /**
+   * Indicates that a change to the portfolio structure should be handled by comparing the old and new portfolios position by position. The dependency graph for any position that is still held under
+   * an equivalent node is kept, and only the added positions, and the aggregate values for the nodes above them, are resolved again.
+   * <p>
+   * Normal operation is to rebuild the dependency graph for every position under a node whose positions have changed. This flag may be useful for large, flat, portfolios where the addition or removal
+   * of a position would otherwise cause a large part of the graph to be recompiled.
+   */
+  INCREMENTAL_PORTFOLIO_COMPILATION,
+
+  /**
+   * Indicates that the preparation of a cycle should overlap with the execution of the previous one. The market data snapshot for the next cycle is taken, and its inputs written to the computation
+   * caches, while the previous cycle is still executing. The delta from the previous cycle is then computed, and the cycle executed, as soon as the previous cycle completes.
+   * <p>
+   * Normal operation is to start preparing the next cycle only once the previous one has completed. This flag may increase the result rate of views whose cycles are dominated by a few long running
+   * jobs, at the cost of holding the caches of two cycles at once.
+   */
+  PIPELINED_EXECUTION
 
 }
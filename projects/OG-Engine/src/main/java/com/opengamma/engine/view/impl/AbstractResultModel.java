@@ -26,6 +26,7 @@ import com.opengamma.util.tuple.Pairs;
   private static final long serialVersionUID = 1L;
   
   private final Map<T, Map<Pair<String, ValueProperties>, ComputedValueResult>> _valuesByName = new HashMap<T, Map<Pair<String, ValueProperties>, ComputedValueResult>>();
+  private int _valueCount;
 
   protected Collection<T> getKeys() {
     return Collections.unmodifiableSet(_valuesByName.keySet());
@@ -56,8 +57,19 @@ import com.opengamma.util.tuple.Pairs;
       _valuesByName.put(key, valuesByName);
     }
     if (value != null) {
-      valuesByName.put(Pairs.of(value.getSpecification().getValueName(), value.getSpecification().getProperties()), value);
+      if (valuesByName.put(Pairs.of(value.getSpecification().getValueName(), value.getSpecification().getProperties()), value) == null) {
+        _valueCount++;
+      }
     }
   }
 
+  /**
+   * Returns the number of values held.
+   * 
+   * @return the number of values
+   */
+  protected int getValueCount() {
+    return _valueCount;
+  }
+
 }
@@ -0,0 +1,638 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.calcnode.InvocationResult;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.AggregatedExecutionLog;
+import com.opengamma.engine.view.ViewCalculationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewResultEntry;
+import com.opengamma.engine.view.ViewTargetResultModel;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+
+/**
+ * Implementation of {@link ViewComputationResultModel} that holds the results in columns rather than as individual {@link ComputedValueResult} objects.
+ * <p>
+ * Each computation target is given a row number from a target dictionary. Each calculation configuration has a dictionary of columns, one for each value name and property combination. A column
+ * holds its values in a primitive {@code double} array when the value is a {@link Double} and in an object array otherwise, along with the execution metadata of each cell. Each of these arrays is
+ * only allocated when a cell has something to store in it.
+ * <p>
+ * The {@link ViewCalculationResultModel} and {@link ViewTargetResultModel} views, and the {@link ComputedValueResult} instances they return, are created on demand. Consumers that can work with
+ * the columns directly should use {@link #getColumns} and the {@link Column} accessors instead.
+ * <p>
+ * This class is not thread-safe for modification.
+ */
+public class ColumnarViewComputationResultModel implements ViewComputationResultModel, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_ROWS = 16;
+
+  /**
+   * A single column of results, for one value name and property combination within a calculation configuration.
+   */
+  public static final class Column implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ColumnarViewComputationResultModel _model;
+    private final Configuration _configuration;
+    private final String _calculationConfigurationName;
+    private final String _valueName;
+    private final ValueProperties _properties;
+    private final BitSet _present = new BitSet();
+    private final BitSet _double = new BitSet();
+    private double[] _doubles;
+    private Object[] _objects;
+    private AggregatedExecutionLog[] _logs;
+    private String[] _computeNodeIds;
+    private Object[] _missingInputs;
+    private InvocationResult[] _invocationResults;
+
+    private Column(final ColumnarViewComputationResultModel model, final Configuration configuration, final String calculationConfigurationName, final String valueName,
+        final ValueProperties properties) {
+      _model = model;
+      _configuration = configuration;
+      _calculationConfigurationName = calculationConfigurationName;
+      _valueName = valueName;
+      _properties = properties;
+    }
+
+    public String getCalculationConfigurationName() {
+      return _calculationConfigurationName;
+    }
+
+    public String getValueName() {
+      return _valueName;
+    }
+
+    public ValueProperties getProperties() {
+      return _properties;
+    }
+
+    /**
+     * Returns the rows that contain a value.
+     *
+     * @return the row numbers, not null. This is the underlying bit set and must not be modified.
+     */
+    public BitSet getPresent() {
+      return _present;
+    }
+
+    /**
+     * Returns the rows that contain a {@code double} value.
+     *
+     * @return the row numbers, not null. This is the underlying bit set and must not be modified.
+     */
+    public BitSet getDoubles() {
+      return _double;
+    }
+
+    public boolean isPresent(final int row) {
+      return _present.get(row);
+    }
+
+    public boolean isDouble(final int row) {
+      return _double.get(row);
+    }
+
+    /**
+     * Returns the primitive value of a cell. This is only valid if {@link #isDouble} is true for the row.
+     *
+     * @param row the row number
+     * @return the value
+     */
+    public double getDouble(final int row) {
+      return _doubles[row];
+    }
+
+    /**
+     * Returns the value of a cell, boxing it if it is held as a primitive.
+     *
+     * @param row the row number
+     * @return the value, or null if there is no value in the row
+     */
+    public Object getValue(final int row) {
+      if (_double.get(row)) {
+        return _doubles[row];
+      } else {
+        return get(_objects, row);
+      }
+    }
+
+    private static <T> T get(final T[] array, final int row) {
+      return ((array != null) && (row < array.length)) ? array[row] : null;
+    }
+
+    public AggregatedExecutionLog getAggregatedExecutionLog(final int row) {
+      return get(_logs, row);
+    }
+
+    public String getComputeNodeId(final int row) {
+      return get(_computeNodeIds, row);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Set<ValueSpecification> getMissingInputs(final int row) {
+      return (Set<ValueSpecification>) get(_missingInputs, row);
+    }
+
+    public InvocationResult getInvocationResult(final int row) {
+      return get(_invocationResults, row);
+    }
+
+    private int checkRow(final int row) {
+      ArgumentChecker.isTrue((row >= 0) && (row < _model.getTargetCount()), "row");
+      _present.set(row);
+      _configuration._rows.set(row);
+      return _model._capacity;
+    }
+
+    /**
+     * Stores a primitive value in a cell, replacing any previous value. Execution metadata of the cell is unchanged.
+     *
+     * @param row the row number of a target in the model
+     * @param value the value
+     */
+    public void setDouble(final int row, final double value) {
+      final int rows = checkRow(row);
+      if (_doubles == null) {
+        _doubles = new double[rows];
+      } else if (_doubles.length <= row) {
+        _doubles = Arrays.copyOf(_doubles, rows);
+      }
+      _doubles[row] = value;
+      _double.set(row);
+      _objects = setCell(_objects, Object.class, row, null, rows);
+    }
+
+    /**
+     * Stores a value in a cell, replacing any previous value. A {@link Double} is held as a primitive. Execution metadata of the cell is unchanged.
+     *
+     * @param row the row number of a target in the model
+     * @param value the value, may be null
+     */
+    public void setValue(final int row, final Object value) {
+      if (value instanceof Double) {
+        setDouble(row, (Double) value);
+      } else {
+        final int rows = checkRow(row);
+        _double.clear(row);
+        _objects = setCell(_objects, Object.class, row, value, rows);
+      }
+    }
+
+    /**
+     * Stores the execution metadata of a cell, replacing any previous metadata.
+     *
+     * @param row the row number of a target in the model
+     * @param log the execution log, may be null
+     * @param computeNodeId the identifier of the node that produced the value, may be null
+     * @param missingInputs the inputs which were not available, may be null
+     * @param invocationResult the result of the function invocation, may be null
+     */
+    public void setMetadata(final int row, final AggregatedExecutionLog log, final String computeNodeId, final Set<ValueSpecification> missingInputs,
+        final InvocationResult invocationResult) {
+      final int rows = checkRow(row);
+      _logs = setCell(_logs, AggregatedExecutionLog.class, row, log, rows);
+      _computeNodeIds = setCell(_computeNodeIds, String.class, row, computeNodeId, rows);
+      _missingInputs = setCell(_missingInputs, Object.class, row, missingInputs, rows);
+      _invocationResults = setCell(_invocationResults, InvocationResult.class, row, invocationResult, rows);
+    }
+
+    /**
+     * Stores a value in an object column, allocating or growing the array only if a non-null value must be stored.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] setCell(T[] array, final Class<T> clazz, final int row, final T value, final int rows) {
+      if (array == null) {
+        if (value == null) {
+          return null;
+        }
+        array = (T[]) Array.newInstance(clazz, rows);
+      } else if (row >= array.length) {
+        if (value == null) {
+          return array;
+        }
+        array = Arrays.copyOf(array, rows);
+      }
+      array[row] = value;
+      return array;
+    }
+
+    /**
+     * Creates a result object for a cell.
+     *
+     * @param target the target of the row, not null
+     * @param row the row number
+     * @return the result, not null
+     */
+    public ComputedValueResult getComputedValueResult(final ComputationTargetSpecification target, final int row) {
+      return new ComputedValueResult(new ValueSpecification(_valueName, target, _properties), getValue(row), getAggregatedExecutionLog(row), getComputeNodeId(row), getMissingInputs(row),
+          getInvocationResult(row));
+    }
+
+  }
+
+  /**
+   * The columns of a single calculation configuration.
+   */
+  private static final class Configuration implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Pair<String, ValueProperties>, Column> _columns = new LinkedHashMap<Pair<String, ValueProperties>, Column>();
+    private final BitSet _rows = new BitSet();
+
+  }
+
+  private UniqueId _viewProcessId;
+  private UniqueId _viewCycleId;
+  private ViewCycleExecutionOptions _viewCycleExecutionOptions;
+  private Instant _calculationTime;
+  private Duration _calculationDuration;
+  private VersionCorrection _versionCorrection;
+  private final List<ComputationTargetSpecification> _targets = new ArrayList<ComputationTargetSpecification>();
+  private final Object2IntMap<ComputationTargetSpecification> _rows = new Object2IntOpenHashMap<ComputationTargetSpecification>();
+  private int _capacity = INITIAL_ROWS;
+  private final Map<String, Configuration> _configurations = new LinkedHashMap<String, Configuration>();
+  private final Map<ValueSpecification, ComputedValue> _allMarketData = new HashMap<ValueSpecification, ComputedValue>();
+
+  public ColumnarViewComputationResultModel() {
+    _rows.defaultReturnValue(-1);
+  }
+
+  public ColumnarViewComputationResultModel(final ViewComputationResultModel copyFrom) {
+    this();
+    update(copyFrom);
+  }
+
+  /**
+   * Updates the data held in this model with data from (and about) a delta cycle.
+   *
+   * @param delta the delta results, not null
+   */
+  public void update(final ViewComputationResultModel delta) {
+    setViewProcessId(delta.getViewProcessId());
+    setViewCycleId(delta.getViewCycleId());
+    setViewCycleExecutionOptions(delta.getViewCycleExecutionOptions());
+    setCalculationTime(delta.getCalculationTime());
+    setCalculationDuration(delta.getCalculationDuration());
+    setVersionCorrection(delta.getVersionCorrection());
+    for (String calculationConfiguration : delta.getCalculationConfigurationNames()) {
+      final ViewCalculationResultModel deltaConfigResults = delta.getCalculationResult(calculationConfiguration);
+      for (ComputationTargetSpecification target : deltaConfigResults.getAllTargets()) {
+        for (ComputedValueResult value : deltaConfigResults.getAllValues(target)) {
+          addValue(calculationConfiguration, value);
+        }
+      }
+    }
+    for (ComputedValue marketData : delta.getAllMarketData()) {
+      addMarketData(marketData);
+    }
+  }
+
+  public boolean isEmpty() {
+    return _targets.isEmpty();
+  }
+
+  @Override
+  public UniqueId getViewProcessId() {
+    return _viewProcessId;
+  }
+
+  public void setViewProcessId(final UniqueId viewProcessId) {
+    _viewProcessId = viewProcessId;
+  }
+
+  @Override
+  public UniqueId getViewCycleId() {
+    return _viewCycleId;
+  }
+
+  public void setViewCycleId(final UniqueId viewCycleId) {
+    _viewCycleId = viewCycleId;
+  }
+
+  @Override
+  public ViewCycleExecutionOptions getViewCycleExecutionOptions() {
+    return _viewCycleExecutionOptions;
+  }
+
+  public void setViewCycleExecutionOptions(final ViewCycleExecutionOptions viewCycleExecutionOptions) {
+    _viewCycleExecutionOptions = viewCycleExecutionOptions;
+  }
+
+  @Override
+  public Instant getCalculationTime() {
+    return _calculationTime;
+  }
+
+  public void setCalculationTime(final Instant calculationTime) {
+    _calculationTime = calculationTime;
+  }
+
+  @Override
+  public Duration getCalculationDuration() {
+    return _calculationDuration;
+  }
+
+  public void setCalculationDuration(final Duration calculationDuration) {
+    _calculationDuration = calculationDuration;
+  }
+
+  @Override
+  public VersionCorrection getVersionCorrection() {
+    return _versionCorrection;
+  }
+
+  public void setVersionCorrection(final VersionCorrection versionCorrection) {
+    _versionCorrection = versionCorrection;
+  }
+
+  /**
+   * Returns the row number for a target, allocating a new row if the target has not been seen before.
+   *
+   * @param target the target, not null
+   * @return the row number
+   */
+  public int addTarget(final ComputationTargetSpecification target) {
+    int row = _rows.getInt(target);
+    if (row < 0) {
+      row = _targets.size();
+      _targets.add(target);
+      _rows.put(target, row);
+      if (row >= _capacity) {
+        _capacity <<= 1;
+      }
+    }
+    return row;
+  }
+
+  /**
+   * Returns the number of rows in the target dictionary.
+   *
+   * @return the number of targets
+   */
+  public int getTargetCount() {
+    return _targets.size();
+  }
+
+  /**
+   * Returns the target for a row.
+   *
+   * @param row the row number
+   * @return the target, not null
+   */
+  public ComputationTargetSpecification getTarget(final int row) {
+    return _targets.get(row);
+  }
+
+  /**
+   * Returns the row number of a target.
+   *
+   * @param target the target to look up, not null
+   * @return the row number, or -1 if there are no results for the target
+   */
+  public int getRow(final ComputationTargetSpecification target) {
+    return _rows.getInt(target);
+  }
+
+  /**
+   * Adds a result, replacing any previous value for the same value specification.
+   *
+   * @param calcConfigurationName the calculation configuration name, not null
+   * @param value the result, not null
+   */
+  public void addValue(final String calcConfigurationName, final ComputedValueResult value) {
+    ArgumentChecker.notNull(calcConfigurationName, "calcConfigurationName");
+    ArgumentChecker.notNull(value, "value");
+    final ValueSpecification specification = value.getSpecification();
+    final int row = addTarget(specification.getTargetSpecification());
+    final Column column = addColumn(calcConfigurationName, specification.getValueName(), specification.getProperties());
+    column.setValue(row, value.getValue());
+    column.setMetadata(row, value.getAggregatedExecutionLog(), value.getComputeNodeId(), value.getMissingInputs(), value.getInvocationResult());
+  }
+
+  /**
+   * Returns a column of a calculation configuration, creating an empty one if there is none. Cells can then be written directly with the {@link Column} setters, using row numbers from
+   * {@link #addTarget}, rather than through {@link #addValue}.
+   *
+   * @param calcConfigurationName the calculation configuration name, not null
+   * @param valueName the value name, not null
+   * @param properties the value properties, not null
+   * @return the column, not null
+   */
+  public Column addColumn(final String calcConfigurationName, final String valueName, final ValueProperties properties) {
+    ArgumentChecker.notNull(calcConfigurationName, "calcConfigurationName");
+    ArgumentChecker.notNull(valueName, "valueName");
+    ArgumentChecker.notNull(properties, "properties");
+    Configuration configuration = _configurations.get(calcConfigurationName);
+    if (configuration == null) {
+      configuration = new Configuration();
+      _configurations.put(calcConfigurationName, configuration);
+    }
+    final Pair<String, ValueProperties> key = Pairs.of(valueName, properties);
+    Column column = configuration._columns.get(key);
+    if (column == null) {
+      column = new Column(this, configuration, calcConfigurationName, valueName, properties);
+      configuration._columns.put(key, column);
+    }
+    return column;
+  }
+
+  /**
+   * Adds a market data value, replacing any previous item with the same value specification.
+   *
+   * @param marketData the market data value, not null
+   */
+  public void addMarketData(final ComputedValue marketData) {
+    _allMarketData.put(marketData.getSpecification(), marketData);
+  }
+
+  /**
+   * Returns the columns of a calculation configuration.
+   *
+   * @param calcConfigurationName the calculation configuration name, not null
+   * @return the columns, empty if the configuration is not known
+   */
+  public Collection<Column> getColumns(final String calcConfigurationName) {
+    final Configuration configuration = _configurations.get(calcConfigurationName);
+    if (configuration == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableCollection(configuration._columns.values());
+  }
+
+  /**
+   * Returns a column of a calculation configuration.
+   *
+   * @param calcConfigurationName the calculation configuration name, not null
+   * @param valueName the value name, not null
+   * @param properties the value properties, not null
+   * @return the column, or null if there is none
+   */
+  public Column getColumn(final String calcConfigurationName, final String valueName, final ValueProperties properties) {
+    final Configuration configuration = _configurations.get(calcConfigurationName);
+    if (configuration == null) {
+      return null;
+    }
+    return configuration._columns.get(Pairs.of(valueName, properties));
+  }
+
+  @Override
+  public Set<ComputationTargetSpecification> getAllTargets() {
+    return Collections.unmodifiableSet(_rows.keySet());
+  }
+
+  @Override
+  public Collection<String> getCalculationConfigurationNames() {
+    return Collections.unmodifiableSet(_configurations.keySet());
+  }
+
+  private static Map<Pair<String, ValueProperties>, ComputedValueResult> getValues(final Configuration configuration, final ComputationTargetSpecification target, final int row) {
+    final Map<Pair<String, ValueProperties>, ComputedValueResult> values = new HashMap<Pair<String, ValueProperties>, ComputedValueResult>();
+    for (Map.Entry<Pair<String, ValueProperties>, Column> column : configuration._columns.entrySet()) {
+      if (column.getValue().isPresent(row)) {
+        values.put(column.getKey(), column.getValue().getComputedValueResult(target, row));
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public ViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    final Configuration configuration = _configurations.get(calcConfigurationName);
+    if (configuration == null) {
+      return null;
+    }
+    return new ViewCalculationResultModel() {
+
+      @Override
+      public Collection<ComputationTargetSpecification> getAllTargets() {
+        final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>(configuration._rows.cardinality());
+        for (int row = configuration._rows.nextSetBit(0); row >= 0; row = configuration._rows.nextSetBit(row + 1)) {
+          targets.add(_targets.get(row));
+        }
+        return Collections.unmodifiableList(targets);
+      }
+
+      @Override
+      public Map<Pair<String, ValueProperties>, ComputedValueResult> getValues(final ComputationTargetSpecification target) {
+        final int row = _rows.getInt(target);
+        if ((row < 0) || !configuration._rows.get(row)) {
+          return null;
+        }
+        return Collections.unmodifiableMap(ColumnarViewComputationResultModel.getValues(configuration, target, row));
+      }
+
+      @Override
+      public Collection<ComputedValueResult> getAllValues(final ComputationTargetSpecification target) {
+        final Map<Pair<String, ValueProperties>, ComputedValueResult> values = getValues(target);
+        return (values != null) ? values.values() : null;
+      }
+
+    };
+  }
+
+  @Override
+  public ViewTargetResultModel getTargetResult(final ComputationTargetSpecification targetSpecification) {
+    final int row = _rows.getInt(targetSpecification);
+    if (row < 0) {
+      return null;
+    }
+    return new ViewTargetResultModel() {
+
+      @Override
+      public Collection<String> getCalculationConfigurationNames() {
+        final Collection<String> names = new ArrayList<String>(_configurations.size());
+        for (Map.Entry<String, Configuration> configuration : _configurations.entrySet()) {
+          if (configuration.getValue()._rows.get(row)) {
+            names.add(configuration.getKey());
+          }
+        }
+        return Collections.unmodifiableCollection(names);
+      }
+
+      @Override
+      public Collection<ComputedValueResult> getAllValues(final String calcConfigurationName) {
+        final Configuration configuration = _configurations.get(calcConfigurationName);
+        if ((configuration == null) || !configuration._rows.get(row)) {
+          return null;
+        }
+        return Collections.unmodifiableCollection(getValues(configuration, targetSpecification, row).values());
+      }
+
+    };
+  }
+
+  @Override
+  public List<ViewResultEntry> getAllResults() {
+    int size = 0;
+    for (Configuration configuration : _configurations.values()) {
+      for (Column column : configuration._columns.values()) {
+        size += column._present.cardinality();
+      }
+    }
+    final List<ViewResultEntry> results = new ArrayList<ViewResultEntry>(size);
+    for (Map.Entry<String, Configuration> configuration : _configurations.entrySet()) {
+      for (Column column : configuration.getValue()._columns.values()) {
+        final BitSet present = column._present;
+        for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+          results.add(new ViewResultEntry(configuration.getKey(), column.getComputedValueResult(_targets.get(row), row)));
+        }
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public Set<String> getAllOutputValueNames() {
+    final Set<String> outputValueNames = new HashSet<String>();
+    for (Configuration configuration : _configurations.values()) {
+      for (Column column : configuration._columns.values()) {
+        outputValueNames.add(column.getValueName());
+      }
+    }
+    return outputValueNames;
+  }
+
+  @Override
+  public Set<ComputedValue> getAllMarketData() {
+    return new HashSet<ComputedValue>(_allMarketData.values());
+  }
+
+}
@@ -0,0 +1,336 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.impl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.view.ViewCalculationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.ViewResultEntry;
+import com.opengamma.engine.view.ViewTargetResultModel;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel.Column;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+
+/**
+ * Implementation of {@link ViewDeltaResultModel} that refers to the columns of a {@link ColumnarViewComputationResultModel} and holds a bitmap of the changed rows of each column.
+ * <p>
+ * No results are copied; the delta exposes only the changed cells of the full result. The full result must not be modified after the delta has been created.
+ */
+public class ColumnarViewDeltaResultModel implements ViewDeltaResultModel, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ColumnarViewComputationResultModel _result;
+  private final Instant _previousResultTimestamp;
+  private final Map<String, Map<Column, BitSet>> _changedByConfiguration = new LinkedHashMap<String, Map<Column, BitSet>>();
+  private final Map<String, BitSet> _rowsByConfiguration = new HashMap<String, BitSet>();
+  private final BitSet _rows = new BitSet();
+
+  /**
+   * Creates an empty delta.
+   *
+   * @param result the full result the delta is for, not null
+   * @param previousResultTimestamp the calculation time of the previous result, null if there was none
+   */
+  public ColumnarViewDeltaResultModel(final ColumnarViewComputationResultModel result, final Instant previousResultTimestamp) {
+    ArgumentChecker.notNull(result, "result");
+    _result = result;
+    _previousResultTimestamp = previousResultTimestamp;
+  }
+
+  /**
+   * Marks cells of a column from the full result as changed.
+   *
+   * @param column the column, not null
+   * @param rows the changed rows, not null. This is retained by the delta and must not be modified by the caller.
+   */
+  public void addChangedRows(final Column column, final BitSet rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    final String calcConfigurationName = column.getCalculationConfigurationName();
+    Map<Column, BitSet> changed = _changedByConfiguration.get(calcConfigurationName);
+    BitSet configurationRows;
+    if (changed == null) {
+      changed = new LinkedHashMap<Column, BitSet>();
+      _changedByConfiguration.put(calcConfigurationName, changed);
+      configurationRows = new BitSet();
+      _rowsByConfiguration.put(calcConfigurationName, configurationRows);
+    } else {
+      configurationRows = _rowsByConfiguration.get(calcConfigurationName);
+    }
+    changed.put(column, rows);
+    configurationRows.or(rows);
+    _rows.or(rows);
+  }
+
+  /**
+   * Returns the full result that the delta is for.
+   *
+   * @return the full result, not null
+   */
+  public ColumnarViewComputationResultModel getResult() {
+    return _result;
+  }
+
+  /**
+   * Returns the changed rows of a column.
+   *
+   * @param column the column from the full result, not null
+   * @return the changed rows, or null if no cells in the column changed. This is the underlying bit set and must not be modified.
+   */
+  public BitSet getChangedRows(final Column column) {
+    final Map<Column, BitSet> changed = _changedByConfiguration.get(column.getCalculationConfigurationName());
+    return (changed != null) ? changed.get(column) : null;
+  }
+
+  public boolean isEmpty() {
+    return _rows.isEmpty();
+  }
+
+  /**
+   * Returns the number of changed cells.
+   *
+   * @return the number of changed cells
+   */
+  public int getValueCount() {
+    int count = 0;
+    for (Map<Column, BitSet> changed : _changedByConfiguration.values()) {
+      for (BitSet rows : changed.values()) {
+        count += rows.cardinality();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Merges two consecutive deltas without copying any results. The merged delta refers to the full result of the later delta and marks the union of the changed cells from both.
+   * <p>
+   * The values of a cell changed in the earlier delta are taken from the later full result. This is only the same as applying the deltas in turn when the later result contains every such cell, so
+   * null is returned if it does not and the caller must merge the deltas some other way.
+   *
+   * @param previous the earlier delta, not null
+   * @param next the later delta, not null
+   * @return the merged delta, or null if the deltas cannot be merged in this way
+   */
+  public static ColumnarViewDeltaResultModel merge(final ColumnarViewDeltaResultModel previous, final ColumnarViewDeltaResultModel next) {
+    final ColumnarViewComputationResultModel result = next.getResult();
+    final Map<Column, BitSet> changedRows = new LinkedHashMap<Column, BitSet>();
+    for (Map<Column, BitSet> changed : previous._changedByConfiguration.values()) {
+      for (Map.Entry<Column, BitSet> previousColumn : changed.entrySet()) {
+        final Column column;
+        final BitSet rows;
+        if (previous.getResult() == result) {
+          column = previousColumn.getKey();
+          rows = (BitSet) previousColumn.getValue().clone();
+        } else {
+          column = result.getColumn(previousColumn.getKey().getCalculationConfigurationName(), previousColumn.getKey().getValueName(), previousColumn.getKey().getProperties());
+          if (column == null) {
+            return null;
+          }
+          rows = new BitSet();
+          final BitSet previousRows = previousColumn.getValue();
+          for (int row = previousRows.nextSetBit(0); row >= 0; row = previousRows.nextSetBit(row + 1)) {
+            final int newRow = result.getRow(previous.getResult().getTarget(row));
+            if ((newRow < 0) || !column.isPresent(newRow)) {
+              return null;
+            }
+            rows.set(newRow);
+          }
+        }
+        changedRows.put(column, rows);
+      }
+    }
+    final ColumnarViewDeltaResultModel merged = new ColumnarViewDeltaResultModel(result, previous.getPreviousResultTimestamp());
+    for (Map<Column, BitSet> changed : next._changedByConfiguration.values()) {
+      for (Map.Entry<Column, BitSet> nextColumn : changed.entrySet()) {
+        final BitSet rows = changedRows.get(nextColumn.getKey());
+        if (rows != null) {
+          rows.or(nextColumn.getValue());
+        } else {
+          changedRows.put(nextColumn.getKey(), nextColumn.getValue());
+        }
+      }
+    }
+    for (Map.Entry<Column, BitSet> column : changedRows.entrySet()) {
+      merged.addChangedRows(column.getKey(), column.getValue());
+    }
+    return merged;
+  }
+
+  @Override
+  public Instant getPreviousResultTimestamp() {
+    return _previousResultTimestamp;
+  }
+
+  @Override
+  public UniqueId getViewProcessId() {
+    return _result.getViewProcessId();
+  }
+
+  @Override
+  public UniqueId getViewCycleId() {
+    return _result.getViewCycleId();
+  }
+
+  @Override
+  public ViewCycleExecutionOptions getViewCycleExecutionOptions() {
+    return _result.getViewCycleExecutionOptions();
+  }
+
+  @Override
+  public Instant getCalculationTime() {
+    return _result.getCalculationTime();
+  }
+
+  @Override
+  public Duration getCalculationDuration() {
+    return _result.getCalculationDuration();
+  }
+
+  @Override
+  public VersionCorrection getVersionCorrection() {
+    return _result.getVersionCorrection();
+  }
+
+  private List<ComputationTargetSpecification> getTargets(final BitSet rows) {
+    final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>(rows.cardinality());
+    for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+      targets.add(_result.getTarget(row));
+    }
+    return targets;
+  }
+
+  @Override
+  public Set<ComputationTargetSpecification> getAllTargets() {
+    return Collections.unmodifiableSet(new HashSet<ComputationTargetSpecification>(getTargets(_rows)));
+  }
+
+  @Override
+  public Collection<String> getCalculationConfigurationNames() {
+    return Collections.unmodifiableSet(_changedByConfiguration.keySet());
+  }
+
+  private static Map<Pair<String, ValueProperties>, ComputedValueResult> getValues(final Map<Column, BitSet> changed, final ComputationTargetSpecification target, final int row) {
+    final Map<Pair<String, ValueProperties>, ComputedValueResult> values = new HashMap<Pair<String, ValueProperties>, ComputedValueResult>();
+    for (Map.Entry<Column, BitSet> column : changed.entrySet()) {
+      if (column.getValue().get(row)) {
+        values.put(Pairs.of(column.getKey().getValueName(), column.getKey().getProperties()), column.getKey().getComputedValueResult(target, row));
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public ViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    final Map<Column, BitSet> changed = _changedByConfiguration.get(calcConfigurationName);
+    if (changed == null) {
+      return null;
+    }
+    final BitSet rows = _rowsByConfiguration.get(calcConfigurationName);
+    return new ViewCalculationResultModel() {
+
+      @Override
+      public Collection<ComputationTargetSpecification> getAllTargets() {
+        return Collections.unmodifiableList(getTargets(rows));
+      }
+
+      @Override
+      public Map<Pair<String, ValueProperties>, ComputedValueResult> getValues(final ComputationTargetSpecification target) {
+        final int row = _result.getRow(target);
+        if ((row < 0) || !rows.get(row)) {
+          return null;
+        }
+        return Collections.unmodifiableMap(ColumnarViewDeltaResultModel.getValues(changed, target, row));
+      }
+
+      @Override
+      public Collection<ComputedValueResult> getAllValues(final ComputationTargetSpecification target) {
+        final Map<Pair<String, ValueProperties>, ComputedValueResult> values = getValues(target);
+        return (values != null) ? values.values() : null;
+      }
+
+    };
+  }
+
+  @Override
+  public ViewTargetResultModel getTargetResult(final ComputationTargetSpecification targetSpecification) {
+    final int row = _result.getRow(targetSpecification);
+    if ((row < 0) || !_rows.get(row)) {
+      return null;
+    }
+    return new ViewTargetResultModel() {
+
+      @Override
+      public Collection<String> getCalculationConfigurationNames() {
+        final Collection<String> names = new ArrayList<String>(_rowsByConfiguration.size());
+        for (String calcConfigurationName : _changedByConfiguration.keySet()) {
+          if (_rowsByConfiguration.get(calcConfigurationName).get(row)) {
+            names.add(calcConfigurationName);
+          }
+        }
+        return Collections.unmodifiableCollection(names);
+      }
+
+      @Override
+      public Collection<ComputedValueResult> getAllValues(final String calcConfigurationName) {
+        final Map<Column, BitSet> changed = _changedByConfiguration.get(calcConfigurationName);
+        if ((changed == null) || !_rowsByConfiguration.get(calcConfigurationName).get(row)) {
+          return null;
+        }
+        return Collections.unmodifiableCollection(getValues(changed, targetSpecification, row).values());
+      }
+
+    };
+  }
+
+  @Override
+  public List<ViewResultEntry> getAllResults() {
+    final List<ViewResultEntry> results = new ArrayList<ViewResultEntry>();
+    for (Map.Entry<String, Map<Column, BitSet>> configuration : _changedByConfiguration.entrySet()) {
+      for (Map.Entry<Column, BitSet> column : configuration.getValue().entrySet()) {
+        final BitSet rows = column.getValue();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+          results.add(new ViewResultEntry(configuration.getKey(), column.getKey().getComputedValueResult(_result.getTarget(row), row)));
+        }
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public Set<String> getAllOutputValueNames() {
+    final Set<String> outputValueNames = new HashSet<String>();
+    for (Map<Column, BitSet> changed : _changedByConfiguration.values()) {
+      for (Column column : changed.keySet()) {
+        outputValueNames.add(column.getValueName());
+      }
+    }
+    return outputValueNames;
+  }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.impl;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.view.ViewCalculationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.ViewResultEntry;
+import com.opengamma.engine.view.ViewTargetResultModel;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Implementation of {@link ViewDeltaResultModel} that reports every value of a full result as changed.
+ * <p>
+ * This is a valid, if pessimistic, delta from any earlier result. It can be used in place of a merged delta from a number of cycles when holding that merged delta would be more expensive than
+ * sending the full result again. No results are copied; the full result must not be modified after the delta has been created.
+ */
+public class CompleteViewDeltaResultModel implements ViewDeltaResultModel, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ViewComputationResultModel _result;
+  private final Instant _previousResultTimestamp;
+
+  /**
+   * Creates a delta reporting all values of a full result.
+   *
+   * @param result the full result, not null
+   * @param previousResultTimestamp the calculation time of the previous result, null if there was none
+   */
+  public CompleteViewDeltaResultModel(final ViewComputationResultModel result, final Instant previousResultTimestamp) {
+    ArgumentChecker.notNull(result, "result");
+    _result = result;
+    _previousResultTimestamp = previousResultTimestamp;
+  }
+
+  /**
+   * Returns the full result that the delta is for.
+   *
+   * @return the full result, not null
+   */
+  public ViewComputationResultModel getResult() {
+    return _result;
+  }
+
+  @Override
+  public Instant getPreviousResultTimestamp() {
+    return _previousResultTimestamp;
+  }
+
+  @Override
+  public UniqueId getViewProcessId() {
+    return _result.getViewProcessId();
+  }
+
+  @Override
+  public UniqueId getViewCycleId() {
+    return _result.getViewCycleId();
+  }
+
+  @Override
+  public ViewCycleExecutionOptions getViewCycleExecutionOptions() {
+    return _result.getViewCycleExecutionOptions();
+  }
+
+  @Override
+  public Instant getCalculationTime() {
+    return _result.getCalculationTime();
+  }
+
+  @Override
+  public Duration getCalculationDuration() {
+    return _result.getCalculationDuration();
+  }
+
+  @Override
+  public VersionCorrection getVersionCorrection() {
+    return _result.getVersionCorrection();
+  }
+
+  @Override
+  public Set<ComputationTargetSpecification> getAllTargets() {
+    return _result.getAllTargets();
+  }
+
+  @Override
+  public Collection<String> getCalculationConfigurationNames() {
+    return _result.getCalculationConfigurationNames();
+  }
+
+  @Override
+  public ViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    return _result.getCalculationResult(calcConfigurationName);
+  }
+
+  @Override
+  public ViewTargetResultModel getTargetResult(final ComputationTargetSpecification targetSpecification) {
+    return _result.getTargetResult(targetSpecification);
+  }
+
+  @Override
+  public List<ViewResultEntry> getAllResults() {
+    return _result.getAllResults();
+  }
+
+  @Override
+  public Set<String> getAllOutputValueNames() {
+    return _result.getAllOutputValueNames();
+  }
+
+}
@@ -89,6 +89,19 @@ public abstract class InMemoryViewResultModel implements ViewResultModel, Serial
     return _resultsByTarget.isEmpty();
   }
 
+  /**
+   * Returns the number of values held in the model.
+   *
+   * @return the number of values
+   */
+  public int getValueCount() {
+    int count = 0;
+    for (ViewCalculationResultModelImpl results : _resultsByConfiguration.values()) {
+      count += results.getValueCount();
+    }
+    return count;
+  }
+
   @Override
   public UniqueId getViewProcessId() {
     return _viewProcessId;
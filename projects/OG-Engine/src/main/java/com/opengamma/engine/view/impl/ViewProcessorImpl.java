@@ -86,6 +86,11 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
   private static final String PROCESS_SCHEME = "ViewProcess";
   private static final String CYCLE_SCHEME = "ViewCycle";
 
+  /**
+   * The default maximum number of values each client will hold in a merged delta result; no limit.
+   */
+  public static final int DEFAULT_CLIENT_MAXIMUM_MERGED_VALUES = 0;
+
   private final AtomicLong _processIdSource = new AtomicLong();
   private final AtomicLong _clientIdSource = new AtomicLong();
   private final ReentrantLock _lifecycleLock = new ReentrantLock();
@@ -143,6 +148,16 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
    */
   private final int _permissionCheckInterval;
 
+  /**
+   * The maximum number of values each client will hold in a merged delta result for a slow consumer, or 0 for no limit.
+   */
+  private volatile int _clientMaximumMergedValues = DEFAULT_CLIENT_MAXIMUM_MERGED_VALUES;
+
+  /**
+   * Whether each client adapts the period between its updates to the speed of its result listener.
+   */
+  private volatile boolean _clientAdaptiveUpdatePeriod;
+
   public ViewProcessorImpl(final String name, final ConfigSource configSource, final NamedMarketDataSpecificationRepository namedMarketDataSpecificationRepository,
                            final CompiledFunctionService compiledFunctionService, final FunctionResolver functionResolver, final MarketDataProviderResolver marketDataProviderFactoryResolver,
                            final ViewComputationCacheSource computationCacheSource, final JobDispatcher jobDispatcher, final DependencyGraphBuilderFactory dependencyGraphBuilderFactory,
@@ -602,6 +617,45 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
     _viewProcessorEventListenerRegistry.notifyViewClientRemoved(clientId);
   }
 
+  /**
+   * Gets the maximum number of values each client will hold in a merged delta result for a slow consumer.
+   * 
+   * @return the maximum number of values, or 0 for no limit
+   */
+  public int getClientMaximumMergedValues() {
+    return _clientMaximumMergedValues;
+  }
+
+  /**
+   * Sets the maximum number of values each client will hold in a merged delta result for a slow consumer. Once exceeded the merged delta is replaced by one
+   * reporting every value of the full result as changed. This only applies to clients created after the call.
+   * 
+   * @param clientMaximumMergedValues the maximum number of values, or 0 for no limit
+   */
+  public void setClientMaximumMergedValues(final int clientMaximumMergedValues) {
+    ArgumentChecker.notNegative(clientMaximumMergedValues, "clientMaximumMergedValues");
+    _clientMaximumMergedValues = clientMaximumMergedValues;
+  }
+
+  /**
+   * Gets whether each client adapts the period between its updates to the speed of its result listener.
+   * 
+   * @return true if the update period of clients is adaptive, false otherwise
+   */
+  public boolean isClientAdaptiveUpdatePeriod() {
+    return _clientAdaptiveUpdatePeriod;
+  }
+
+  /**
+   * Sets whether each client adapts the period between its updates to the speed of its result listener. A slow listener then receives merged results less
+   * often instead of falling behind. This only applies to clients created after the call.
+   * 
+   * @param clientAdaptiveUpdatePeriod true to adapt the update period of clients, false to use their minimum update period only
+   */
+  public void setClientAdaptiveUpdatePeriod(final boolean clientAdaptiveUpdatePeriod) {
+    _clientAdaptiveUpdatePeriod = clientAdaptiveUpdatePeriod;
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public CompiledFunctionService getFunctionCompilationService() {
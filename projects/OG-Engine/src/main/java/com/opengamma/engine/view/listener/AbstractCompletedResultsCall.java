@@ -12,6 +12,8 @@ import org.threeten.bp.Instant;
 import com.google.common.base.Function;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewDeltaResultModel;
+import com.opengamma.engine.view.impl.CompleteViewDeltaResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
 
@@ -76,7 +78,11 @@ public abstract class AbstractCompletedResultsCall implements Function<ViewResul
       }
     }
     if (delta != null) {
-      if (_delta != null) {
+      if ((_delta instanceof CompleteViewDeltaResultModel) && (_full != null)) {
+        // Every value of the latest full result is already reported as changed
+        s_logger.debug("Applying delta from {} to complete delta", delta.getCalculationTime());
+        _delta = new CompleteViewDeltaResultModel(_full, _delta.getPreviousResultTimestamp());
+      } else if (_delta != null) {
         final Instant previous = _delta.getCalculationTime();
         final Instant current = delta.getCalculationTime();
         if (previous.isAfter(current)) {
@@ -95,11 +101,20 @@ public abstract class AbstractCompletedResultsCall implements Function<ViewResul
               s_logger.debug("Applying new delta from {} to previous delta from {}", current, previous);
             }
           }
-          if (_deltaCopy == null) {
-            _deltaCopy = new InMemoryViewDeltaResultModel(_delta);
-            _delta = _deltaCopy;
+          ColumnarViewDeltaResultModel merged = null;
+          if ((_deltaCopy == null) && (_delta instanceof ColumnarViewDeltaResultModel) && (delta instanceof ColumnarViewDeltaResultModel)) {
+            // Try to merge the columnar deltas in place without copying the results
+            merged = ColumnarViewDeltaResultModel.merge((ColumnarViewDeltaResultModel) _delta, (ColumnarViewDeltaResultModel) delta);
+          }
+          if (merged != null) {
+            _delta = merged;
+          } else {
+            if (_deltaCopy == null) {
+              _deltaCopy = new InMemoryViewDeltaResultModel(_delta);
+              _delta = _deltaCopy;
+            }
+            _deltaCopy.update(delta);
           }
-          _deltaCopy.update(delta);
         }
       } else {
         s_logger.debug("Got initial delta result");
@@ -108,6 +123,31 @@ public abstract class AbstractCompletedResultsCall implements Function<ViewResul
     }
   }
 
+  /**
+   * Returns the number of values held in a copy made to merge delta results. Any memory used by a merged delta that does not copy results, or by results which have just been referenced from the
+   * original notifications, is not counted.
+   * 
+   * @return the number of values copied into a merged delta
+   */
+  public int getMergedDeltaValueCount() {
+    return (_deltaCopy != null) ? _deltaCopy.getValueCount() : 0;
+  }
+
+  /**
+   * Discards any merged delta result, replacing it with one that reports every value of the full result as changed. This bounds the memory used by the call to that of the full result at the cost of a
+   * larger delta being delivered.
+   * 
+   * @return true if the delta was replaced, false if there is no full result to replace it with
+   */
+  public boolean discardMergedDelta() {
+    if ((_full == null) || (_delta == null)) {
+      return false;
+    }
+    _delta = new CompleteViewDeltaResultModel(_full, _delta.getPreviousResultTimestamp());
+    _deltaCopy = null;
+    return true;
+  }
+
   public ViewComputationResultModel getViewComputationResultModel() {
     return _full;
   }
@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.view.worker;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,7 +14,9 @@ import java.util.concurrent.TimeUnit;
 import org.threeten.bp.Instant;
 
 import com.google.common.collect.Maps;
+import com.opengamma.engine.marketdata.ChangeTrackingMarketDataSnapshot;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.ReleasableMarketDataSnapshot;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.ArgumentChecker;
@@ -22,7 +25,7 @@ import com.opengamma.util.tuple.Pair;
 /**
  * Snapshot of market data which aggregates data from multiple underlying snapshots.
  */
-/* package */class CompositeMarketDataSnapshot implements MarketDataSnapshot {
+/* package */class CompositeMarketDataSnapshot implements ReleasableMarketDataSnapshot, ChangeTrackingMarketDataSnapshot {
 
   /** The underlying snapshots. */
   private final List<MarketDataSnapshot> _snapshots;
@@ -173,4 +176,51 @@ import com.opengamma.util.tuple.Pair;
     return results;
   }
 
+  /**
+   * Releases any of the underlying snapshots that hold resources of their providers.
+   */
+  @Override
+  public void release() {
+    for (final MarketDataSnapshot snapshot : _snapshots) {
+      if (snapshot instanceof ReleasableMarketDataSnapshot) {
+        ((ReleasableMarketDataSnapshot) snapshot).release();
+      }
+    }
+  }
+
+  /**
+   * Returns the changes reported by each of the underlying snapshots since the corresponding snapshot of an earlier composite.
+   * 
+   * @param previous the earlier snapshot, not null
+   * @return the specifications of the changed values, or null if {@code previous} is not a composite of the same shape or any underlying snapshot cannot report its changes
+   */
+  @Override
+  public Set<ValueSpecification> getChangedValueKeys(final MarketDataSnapshot previous) {
+    if (!(previous instanceof CompositeMarketDataSnapshot)) {
+      return null;
+    }
+    final List<MarketDataSnapshot> previousSnapshots = ((CompositeMarketDataSnapshot) previous)._snapshots;
+    if (previousSnapshots.size() != _snapshots.size()) {
+      return null;
+    }
+    final Set<ValueSpecification> changed = new HashSet<ValueSpecification>();
+    for (int i = 0; i < _snapshots.size(); i++) {
+      final MarketDataSnapshot snapshot = _snapshots.get(i);
+      if (!(snapshot instanceof ChangeTrackingMarketDataSnapshot)) {
+        return null;
+      }
+      final Set<ValueSpecification> snapshotChanged = ((ChangeTrackingMarketDataSnapshot) snapshot).getChangedValueKeys(previousSnapshots.get(i));
+      if (snapshotChanged == null) {
+        return null;
+      }
+      for (ValueSpecification underlying : snapshotChanged) {
+        final ValueSpecification specification = _valueMap.convertUnderlyingSpecification(i, underlying);
+        if (specification != null) {
+          changed.add(specification);
+        }
+      }
+    }
+    return changed;
+  }
+
 }
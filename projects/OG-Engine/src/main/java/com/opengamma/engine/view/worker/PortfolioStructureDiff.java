@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.impl.PortfolioNodeEquivalenceMapper;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Compares two versions of a portfolio structure at the position level, so that only the positions which changed need to be resolved in an incremental graph build.
+ * <p>
+ * Nodes are mapped from the old structure to the new one if their names match and their child nodes can be mapped, regardless of the positions immediately under them. A mapped node whose positions
+ * differ is "changed", as is any node above it; the aggregate values for changed nodes must be rebuilt but the graph for any position still held under the node can be kept. Positions in the new
+ * structure that were not under the equivalent old node, or are under a new node, are "added" and must be resolved. Positions in the old structure which are no longer under an equivalent node are
+ * "removed"; if such a position is still held elsewhere in the new structure it is also "added" so that all of its occurrences are resolved again.
+ */
+/* package */final class PortfolioStructureDiff {
+
+  /**
+   * Maps nodes ignoring their immediate child positions.
+   */
+  private static final class StructuralEquivalenceMapper extends PortfolioNodeEquivalenceMapper {
+
+    @Override
+    protected boolean isPositionMatch(final PortfolioNode a, final PortfolioNode b) {
+      return true;
+    }
+
+    private boolean isExactPositionMatch(final PortfolioNode a, final PortfolioNode b) {
+      return super.isPositionMatch(a, b);
+    }
+
+  }
+
+  private final Map<UniqueId, UniqueId> _mapped;
+  private final Set<UniqueId> _changedNodes = new HashSet<UniqueId>();
+  private final Set<UniqueId> _addedPositions = new HashSet<UniqueId>();
+  private final Map<UniqueId, Position> _removedPositions = new HashMap<UniqueId, Position>();
+
+  /**
+   * Compares two portfolio structures.
+   *
+   * @param oldRoot the root node of the previous portfolio, not null
+   * @param newRoot the root node of the new portfolio, not null
+   */
+  public PortfolioStructureDiff(final PortfolioNode oldRoot, final PortfolioNode newRoot) {
+    final StructuralEquivalenceMapper mapper = new StructuralEquivalenceMapper();
+    _mapped = mapper.getEquivalentNodes(oldRoot, newRoot);
+    final Map<UniqueId, PortfolioNode> oldNodes = new HashMap<UniqueId, PortfolioNode>();
+    indexNodes(oldRoot, oldNodes);
+    final Map<UniqueId, PortfolioNode> equivalentOldNodes = new HashMap<UniqueId, PortfolioNode>();
+    for (Map.Entry<UniqueId, UniqueId> mapping : _mapped.entrySet()) {
+      equivalentOldNodes.put(mapping.getValue(), oldNodes.get(mapping.getKey()));
+    }
+    final Set<UniqueId> newPositions = new HashSet<UniqueId>();
+    compare(newRoot, equivalentOldNodes, newPositions, mapper);
+    findUnmappedPositions(oldRoot);
+    for (UniqueId removed : _removedPositions.keySet()) {
+      if (newPositions.contains(removed)) {
+        _addedPositions.add(removed);
+      }
+    }
+  }
+
+  private static void indexNodes(final PortfolioNode node, final Map<UniqueId, PortfolioNode> nodes) {
+    nodes.put(node.getUniqueId(), node);
+    for (PortfolioNode child : node.getChildNodes()) {
+      indexNodes(child, nodes);
+    }
+  }
+
+  private boolean compare(final PortfolioNode newNode, final Map<UniqueId, PortfolioNode> equivalentOldNodes, final Set<UniqueId> newPositions, final StructuralEquivalenceMapper mapper) {
+    boolean changed = false;
+    for (PortfolioNode child : newNode.getChildNodes()) {
+      changed |= compare(child, equivalentOldNodes, newPositions, mapper);
+    }
+    final List<Position> positions = newNode.getPositions();
+    final PortfolioNode oldNode = equivalentOldNodes.get(newNode.getUniqueId());
+    if (oldNode == null) {
+      // A new node; everything under it must be resolved
+      for (Position position : positions) {
+        _addedPositions.add(position.getUniqueId());
+      }
+      changed = true;
+    } else if (!mapper.isExactPositionMatch(oldNode, newNode)) {
+      final Set<UniqueId> nodePositions = new HashSet<UniqueId>();
+      for (Position position : positions) {
+        nodePositions.add(position.getUniqueId());
+      }
+      final Set<UniqueId> oldPositions = new HashSet<UniqueId>();
+      for (Position position : oldNode.getPositions()) {
+        oldPositions.add(position.getUniqueId());
+        if (!nodePositions.contains(position.getUniqueId())) {
+          _removedPositions.put(position.getUniqueId(), position);
+        }
+      }
+      for (Position position : positions) {
+        if (!oldPositions.contains(position.getUniqueId())) {
+          _addedPositions.add(position.getUniqueId());
+        }
+      }
+      changed = true;
+    }
+    for (Position position : positions) {
+      newPositions.add(position.getUniqueId());
+    }
+    if (changed) {
+      _changedNodes.add(newNode.getUniqueId());
+    }
+    return changed;
+  }
+
+  private void findUnmappedPositions(final PortfolioNode oldNode) {
+    if (!_mapped.containsKey(oldNode.getUniqueId())) {
+      for (Position position : oldNode.getPositions()) {
+        _removedPositions.put(position.getUniqueId(), position);
+      }
+    }
+    for (PortfolioNode child : oldNode.getChildNodes()) {
+      findUnmappedPositions(child);
+    }
+  }
+
+  /**
+   * Returns the mapping of old node identifiers to new node identifiers, including changed nodes.
+   *
+   * @return the mapping, not null
+   */
+  public Map<UniqueId, UniqueId> getMappedNodes() {
+    return _mapped;
+  }
+
+  /**
+   * Returns the identifiers of the nodes in the new structure whose aggregate values must be rebuilt. This includes any nodes with no equivalent in the old structure.
+   *
+   * @return the new node identifiers, not null
+   */
+  public Set<UniqueId> getChangedNodes() {
+    return _changedNodes;
+  }
+
+  /**
+   * Returns the identifiers of positions which must be resolved in the new structure.
+   *
+   * @return the new position identifiers, not null
+   */
+  public Set<UniqueId> getAddedPositions() {
+    return _addedPositions;
+  }
+
+  /**
+   * Returns the positions from the old structure which are no longer held under an equivalent node in the new one.
+   *
+   * @return the old positions, keyed by identifier, not null
+   */
+  public Map<UniqueId, Position> getRemovedPositions() {
+    return _removedPositions;
+  }
+
+}
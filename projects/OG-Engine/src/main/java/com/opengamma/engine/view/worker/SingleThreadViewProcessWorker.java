@@ -38,6 +38,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.config.ConfigSource;
 import com.opengamma.core.position.Portfolio;
@@ -55,7 +56,9 @@ import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.depgraph.impl.DependencyNodeImpl;
 import com.opengamma.engine.depgraph.impl.RootDiscardingSubgrapher;
 import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.marketdata.ChangeTrackingMarketDataSnapshot;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.ReleasableMarketDataSnapshot;
 import com.opengamma.engine.marketdata.manipulator.DistinctMarketDataSelector;
 import com.opengamma.engine.marketdata.manipulator.MarketDataSelectionGraphManipulator;
 import com.opengamma.engine.marketdata.manipulator.MarketDataSelector;
@@ -94,6 +97,7 @@ import com.opengamma.engine.view.worker.trigger.FixedTimeTrigger;
 import com.opengamma.engine.view.worker.trigger.RecomputationPeriodTrigger;
 import com.opengamma.engine.view.worker.trigger.RunAsFastAsPossibleTrigger;
 import com.opengamma.engine.view.worker.trigger.SuccessiveDeltaLimitTrigger;
+import com.opengamma.engine.view.worker.trigger.TickBatchingTrigger;
 import com.opengamma.engine.view.worker.trigger.ViewCycleEligibility;
 import com.opengamma.engine.view.worker.trigger.ViewCycleTrigger;
 import com.opengamma.engine.view.worker.trigger.ViewCycleTriggerResult;
@@ -196,10 +200,13 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   private final ViewExecutionOptions _executionOptions;
   private final CombinedViewCycleTrigger _masterCycleTrigger = new CombinedViewCycleTrigger();
   private final FixedTimeTrigger _compilationExpiryCycleTrigger;
+  private final TickBatchingTrigger _tickBatchingTrigger;
   private final boolean _executeCycles;
   private final boolean _executeGraphs;
   private final boolean _ignoreCompilationValidity;
+  private final boolean _incrementalPortfolioCompilation;
   private final boolean _suppressExecutionOnNoMarketData;
+  private final boolean _pipelinedExecution;
   /**
    * The changes to the master trigger that must be made during the next cycle.
    * <p>
@@ -210,7 +217,15 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
 
   private int _cycleCount;
 
-  private EngineResourceReference<SingleComputationCycle> _previousCycleReference;
+  private volatile EngineResourceReference<SingleComputationCycle> _previousCycleReference;
+  /**
+   * The market data snapshot used by the previous cycle. This is retained, rather than released, so that the next delta cycle can ask its snapshot what has changed since.
+   */
+  private volatile MarketDataSnapshot _previousCycleSnapshot;
+  /**
+   * The previous cycle, if it is still being executed by a {@link CycleTail}.
+   */
+  private volatile CycleTail _cycleTail;
   /**
    * The current view definition the worker must calculate on.
    */
@@ -291,6 +306,19 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   private final AtomicBoolean _forceGraphRebuild = new AtomicBoolean();
 
   public SingleThreadViewProcessWorker(final ViewProcessWorkerContext context, final ViewExecutionOptions executionOptions, final ViewDefinition viewDefinition) {
+    this(context, executionOptions, viewDefinition, null);
+  }
+
+  /**
+   * Creates a worker which batches market data ticks before triggering cycles.
+   * 
+   * @param context the worker context, not null
+   * @param executionOptions the execution options, not null
+   * @param viewDefinition the view definition, not null
+   * @param tickBatchingTrigger the trigger to batch market data ticks with, or null to trigger a cycle on any change. This is only used if cycles are triggered by market data changes.
+   */
+  public SingleThreadViewProcessWorker(final ViewProcessWorkerContext context, final ViewExecutionOptions executionOptions, final ViewDefinition viewDefinition,
+      final TickBatchingTrigger tickBatchingTrigger) {
     ArgumentChecker.notNull(context, "context");
     ArgumentChecker.notNull(executionOptions, "executionOptions");
     ArgumentChecker.notNull(viewDefinition, "viewDefinition");
@@ -310,6 +338,12 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     if (executionOptions.getMaxSuccessiveDeltaCycles() != null) {
       addMasterCycleTrigger(new SuccessiveDeltaLimitTrigger(executionOptions.getMaxSuccessiveDeltaCycles()));
     }
+    if ((tickBatchingTrigger != null) && executionOptions.getFlags().contains(ViewExecutionFlags.TRIGGER_CYCLE_ON_MARKET_DATA_CHANGED)) {
+      _tickBatchingTrigger = tickBatchingTrigger;
+      addMasterCycleTrigger(tickBatchingTrigger);
+    } else {
+      _tickBatchingTrigger = null;
+    }
     if (executionOptions.getFlags().contains(ViewExecutionFlags.RUN_AS_FAST_AS_POSSIBLE)) {
       if (_cycleRequested) {
         addMasterCycleTrigger(new RunAsFastAsPossibleTrigger());
@@ -321,7 +355,9 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     _executeCycles = !executionOptions.getFlags().contains(ViewExecutionFlags.COMPILE_ONLY);
     _executeGraphs = !executionOptions.getFlags().contains(ViewExecutionFlags.FETCH_MARKET_DATA_ONLY);
     _suppressExecutionOnNoMarketData = executionOptions.getFlags().contains(ViewExecutionFlags.SKIP_CYCLE_ON_NO_MARKET_DATA);
+    _pipelinedExecution = executionOptions.getFlags().contains(ViewExecutionFlags.PIPELINED_EXECUTION) && _executeCycles;
     _ignoreCompilationValidity = executionOptions.getFlags().contains(ViewExecutionFlags.IGNORE_COMPILATION_VALIDITY);
+    _incrementalPortfolioCompilation = executionOptions.getFlags().contains(ViewExecutionFlags.INCREMENTAL_PORTFOLIO_COMPILATION);
     _viewDefinition = viewDefinition;
     _specificMarketDataSelectors = extractSpecificSelectors(viewDefinition);
     _marketDataManager = createMarketDataManager(context);
@@ -410,6 +446,15 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     _masterCycleTrigger.addTrigger(trigger);
   }
 
+  /**
+   * Adds a trigger to the master cycle trigger once the worker has started, for example to observe the cycles triggered.
+   * 
+   * @param trigger the trigger to add, not null
+   */
+  /* package */synchronized void addCycleTrigger(final ViewCycleTrigger trigger) {
+    addMasterCycleTrigger(trigger);
+  }
+
   public FixedTimeTrigger getCompilationExpiryCycleTrigger() {
     return _compilationExpiryCycleTrigger;
   }
@@ -503,6 +548,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
 
       final VersionCorrection versionCorrection = getResolverVersionCorrection(executionOptions);
       VersionCorrectionUtils.lock(versionCorrection);
+      boolean versionCorrectionLocked = true;
       try {
         final CompiledViewDefinitionWithGraphs compiledViewDefinition;
         try {
@@ -547,6 +593,11 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
         }
         // [PLAT-1174] This is necessary to support global injections by ValueRequirement. The use of a process-context level variable will be bad
         // if there are multiple worker threads that initialise snapshots concurrently.
+        final CycleTail tail = _cycleTail;
+        if ((tail != null) && !versionCorrection.equals(tail.getVersionCorrection())) {
+          // The cycle still executing uses the resolver; it must not change under that cycle
+          awaitCycleTailBeforeCallback();
+        }
         getProcessContext().getLiveDataOverrideInjector().setComputationTargetResolver(
             getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getRawComputationTargetResolver().atVersionCorrection(versionCorrection));
 
@@ -574,75 +625,164 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
             s_logger.error("Error creating next view cycle for " + getWorkerContext(), e);
             return;
           }
+          final ViewCycleMetadata cycleMetadata;
+          MarketDataSnapshot marketDataSnapshot = null;
           try {
-            try {
-              final SingleComputationCycle singleComputationCycle = cycleReference.get();
-              final Map<String, Collection<ComputationTargetSpecification>> configToComputationTargets = new HashMap<>();
-              final Map<String, Map<ValueSpecification, Set<ValueRequirement>>> configToTerminalOutputs = new HashMap<>();
-              final MarketDataSnapshot marketDataSnapshot = snapshotManager.getSnapshot();
-
-              for (DependencyGraphExplorer graphExp : compiledViewDefinition.getDependencyGraphExplorers()) {
-                configToComputationTargets.put(graphExp.getCalculationConfigurationName(), graphExp.getComputationTargets());
-                configToTerminalOutputs.put(graphExp.getCalculationConfigurationName(), graphExp.getTerminalOutputs());
-              }
-              if (isTerminated()) {
+            final SingleComputationCycle singleComputationCycle = cycleReference.get();
+            final Map<String, Collection<ComputationTargetSpecification>> configToComputationTargets = new HashMap<>();
+            final Map<String, Map<ValueSpecification, Set<ValueRequirement>>> configToTerminalOutputs = new HashMap<>();
+            marketDataSnapshot = snapshotManager.getSnapshot();
+            for (DependencyGraphExplorer graphExp : compiledViewDefinition.getDependencyGraphExplorers()) {
+              configToComputationTargets.put(graphExp.getCalculationConfigurationName(), graphExp.getComputationTargets());
+              configToTerminalOutputs.put(graphExp.getCalculationConfigurationName(), graphExp.getTerminalOutputs());
+            }
+            cycleMetadata = new DefaultViewCycleMetadata(cycleReference.get().getUniqueId(), marketDataSnapshot.getUniqueId(), compiledViewDefinition.getViewDefinition().getUniqueId(),
+                versionCorrection, executionOptions.getValuationTime(), singleComputationCycle.getAllCalculationConfigurationNames(), configToComputationTargets, configToTerminalOutputs,
+                executionOptions.getName());
+            if (_pipelinedExecution) {
+              // The inputs don't depend on the previous cycle so can be written while it is still executing
+              singleComputationCycle.prepare(marketDataSnapshot, _suppressExecutionOnNoMarketData);
+            }
+            // We may have started the cycle without setting up market data subscriptions, so we
+            // now need to set them up so that the data will start to be populated in future cycles
+            snapshotManager.requestSubscriptions();
+            awaitCycleTail();
+          } catch (final InterruptedException e) {
+            s_logger.info("View cycle preparation interrupted for {}", getWorkerContext());
+            releaseSnapshot(marketDataSnapshot);
+            cycleReference.release();
+            return;
+          } catch (final Exception e) {
+            s_logger.error("View cycle preparation failed for " + getWorkerContext(), e);
+            cycleExecutionFailed(executionOptions, e);
+            releaseSnapshot(marketDataSnapshot);
+            cycleReference.release();
+            return;
+          }
+          if (isTerminated()) {
+            releaseSnapshot(marketDataSnapshot);
+            cycleReference.release();
+            return;
+          }
+          if (_pipelinedExecution) {
+            // The cycle is executed, and the version-correction unlocked, by the tail while the next cycle is prepared
+            final CycleTail tail = new CycleTail(cycleType, cycleReference, marketDataSnapshot, cycleMetadata, executionOptions, versionCorrection);
+            _cycleTail = tail;
+            versionCorrectionLocked = false;
+            s_executor.submit(tail);
+            if (getExecutionOptions().getExecutionSequence().isEmpty()) {
+              try {
+                awaitCycleTail();
+              } catch (final InterruptedException e) {
+                s_logger.debug("Interrupted waiting for the final cycle");
                 return;
               }
-              cycleStarted(new DefaultViewCycleMetadata(cycleReference.get().getUniqueId(), marketDataSnapshot.getUniqueId(), compiledViewDefinition.getViewDefinition().getUniqueId(),
-                  versionCorrection, executionOptions.getValuationTime(), singleComputationCycle.getAllCalculationConfigurationNames(), configToComputationTargets, configToTerminalOutputs,
-                  executionOptions.getName()));
-              if (isTerminated()) {
-                return;
+              if (!isTerminated()) {
+                jobCompleted();
               }
-              // We may have started the cycle without setting up market data subscriptions, so we
-              // now need to set them up so that the data will start to be populated in future cycles
-              snapshotManager.requestSubscriptions();
-              executeViewCycle(cycleType, cycleReference, marketDataSnapshot);
-            } catch (final InterruptedException e) {
-              // Execution interrupted - don't propagate as failure
-              s_logger.info("View cycle execution interrupted for {}", getWorkerContext());
-              return;
-            } catch (final Exception e) {
-              // Execution failed; might be a result of shutdown
-              s_logger.error("View cycle execution failed for " + getWorkerContext(), e);
-              cycleExecutionFailed(executionOptions, e);
-              return;
-            }
-            // Don't push the results through if we've been terminated, since another computation job could be running already
-            // and the fact that we've been terminated means the view is no longer interested in the result. Just die quietly.
-            if (isTerminated()) {
-              return;
-            }
-            cycleCompleted(cycleReference.get());
-            // Any clients only expecting a single result may have disconnected, implicitly terminating us, or we may have
-            // been explicitly terminated as a result of completing the cycle. Terminate gracefully.
-            if (isTerminated()) {
-              return;
-            }
-            if (_previousCycleReference != null) {
-              _previousCycleReference.release();
-            }
-            _previousCycleReference = cycleReference;
-            cycleReference = null;
-          } finally {
-            if (cycleReference != null) {
-              cycleReference.release();
             }
+            return;
+          }
+          if (!executeAndComplete(cycleType, cycleReference, marketDataSnapshot, cycleMetadata, executionOptions)) {
+            return;
           }
         }
         if (getExecutionOptions().getExecutionSequence().isEmpty()) {
           jobCompleted();
         }
       } finally {
-        VersionCorrectionUtils.unlock(versionCorrection);
+        if (versionCorrectionLocked) {
+          VersionCorrectionUtils.unlock(versionCorrection);
+        }
+      }
+    }
+
+    /**
+     * Executes a cycle, publishes its results and retains it as the previous cycle for the next delta.
+     * 
+     * @param cycleType the type of cycle to execute, not null
+     * @param cycleReference the cycle, not null. This will be released if the cycle is not retained.
+     * @param marketDataSnapshot the market data snapshot for the cycle, not null. This is released if the cycle is not retained.
+     * @param cycleMetadata the metadata to publish when the cycle starts, not null
+     * @param executionOptions the execution options for the cycle, not null
+     * @return true if the cycle completed, false if it failed or the job has been terminated
+     */
+    private boolean executeAndComplete(final ViewCycleType cycleType, EngineResourceReference<SingleComputationCycle> cycleReference, final MarketDataSnapshot marketDataSnapshot,
+        final ViewCycleMetadata cycleMetadata, final ViewCycleExecutionOptions executionOptions) {
+      try {
+        try {
+          cycleStarted(cycleMetadata);
+          if (isTerminated()) {
+            return false;
+          }
+          final long cycleStartNanos = System.nanoTime();
+          executeViewCycle(cycleType, cycleReference, marketDataSnapshot);
+          if (_tickBatchingTrigger != null) {
+            // Execution time only; when pipelined this runs on the cycle tail and excludes the overlapped preparation
+            _tickBatchingTrigger.cycleCompleted(System.nanoTime() - cycleStartNanos);
+          }
+        } catch (final InterruptedException e) {
+          // Execution interrupted - don't propagate as failure
+          s_logger.info("View cycle execution interrupted for {}", getWorkerContext());
+          return false;
+        } catch (final Exception e) {
+          // Execution failed; might be a result of shutdown
+          s_logger.error("View cycle execution failed for " + getWorkerContext(), e);
+          cycleExecutionFailed(executionOptions, e);
+          return false;
+        }
+        // Don't push the results through if we've been terminated, since another computation job could be running already
+        // and the fact that we've been terminated means the view is no longer interested in the result. Just die quietly.
+        if (isTerminated()) {
+          return false;
+        }
+        cycleCompleted(cycleReference.get());
+        // Any clients only expecting a single result may have disconnected, implicitly terminating us, or we may have
+        // been explicitly terminated as a result of completing the cycle. Terminate gracefully.
+        if (isTerminated()) {
+          return false;
+        }
+        if (_previousCycleReference != null) {
+          _previousCycleReference.release();
+        }
+        final MarketDataSnapshot previousSnapshot = _previousCycleSnapshot;
+        _previousCycleReference = cycleReference;
+        _previousCycleSnapshot = marketDataSnapshot;
+        releaseSnapshot(previousSnapshot);
+        cycleReference = null;
+        return true;
+      } finally {
+        if (cycleReference != null) {
+          releaseSnapshot(marketDataSnapshot);
+          cycleReference.release();
+        }
+      }
+    }
+
+    /**
+     * Releases a snapshot once no cycle will query it or compare with it. The inputs have been written to the cycle's cache by then, so the provider need not retain its values.
+     * 
+     * @param marketDataSnapshot the snapshot to release, null for none
+     */
+    private void releaseSnapshot(final MarketDataSnapshot marketDataSnapshot) {
+      // A provider may hand out the same snapshot again; it must not be released while it is retained for the next delta
+      if ((marketDataSnapshot instanceof ReleasableMarketDataSnapshot) && (marketDataSnapshot != _previousCycleSnapshot)) {
+        ((ReleasableMarketDataSnapshot) marketDataSnapshot).release();
       }
     }
 
     @Override
     protected void postRunCycle() {
+      final CycleTail tail = _cycleTail;
+      if (tail != null) {
+        tail.awaitUninterruptibly();
+      }
       if (_previousCycleReference != null) {
         _previousCycleReference.release();
       }
+      final MarketDataSnapshot previousSnapshot = _previousCycleSnapshot;
+      _previousCycleSnapshot = null;
+      releaseSnapshot(previousSnapshot);
       unsubscribeFromTargetResolverChanges();
       _marketDataManager.stop();
       _executionCacheKey = null;
@@ -656,11 +796,110 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
       if (task != null) {
         task.cancel(true);
       }
+      final CycleTail tail = _cycleTail;
+      if (tail != null) {
+        tail.interrupt();
+      }
     }
 
   }
 
+  /**
+   * The execution of a cycle whose inputs have been prepared, run on a separate thread when {@link ViewExecutionFlags#PIPELINED_EXECUTION} is set so that the job thread can prepare the next cycle.
+   */
+  private final class CycleTail implements Runnable {
+
+    private final ViewCycleType _cycleType;
+    private final EngineResourceReference<SingleComputationCycle> _cycleReference;
+    private final MarketDataSnapshot _marketDataSnapshot;
+    private final ViewCycleMetadata _cycleMetadata;
+    private final ViewCycleExecutionOptions _executionOptions;
+    private final VersionCorrection _versionCorrection;
+    private final CountDownLatch _done = new CountDownLatch(1);
+    private volatile Thread _thread;
+
+    private CycleTail(final ViewCycleType cycleType, final EngineResourceReference<SingleComputationCycle> cycleReference, final MarketDataSnapshot marketDataSnapshot,
+        final ViewCycleMetadata cycleMetadata, final ViewCycleExecutionOptions executionOptions, final VersionCorrection versionCorrection) {
+      _cycleType = cycleType;
+      _cycleReference = cycleReference;
+      _marketDataSnapshot = marketDataSnapshot;
+      _cycleMetadata = cycleMetadata;
+      _executionOptions = executionOptions;
+      _versionCorrection = versionCorrection;
+    }
+
+    @Override
+    public void run() {
+      _thread = Thread.currentThread();
+      try {
+        _job.executeAndComplete(_cycleType, _cycleReference, _marketDataSnapshot, _cycleMetadata, _executionOptions);
+      } catch (final RuntimeException e) {
+        s_logger.error("Error completing view cycle for " + getWorkerContext(), e);
+      } finally {
+        VersionCorrectionUtils.unlock(_versionCorrection);
+        _thread = null;
+        // Clear any interrupt intended for the cycle before the thread is returned to the pool
+        Thread.interrupted();
+        _done.countDown();
+      }
+    }
+
+    public VersionCorrection getVersionCorrection() {
+      return _versionCorrection;
+    }
+
+    public boolean isCurrentThread() {
+      return _thread == Thread.currentThread();
+    }
+
+    public void interrupt() {
+      final Thread thread = _thread;
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+    public void await() throws InterruptedException {
+      _done.await();
+    }
+
+    public void awaitUninterruptibly() {
+      Uninterruptibles.awaitUninterruptibly(_done);
+    }
+
+  }
+
+  /**
+   * Waits for the cycle handed to the tail thread, if any, to complete. The next cycle can only compute its delta once the previous one has executed.
+   * 
+   * @throws InterruptedException if the job thread is interrupted while waiting
+   */
+  private void awaitCycleTail() throws InterruptedException {
+    final CycleTail tail = _cycleTail;
+    if (tail != null) {
+      tail.await();
+      _cycleTail = null;
+    }
+  }
+
+  /**
+   * Waits, before a callback to the worker context from the job thread, for the cycle handed to the tail thread to complete. All callbacks are then made in order, and never from two threads at
+   * once; for example a listener sees the results of a cycle before the compilation that the next cycle uses. Callbacks made by the tail itself don't wait.
+   */
+  private void awaitCycleTailBeforeCallback() {
+    final CycleTail tail = _cycleTail;
+    if ((tail != null) && !tail.isCurrentThread()) {
+      try {
+        tail.await();
+      } catch (final InterruptedException e) {
+        // The job is being terminated, which interrupts the tail too
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   private void cycleCompleted(final ViewCycle cycle) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().cycleCompleted(cycle);
     } catch (final Exception e) {
@@ -669,6 +908,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   }
 
   private void cycleStarted(final ViewCycleMetadata cycleMetadata) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().cycleStarted(cycleMetadata);
     } catch (final Exception e) {
@@ -677,6 +917,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   }
 
   private void cycleFragmentCompleted(final ViewComputationResultModel result) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().cycleFragmentCompleted(result, getViewDefinition());
     } catch (final Exception e) {
@@ -685,6 +926,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   }
 
   private void cycleExecutionFailed(final ViewCycleExecutionOptions executionOptions, final Exception exception) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().cycleExecutionFailed(executionOptions, exception);
     } catch (final Exception vpe) {
@@ -693,6 +935,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   }
 
   private void viewDefinitionCompiled(final CompiledViewDefinitionWithGraphs compiledViewDefinition) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().viewDefinitionCompiled(_marketDataManager.getMarketDataProvider(), compiledViewDefinition);
     } catch (final Exception vpe) {
@@ -701,6 +944,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
   }
 
   private void viewDefinitionCompilationFailed(final Instant compilationTime, final Exception e) {
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().viewDefinitionCompilationFailed(compilationTime, e);
     } catch (final Exception vpe) {
@@ -721,8 +965,8 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
         if (cycleEligibility == ViewCycleEligibility.FORCE || (cycleEligibility == ViewCycleEligibility.ELIGIBLE && _cycleRequested)) {
           _cycleRequested = false;
           ViewCycleType cycleType = triggerResult.getCycleType();
-          if (_previousCycleReference == null) {
-            // Cannot do a delta if we have no previous cycle
+          if ((_previousCycleReference == null) && (_cycleTail == null)) {
+            // Cannot do a delta if we have no previous cycle. A cycle still being completed by the tail will be the previous one by the time this executes.
             cycleType = ViewCycleType.FULL;
           }
           try {
@@ -813,6 +1057,20 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     }
   }
 
+  /**
+   * Returns the market data which may have changed since the snapshot of the previous cycle, if the snapshot can report it.
+   * 
+   * @param marketDataSnapshot the snapshot for the cycle, not null
+   * @return the changed values, or null if every market data value must be compared
+   */
+  private Set<ValueSpecification> getChangedMarketData(final MarketDataSnapshot marketDataSnapshot) {
+    final MarketDataSnapshot previousSnapshot = _previousCycleSnapshot;
+    if ((previousSnapshot == null) || (previousSnapshot == marketDataSnapshot) || !(marketDataSnapshot instanceof ChangeTrackingMarketDataSnapshot)) {
+      return null;
+    }
+    return ((ChangeTrackingMarketDataSnapshot) marketDataSnapshot).getChangedValueKeys(previousSnapshot);
+  }
+
   private void executeViewCycle(final ViewCycleType cycleType, final EngineResourceReference<SingleComputationCycle> cycleReference, final MarketDataSnapshot marketDataSnapshot)
       throws Exception {
     SingleComputationCycle deltaCycle;
@@ -820,8 +1078,9 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
       s_logger.info("Performing full computation");
       deltaCycle = null;
     } else {
-      deltaCycle = _previousCycleReference.get();
-      if ((deltaCycle != null) && (deltaCycle.getState() != ViewCycleState.EXECUTED)) {
+      final EngineResourceReference<SingleComputationCycle> previousCycleReference = _previousCycleReference;
+      deltaCycle = (previousCycleReference != null) ? previousCycleReference.get() : null;
+      if ((deltaCycle == null) || (deltaCycle.getState() != ViewCycleState.EXECUTED)) {
         // Can only do a delta cycle if the previous was valid
         s_logger.info("Performing full computation; no previous cycle");
         deltaCycle = null;
@@ -829,7 +1088,8 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
         s_logger.info("Performing delta computation");
       }
     }
-    boolean continueExecution = cycleReference.get().preExecute(deltaCycle, marketDataSnapshot, _suppressExecutionOnNoMarketData);
+    boolean continueExecution = cycleReference.get().preExecute(deltaCycle, marketDataSnapshot, (deltaCycle != null) ? getChangedMarketData(marketDataSnapshot) : null,
+        _suppressExecutionOnNoMarketData);
     if (_executeGraphs && continueExecution) {
       try {
         cycleReference.get().execute();
@@ -860,6 +1120,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
 
   private void jobCompleted() {
     s_logger.info("Computation job completed for {}", getWorkerContext());
+    awaitCycleTailBeforeCallback();
     try {
       getWorkerContext().workerCompleted();
     } catch (final Exception e) {
@@ -1370,6 +1631,7 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                   previousResolutions = new ConcurrentHashMap<>(resolvedIdentifiers.size());
                   final Map<UniqueId, UniqueId> mapped;
                   final Set<UniqueId> unmapped = new HashSet<>();
+                  PortfolioStructureDiff portfolioDiff = null;
                   if (compiledViewDefinition.getPortfolio() != null) {
                     final ComputationTargetSpecification newPortfolioSpec = invalidIdentifiers.get(compiledViewDefinition.getPortfolio().getUniqueId());
                     if (newPortfolioSpec != null) {
@@ -1380,8 +1642,17 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                       final ComputationTarget newPortfolio = resolver.resolve(newPortfolioSpec, versionCorrection);
                       // Map any nodes from the old portfolio structure to the new one
                       if (newPortfolio != null) {
-                        mapped = getNodeEquivalenceMapper().getEquivalentNodes(compiledViewDefinition.getPortfolio().getRootNode(), ((Portfolio) newPortfolio.getValue()).getRootNode());
-                        unchangedNodes = new HashSet<UniqueId>(mapped.values());
+                        if (_incrementalPortfolioCompilation) {
+                          // Keep the graph for positions under changed nodes; only the added positions and affected aggregates need resolving
+                          portfolioDiff = new PortfolioStructureDiff(compiledViewDefinition.getPortfolio().getRootNode(), ((Portfolio) newPortfolio.getValue()).getRootNode());
+                          mapped = portfolioDiff.getMappedNodes();
+                          changedPositions = new HashSet<UniqueId>(portfolioDiff.getAddedPositions());
+                          s_logger.info("Portfolio changed under {} nodes; {} positions added, {} removed", new Object[] {portfolioDiff.getChangedNodes().size(),
+                              portfolioDiff.getAddedPositions().size(), portfolioDiff.getRemovedPositions().size() });
+                        } else {
+                          mapped = getNodeEquivalenceMapper().getEquivalentNodes(compiledViewDefinition.getPortfolio().getRootNode(), ((Portfolio) newPortfolio.getValue()).getRootNode());
+                          unchangedNodes = new HashSet<UniqueId>(mapped.values());
+                        }
                       } else {
                         mapped = Collections.emptyMap();
                         unchangedNodes = new HashSet<UniqueId>();
@@ -1398,6 +1669,15 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                       }
                       // Rewrite the graph for the new portfolio structure and identify any defunct positions/trades
                       findUnmappedNodesAndPositions(compiledViewDefinition.getPortfolio().getRootNode(), mapped, unmapped);
+                      if (portfolioDiff != null) {
+                        // Positions removed from a mapped node won't have been found above
+                        for (Position position : portfolioDiff.getRemovedPositions().values()) {
+                          unmapped.add(position.getUniqueId());
+                          for (Trade trade : position.getTrades()) {
+                            unmapped.add(trade.getUniqueId());
+                          }
+                        }
+                      }
                     } else {
                       mapped = null;
                       // Build a set of previous resolutions and mark any changed positions or trades for unmapping
@@ -1428,7 +1708,14 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
                   // Remove terminal outputs and rewrite nodes
                   mapAndUnmapNodes(previousGraphs, compiledViewDefinition, mapped, unmapped);
                   // Remove any PORTFOLIO nodes and any unmapped PORTFOLIO_NODE nodes with the filter
-                  filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(unmapped), null);
+                  if (portfolioDiff != null) {
+                    // The aggregates on changed nodes were remapped but are no longer valid
+                    final Set<UniqueId> invalidNodes = new HashSet<>(unmapped);
+                    invalidNodes.addAll(portfolioDiff.getChangedNodes());
+                    filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(invalidNodes), null);
+                  } else {
+                    filterPreviousGraphs(previousGraphs, new InvalidPortfolioDependencyNodeFilter(unmapped), null);
+                  }
                   // Invalidate any dependency graph nodes on the invalid targets
                   filterPreviousGraphs(previousGraphs, new InvalidTargetDependencyNodeFilter(invalidIdentifiers.keySet()), unchangedNodes);
                 } else {
@@ -1711,11 +1998,31 @@ public class SingleThreadViewProcessWorker implements ViewProcessWorker, MarketD
     if (compiledView == null) {
       return;
     }
-    if (CollectionUtils.containsAny(compiledView.getMarketDataRequirements(), valueSpecifications)) {
+    if (_tickBatchingTrigger != null) {
+      final Set<ValueSpecification> marketDataRequirements = compiledView.getMarketDataRequirements();
+      int ticks = 0;
+      for (ValueSpecification valueSpecification : valueSpecifications) {
+        if (marketDataRequirements.contains(valueSpecification)) {
+          ticks++;
+        }
+      }
+      if (ticks == 0) {
+        return;
+      }
+      if (_tickBatchingTrigger.ticked(ticks, System.nanoTime())) {
+        // The trigger has a new deadline, or its batch is full, so make sure the worker queries it again
+        wakeUp();
+      }
+      requestCycle();
+    } else if (CollectionUtils.containsAny(compiledView.getMarketDataRequirements(), valueSpecifications)) {
       requestCycle();
     }
   }
 
+  private synchronized void wakeUp() {
+    notifyAll();
+  }
+
   // ViewComputationJob
 
   @Override
@@ -7,6 +7,8 @@ package com.opengamma.engine.view.worker;
 
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
+import com.opengamma.engine.view.worker.trigger.TickBatchingTrigger;
+import com.opengamma.util.ArgumentChecker;
 
 /**
  * Implementation of {@link ViewProcessWorkerFactory} for creating {@link SingleThreadViewProcessWorker} instances. Using this will result in each view process that has an executing view owning a
@@ -14,11 +16,45 @@ import com.opengamma.engine.view.execution.ViewExecutionOptions;
  * <p>
  * Note that depending on other aspects of system configuration the view process may at times use many additional threads. This can include, but is not limited to, graph building (the graph building
  * service may have a pool of threads which view processes can share) and view compilation (there is a pool of threads shared by all view processes for portfolio traversal).
+ * <p>
+ * If a tick latency budget is set, workers that are triggered by market data changes will batch the ticks using a {@link TickBatchingTrigger} rather than start a cycle for each change.
  */
 public class SingleThreadViewProcessWorkerFactory implements ViewProcessWorkerFactory {
 
+  private int _tickBatchSize;
+  private long _tickLatencyBudgetMillis;
+
+  /**
+   * Sets the number of relevant market data ticks which will trigger a cycle when batching ticks.
+   * 
+   * @param tickBatchSize the number of ticks, or zero to trigger cycles only from the latency budget
+   */
+  public void setTickBatchSize(final int tickBatchSize) {
+    ArgumentChecker.notNegative(tickBatchSize, "tickBatchSize");
+    _tickBatchSize = tickBatchSize;
+  }
+
+  public int getTickBatchSize() {
+    return _tickBatchSize;
+  }
+
+  /**
+   * Sets the latency budget for market data ticks. A cycle will be started in time for its results to be available within this period of a tick arriving.
+   * 
+   * @param tickLatencyBudgetMillis the latency budget in milliseconds, or zero to not batch ticks
+   */
+  public void setTickLatencyBudgetMillis(final long tickLatencyBudgetMillis) {
+    ArgumentChecker.notNegative(tickLatencyBudgetMillis, "tickLatencyBudgetMillis");
+    _tickLatencyBudgetMillis = tickLatencyBudgetMillis;
+  }
+
+  public long getTickLatencyBudgetMillis() {
+    return _tickLatencyBudgetMillis;
+  }
+
   @Override
   public ViewProcessWorker createWorker(ViewProcessWorkerContext context, ViewExecutionOptions executionOptions, ViewDefinition viewDefinition) {
-    return new SingleThreadViewProcessWorker(context, executionOptions, viewDefinition);
+    final TickBatchingTrigger tickBatchingTrigger = (_tickLatencyBudgetMillis > 0) ? new TickBatchingTrigger(_tickBatchSize, _tickLatencyBudgetMillis) : null;
+    return new SingleThreadViewProcessWorker(context, executionOptions, viewDefinition, tickBatchingTrigger);
   }
 }
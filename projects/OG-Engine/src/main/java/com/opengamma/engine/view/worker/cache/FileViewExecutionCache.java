@@ -0,0 +1,557 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeDeserializer;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.fudgemsg.wire.FudgeMsgWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.MapMaker;
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphExplorer;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionDefinition;
+import com.opengamma.engine.function.FunctionParameters;
+import com.opengamma.engine.function.config.FunctionConfigurationBundle;
+import com.opengamma.engine.function.config.FunctionConfigurationSource;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Pairs;
+import com.opengamma.util.tuple.Triple;
+
+/**
+ * A {@link ViewExecutionCache} that persists compiled view definitions to a local directory so that they survive a restart.
+ * <p>
+ * Each entry is written to its own file as a GZIP compressed Fudge message, named from a digest of the cache key. Only the identifiers of the view definition and portfolio are stored; these are
+ * resolved again when the entry is read. Files are written by a background thread so that storing an entry does not delay the view process.
+ * <p>
+ * A stored entry is only used if it was written against the same function repository, identified by a fingerprint of the function identifiers, classes and default parameters and, if a
+ * {@link FunctionConfigurationSource} is set, the configuration the repository was built from. The function initialization identifier of the current process is then assigned to the loaded
+ * definition. The loaded definition keeps the resolver version-correction it was compiled at, so the worker checks its target resolutions at the version-correction of the cycle that uses it, as
+ * it would for any definition compiled at an earlier version-correction; changes made while the process was down are found by that check. Entries which cannot be used are deleted.
+ */
+public class FileViewExecutionCache implements ViewExecutionCache {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(FileViewExecutionCache.class);
+
+  private static final int MAGIC = 0x4F474356;
+  private static final int FORMAT_VERSION = 2;
+  private static final String FILE_SUFFIX = ".cvd";
+
+  private static final String VERSION_CORRECTION_FIELD = "versionCorrection";
+  private static final String COMPILATION_IDENTIFIER_FIELD = "compilationId";
+  private static final String VIEW_DEFINITION_FIELD = "viewDefinition";
+  private static final String PORTFOLIO_FIELD = "portfolio";
+  private static final String GRAPH_FIELD = "graph";
+  private static final String CALCULATION_CONFIGURATION_FIELD = "calcConfig";
+  private static final String RESOLUTION_FIELD = "resolution";
+  private static final String TARGET_FIELD = "target";
+  private static final String IDENTIFIER_FIELD = "uid";
+  private static final String VALID_FROM_FIELD = "validFrom";
+  private static final String VALID_TO_FIELD = "validTo";
+
+  private final File _directory;
+
+  private final CompiledFunctionService _functions;
+
+  private final FudgeContext _fudgeContext;
+
+  private final ExecutorService _writer;
+
+  private volatile FunctionConfigurationSource _functionConfigurationSource;
+
+  private final ConcurrentMap<ViewExecutionCacheKey, CompiledViewDefinitionWithGraphs> _frontCache = new MapMaker().weakValues().makeMap();
+
+  private volatile Pair<Long, String> _fingerprint;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory to store the compiled view definitions in, not null
+   * @param cfs the compiled function service, holding the function repository and a computation target resolver, not null
+   */
+  public FileViewExecutionCache(final File directory, final CompiledFunctionService cfs) {
+    this(directory, cfs, OpenGammaFudgeContext.getInstance());
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param directory the directory to store the compiled view definitions in, not null
+   * @param cfs the compiled function service, holding the function repository and a computation target resolver, not null
+   * @param fudgeContext the Fudge context to encode the compiled view definitions with, not null
+   */
+  public FileViewExecutionCache(final File directory, final CompiledFunctionService cfs, final FudgeContext fudgeContext) {
+    ArgumentChecker.notNull(directory, "directory");
+    ArgumentChecker.notNull(cfs, "cfs");
+    ArgumentChecker.notNull(fudgeContext, "fudgeContext");
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new OpenGammaRuntimeException("Couldn't create cache directory " + directory);
+    }
+    _directory = directory;
+    _functions = cfs;
+    _fudgeContext = fudgeContext;
+    _writer = Executors.newSingleThreadExecutor(new NamedThreadPoolFactory("FileViewExecutionCache", true));
+  }
+
+  public File getDirectory() {
+    return _directory;
+  }
+
+  public CompiledFunctionService getFunctions() {
+    return _functions;
+  }
+
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Sets the source of the configuration the function repository is built from. If set, the configuration is included in the function repository fingerprint so that entries are not used after
+   * a change to the parameters that functions were constructed with.
+   *
+   * @param functionConfigurationSource the configuration source, null for none
+   */
+  public void setFunctionConfigurationSource(final FunctionConfigurationSource functionConfigurationSource) {
+    _functionConfigurationSource = functionConfigurationSource;
+    _fingerprint = null;
+  }
+
+  public FunctionConfigurationSource getFunctionConfigurationSource() {
+    return _functionConfigurationSource;
+  }
+
+  protected ComputationTargetResolver getTargetResolver() {
+    return getFunctions().getFunctionCompilationContext().getRawComputationTargetResolver();
+  }
+
+  /**
+   * For testing only.
+   */
+  /* package */void clearFrontCache() {
+    _frontCache.clear();
+  }
+
+  /**
+   * Waits for any pending file operations to complete.
+   */
+  /* package */void flush() {
+    try {
+      _writer.submit(new Runnable() {
+        @Override
+        public void run() {
+          // No-op
+        }
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted", e);
+    } catch (ExecutionException e) {
+      throw new OpenGammaRuntimeException("Couldn't flush", e.getCause());
+    }
+  }
+
+  private Long getFunctionInitId() {
+    return getFunctions().getFunctionCompilationContext().getFunctionInitId();
+  }
+
+  /**
+   * Returns a fingerprint of the function repository that is stable across restarts.
+   * <p>
+   * Functions are identified by their identifiers, classes and default parameters. Parameters passed to a function's constructor are only covered if a {@link FunctionConfigurationSource} is
+   * set, in which case the configuration at the version the repository was built for (the function initialization identifier) is included.
+   *
+   * @param functionInitId the current function initialization identifier, not null
+   * @return the fingerprint, not null
+   */
+  protected String getFingerprint(final Long functionInitId) {
+    final Pair<Long, String> fingerprint = _fingerprint;
+    if ((fingerprint != null) && fingerprint.getFirst().equals(functionInitId)) {
+      return fingerprint.getSecond();
+    }
+    final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
+    final Collection<FunctionDefinition> functions = getFunctions().getFunctionRepository().getAllFunctions();
+    final List<String> identifiers = new ArrayList<String>(functions.size());
+    for (FunctionDefinition function : functions) {
+      final StringBuilder sb = new StringBuilder();
+      sb.append(function.getUniqueId()).append('\t').append(function.getShortName()).append('\t').append(function.getClass().getName());
+      final FunctionParameters parameters = function.getDefaultParameters();
+      if (parameters != null) {
+        serializer.reset();
+        sb.append('\t').append(toHexString(createDigest().digest(getFudgeContext().toByteArray(serializer.objectToFudgeMsg(parameters)))));
+      }
+      identifiers.add(sb.toString());
+    }
+    final String[] sorted = identifiers.toArray(new String[identifiers.size()]);
+    Arrays.sort(sorted);
+    final MessageDigest digest = createDigest();
+    for (String identifier : sorted) {
+      digest.update(identifier.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) '\n');
+    }
+    final FunctionConfigurationSource configurationSource = getFunctionConfigurationSource();
+    if (configurationSource != null) {
+      // The function repository is constructed from the configuration at the initialization identifier's instant
+      final FunctionConfigurationBundle configuration = configurationSource.getFunctionConfiguration(Instant.ofEpochMilli(functionInitId));
+      serializer.reset();
+      digest.update(getFudgeContext().toByteArray(serializer.objectToFudgeMsg(configuration)));
+    }
+    final String result = toHexString(digest.digest());
+    _fingerprint = Pairs.of(functionInitId, result);
+    return result;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new OpenGammaRuntimeException("SHA-1 not available", e);
+    }
+  }
+
+  private static String toHexString(final byte[] digest) {
+    return new BigInteger(1, digest).toString(16);
+  }
+
+  /**
+   * Encodes a key from its fields. The cache hint keys are arbitrary objects, so are written from their structure and string forms; elements of unordered collections are sorted so that the
+   * encoding does not depend on hash codes, which may differ between processes.
+   *
+   * @param key the key to encode, not null
+   * @return the encoded key, not null
+   */
+  /* package */static byte[] encodeKey(final ViewExecutionCacheKey key) {
+    final StringBuilder sb = new StringBuilder();
+    appendString(sb, key.getViewDefinitionId().toString());
+    appendHintKey(sb, key.getMarketDataProvider());
+    appendHintKey(sb, key.getScenarioManipulations());
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void appendString(final StringBuilder sb, final String str) {
+    // Length prefixed so that no two sequences of values have the same encoding
+    sb.append(str.length()).append(':').append(str);
+  }
+
+  private static void appendHintKey(final StringBuilder sb, final Object hintKey) {
+    if (hintKey == null) {
+      sb.append('N');
+    } else if (hintKey instanceof String) {
+      sb.append('S');
+      appendString(sb, (String) hintKey);
+    } else if (hintKey instanceof Class) {
+      sb.append('C');
+      appendString(sb, ((Class<?>) hintKey).getName());
+    } else if (hintKey instanceof Pair) {
+      sb.append('P');
+      appendHintKey(sb, ((Pair<?, ?>) hintKey).getFirst());
+      appendHintKey(sb, ((Pair<?, ?>) hintKey).getSecond());
+    } else if (hintKey instanceof Triple) {
+      sb.append('T');
+      appendHintKey(sb, ((Triple<?, ?, ?>) hintKey).getFirst());
+      appendHintKey(sb, ((Triple<?, ?, ?>) hintKey).getSecond());
+      appendHintKey(sb, ((Triple<?, ?, ?>) hintKey).getThird());
+    } else if (hintKey instanceof List) {
+      final List<?> list = (List<?>) hintKey;
+      sb.append('L').append(list.size()).append(':');
+      for (Object element : list) {
+        appendHintKey(sb, element);
+      }
+    } else if (hintKey instanceof Collection) {
+      final Collection<?> collection = (Collection<?>) hintKey;
+      final String[] elements = new String[collection.size()];
+      int i = 0;
+      for (Object element : collection) {
+        final StringBuilder elementSb = new StringBuilder();
+        appendHintKey(elementSb, element);
+        elements[i++] = elementSb.toString();
+      }
+      appendSorted(sb, 'U', elements);
+    } else if (hintKey instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) hintKey;
+      final String[] entries = new String[map.size()];
+      int i = 0;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        final StringBuilder entrySb = new StringBuilder();
+        appendHintKey(entrySb, entry.getKey());
+        appendHintKey(entrySb, entry.getValue());
+        entries[i++] = entrySb.toString();
+      }
+      appendSorted(sb, 'M', entries);
+    } else {
+      sb.append('O');
+      appendString(sb, hintKey.getClass().getName());
+      appendString(sb, hintKey.toString());
+    }
+  }
+
+  private static void appendSorted(final StringBuilder sb, final char type, final String[] elements) {
+    Arrays.sort(elements);
+    sb.append(type).append(elements.length).append(':');
+    for (String element : elements) {
+      sb.append(element);
+    }
+  }
+
+  private File getFile(final byte[] key) {
+    return new File(getDirectory(), toHexString(createDigest().digest(key)) + FILE_SUFFIX);
+  }
+
+  private FudgeMsg toFudgeMsg(final CompiledViewDefinitionWithGraphs viewDefinition) {
+    final FudgeSerializer serializer = new FudgeSerializer(getFudgeContext());
+    final MutableFudgeMsg msg = serializer.newMessage();
+    serializer.addToMessage(msg, VERSION_CORRECTION_FIELD, null, viewDefinition.getResolverVersionCorrection());
+    msg.add(COMPILATION_IDENTIFIER_FIELD, null, viewDefinition.getCompilationIdentifier());
+    serializer.addToMessage(msg, VIEW_DEFINITION_FIELD, null, viewDefinition.getViewDefinition().getUniqueId());
+    if (viewDefinition.getPortfolio() != null) {
+      serializer.addToMessage(msg, PORTFOLIO_FIELD, null, viewDefinition.getPortfolio().getUniqueId());
+    }
+    for (DependencyGraphExplorer explorer : viewDefinition.getDependencyGraphExplorers()) {
+      serializer.addToMessage(msg, GRAPH_FIELD, null, explorer.getWholeGraph());
+    }
+    for (CompiledViewCalculationConfiguration calcConfig : viewDefinition.getCompiledCalculationConfigurations()) {
+      serializer.addToMessage(msg, CALCULATION_CONFIGURATION_FIELD, null, calcConfig);
+    }
+    for (Map.Entry<ComputationTargetReference, UniqueId> resolution : viewDefinition.getResolvedIdentifiers().entrySet()) {
+      final MutableFudgeMsg submsg = msg.addSubMessage(RESOLUTION_FIELD, null);
+      serializer.addToMessage(submsg, TARGET_FIELD, null, resolution.getKey());
+      serializer.addToMessage(submsg, IDENTIFIER_FIELD, null, resolution.getValue());
+    }
+    if (viewDefinition.getValidFrom() != null) {
+      serializer.addToMessage(msg, VALID_FROM_FIELD, null, viewDefinition.getValidFrom());
+    }
+    if (viewDefinition.getValidTo() != null) {
+      serializer.addToMessage(msg, VALID_TO_FIELD, null, viewDefinition.getValidTo());
+    }
+    return msg;
+  }
+
+  private CompiledViewDefinitionWithGraphs fromFudgeMsg(final FudgeMsg msg, final long functionInitId) {
+    final FudgeDeserializer deserializer = new FudgeDeserializer(getFudgeContext());
+    final VersionCorrection versionCorrection = deserializer.fieldValueToObject(VersionCorrection.class, msg.getByName(VERSION_CORRECTION_FIELD));
+    final String compilationId = msg.getString(COMPILATION_IDENTIFIER_FIELD);
+    final UniqueId viewDefinitionId = deserializer.fieldValueToObject(UniqueId.class, msg.getByName(VIEW_DEFINITION_FIELD));
+    final ComputationTarget viewDefinition = getTargetResolver().resolve(new ComputationTargetSpecification(ComputationTargetType.of(ViewDefinition.class), viewDefinitionId),
+        VersionCorrection.LATEST);
+    if (viewDefinition == null) {
+      s_logger.info("View definition {} no longer available", viewDefinitionId);
+      return null;
+    }
+    Portfolio portfolio = null;
+    final FudgeField portfolioField = msg.getByName(PORTFOLIO_FIELD);
+    if (portfolioField != null) {
+      final UniqueId portfolioId = deserializer.fieldValueToObject(UniqueId.class, portfolioField);
+      final ComputationTarget portfolioTarget = getTargetResolver().resolve(new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO, portfolioId), versionCorrection);
+      if (portfolioTarget == null) {
+        s_logger.info("Portfolio {} no longer available", portfolioId);
+        return null;
+      }
+      portfolio = (Portfolio) portfolioTarget.getValue();
+    }
+    final List<FudgeField> resolutionFields = msg.getAllByName(RESOLUTION_FIELD);
+    final Map<ComputationTargetReference, UniqueId> resolutions = new HashMap<ComputationTargetReference, UniqueId>(resolutionFields.size());
+    for (FudgeField field : resolutionFields) {
+      final FudgeMsg submsg = (FudgeMsg) field.getValue();
+      resolutions.put(deserializer.fieldValueToObject(ComputationTargetReference.class, submsg.getByName(TARGET_FIELD)),
+          deserializer.fieldValueToObject(UniqueId.class, submsg.getByName(IDENTIFIER_FIELD)));
+    }
+    final List<FudgeField> graphFields = msg.getAllByName(GRAPH_FIELD);
+    final Collection<DependencyGraph> graphs = new ArrayList<DependencyGraph>(graphFields.size());
+    for (FudgeField field : graphFields) {
+      graphs.add(deserializer.fieldValueToObject(DependencyGraph.class, field));
+    }
+    final List<FudgeField> calcConfigFields = msg.getAllByName(CALCULATION_CONFIGURATION_FIELD);
+    final Collection<CompiledViewCalculationConfiguration> calcConfigs = new ArrayList<CompiledViewCalculationConfiguration>(calcConfigFields.size());
+    for (FudgeField field : calcConfigFields) {
+      calcConfigs.add(deserializer.fieldValueToObject(CompiledViewCalculationConfiguration.class, field));
+    }
+    final FudgeField validFromField = msg.getByName(VALID_FROM_FIELD);
+    final Instant validFrom = (validFromField != null) ? deserializer.fieldValueToObject(Instant.class, validFromField) : null;
+    final FudgeField validToField = msg.getByName(VALID_TO_FIELD);
+    final Instant validTo = (validToField != null) ? deserializer.fieldValueToObject(Instant.class, validToField) : null;
+    return new CompiledViewDefinitionWithGraphsImpl(versionCorrection, compilationId, (ViewDefinition) viewDefinition.getValue(), graphs, resolutions, portfolio, functionInitId, calcConfigs,
+        validFrom, validTo);
+  }
+
+  private CompiledViewDefinitionWithGraphs read(final File file, final byte[] key, final Long functionInitId) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+      if ((in.readInt() != MAGIC) || (in.readInt() != FORMAT_VERSION)) {
+        s_logger.warn("Unrecognised file format in {}", file);
+        return null;
+      }
+      if (!getFingerprint(functionInitId).equals(in.readUTF())) {
+        s_logger.info("Function repository has changed since {} was written", file);
+        return null;
+      }
+      final byte[] storedKey = new byte[in.readInt()];
+      in.readFully(storedKey);
+      if (!Arrays.equals(key, storedKey)) {
+        s_logger.warn("Key mismatch in {}", file);
+        return null;
+      }
+      return fromFudgeMsg(getFudgeContext().createMessageReader(in).nextMessage(), functionInitId);
+    } catch (IOException | RuntimeException e) {
+      s_logger.warn("Couldn't read {}: {}", file, e.getMessage());
+      s_logger.debug("Caught exception", e);
+      return null;
+    }
+  }
+
+  private void write(final File file, final byte[] key, final String fingerprint, final FudgeMsg msg) {
+    final File temp = new File(file.getPath() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(fingerprint);
+        out.writeInt(key.length);
+        out.write(key);
+        final FudgeMsgWriter writer = getFudgeContext().createMessageWriter(out);
+        writer.writeMessage(msg);
+        writer.flush();
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      s_logger.debug("Wrote {}", file);
+    } catch (IOException | RuntimeException e) {
+      s_logger.warn("Couldn't write {}: {}", file, e.getMessage());
+      s_logger.debug("Caught exception", e);
+      temp.delete();
+    }
+  }
+
+  private void delete(final File file) {
+    _writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (file.delete()) {
+          s_logger.debug("Deleted {}", file);
+        }
+      }
+    });
+  }
+
+  @Override
+  public CompiledViewDefinitionWithGraphs getCompiledViewDefinitionWithGraphs(final ViewExecutionCacheKey key) {
+    CompiledViewDefinitionWithGraphs viewDefinition = _frontCache.get(key);
+    if (viewDefinition != null) {
+      s_logger.debug("Front cache hit CompiledViewDefinitionWithGraphs for {}", key);
+      return viewDefinition;
+    }
+    final Long functionInitId = getFunctionInitId();
+    if (functionInitId == null) {
+      // Function repository not initialized yet
+      return null;
+    }
+    final byte[] encodedKey = encodeKey(key);
+    final File file = getFile(encodedKey);
+    if (!file.exists()) {
+      s_logger.debug("File cache miss CompiledViewDefinitionWithGraphs for {}", key);
+      return null;
+    }
+    viewDefinition = read(file, encodedKey, functionInitId);
+    if (viewDefinition == null) {
+      s_logger.info("Discarding stored CompiledViewDefinitionWithGraphs for {}", key);
+      delete(file);
+      return null;
+    }
+    s_logger.info("File cache hit CompiledViewDefinitionWithGraphs for {}", key);
+    final CompiledViewDefinitionWithGraphs existing = _frontCache.putIfAbsent(key, viewDefinition);
+    return (existing != null) ? existing : viewDefinition;
+  }
+
+  @Override
+  public void setCompiledViewDefinitionWithGraphs(final ViewExecutionCacheKey key, final CompiledViewDefinitionWithGraphs viewDefinition) {
+    final CompiledViewDefinitionWithGraphs existing = _frontCache.put(key, viewDefinition);
+    if (existing == viewDefinition) {
+      return;
+    }
+    final Long functionInitId = getFunctionInitId();
+    if ((functionInitId == null) || !(viewDefinition instanceof CompiledViewDefinitionWithGraphsImpl)
+        || (((CompiledViewDefinitionWithGraphsImpl) viewDefinition).getFunctionInitId() != functionInitId.longValue())) {
+      // Built against a previous initialization of the function repository; not worth persisting
+      s_logger.debug("Not storing CompiledViewDefinitionWithGraphs for {}", key);
+      return;
+    }
+    s_logger.info("Storing CompiledViewDefinitionWithGraphs for {}", key);
+    final byte[] encodedKey = encodeKey(key);
+    final String fingerprint = getFingerprint(functionInitId);
+    _writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        write(getFile(encodedKey), encodedKey, fingerprint, toFudgeMsg(viewDefinition));
+      }
+    });
+  }
+
+  @Override
+  public void clear() {
+    _frontCache.clear();
+    s_logger.info("Clearing all CompiledViewDefinitionWithGraphs");
+    _writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        final File[] files = getDirectory().listFiles();
+        if (files != null) {
+          for (File file : files) {
+            if (file.getName().endsWith(FILE_SUFFIX)) {
+              file.delete();
+            }
+          }
+        }
+      }
+    });
+  }
+
+}
@@ -33,6 +33,18 @@ public final class ViewExecutionCacheKey implements Serializable {
     _scenarioManipulations = scenarioManipulations;
   }
 
+  /* package */UniqueId getViewDefinitionId() {
+    return _viewDefinitionId;
+  }
+
+  /* package */Serializable getMarketDataProvider() {
+    return _marketDataProvider;
+  }
+
+  /* package */Serializable getScenarioManipulations() {
+    return _scenarioManipulations;
+  }
+
   private static Serializable getMarketDataSelectorCacheHintKey(final MarketDataSelectionGraphManipulator graphManipulations) {
     if (graphManipulations == null) {
       return "No-op";
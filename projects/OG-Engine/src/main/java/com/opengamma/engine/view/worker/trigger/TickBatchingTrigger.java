@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.trigger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Trigger that batches market data ticks, trading throughput against latency.
+ * <p>
+ * A cycle is forced once either a number of relevant ticks have arrived since the last cycle, or the oldest of those ticks has waited for long enough that a cycle must start now for its result to
+ * be available within the latency budget. Cycles are otherwise prevented for as long as ticks are being batched. The time a cycle takes is learnt from the durations reported to
+ * {@link #cycleCompleted}, and is used both to bring the latency deadline forward and to hold off the next cycle until the previous one would be expected to have finished.
+ * <p>
+ * The market data thread reports ticks with {@link #ticked}; the other methods are called by the view process worker. The arrival time of the first tick in a batch is always set before the tick is
+ * counted, so the worker never sees pending ticks without a deadline.
+ */
+public class TickBatchingTrigger implements ViewCycleTrigger {
+
+  private static final long NANOS_PER_MILLISECOND = 1000000;
+
+  private static final long NO_TICK = Long.MIN_VALUE;
+
+  private final int _batchSize;
+  private final long _latencyBudgetNanos;
+
+  private final AtomicInteger _pendingTicks = new AtomicInteger();
+  private final AtomicLong _firstTickNanos = new AtomicLong(NO_TICK);
+  private long _lastCycleNanos = Long.MIN_VALUE;
+  private volatile long _expectedCycleNanos;
+
+  /**
+   * Creates a new trigger.
+   *
+   * @param batchSize the number of ticks that will force a cycle, or zero to only force cycles when the latency budget expires
+   * @param latencyBudgetMillis the time from a tick arriving to the results reflecting it, in milliseconds
+   */
+  public TickBatchingTrigger(final int batchSize, final long latencyBudgetMillis) {
+    ArgumentChecker.notNegative(batchSize, "batchSize");
+    ArgumentChecker.notNegativeOrZero(latencyBudgetMillis, "latencyBudgetMillis");
+    _batchSize = batchSize;
+    _latencyBudgetNanos = latencyBudgetMillis * NANOS_PER_MILLISECOND;
+  }
+
+  public int getBatchSize() {
+    return _batchSize;
+  }
+
+  public long getLatencyBudgetMillis() {
+    return _latencyBudgetNanos / NANOS_PER_MILLISECOND;
+  }
+
+  /**
+   * Returns the learnt duration of a cycle.
+   *
+   * @return the expected cycle duration, in nanoseconds
+   */
+  public long getExpectedCycleNanos() {
+    return _expectedCycleNanos;
+  }
+
+  /**
+   * Notes the arrival of market data ticks that are relevant to the view.
+   *
+   * @param tickCount the number of ticks
+   * @param tickTimeNanos the nano time the ticks arrived
+   * @return true if the trigger state has changed and the trigger should be queried again, false otherwise
+   */
+  public boolean ticked(final int tickCount, final long tickTimeNanos) {
+    if (tickCount <= 0) {
+      return false;
+    }
+    // Claim the first tick time before the ticks become visible to the worker
+    _firstTickNanos.compareAndSet(NO_TICK, tickTimeNanos);
+    final int previous = _pendingTicks.getAndAdd(tickCount);
+    if (previous == 0) {
+      // A latency deadline now applies; the claim above may have lost to a time the worker was about to clear
+      _firstTickNanos.compareAndSet(NO_TICK, tickTimeNanos);
+      return true;
+    }
+    return (_batchSize > 0) && (previous < _batchSize) && (previous + tickCount >= _batchSize);
+  }
+
+  /**
+   * Notes the duration of a cycle.
+   * <p>
+   * This is the time from the start of execution to the end of execution. It excludes the preparation of the cycle, which with pipelined execution overlaps the execution of the previous cycle
+   * and so does not delay results. With pipelined execution this is called from the thread completing the cycle, after any preparation of the next cycle has already started.
+   *
+   * @param durationNanos the time taken to execute the cycle, in nanoseconds
+   */
+  public void cycleCompleted(final long durationNanos) {
+    final long expected = _expectedCycleNanos;
+    if (expected == 0) {
+      _expectedCycleNanos = durationNanos;
+    } else {
+      _expectedCycleNanos = (expected * 3 + durationNanos) >> 2;
+    }
+  }
+
+  @Override
+  public ViewCycleTriggerResult query(final long cycleTimeNanos) {
+    final int pendingTicks = _pendingTicks.get();
+    if (pendingTicks == 0) {
+      // Nothing to batch; leave it to the other triggers
+      return new ViewCycleTriggerResult((ViewCycleEligibility) null);
+    }
+    final long expectedCycleNanos = _expectedCycleNanos;
+    long firstTickNanos = _firstTickNanos.get();
+    if (firstTickNanos == NO_TICK) {
+      // The ticks are still being counted; they can't have arrived before now
+      firstTickNanos = cycleTimeNanos;
+    }
+    final long deadlineNanos = firstTickNanos + Math.max(_latencyBudgetNanos - expectedCycleNanos, 0);
+    final boolean batchFull = (_batchSize > 0) && (pendingTicks >= _batchSize);
+    if (!batchFull && (cycleTimeNanos < deadlineNanos)) {
+      return ViewCycleTriggerResult.preventUntil(deadlineNanos);
+    }
+    if (_lastCycleNanos != Long.MIN_VALUE) {
+      final long previousCycleEndNanos = _lastCycleNanos + expectedCycleNanos;
+      if (cycleTimeNanos < previousCycleEndNanos) {
+        return ViewCycleTriggerResult.preventUntil(previousCycleEndNanos);
+      }
+    }
+    return new ViewCycleTriggerResult(ViewCycleEligibility.FORCE, ViewCycleType.DELTA);
+  }
+
+  @Override
+  public void cycleTriggered(final long cycleTimeNanos, final ViewCycleType cycleType) {
+    // The cycle's snapshot will include the pending ticks; the deadline is cleared first so that a tick counted after it claims a new one
+    _firstTickNanos.set(NO_TICK);
+    _pendingTicks.set(0);
+    _lastCycleNanos = cycleTimeNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "TickBatchingTrigger[batchSize=" + _batchSize + ", latencyBudgetNanos=" + _latencyBudgetNanos + ", pendingTicks=" + _pendingTicks.get() + ", expectedCycleNanos="
+        + _expectedCycleNanos + "]";
+  }
+
+}
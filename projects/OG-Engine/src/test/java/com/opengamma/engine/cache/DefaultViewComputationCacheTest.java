@@ -8,6 +8,7 @@ package com.opengamma.engine.cache;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -15,9 +16,13 @@ import java.util.Collection;
 import java.util.List;
 
 import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeSerializer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueProperties;
@@ -81,6 +86,94 @@ public class DefaultViewComputationCacheTest {
     assertPutGetCycle(3.14, 4 + 8, CacheSelectHint.allPrivate());
   }
 
+  @Test
+  public void testPutGetCycle_doubleArray() {
+    final ValueSpecification valueSpec = new ValueSpecification("foo", ComputationTargetSpecification.NULL,
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+    final double[] expected = new double[] {1.0, 2.0, 3.0 };
+    _viewComputationCache.putSharedValue(new ComputedValue(valueSpec, expected));
+    assertTrue(Arrays.equals(expected, (double[]) _viewComputationCache.getValue(valueSpec)));
+  }
+
+  @Test
+  public void testPutGetCycle_doubleArray2D() {
+    final ValueSpecification valueSpec = new ValueSpecification("foo", ComputationTargetSpecification.NULL,
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+    final double[][] expected = new double[][] { {1.0, 2.0, 3.0 }, {4.0, 5.0, 6.0 } };
+    _viewComputationCache.putPrivateValue(new ComputedValue(valueSpec, expected));
+    assertTrue(Arrays.deepEquals(expected, (double[][]) _viewComputationCache.getValue(valueSpec)));
+    // Ragged arrays are declined by the codec and go through the normal serialization
+    final double[][] ragged = new double[][] { {1.0 }, {2.0, 3.0 } };
+    _viewComputationCache.putPrivateValue(new ComputedValue(valueSpec, ragged));
+    assertTrue(Arrays.deepEquals(ragged, (double[][]) _viewComputationCache.getValue(valueSpec)));
+  }
+
+  @Test
+  public void testDoubleArray2DCodecDeclinesNullRows() {
+    final ValueCodecRegistry codecs = new ValueCodecRegistry();
+    final FudgeSerializer serializer = new FudgeSerializer(FudgeContext.GLOBAL_DEFAULT);
+    assertNull(codecs.encode(serializer, new double[][] {null, {1.0 } }));
+    assertNull(codecs.encode(serializer, new double[][] { {1.0 }, null }));
+    assertNotNull(codecs.encode(serializer, new double[][] { {1.0 }, {2.0 } }));
+  }
+
+  private static final class BeanCodec implements ValueCodec<Bean> {
+
+    @Override
+    public Class<Bean> getValueClass() {
+      return Bean.class;
+    }
+
+    @Override
+    public boolean encode(final MutableFudgeMsg message, final Bean value) {
+      message.add(null, 0, new double[] {value.getFoo(), value.getBar() });
+      return true;
+    }
+
+    @Override
+    public Bean decode(final FudgeMsg message) {
+      final double[] data = (double[]) message.getValue(0);
+      final Bean bean = new Bean();
+      bean.setFoo(data[0]);
+      bean.setBar(data[1]);
+      return bean;
+    }
+
+  }
+
+  @Test
+  public void testPutGetCycle_codec() {
+    final ValueCodecRegistry codecs = new ValueCodecRegistry();
+    codecs.register(ValueCodecRegistry.FIRST_USER_CODEC, new BeanCodec());
+    _viewComputationCache.setValueCodecs(codecs);
+    final Bean bean = new Bean();
+    bean.setFoo(42.0);
+    bean.setBar(-1.0);
+    final ValueSpecification valueSpec = new ValueSpecification("foo", ComputationTargetSpecification.NULL,
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+    final ComputedValue value = new ComputedValue(valueSpec, bean);
+    _viewComputationCache.putSharedValue(value);
+    assertEquals(bean, _viewComputationCache.getValue(valueSpec));
+    // Much smaller than the 96 bytes of the reflection based encoding
+    assertTrue(_viewComputationCache.estimateValueSize(value) < 40);
+  }
+
+  @Test(expectedExceptions = OpenGammaRuntimeException.class)
+  public void testGetValue_unregisteredCodec() {
+    final ValueCodecRegistry codecs = new ValueCodecRegistry();
+    codecs.register(ValueCodecRegistry.FIRST_USER_CODEC, new BeanCodec());
+    _viewComputationCache.setValueCodecs(codecs);
+    final Bean bean = new Bean();
+    bean.setFoo(42.0);
+    bean.setBar(-1.0);
+    final ValueSpecification valueSpec = new ValueSpecification("foo", ComputationTargetSpecification.NULL,
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+    _viewComputationCache.putSharedValue(new ComputedValue(valueSpec, bean));
+    // A reader without the codec must fail rather than return the raw message
+    _viewComputationCache.setValueCodecs(new ValueCodecRegistry());
+    _viewComputationCache.getValue(valueSpec);
+  }
+
   public static final class Bean {
     private double _foo;
     private double _bar;
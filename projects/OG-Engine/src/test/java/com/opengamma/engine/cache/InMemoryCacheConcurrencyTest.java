@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests {@link InMemoryBinaryDataStore} and {@link InMemoryIdentifierMap} with increasing numbers of threads
+ * concurrently reading and writing the same keys.
+ * <p>
+ * Every value read must be one that was written for that key, every thread must see its own writes, and all
+ * threads must agree on the identifiers allocated. This checks correctness only; throughput is not measured.
+ */
+@Test(groups = TestGroup.UNIT_SLOW)
+public class InMemoryCacheConcurrencyTest {
+
+  private static final int[] THREADS = new int[] {1, 2, 4, 8, 16, 32 };
+  private static final int OPERATIONS = 200000;
+  private static final int SPECIFICATIONS = 10000;
+
+  private static ValueSpecification getValueSpec(final int i) {
+    return new ValueSpecification("Value", ComputationTargetSpecification.of(UniqueId.of("Test", Integer.toString(i))),
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "mockFunctionId").get());
+  }
+
+  private static void run(final int threads, final Callable<Void> task) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(task));
+      }
+      for (Future<Void> future : futures) {
+        // Rethrows any assertion failure from the worker thread
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Encodes the identifier into the value so that a reader can check it didn't get another key's data.
+   */
+  private static byte[] value(final long identifier, final int writer, final int length) {
+    final byte[] data = new byte[9 + length];
+    for (int i = 0; i < 8; i++) {
+      data[i] = (byte) (identifier >>> (i * 8));
+    }
+    data[8] = (byte) writer;
+    Arrays.fill(data, 9, data.length, (byte) writer);
+    return data;
+  }
+
+  private static void assertValue(final byte[] data, final long identifier) {
+    assertTrue(data.length >= 9);
+    long decoded = 0;
+    for (int i = 0; i < 8; i++) {
+      decoded |= (data[i] & 0xFFL) << (i * 8);
+    }
+    assertEquals(decoded, identifier);
+    for (int i = 9; i < data.length; i++) {
+      assertEquals(data[i], data[8]);
+    }
+  }
+
+  public void binaryDataStore() throws Exception {
+    for (final int threads : THREADS) {
+      final InMemoryBinaryDataStore store = new InMemoryBinaryDataStore();
+      final AtomicInteger nextWriter = new AtomicInteger();
+      final CyclicBarrier start = new CyclicBarrier(threads);
+      run(threads, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          final int writer = nextWriter.getAndIncrement();
+          // Private keys, above the shared range, check that a thread always reads back its own writes
+          final long privateBase = (long) (writer + 1) << 32;
+          start.await();
+          for (int i = 0; i < OPERATIONS; i++) {
+            // Shared keys are written and read by all threads at once, with varying value lengths
+            if ((i & 3) == 0) {
+              // Each thread writes every shared key at least once
+              final long shared = ((i >> 2) + writer) % SPECIFICATIONS;
+              store.put(shared, value(shared, writer, i & 15));
+            } else {
+              final long shared = (i * 31L + writer) % SPECIFICATIONS;
+              final byte[] data = store.get(shared);
+              if (data != null) {
+                assertValue(data, shared);
+              }
+            }
+            final long own = privateBase + (i % SPECIFICATIONS);
+            final byte[] written = value(own, writer, i & 7);
+            store.put(own, written);
+            assertTrue(Arrays.equals(store.get(own), written));
+          }
+          return null;
+        }
+      });
+      for (long identifier = 0; identifier < SPECIFICATIONS; identifier++) {
+        final byte[] data = store.get(identifier);
+        assertNotNull(data, "Missing " + identifier);
+        assertValue(data, identifier);
+      }
+      for (int writer = 0; writer < threads; writer++) {
+        final long privateBase = (long) (writer + 1) << 32;
+        for (int i = 0; i < SPECIFICATIONS; i++) {
+          final byte[] data = store.get(privateBase + i);
+          assertNotNull(data);
+          assertValue(data, privateBase + i);
+          assertEquals(data[8], (byte) writer);
+        }
+      }
+      store.delete();
+    }
+  }
+
+  public void identifierMap() throws Exception {
+    final ValueSpecification[] specs = new ValueSpecification[SPECIFICATIONS];
+    for (int i = 0; i < SPECIFICATIONS; i++) {
+      specs[i] = getValueSpec(i);
+    }
+    for (final int threads : THREADS) {
+      final InMemoryIdentifierMap map = new InMemoryIdentifierMap();
+      final long[][] allocated = new long[threads][SPECIFICATIONS];
+      final AtomicInteger nextThread = new AtomicInteger();
+      final CyclicBarrier start = new CyclicBarrier(threads);
+      run(threads, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          final long[] identifiers = allocated[nextThread.getAndIncrement()];
+          start.await();
+          // Every thread works over the same specifications so that identifier allocation races
+          for (int i = 0; i < OPERATIONS; i++) {
+            final int index = i % SPECIFICATIONS;
+            final ValueSpecification spec = specs[index];
+            final long identifier = map.getIdentifier(spec);
+            assertEquals(map.getValueSpecification(identifier), spec);
+            if (i < SPECIFICATIONS) {
+              identifiers[index] = identifier;
+            } else {
+              // A specification's identifier never changes once allocated
+              assertEquals(identifier, identifiers[index]);
+            }
+          }
+          return null;
+        }
+      });
+      // All threads must have been given the same identifier for each specification, and no identifier is shared
+      final Set<Long> distinct = new HashSet<Long>();
+      for (int i = 0; i < SPECIFICATIONS; i++) {
+        final long identifier = allocated[0][i];
+        for (int thread = 1; thread < threads; thread++) {
+          assertEquals(allocated[thread][i], identifier);
+        }
+        assertEquals(map.getIdentifier(specs[i]), identifier);
+        assertEquals(map.getValueSpecification(identifier), specs[i]);
+        distinct.add(identifier);
+      }
+      assertEquals(distinct.size(), SPECIFICATIONS);
+    }
+  }
+
+}
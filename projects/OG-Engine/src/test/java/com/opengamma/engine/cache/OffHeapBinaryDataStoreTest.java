@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link OffHeapBinaryDataStore} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class OffHeapBinaryDataStoreTest {
+
+  private static byte[] data(final Random random, final int length) {
+    final byte[] data = new byte[length];
+    random.nextBytes(data);
+    return data;
+  }
+
+  private void putAndGet(final OffHeapBinaryDataStore store) {
+    final Random random = new Random(1L);
+    final Map<Long, byte[]> expected = new HashMap<Long, byte[]>();
+    for (long i = 0; i < 1000; i++) {
+      final byte[] data = data(random, random.nextInt(200));
+      store.put(i, data);
+      expected.put(i, data);
+    }
+    // Oversize value lands in a slab of its own, without closing the current slab
+    final byte[] large = data(random, 5000);
+    store.put(1000L, large);
+    expected.put(1000L, large);
+    store.put(1001L, new byte[0]);
+    expected.put(1001L, new byte[0]);
+    for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+      assertTrue(Arrays.equals(store.get(entry.getKey()), entry.getValue()));
+    }
+    final Map<Long, byte[]> bulk = store.get(Arrays.asList(0L, 1000L, 2000L));
+    assertEquals(bulk.size(), 2);
+    assertTrue(Arrays.equals(bulk.get(1000L), large));
+    assertNull(store.get(2000L));
+    assertTrue(store.getSlabCount() > 1);
+  }
+
+  public void testDirect() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore(4096, null, null);
+    putAndGet(store);
+    store.delete();
+    assertNull(store.get(0L));
+    assertEquals(store.getSlabCount(), 0);
+  }
+
+  public void testMapped() throws IOException {
+    final File folder = new File(System.getProperty("java.io.tmpdir"), "OffHeapBinaryDataStoreTest-" + System.currentTimeMillis());
+    folder.mkdirs();
+    try {
+      final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore(4096, folder, "testMapped");
+      putAndGet(store);
+      assertEquals(folder.listFiles().length, store.getSlabCount());
+      store.delete();
+      assertEquals(store.getSlabCount(), 0);
+      assertEquals(folder.listFiles().length, 0);
+    } finally {
+      FileUtils.deleteDirectory(folder);
+    }
+  }
+
+  public void testBulkPut() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore();
+    final Map<Long, byte[]> data = new HashMap<Long, byte[]>();
+    data.put(1L, new byte[] {1, 2, 3 });
+    data.put(2L, new byte[] {4, 5 });
+    store.put(data);
+    assertTrue(Arrays.equals(store.get(1L), new byte[] {1, 2, 3 }));
+    assertTrue(Arrays.equals(store.get(2L), new byte[] {4, 5 }));
+    assertEquals(store.getAllocatedBytes(), OffHeapBinaryDataStore.DEFAULT_SLAB_SIZE);
+    store.delete();
+  }
+
+  public void testReplace() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore(4096, null, null);
+    store.put(1L, new byte[] {1, 2, 3 });
+    store.put(2L, new byte[] {4, 5 });
+    // Same size or smaller values reuse the original's space
+    store.put(1L, new byte[] {6, 7, 8 });
+    store.put(1L, new byte[] {9 });
+    assertTrue(Arrays.equals(store.get(1L), new byte[] {9 }));
+    assertTrue(Arrays.equals(store.get(2L), new byte[] {4, 5 }));
+    for (int i = 0; i < 10000; i++) {
+      store.put(2L, new byte[] {(byte) i, 5 });
+    }
+    assertEquals(store.getSlabCount(), 1);
+    // A larger value is appended
+    store.put(1L, new byte[] {1, 2, 3, 4 });
+    assertTrue(Arrays.equals(store.get(1L), new byte[] {1, 2, 3, 4 }));
+    assertTrue(Arrays.equals(store.get(2L), new byte[] {(byte) 9999, 5 }));
+    store.delete();
+  }
+
+  public void testReplaceKeepsCapacity() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore(64, null, null);
+    final byte[] large = new byte[40];
+    Arrays.fill(large, (byte) 1);
+    store.put(1L, large);
+    store.put(1L, new byte[] {2 });
+    assertTrue(Arrays.equals(store.get(1L), new byte[] {2 }));
+    // Growing back to the original size reuses the original slot rather than appending to a new slab
+    store.put(1L, large);
+    assertTrue(Arrays.equals(store.get(1L), large));
+    assertEquals(store.getSlabCount(), 1);
+    store.delete();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testFactorySlabSize() {
+    new OffHeapBinaryDataStoreFactory().setSlabSize(OffHeapBinaryDataStore.HEADER_SIZE);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testPutAfterDelete() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore();
+    store.delete();
+    store.put(1L, new byte[1]);
+  }
+
+}
@@ -284,4 +284,84 @@ public class RemoteCacheRequestResponseTest {
     assertNull(outputValue);
   }
 
+  @Test(timeOut = 10000l)
+  public void chunkedPutLoad() {
+    InMemoryViewComputationCacheSource cache = new InMemoryViewComputationCacheSource(s_fudgeContext);
+    ViewComputationCacheServer server = new ViewComputationCacheServer(cache);
+    DirectFudgeConnection conduit = new DirectFudgeConnection(cache.getFudgeContext());
+    conduit.connectEnd2(server);
+    RemoteCacheClient client = new RemoteCacheClient(conduit.getEnd1());
+    RemoteFudgeMessageStore dataStore = new RemoteFudgeMessageStore(client, new ViewComputationCacheKey(
+        UniqueId.of("Test", "ViewCycle1"), "Config1"));
+    dataStore.setMaxBatchSize(7);
+    final Map<Long, FudgeMsg> inputMap = new HashMap<Long, FudgeMsg>();
+    for (long i = 0; i < 100; i++) {
+      final MutableFudgeMsg inputValue = s_fudgeContext.newMessage();
+      inputValue.add(0, Long.toString(i));
+      inputMap.put(i, inputValue);
+    }
+    dataStore.put(inputMap);
+    final List<Long> identifiers = new ArrayList<Long>();
+    for (long i = 0; i < 110; i++) {
+      identifiers.add(i);
+    }
+    final Map<Long, FudgeMsg> outputMap = dataStore.get(identifiers);
+    assertEquals(100, outputMap.size());
+    for (long i = 0; i < 100; i++) {
+      assertEquals(inputMap.get(i).getAllFields(), outputMap.get(i).getAllFields());
+    }
+  }
+
+  @Test(timeOut = 30000l)
+  public void multiThreadCoalescedLoad() throws InterruptedException {
+    InMemoryViewComputationCacheSource cache = new InMemoryViewComputationCacheSource(s_fudgeContext);
+    ViewComputationCacheServer server = new ViewComputationCacheServer(cache);
+    DirectFudgeConnection conduit = new DirectFudgeConnection(cache.getFudgeContext());
+    conduit.connectEnd2(server);
+    RemoteCacheClient client = new RemoteCacheClient(conduit.getEnd1());
+    final RemoteFudgeMessageStore dataStore = new RemoteFudgeMessageStore(client, new ViewComputationCacheKey(
+        UniqueId.of("Test", "ViewCycle1"), "Config1"));
+    dataStore.setMaxOutstandingGets(1);
+    final Map<Long, FudgeMsg> inputMap = new HashMap<Long, FudgeMsg>();
+    for (long i = 0; i < 1000; i++) {
+      final MutableFudgeMsg inputValue = s_fudgeContext.newMessage();
+      inputValue.add(0, Long.toString(i));
+      inputMap.put(i, inputValue);
+    }
+    dataStore.put(inputMap);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    final List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; t++) {
+      final int offset = t * 50;
+      final Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            // Overlapping ranges so that some identifiers are already being fetched for another thread
+            for (int repeat = 0; repeat < 20; repeat++) {
+              final List<Long> identifiers = new ArrayList<Long>();
+              for (long i = offset; i < offset + 200; i++) {
+                identifiers.add(i);
+              }
+              final Map<Long, FudgeMsg> outputMap = dataStore.get(identifiers);
+              assertEquals(200, outputMap.size());
+              for (Long identifier : identifiers) {
+                assertEquals(inputMap.get(identifier).getAllFields(), outputMap.get(identifier).getAllFields());
+              }
+            }
+          } catch (Throwable e) {
+            s_logger.error("Failed", e);
+            failed.set(true);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse("One thread failed. Check logs.", failed.get());
+  }
+
 }
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.calcnode;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.calcnode.stats.DiscardingInvocationStatisticsGatherer;
+import com.opengamma.util.metric.OpenGammaMetricRegistry;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link FunctionInvocationMetrics} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class FunctionInvocationMetricsTest {
+
+  private static void invoke(final String functionIdentifier) {
+    final DeferredInvocationStatistics statistics = new DeferredInvocationStatistics(new DiscardingInvocationStatisticsGatherer(), "Default", functionIdentifier);
+    statistics.inputsFetched();
+    statistics.beginInvocation();
+    statistics.endInvocation();
+    statistics.outputsWritten();
+  }
+
+  public void testRegistered() {
+    final FunctionInvocationMetrics metrics = FunctionInvocationMetrics.of("FunctionInvocationMetricsTest.testRegistered");
+    assertSame(metrics, FunctionInvocationMetrics.of("FunctionInvocationMetricsTest.testRegistered"));
+    assertSame(metrics.getInvokeTimer(), OpenGammaMetricRegistry.getDetailedInstance().getTimers().get("FunctionInvocationMetricsTest.testRegistered.invoke"));
+    assertSame(metrics.getInputsHistogram(), OpenGammaMetricRegistry.getDetailedInstance().getHistograms().get("FunctionInvocationMetricsTest.testRegistered.inputs"));
+    assertSame(metrics.getOutputsHistogram(), OpenGammaMetricRegistry.getDetailedInstance().getHistograms().get("FunctionInvocationMetricsTest.testRegistered.outputs"));
+    assertSame(metrics.getTotalHistogram(), OpenGammaMetricRegistry.getDetailedInstance().getHistograms().get("FunctionInvocationMetricsTest.testRegistered.total"));
+  }
+
+  public void testToggle() {
+    final String functionIdentifier = "FunctionInvocationMetricsTest.testToggle";
+    final FunctionInvocationMetrics metrics = FunctionInvocationMetrics.of(functionIdentifier);
+    final boolean enabled = FunctionInvocationMetrics.isEnabled();
+    try {
+      FunctionInvocationMetrics.setEnabled(false);
+      invoke(functionIdentifier);
+      assertEquals(1, metrics.getInvokeTimer().getCount());
+      assertEquals(0, metrics.getInputsHistogram().getCount());
+      assertEquals(0, metrics.getOutputsHistogram().getCount());
+      assertEquals(0, metrics.getTotalHistogram().getCount());
+      FunctionInvocationMetrics.setEnabled(true);
+      invoke(functionIdentifier);
+      assertEquals(2, metrics.getInvokeTimer().getCount());
+      assertEquals(1, metrics.getInputsHistogram().getCount());
+      assertEquals(1, metrics.getOutputsHistogram().getCount());
+      assertEquals(1, metrics.getTotalHistogram().getCount());
+    } finally {
+      FunctionInvocationMetrics.setEnabled(enabled);
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.calcnode;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.cache.ViewComputationCache;
+import com.opengamma.engine.test.CalculationNodeUtils;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.test.TestCalculationNode;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.test.TestLifecycle;
+
+/**
+ * Tests the {@link InputPrefetcher} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class InputPrefetcherTest {
+
+  private static final Executor INLINE = new Executor() {
+    @Override
+    public void execute(final Runnable command) {
+      command.run();
+    }
+  };
+
+  private static ValueSpecification getInput(final MockFunction mockFunction) {
+    return CalculationNodeUtils.getMockFunctionInputs(mockFunction).iterator().next();
+  }
+
+  public void prefetchAndExecute() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+      final TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+      TestLifecycle.register(calcNode);
+      final CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+      final ViewComputationCache cache = calcNode.getCache(calcJob.getSpecification());
+      cache.putSharedValue(new ComputedValue(getInput(mockFunction), "Just an input object"));
+      final InputPrefetcher prefetcher = new InputPrefetcher(calcNode.getCacheSource());
+      prefetcher.prefetch(calcJob, Collections.<ValueSpecification>emptySet(), INLINE);
+      assertTrue(prefetcher.getHeldBytes() > 0);
+      final InputPrefetcher.PrefetchedInputs inputs = prefetcher.take(calcJob.getSpecification().getJobId());
+      assertNotNull(inputs);
+      assertEquals(1, inputs.size());
+      assertEquals(0, prefetcher.getHeldBytes());
+      assertNull(prefetcher.take(calcJob.getSpecification().getJobId()));
+      final CalculationJobResult jobResult = calcNode.executeJob(calcJob, inputs);
+      assertEquals(InvocationResult.SUCCESS, jobResult.getResultItems().get(0).getResult());
+      // The node doesn't hold on to the values after the job
+      assertNull(calcNode.getPrefetchedInputs());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  public void fetchQueuedAfterTake() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+      final TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+      TestLifecycle.register(calcNode);
+      final CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+      final ViewComputationCache cache = calcNode.getCache(calcJob.getSpecification());
+      cache.putSharedValue(new ComputedValue(getInput(mockFunction), "Just an input object"));
+      final InputPrefetcher prefetcher = new InputPrefetcher(calcNode.getCacheSource());
+      final List<Runnable> queued = new ArrayList<Runnable>();
+      prefetcher.prefetch(calcJob, Collections.<ValueSpecification>emptySet(), new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+          queued.add(command);
+        }
+      });
+      final InputPrefetcher.PrefetchedInputs inputs = prefetcher.take(calcJob.getSpecification().getJobId());
+      assertEquals(1, queued.size());
+      queued.get(0).run();
+      assertEquals(0, inputs.size());
+      assertEquals(0, prefetcher.getHeldBytes());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  public void pendingNotPrefetched() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+      final TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+      TestLifecycle.register(calcNode);
+      final CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+      final InputPrefetcher prefetcher = new InputPrefetcher(calcNode.getCacheSource());
+      prefetcher.prefetch(calcJob, Collections.singleton(getInput(mockFunction)), INLINE);
+      assertNull(prefetcher.take(calcJob.getSpecification().getJobId()));
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  public void budgetExhausted() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+      final TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+      TestLifecycle.register(calcNode);
+      final CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+      final ViewComputationCache cache = calcNode.getCache(calcJob.getSpecification());
+      cache.putSharedValue(new ComputedValue(getInput(mockFunction), "Just an input object"));
+      final InputPrefetcher prefetcher = new InputPrefetcher(calcNode.getCacheSource(), 1L);
+      prefetcher.prefetch(calcJob, Collections.<ValueSpecification>emptySet(), INLINE);
+      assertEquals(0, prefetcher.getHeldBytes());
+      final InputPrefetcher.PrefetchedInputs inputs = prefetcher.take(calcJob.getSpecification().getJobId());
+      assertEquals(0, inputs.size());
+      // Values that weren't prefetched are fetched from the cache by the node
+      final CalculationJobResult jobResult = calcNode.executeJob(calcJob, inputs);
+      assertEquals(InvocationResult.SUCCESS, jobResult.getResultItems().get(0).getResult());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  public void discard() throws Exception {
+    TestLifecycle.begin();
+    try {
+      final MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+      final TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+      TestLifecycle.register(calcNode);
+      final CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+      final ViewComputationCache cache = calcNode.getCache(calcJob.getSpecification());
+      cache.putSharedValue(new ComputedValue(getInput(mockFunction), "Just an input object"));
+      final InputPrefetcher prefetcher = new InputPrefetcher(calcNode.getCacheSource());
+      prefetcher.prefetch(calcJob, Collections.<ValueSpecification>emptySet(), INLINE);
+      prefetcher.discard(calcJob.getSpecification().getJobId());
+      assertEquals(0, prefetcher.getHeldBytes());
+      assertNull(prefetcher.take(calcJob.getSpecification().getJobId()));
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+}
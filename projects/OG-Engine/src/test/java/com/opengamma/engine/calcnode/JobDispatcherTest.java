@@ -109,6 +109,82 @@ public class JobDispatcherTest {
     assertNull(jobInvoker._callback);
   }
 
+  @Test
+  public void registerInvokerWithJobPendingWorkStealing() {
+    s_logger.info("registerInvokerWithJobPendingWorkStealing");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setWorkStealing(true);
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    final CalculationJob job = createTestJob();
+    jobDispatcher.dispatchJob(job, result);
+    assertNull(result.getResult());
+    final TestJobInvoker jobInvoker = new TestJobInvoker("Test");
+    jobDispatcher.registerJobInvoker(jobInvoker);
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals(job.getSpecification(), jobResult.getSpecification());
+    assertNull(jobInvoker._callback);
+  }
+
+  @Test
+  public void stealFromBusyInvoker() {
+    s_logger.info("stealFromBusyInvoker");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setWorkStealing(true);
+    final TestJobInvoker node1 = new TestJobInvoker("1");
+    final TestJobInvoker node2 = new TestJobInvoker("2");
+    node1._disabled = true;
+    node2._disabled = true;
+    jobDispatcher.registerJobInvoker(node1);
+    jobDispatcher.registerJobInvoker(node2);
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    final CalculationJob job = createTestJob();
+    jobDispatcher.dispatchJob(job, result);
+    assertNull(result.getResult());
+    // Both nodes have refused the job and been unregistered, leaving it unassigned
+    assertNotNull(node1._callback);
+    assertNotNull(node2._callback);
+    node1._disabled = false;
+    jobDispatcher.registerJobInvoker(node1);
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals("1", jobResult.getComputeNodeId());
+  }
+
+  @Test
+  public void unregisterRefusingInvokerWorkStealing() {
+    s_logger.info("unregisterRefusingInvokerWorkStealing");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setWorkStealing(true);
+    final TestJobInvoker node1 = new TestJobInvoker("1");
+    final TestJobInvoker node2 = new TestJobInvoker("2");
+    jobDispatcher.registerJobInvoker(node1);
+    jobDispatcher.registerJobInvoker(node2);
+    assertEquals(2, jobDispatcher.getInvokers().size());
+    node1._disabled = true;
+    node2._disabled = true;
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    final CalculationJob job = createTestJob();
+    jobDispatcher.dispatchJob(job, result);
+    assertNull(result.getResult());
+    // Both nodes refused the job and were unregistered
+    assertTrue(jobDispatcher.getInvokers().isEmpty());
+    // Node 1 never returns; the job must not be stranded on its queue
+    node2._disabled = false;
+    jobDispatcher.registerJobInvoker(node2);
+    final CalculationJobResult jobResult = result.waitForResult(TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals("2", jobResult.getComputeNodeId());
+    assertEquals(1, jobDispatcher.getInvokers().size());
+    assertTrue(jobDispatcher.getInvokers().contains(node2));
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void workStealingAfterRegistration() {
+    final JobDispatcher jobDispatcher = new JobDispatcher(new TestJobInvoker("Test"));
+    jobDispatcher.setWorkStealing(true);
+  }
+
   @Test
   public void registerInvokerWithEmptyQueue() {
     s_logger.info("registerInvokerWithEmptyQueue");
@@ -159,7 +235,18 @@ public class JobDispatcherTest {
   @Test
   public void saturateInvokers() {
     s_logger.info("saturateInvokers");
+    saturateInvokers(new JobDispatcher());
+  }
+
+  @Test
+  public void saturateInvokersWorkStealing() {
+    s_logger.info("saturateInvokersWorkStealing");
     final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setWorkStealing(true);
+    saturateInvokers(jobDispatcher);
+  }
+
+  private void saturateInvokers(final JobDispatcher jobDispatcher) {
     final JobInvoker[] jobInvokers = new JobInvoker[3];
     for (int i = 0; i < jobInvokers.length; i++) {
       jobDispatcher.registerJobInvoker(new AbstractJobInvoker("" + (i + 1)) {
@@ -378,6 +465,27 @@ public class JobDispatcherTest {
     }
   }
 
+  @Test(invocationCount = 5, successPercentage = 19)
+  public void testJobTimeoutFailureWorkStealing() {
+    s_logger.info("testJobTimeoutFailureWorkStealing");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    try {
+      jobDispatcher.setWorkStealing(true);
+      jobDispatcher.setMaxJobExecutionTime(TIMEOUT);
+      jobDispatcher.setMaxJobAttempts(1);
+      final TestJobResultReceiver result = new TestJobResultReceiver();
+      jobDispatcher.dispatchJob(createTestJob(), result);
+      assertNull(result.getResult());
+      final BlockingJobInvoker blockingInvoker = new BlockingJobInvoker(2 * TIMEOUT);
+      jobDispatcher.registerJobInvoker(blockingInvoker);
+      CalculationJobResult jobResult = result.waitForResult(2 * TIMEOUT);
+      assertNotNull(jobResult);
+      assertEquals(jobDispatcher.getJobFailureNodeId(), jobResult.getComputeNodeId());
+    } finally {
+      jobDispatcher.getJobTimeoutExecutor().shutdownNow();
+    }
+  }
+
   @Test(invocationCount = 5, successPercentage = 19)
   public void testJobTimeoutSuccess() {
     s_logger.info("testJobTimeoutSuccess");
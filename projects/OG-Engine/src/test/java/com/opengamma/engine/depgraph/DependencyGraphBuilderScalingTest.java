@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MapComputationTargetResolver;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.marketdata.availability.FixedMarketDataAvailabilityProvider;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.TestGroup;
+import com.opengamma.util.test.TestLifecycle;
+
+/**
+ * Benchmarks the {@link DependencyGraphBuilder} with increasing numbers of threads for each of the run queue implementations.
+ * <p>
+ * Each target needs a chain of function applications ending in a market data value that is shared by all targets. The build time at each thread count is logged; the assertions only check that
+ * the expected graph was built.
+ */
+@Test(groups = TestGroup.UNIT_SLOW)
+public class DependencyGraphBuilderScalingTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DependencyGraphBuilderScalingTest.class);
+
+  private static final int TARGETS = 5000;
+  private static final int DEPTH = 8;
+  private static final ComputationTargetSpecification MARKET = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", "Market"));
+
+  private static int[] getThreadCounts() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    final Collection<Integer> counts = new ArrayList<Integer>();
+    for (int i = 1; i < processors; i <<= 1) {
+      counts.add(i);
+    }
+    counts.add(processors);
+    final int[] result = new int[counts.size()];
+    int i = 0;
+    for (Integer count : counts) {
+      result[i++] = count;
+    }
+    return result;
+  }
+
+  /**
+   * Produces "V[level]" on any primitive target from "V[level + 1]", or from the shared market data value at the bottom of the chain.
+   */
+  private static final class ChainFunction extends AbstractDependencyGraphBuilderTest.TestFunction {
+
+    private final int _level;
+
+    private ChainFunction(final int level) {
+      _level = level;
+    }
+
+    @Override
+    public String getShortName() {
+      return "V" + _level;
+    }
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.PRIMITIVE;
+    }
+
+    @Override
+    public boolean canApplyTo(final FunctionCompilationContext context, final ComputationTarget target) {
+      return !MARKET.getUniqueId().equals(target.getUniqueId());
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification("V" + _level, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      if (_level < DEPTH - 1) {
+        return Collections.singleton(new ValueRequirement("V" + (_level + 1), target.toSpecification()));
+      } else {
+        return Collections.singleton(new ValueRequirement("Market", MARKET));
+      }
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target, final Set<ValueRequirement> desiredValues) {
+      return null;
+    }
+
+  }
+
+  private static DependencyGraphBuilder createBuilder(final ExecutorService executor, final RunQueueFactory runQueue) {
+    final Instant now = Instant.now();
+    final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+    for (int i = 0; i < DEPTH; i++) {
+      functions.addFunction(new ChainFunction(i));
+    }
+    final FixedMarketDataAvailabilityProvider marketData = new FixedMarketDataAvailabilityProvider();
+    marketData.addAvailableData(new ValueSpecification("Market", MARKET, ValueProperties.with(ValuePropertyNames.FUNCTION, "LiveData").get()));
+    final DependencyGraphBuilder builder = new DependencyGraphBuilder(executor, runQueue);
+    builder.setMarketDataAvailabilityProvider(marketData);
+    final FunctionCompilationContext context = new FunctionCompilationContext();
+    final ComputationTargetResolver targetResolver = new MapComputationTargetResolver();
+    context.setRawComputationTargetResolver(targetResolver);
+    context.setComputationTargetResolver(targetResolver.atVersionCorrection(VersionCorrection.of(now, now)));
+    builder.setCompilationContext(context);
+    final CompiledFunctionService compilationService = new CompiledFunctionService(functions, new CachingFunctionRepositoryCompiler(), context);
+    TestLifecycle.register(compilationService);
+    compilationService.initialize();
+    builder.setFunctionResolver(new DefaultFunctionResolver(compilationService).compile(now));
+    builder.setCalculationConfigurationName("Default");
+    builder.setDisableFailureReporting(true);
+    return builder;
+  }
+
+  private static Collection<ValueRequirement> createRequirements() {
+    final Collection<ValueRequirement> requirements = new ArrayList<ValueRequirement>(TARGETS);
+    for (int i = 0; i < TARGETS; i++) {
+      requirements.add(new ValueRequirement("V0", new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", Integer.toString(i)))));
+    }
+    return requirements;
+  }
+
+  private static long build(final ExecutorService executor, final RunQueueFactory runQueue, final int threads, final Collection<ValueRequirement> requirements) {
+    final DependencyGraphBuilder builder = createBuilder(executor, runQueue);
+    // The calling thread joins in with the build
+    builder.setMaxAdditionalThreads(threads - 1);
+    final long start = System.nanoTime();
+    builder.addTarget(requirements);
+    final DependencyGraph graph = builder.getDependencyGraph();
+    final long nanos = System.nanoTime() - start;
+    assertEquals(graph.getSize(), TARGETS * DEPTH + 1);
+    final Map<ValueRequirement, ValueSpecification> terminals = builder.getValueRequirementMapping();
+    assertEquals(new HashSet<ValueRequirement>(terminals.keySet()), new HashSet<ValueRequirement>(requirements));
+    return nanos;
+  }
+
+  private void benchmark(final String name, final RunQueueFactory runQueue) {
+    TestLifecycle.begin();
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final Collection<ValueRequirement> requirements = createRequirements();
+      // Warm up
+      build(executor, runQueue, 1, requirements);
+      long baseline = 0;
+      for (final int threads : getThreadCounts()) {
+        final long nanos = build(executor, runQueue, threads, requirements);
+        if (threads == 1) {
+          baseline = nanos;
+        }
+        s_logger.info("{} - {} threads, {}ms, speedup {}", new Object[] {name, threads, nanos / 1000000, (double) baseline / (double) nanos });
+      }
+    } finally {
+      executor.shutdown();
+      TestLifecycle.end();
+    }
+  }
+
+  public void concurrentLinkedQueue() {
+    benchmark("ConcurrentLinkedQueue", RunQueueFactory.getConcurrentLinkedQueue());
+  }
+
+  public void concurrentStack() {
+    benchmark("ConcurrentStack", RunQueueFactory.getConcurrentStack());
+  }
+
+  public void workStealing() {
+    benchmark("WorkStealing", RunQueueFactory.getWorkStealing());
+  }
+
+}
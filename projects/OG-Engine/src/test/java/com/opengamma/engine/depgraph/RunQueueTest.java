@@ -7,10 +7,12 @@ package com.opengamma.engine.depgraph;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -188,4 +190,33 @@ public class RunQueueTest {
     testLIFO(RunQueueFactory.getOrdered());
   }
 
+  public void testWorkStealingRunQueue() {
+    testSpeed(RunQueueFactory.getWorkStealing());
+    testLIFO(RunQueueFactory.getWorkStealing());
+  }
+
+  public void testWorkStealingRunQueueSteal() throws Exception {
+    final RunQueue queue = RunQueueFactory.getWorkStealing().createRunQueue();
+    final ContextRunnable r1 = runnable();
+    final ContextRunnable r2 = runnable();
+    queue.add(r1);
+    queue.add(r2);
+    // Another thread takes the oldest task from this thread's deque
+    assertSame(_executor.submit(new Callable<ContextRunnable>() {
+      @Override
+      public ContextRunnable call() {
+        return queue.take();
+      }
+    }).get(), r1);
+    assertEquals(queue.size(), 1);
+    assertSame(queue.take(), r2);
+    assertTrue(queue.isEmpty());
+    assertNull(_executor.submit(new Callable<ContextRunnable>() {
+      @Override
+      public ContextRunnable call() {
+        return queue.take();
+      }
+    }).get());
+  }
+
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.function.EmptyFunctionParameters;
+import com.opengamma.engine.function.MarketDataSourcingFunction;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link DependentNodeIndex} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class DependentNodeIndexTest {
+
+  private ComputationTargetSpecification getTarget(final String name) {
+    return new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("Test", name));
+  }
+
+  /**
+   * Creates the test graph (data flows downwards - 0 & 1 are market data nodes)
+   *
+   * <pre>
+   *         0   1
+   *          \ / \
+   *           2   3
+   *            \ /
+   *             4
+   * </pre>
+   */
+  private ValueSpecification[] createValues(final TestDependencyGraphBuilder gb) {
+    final NodeBuilder n0 = gb.addNode(MarketDataSourcingFunction.INSTANCE, getTarget("0"));
+    final NodeBuilder n1 = gb.addNode(MarketDataSourcingFunction.INSTANCE, getTarget("1"));
+    final NodeBuilder n2 = gb.addNode(DependencyNodeFunctionImpl.of("Mock", EmptyFunctionParameters.INSTANCE), getTarget("2"));
+    final NodeBuilder n3 = gb.addNode(DependencyNodeFunctionImpl.of("Mock", EmptyFunctionParameters.INSTANCE), getTarget("3"));
+    final NodeBuilder n4 = gb.addNode(DependencyNodeFunctionImpl.of("Mock", EmptyFunctionParameters.INSTANCE), getTarget("4"));
+    final ValueSpecification[] values = new ValueSpecification[5];
+    values[0] = n0.addOutput("MarketValue");
+    n2.addInput(values[0]);
+    values[1] = n1.addOutput("MarketValue");
+    n2.addInput(values[1]);
+    n3.addInput(values[1]);
+    values[2] = n2.addOutput("IntermediateValue");
+    n4.addInput(values[2]);
+    values[3] = n3.addOutput("IntermediateValue");
+    n4.addInput(values[3]);
+    values[4] = n4.addTerminalOutput("TerminalValue");
+    return values;
+  }
+
+  public void testIndex() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final ValueSpecification[] values = createValues(gb);
+    final DependencyGraph graph = gb.buildGraph();
+    final DependentNodeIndex index = DependentNodeIndex.of(graph);
+    assertEquals(index.getSize(), 5);
+    assertEquals(index.getMarketDataCount(), 2);
+    for (int i = 0; i < index.getSize(); i++) {
+      final DependencyNode node = index.getNode(i);
+      assertEquals(index.getIdentifier(node), i);
+      for (int j = 0; j < node.getInputCount(); j++) {
+        // Execution order
+        assertTrue(index.getIdentifier(node.getInputNode(j)) < i);
+      }
+    }
+    for (ValueSpecification value : values) {
+      assertEquals(index.getNode(index.getProducer(value)).getOutputValue(0), value);
+    }
+    assertEquals(index.getProducer(new ValueSpecification("Missing", getTarget("0"), values[0].getProperties())), -1);
+  }
+
+  public void testMarkDependents() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final ValueSpecification[] values = createValues(gb);
+    final DependentNodeIndex index = new DependencyGraphExplorerImpl(gb.buildGraph()).getDependentNodeIndex();
+    final BitSet dirty = new BitSet();
+    dirty.set(index.getProducer(values[0]));
+    index.markDependents(dirty);
+    final BitSet expected = new BitSet();
+    expected.set(index.getProducer(values[0]));
+    expected.set(index.getProducer(values[2]));
+    expected.set(index.getProducer(values[4]));
+    assertEquals(dirty, expected);
+    dirty.clear();
+    dirty.set(index.getProducer(values[3]));
+    index.markDependents(dirty);
+    expected.clear();
+    expected.set(index.getProducer(values[3]));
+    expected.set(index.getProducer(values[4]));
+    assertEquals(dirty, expected);
+  }
+
+  public void testIndexRetained() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    createValues(gb);
+    final DependencyGraphExplorerImpl explorer = new DependencyGraphExplorerImpl(gb.buildGraph());
+    assertSame(explorer.getDependentNodeIndex(), explorer.getDependentNodeIndex());
+  }
+
+}
@@ -532,4 +532,79 @@ public class MultipleNodeExecutionPlannerTest {
     assertEquals(gatherColours(plan), 3);
   }
 
+  private int countItems(final GraphExecutionPlan plan) {
+    final Set<PlannedJob> jobs = new HashSet<PlannedJob>();
+    for (PlannedJob job : plan.getLeafJobs()) {
+      gatherColours(job, jobs);
+    }
+    int items = 0;
+    for (PlannedJob job : jobs) {
+      items += job.getItems().size();
+    }
+    return items;
+  }
+
+  /**
+   * Balancing for many nodes should give jobs too small to merge.
+   */
+  public void testBalancedManyNodes() {
+    final MultipleNodeExecutionPlanner planner = createPlanner(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    planner.setTargetNodeCount(1000);
+    final GraphExecutionPlan plan = plan(planner, graphBuilder().buildGraph(), ImmutableSet.of(_testValuex2, _testValuex3));
+    if (PRINT_GRAPHS) {
+      System.out.println("testBalancedManyNodes");
+      plan.print();
+    }
+    assertEquals(gatherColours(plan), 5);
+    assertEquals(countItems(plan), 5);
+  }
+
+  /**
+   * Balancing a chain of eight nodes for a single node should merge the chain into fewer, larger, jobs.
+   */
+  public void testBalancedChain() {
+    final TestDependencyGraphBuilder graph = new TestDependencyGraphBuilder("Default");
+    ValueSpecification previous = ValueSpecification.of("c0", ComputationTargetType.PRIMITIVE, UniqueId.of("test", "C0"), _properties);
+    NodeBuilder node = graph.addNode("MDS", previous.getTargetSpecification());
+    node.addOutput(previous);
+    final ValueSpecification marketData = previous;
+    for (int i = 1; i <= 8; i++) {
+      final ValueSpecification value = ValueSpecification.of("c" + i, ComputationTargetType.PRIMITIVE, UniqueId.of("test", "C" + i), _properties);
+      node = graph.addNode("Mock", value.getTargetSpecification());
+      node.addInput(previous);
+      if (i == 8) {
+        node.addTerminalOutput(value, value.toRequirementSpecification());
+      } else {
+        node.addOutput(value);
+      }
+      previous = value;
+    }
+    final MultipleNodeExecutionPlanner planner = createPlanner(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    planner.setTargetNodeCount(1);
+    final GraphExecutionPlan plan = plan(planner, graph.buildGraph(), ImmutableSet.of(marketData));
+    if (PRINT_GRAPHS) {
+      System.out.println("testBalancedChain");
+      plan.print();
+    }
+    final int jobs = gatherColours(plan);
+    assertTrue(jobs > 1);
+    assertTrue(jobs < 8);
+    assertEquals(countItems(plan), 8);
+  }
+
+  /**
+   * The configured cost limits still bound the balanced job costs.
+   */
+  public void testBalancedCostBounds() {
+    final MultipleNodeExecutionPlanner planner = createPlanner(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    planner.setMinimumJobCost(Long.MAX_VALUE);
+    planner.setTargetNodeCount(1000);
+    final GraphExecutionPlan plan = plan(planner, graphBuilder().buildGraph(), ImmutableSet.of(_testValuex2, _testValuex3));
+    if (PRINT_GRAPHS) {
+      System.out.println("testBalancedCostBounds");
+      plan.print();
+    }
+    assertEquals(countItems(plan), 5);
+  }
+
 }
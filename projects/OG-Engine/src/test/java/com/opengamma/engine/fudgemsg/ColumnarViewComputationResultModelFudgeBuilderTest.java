@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+import org.testng.annotations.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.calcnode.InvocationResult;
+import com.opengamma.engine.exec.DefaultAggregatedExecutionLog;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewResultEntry;
+import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel.Column;
+import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.log.LogLevel;
+import com.opengamma.util.test.AbstractFudgeBuilderTestCase;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link ColumnarViewComputationResultModel} class and its Fudge builder.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ColumnarViewComputationResultModelFudgeBuilderTest extends AbstractFudgeBuilderTestCase {
+
+  private static final ValueProperties PROPERTIES = ValueProperties.with(ValuePropertyNames.FUNCTION, "Mock").get();
+
+  private static ComputationTargetSpecification target(final int i) {
+    return new ComputationTargetSpecification(ComputationTargetType.POSITION, UniqueId.of("Position", Integer.toString(i)));
+  }
+
+  private static ComputedValueResult result(final String valueName, final int target, final Object value) {
+    return new ComputedValueResult(new ValueSpecification(valueName, target(target), PROPERTIES), value, DefaultAggregatedExecutionLog.indicatorLogMode(EnumSet.noneOf(LogLevel.class)));
+  }
+
+  private ColumnarViewComputationResultModel createModel() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.setViewProcessId(UniqueId.of("Process", "0"));
+    model.setViewCycleId(UniqueId.of("Cycle", "0"));
+    model.setViewCycleExecutionOptions(ViewCycleExecutionOptions.builder().setValuationTime(Instant.ofEpochMilli(400)).create());
+    model.setCalculationTime(Instant.ofEpochMilli(500));
+    model.setCalculationDuration(Duration.ofMillis(100));
+    model.setVersionCorrection(VersionCorrection.of(Instant.ofEpochMilli(300), Instant.ofEpochMilli(300)));
+    // More rows than the initial capacity
+    for (int i = 0; i < 40; i++) {
+      model.addValue("Default", result("PV", i, (double) i));
+    }
+    model.addValue("Default", result("Name", 1, "Foo"));
+    model.addValue("Default", result("Name", 2, null));
+    model.addValue("Default", new ComputedValueResult(new ValueSpecification("Name", target(3), PROPERTIES), "Bar", null, "Node", Collections.singleton(new ValueSpecification("PV",
+        target(3), PROPERTIES)), InvocationResult.MISSING_INPUTS));
+    model.addValue("Other", result("PV", 39, 1.5));
+    model.addMarketData(new ComputedValue(new ValueSpecification("Market", target(0), PROPERTIES), 42d));
+    return model;
+  }
+
+  public void testModel() {
+    final ColumnarViewComputationResultModel model = createModel();
+    assertEquals(model.getTargetCount(), 40);
+    assertEquals(model.getAllTargets().size(), 40);
+    assertEquals(new HashSet<String>(model.getCalculationConfigurationNames()), ImmutableSet.of("Default", "Other"));
+    assertEquals(model.getAllOutputValueNames(), ImmutableSet.of("PV", "Name"));
+    assertEquals(model.getAllResults().size(), 44);
+    assertEquals(model.getCalculationResult("Other").getAllTargets(), Collections.singletonList(target(39)));
+    assertNull(model.getCalculationResult("Other").getValues(target(0)));
+    assertEquals(model.getCalculationResult("Default").getAllValues(target(1)).size(), 2);
+    assertEquals(new HashSet<String>(model.getTargetResult(target(39)).getCalculationConfigurationNames()), ImmutableSet.of("Default", "Other"));
+    assertEquals(model.getTargetResult(target(39)).getAllValues("Other"), Collections.singleton(result("PV", 39, 1.5)));
+    assertNull(model.getTargetResult(target(40)));
+    final Column pv = model.getColumn("Default", "PV", PROPERTIES);
+    final int row = model.getRow(target(20));
+    assertTrue(pv.isDouble(row));
+    assertEquals(pv.getDouble(row), 20d, 0d);
+    final Column name = model.getColumn("Default", "Name", PROPERTIES);
+    assertFalse(name.isPresent(row));
+    assertTrue(name.isPresent(model.getRow(target(2))));
+    assertNull(name.getValue(model.getRow(target(2))));
+    assertEquals(name.getInvocationResult(model.getRow(target(3))), InvocationResult.MISSING_INPUTS);
+    // Replacing a double with an object
+    model.addValue("Default", result("PV", 20, "Error"));
+    assertFalse(pv.isDouble(row));
+    assertEquals(pv.getValue(row), "Error");
+    assertEquals(model.getAllMarketData().size(), 1);
+  }
+
+  public void testColumnSetters() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    final int row0 = model.addTarget(target(0));
+    final int row1 = model.addTarget(target(1));
+    final Column column = model.addColumn("Default", "PV", PROPERTIES);
+    assertTrue(column.getPresent().isEmpty());
+    column.setValue(row0, "Foo");
+    assertFalse(column.isDouble(row0));
+    column.setDouble(row1, 1.5);
+    column.setMetadata(row1, null, "Node", null, InvocationResult.SUCCESS);
+    assertEquals(model.getCalculationResult("Default").getAllTargets(), Arrays.asList(target(0), target(1)));
+    assertEquals(model.getCalculationResult("Default").getAllValues(target(1)),
+        Collections.singleton(new ComputedValueResult(new ValueSpecification("PV", target(1), PROPERTIES), 1.5, null, "Node", null, InvocationResult.SUCCESS)));
+    column.setValue(row1, 2d);
+    assertTrue(column.isDouble(row1));
+    assertEquals(column.getValue(row1), 2d);
+    assertEquals(column.getComputeNodeId(row1), "Node");
+    assertEquals(model.addColumn("Default", "PV", PROPERTIES), column);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testColumnSetterUnknownRow() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.addTarget(target(0));
+    model.addColumn("Default", "PV", PROPERTIES).setDouble(1, 1d);
+  }
+
+  public void testCopy() {
+    final ColumnarViewComputationResultModel model = createModel();
+    final InMemoryViewComputationResultModel copy = new InMemoryViewComputationResultModel();
+    copy.update(model);
+    assertEquals(new HashSet<ViewResultEntry>(copy.getAllResults()), new HashSet<ViewResultEntry>(model.getAllResults()));
+    final ColumnarViewComputationResultModel copy2 = new ColumnarViewComputationResultModel(copy);
+    assertEquals(new HashSet<ViewResultEntry>(copy2.getAllResults()), new HashSet<ViewResultEntry>(model.getAllResults()));
+    assertEquals(copy2.getAllMarketData(), model.getAllMarketData());
+  }
+
+  public void testCycle() {
+    final ColumnarViewComputationResultModel model = createModel();
+    final ColumnarViewComputationResultModel cycled = cycleObject(ColumnarViewComputationResultModel.class, model);
+    assertEquals(cycled.getViewProcessId(), model.getViewProcessId());
+    assertEquals(cycled.getViewCycleId(), model.getViewCycleId());
+    assertEquals(cycled.getViewCycleExecutionOptions(), model.getViewCycleExecutionOptions());
+    assertEquals(cycled.getCalculationTime(), model.getCalculationTime());
+    assertEquals(cycled.getCalculationDuration(), model.getCalculationDuration());
+    assertEquals(cycled.getVersionCorrection(), model.getVersionCorrection());
+    for (int i = 0; i < model.getTargetCount(); i++) {
+      assertEquals(cycled.getTarget(i), model.getTarget(i));
+    }
+    assertEquals(new HashSet<ViewResultEntry>(cycled.getAllResults()), new HashSet<ViewResultEntry>(model.getAllResults()));
+    final Column name = cycled.getColumn("Default", "Name", PROPERTIES);
+    assertEquals(name.getComputeNodeId(cycled.getRow(target(3))), "Node");
+    assertEquals(name.getMissingInputs(cycled.getRow(target(3))), Collections.singleton(new ValueSpecification("PV", target(3), PROPERTIES)));
+    assertEquals(cycled.getAllMarketData(), model.getAllMarketData());
+  }
+
+}
@@ -5,9 +5,12 @@
  */
 package com.opengamma.engine.fudgemsg;
 
+import static org.testng.Assert.assertSame;
+
 import org.testng.annotations.Test;
 
 import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValuePropertyNames;
 import com.opengamma.engine.value.ValueSpecification;
@@ -27,4 +30,13 @@ public class ValueSpecificationBuilderTest extends AbstractFudgeBuilderTestCase
             ValueProperties.with(ValuePropertyNames.FUNCTION, "Bar").get()));
   }
 
+  public void testDecodedInstanceIsInterned() {
+    final ValueSpecification spec = MemoryUtils.instance(new ValueSpecification("requirement", ComputationTargetSpecification.of(Currency.USD),
+        ValueProperties.with(ValuePropertyNames.FUNCTION, "Bar").get()));
+    final ValueSpecification decoded = cycleObject(ValueSpecification.class, spec);
+    assertSame(decoded, spec);
+    assertSame(decoded.getTargetSpecification(), spec.getTargetSpecification());
+    assertSame(decoded.getProperties(), spec.getProperties());
+  }
+
 }
@@ -6,6 +6,7 @@
 package com.opengamma.engine.marketdata;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -91,4 +92,130 @@ public class InMemoryLKVMarketDataProviderTest {
     assertEquals(snapshot.query(fooNull), "FooValue3");
   }
 
+  public void testSnapshotVersions() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    provider.addValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL), 1d);
+    provider.addValue(new ValueRequirement("Bar", ComputationTargetSpecification.NULL), "Bar1");
+    final ValueSpecification fooNull = provider.getAvailabilityProvider(MarketData.live()).getAvailability(ComputationTargetSpecification.NULL, null,
+        new ValueRequirement("Foo", ComputationTargetSpecification.NULL));
+    final ValueSpecification barNull = provider.getAvailabilityProvider(MarketData.live()).getAvailability(ComputationTargetSpecification.NULL, null,
+        new ValueRequirement("Bar", ComputationTargetSpecification.NULL));
+    final InMemoryLKVMarketDataSnapshot empty = new InMemoryLKVMarketDataSnapshot(new InMemoryLKVMarketDataProvider());
+    empty.init();
+    assertTrue(empty.isEmpty());
+    final InMemoryLKVMarketDataSnapshot snapshot1 = provider.snapshot(MarketData.live());
+    snapshot1.init();
+    provider.addValue(fooNull, 2d);
+    provider.addValue(fooNull, 3d);
+    final InMemoryLKVMarketDataSnapshot snapshot2 = provider.snapshot(MarketData.live());
+    snapshot2.init();
+    provider.addValue(fooNull, 4d);
+    provider.removeValue(barNull);
+    final InMemoryLKVMarketDataSnapshot snapshot3 = provider.snapshot(MarketData.live());
+    snapshot3.init();
+    assertEquals(snapshot1.query(fooNull), 1d);
+    assertEquals(snapshot1.query(barNull), "Bar1");
+    assertEquals(snapshot2.query(fooNull), 3d);
+    assertEquals(snapshot2.query(barNull), "Bar1");
+    assertEquals(snapshot3.query(fooNull), 4d);
+    assertNull(snapshot3.query(barNull));
+    assertEquals(snapshot1.getAllValueKeys(), ImmutableSet.of(fooNull, barNull));
+    assertEquals(snapshot3.getAllValueKeys(), ImmutableSet.of(fooNull));
+    assertEquals(provider.getAllValueKeys(), ImmutableSet.of(fooNull));
+    assertEquals(snapshot2.getChangedValueKeys(snapshot1), ImmutableSet.of(fooNull));
+    assertEquals(snapshot3.getChangedValueKeys(snapshot2), ImmutableSet.of(fooNull, barNull));
+    assertTrue(snapshot3.getChangedValueKeys(snapshot3).isEmpty());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testChangedValueKeysOtherProvider() {
+    final InMemoryLKVMarketDataSnapshot snapshot1 = new InMemoryLKVMarketDataProvider().snapshot(MarketData.live());
+    snapshot1.init();
+    final InMemoryLKVMarketDataSnapshot snapshot2 = new InMemoryLKVMarketDataProvider().snapshot(MarketData.live());
+    snapshot2.init();
+    snapshot2.getChangedValueKeys(snapshot1);
+  }
+
+  public void testSnapshotRelease() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    provider.addValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL), 1d);
+    final ValueSpecification fooNull = provider.getAvailabilityProvider(MarketData.live()).getAvailability(ComputationTargetSpecification.NULL, null,
+        new ValueRequirement("Foo", ComputationTargetSpecification.NULL));
+    final InMemoryLKVMarketDataSnapshot snapshot1 = provider.snapshot(MarketData.live());
+    snapshot1.init();
+    // Re-initialising releases the version held before
+    snapshot1.init();
+    assertEquals(provider.getLastKnownValues().getPinCount(), 1);
+    provider.addValue(fooNull, 2d);
+    final InMemoryLKVMarketDataSnapshot snapshot2 = provider.snapshot(MarketData.live());
+    snapshot2.init();
+    provider.addValue(fooNull, 3d);
+    assertEquals(snapshot1.query(fooNull), 1d);
+    assertEquals(snapshot2.query(fooNull), 2d);
+    assertEquals(snapshot2.getChangedValueKeys(snapshot1), ImmutableSet.of(fooNull));
+    snapshot1.release();
+    snapshot1.release();
+    assertEquals(provider.getLastKnownValues().getPinCount(), 1);
+    assertEquals(snapshot2.query(fooNull), 2d);
+    assertEquals(snapshot2.getAllValueKeys(), ImmutableSet.of(fooNull));
+    snapshot2.release();
+    assertEquals(provider.getLastKnownValues().getPinCount(), 0);
+    assertEquals(provider.getCurrentValue(fooNull), 3d);
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testQueryReleasedSnapshot() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    provider.addValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL), 1d);
+    final InMemoryLKVMarketDataSnapshot snapshot = provider.snapshot(MarketData.live());
+    snapshot.init();
+    snapshot.release();
+    snapshot.getAllValueKeys();
+  }
+
+  public void testSnapshotExpiry() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    final ValueRequirement foo = new ValueRequirement("Foo", ComputationTargetSpecification.NULL);
+    provider.addValue(foo, 0d);
+    final LastKnownValueStore store = provider.getLastKnownValues();
+    final LastKnownValueStore.Version oldest = store.pin();
+    final LastKnownValueStore.Version[] versions = new LastKnownValueStore.Version[LastKnownValueStore.MAX_PINS];
+    for (int i = 0; i < versions.length; i++) {
+      provider.addValue(foo, (double) (i + 1));
+      versions[i] = store.pin();
+    }
+    // Holding more than the maximum expires the oldest
+    assertFalse(oldest.isValid());
+    assertTrue(versions[0].isValid());
+    assertEquals(store.getPinCount(), LastKnownValueStore.MAX_PINS);
+    final ValueSpecification fooNull = provider.getAvailabilityProvider(MarketData.live()).getAvailability(ComputationTargetSpecification.NULL, null, foo);
+    assertEquals(store.get(fooNull, versions[0]), 1d);
+    assertEquals(store.get(fooNull, versions[versions.length - 1]), (double) versions.length);
+    assertEquals(store.getChanged(versions[0], versions[1]), ImmutableSet.of(fooNull));
+    for (LastKnownValueStore.Version version : versions) {
+      version.release();
+    }
+    assertEquals(store.getPinCount(), 0);
+  }
+
+  public void testChangeTracking() {
+    final InMemoryLKVMarketDataProvider provider = new InMemoryLKVMarketDataProvider();
+    provider.addValue(new ValueRequirement("Foo", ComputationTargetSpecification.NULL), 1d);
+    provider.addValue(new ValueRequirement("Bar", ComputationTargetSpecification.NULL), 1d);
+    final ValueSpecification fooNull = provider.getAvailabilityProvider(MarketData.live()).getAvailability(ComputationTargetSpecification.NULL, null,
+        new ValueRequirement("Foo", ComputationTargetSpecification.NULL));
+    final InMemoryLKVMarketDataSnapshot snapshot1 = provider.snapshot(MarketData.live());
+    snapshot1.init();
+    provider.addValue(fooNull, 2d);
+    final ChangeTrackingMarketDataSnapshot snapshot2 = provider.snapshot(MarketData.live());
+    snapshot2.init();
+    assertEquals(snapshot2.getChangedValueKeys((MarketDataSnapshot) snapshot1), ImmutableSet.of(fooNull));
+    // Snapshots which can't be compared report no changes rather than failing
+    final InMemoryLKVMarketDataSnapshot other = new InMemoryLKVMarketDataProvider().snapshot(MarketData.live());
+    other.init();
+    assertNull(snapshot2.getChangedValueKeys((MarketDataSnapshot) other));
+    snapshot1.release();
+    assertNull(snapshot2.getChangedValueKeys((MarketDataSnapshot) snapshot1));
+  }
+
 }
@@ -9,19 +9,27 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Set;
 
 import org.mockito.Mockito;
 import org.mockito.internal.verification.VerificationModeFactory;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableSet;
 import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolverWithOverride;
+import com.opengamma.engine.marketdata.resolver.SingleMarketDataProviderResolver;
+import com.opengamma.engine.marketdata.spec.MarketData;
 import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValuePropertyNames;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
+import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.test.TestGroup;
 
 /**
@@ -127,6 +135,51 @@ public class MarketDataProviderWithOverrideTest {
     assertEquals(1, underlyingProvider.getAndResetQueryCount());
   }
 
+  private MarketDataSnapshot snapshot(final MarketDataProvider provider) {
+    final MarketDataSnapshot snapshot = provider.snapshot(MarketData.live());
+    snapshot.init();
+    return snapshot;
+  }
+
+  private Set<ValueSpecification> getChanged(final MarketDataSnapshot snapshot, final MarketDataSnapshot previous) {
+    assertTrue(snapshot instanceof ChangeTrackingMarketDataSnapshot);
+    return ((ChangeTrackingMarketDataSnapshot) snapshot).getChangedValueKeys(previous);
+  }
+
+  public void testChangeTrackingThroughResolver() {
+    final ValueSpecification spec1 = getSpecification(1);
+    final ValueSpecification spec2 = getSpecification(2);
+    final InMemoryLKVMarketDataProvider underlyingProvider = new InMemoryLKVMarketDataProvider();
+    underlyingProvider.addValue(spec1, 1d);
+    underlyingProvider.addValue(spec2, 1d);
+    final MarketDataInjectorImpl overrideInjector = new MarketDataInjectorImpl();
+    final MarketDataProvider provider = new MarketDataProviderResolverWithOverride(new SingleMarketDataProviderResolver(underlyingProvider), overrideInjector).resolve(
+        UserPrincipal.getTestUser(), MarketData.live());
+    final MarketDataSnapshot snapshot1 = snapshot(provider);
+    // Changes in the underlying snapshot are reported
+    underlyingProvider.addValue(spec2, 2d);
+    final MarketDataSnapshot snapshot2 = snapshot(provider);
+    assertEquals(ImmutableSet.of(spec2), getChanged(snapshot2, snapshot1));
+    // A new override is a change
+    overrideInjector.addValue(spec1, 10d);
+    final MarketDataSnapshot snapshot3 = snapshot(provider);
+    assertEquals(ImmutableSet.of(spec1), getChanged(snapshot3, snapshot2));
+    // Changes to an overridden value are hidden
+    underlyingProvider.addValue(spec1, 3d);
+    final MarketDataSnapshot snapshot4 = snapshot(provider);
+    assertEquals(Collections.emptySet(), getChanged(snapshot4, snapshot3));
+    // Removing the override is a change
+    overrideInjector.removeValue(spec1);
+    final MarketDataSnapshot snapshot5 = snapshot(provider);
+    assertEquals(ImmutableSet.of(spec1), getChanged(snapshot5, snapshot4));
+    // Releasing the wrappers releases the versions held in the underlying store
+    for (MarketDataSnapshot snapshot : Arrays.asList(snapshot1, snapshot2, snapshot3, snapshot4, snapshot5)) {
+      ((ReleasableMarketDataSnapshot) snapshot).release();
+    }
+    assertEquals(0, underlyingProvider.getHeldVersionCount());
+    assertNull(getChanged(snapshot5, snapshot4));
+  }
+
   private ValueSpecification getSpecification(final int number) {
     return new ValueSpecification("Value-" + number, ComputationTargetSpecification.of(UniqueId.of("Scheme", "Target")), ValueProperties.with(ValuePropertyNames.FUNCTION, "MarketData").get());
   }
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.client;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValueResult;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.NumberDeltaComparer;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.ViewDeltaResultModel;
+import com.opengamma.engine.view.ViewResultEntry;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewDeltaResultModel;
+import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link ViewDeltaResultCalculator} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class ViewDeltaResultCalculatorTest {
+
+  private static final ValueProperties PROPERTIES = ValueProperties.with(ValuePropertyNames.FUNCTION, "Mock").get();
+
+  private static ViewDefinition viewDefinition() {
+    final ViewDefinition viewDefinition = new ViewDefinition("Test", "User");
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, "Default");
+    calcConfig.getDeltaDefinition().setNumberComparer(new NumberDeltaComparer(2));
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    return viewDefinition;
+  }
+
+  private static ComputationTargetSpecification target(final int i) {
+    return new ComputationTargetSpecification(ComputationTargetType.POSITION, UniqueId.of("Position", Integer.toString(i)));
+  }
+
+  private static ComputedValueResult result(final String valueName, final int target, final Object value) {
+    return new ComputedValueResult(new ValueSpecification(valueName, target(target), PROPERTIES), value, null);
+  }
+
+  private static ColumnarViewComputationResultModel previous() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.setCalculationTime(Instant.ofEpochMilli(1000));
+    for (int i = 0; i < 10; i++) {
+      model.addValue("Default", result("PV", i, 100d + i));
+    }
+    model.addValue("Default", result("Name", 0, "Foo"));
+    model.addValue("Default", result("Name", 1, "Bar"));
+    return model;
+  }
+
+  private static ColumnarViewComputationResultModel current() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.setCalculationTime(Instant.ofEpochMilli(2000));
+    // New target first so that the target dictionaries do not line up
+    model.addValue("Default", result("PV", 10, 1d));
+    for (int i = 0; i < 10; i++) {
+      double value = 100d + i;
+      if (i == 3) {
+        // Within tolerance
+        value += 0.001;
+      } else if (i == 5) {
+        value += 0.5;
+      }
+      model.addValue("Default", result("PV", i, value));
+    }
+    model.addValue("Default", result("Name", 0, "Foo"));
+    model.addValue("Default", result("Name", 1, "Cow"));
+    model.addValue("Default", result("Delta", 0, 1d));
+    return model;
+  }
+
+  public void testColumnarDelta() {
+    final ViewDeltaResultModel delta = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition(), previous(), current());
+    assertTrue(delta instanceof ColumnarViewDeltaResultModel);
+    assertEquals(delta.getPreviousResultTimestamp(), Instant.ofEpochMilli(1000));
+    assertEquals(delta.getCalculationTime(), Instant.ofEpochMilli(2000));
+    final HashSet<ViewResultEntry> expected = new HashSet<ViewResultEntry>();
+    expected.add(new ViewResultEntry("Default", result("PV", 10, 1d)));
+    expected.add(new ViewResultEntry("Default", result("PV", 5, 105.5d)));
+    expected.add(new ViewResultEntry("Default", result("Name", 1, "Cow")));
+    expected.add(new ViewResultEntry("Default", result("Delta", 0, 1d)));
+    assertEquals(new HashSet<ViewResultEntry>(delta.getAllResults()), expected);
+    assertEquals(delta.getAllTargets().size(), 4);
+    assertNull(delta.getTargetResult(target(3)));
+    assertEquals(delta.getCalculationResult("Default").getAllValues(target(0)).size(), 1);
+  }
+
+  public void testColumnarDeltaMatchesObjectDelta() {
+    final ColumnarViewComputationResultModel previous = previous();
+    final ColumnarViewComputationResultModel current = current();
+    final ViewDeltaResultModel columnar = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition(), previous, current);
+    final ViewDeltaResultModel objects = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition(), new InMemoryViewComputationResultModel(previous),
+        new InMemoryViewComputationResultModel(current));
+    assertEquals(new HashSet<ViewResultEntry>(columnar.getAllResults()), new HashSet<ViewResultEntry>(objects.getAllResults()));
+  }
+
+  public void testColumnarDeltaNoPrevious() {
+    final ColumnarViewComputationResultModel current = current();
+    final ViewDeltaResultModel delta = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition(), null, current);
+    assertNull(delta.getPreviousResultTimestamp());
+    assertEquals(new HashSet<ViewResultEntry>(delta.getAllResults()), new HashSet<ViewResultEntry>(current.getAllResults()));
+  }
+
+}
@@ -11,6 +11,10 @@ import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +38,11 @@ import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewResultModel;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.cycle.ViewCycleMetadata;
+import com.opengamma.engine.view.ViewResultEntry;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
+import com.opengamma.engine.view.impl.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.impl.ColumnarViewDeltaResultModel;
+import com.opengamma.engine.view.impl.CompleteViewDeltaResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.impl.InMemoryViewDeltaResultModel;
 import com.opengamma.engine.view.listener.CycleCompletedCall;
@@ -537,4 +545,64 @@ public class MergingViewProcessListenerTest {
     underlying.assertNoCalls();
   }
 
+  public void testMergedDeltaDiscarded() throws InterruptedException {
+    final TestViewResultListener underlying = new TestViewResultListener();
+    final EngineResourceManagerInternal<?> cycleManager = new EngineResourceManagerImpl<EngineResource>();
+    final MergingViewProcessListener listener = new MergingViewProcessListener(underlying, cycleManager);
+    listener.setMaximumMergedValues(2);
+    listener.setPassThrough(false);
+    listener.cycleCompleted(fullResult("A"), deltaResult("A"));
+    listener.cycleCompleted(fullResult("B"), deltaResult("B"));
+    assertEquals(listener.getMergedResultCount(), 1L);
+    assertEquals(listener.getDiscardedDeltaCount(), 1L);
+    final ViewComputationResultModel fullResult = fullResult("C");
+    listener.cycleCompleted(fullResult, deltaResult("C"));
+    assertEquals(listener.getMergedResultCount(), 2L);
+    assertEquals(listener.getDiscardedDeltaCount(), 1L);
+    listener.drain();
+    final CycleCompletedCall call = underlying.getCycleCompleted(0);
+    assertSame(call.getFullResult(), fullResult);
+    assertTrue(call.getDeltaResult() instanceof CompleteViewDeltaResultModel);
+    assertEquals(call.getDeltaResult().getAllResults().size(), 3);
+    assertResult(call.getDeltaResult(), "C");
+    underlying.assertNoCalls();
+  }
+
+  private ColumnarViewComputationResultModel columnarResult(final String v) {
+    final ColumnarViewComputationResultModel result = new ColumnarViewComputationResultModel();
+    result.setCalculationTime(now());
+    for (int n = 0; n < 3; n++) {
+      result.addValue("Default", result(n, v));
+    }
+    return result;
+  }
+
+  private ColumnarViewDeltaResultModel columnarDelta(final ColumnarViewComputationResultModel result, final int n) {
+    final ColumnarViewDeltaResultModel delta = new ColumnarViewDeltaResultModel(result, null);
+    final BitSet rows = new BitSet();
+    rows.set(result.getRow(ComputationTargetSpecification.NULL));
+    delta.addChangedRows(result.getColumn("Default", Integer.toString(n), result(n, "").getSpecification().getProperties()), rows);
+    return delta;
+  }
+
+  public void testColumnarDeltaMergedInPlace() throws InterruptedException {
+    final TestViewResultListener underlying = new TestViewResultListener();
+    final EngineResourceManagerInternal<?> cycleManager = new EngineResourceManagerImpl<EngineResource>();
+    final MergingViewProcessListener listener = new MergingViewProcessListener(underlying, cycleManager);
+    listener.setPassThrough(false);
+    final ColumnarViewComputationResultModel resultA = columnarResult("A");
+    listener.cycleCompleted(resultA, columnarDelta(resultA, 0));
+    final ColumnarViewComputationResultModel resultB = columnarResult("B");
+    listener.cycleCompleted(resultB, columnarDelta(resultB, 1));
+    listener.drain();
+    final ViewDeltaResultModel delta = underlying.getCycleCompleted(0).getDeltaResult();
+    assertTrue(delta instanceof ColumnarViewDeltaResultModel);
+    assertSame(((ColumnarViewDeltaResultModel) delta).getResult(), resultB);
+    final Set<ViewResultEntry> expected = new HashSet<ViewResultEntry>();
+    expected.add(new ViewResultEntry("Default", result(0, "B")));
+    expected.add(new ViewResultEntry("Default", result(1, "B")));
+    assertEquals(new HashSet<ViewResultEntry>(delta.getAllResults()), expected);
+    underlying.assertNoCalls();
+  }
+
 }
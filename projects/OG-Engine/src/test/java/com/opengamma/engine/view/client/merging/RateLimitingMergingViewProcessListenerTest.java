@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
 import org.threeten.bp.Instant;
 
+import com.codahale.metrics.MetricRegistry;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.resource.EngineResourceManagerImpl;
 import com.opengamma.engine.test.TestViewResultListener;
@@ -112,6 +113,51 @@ public class RateLimitingMergingViewProcessListenerTest {
     }
   }
 
+  @Test
+  public void testAdaptive() throws InterruptedException {
+    final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+    try {
+      final TestViewResultListener testListener = new TestViewResultListener();
+      final RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), executor);
+      mergingListener.setPaused(true);
+      mergingListener.setAdaptive(true);
+
+      addResults(mergingListener, 1000);
+      assertTrue(mergingListener.getLagMillis() >= 0);
+      // Adaptive mode merges results even without a minimum update period
+      mergingListener.setPaused(false);
+      testListener.assertNoCalls();
+      testListener.assertCycleCompleted(Timeout.standardTimeoutMillis());
+      testListener.assertNoCalls();
+      assertEquals(999L, mergingListener.getMergedResultCount());
+      assertEquals(0L, mergingListener.getLagMillis());
+      assertTrue(mergingListener.getEffectiveUpdatePeriodMillis() <= 30000);
+
+      mergingListener.terminate();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testMetricsRemovedOnTerminate() {
+    final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+    try {
+      final RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(new TestViewResultListener(), mock(EngineResourceManagerImpl.class), executor);
+      final MetricRegistry summary = new MetricRegistry();
+      final MetricRegistry detail = new MetricRegistry();
+      detail.counter("Other.count");
+      mergingListener.registerMetrics(summary, detail, "Client");
+      assertTrue(summary.getNames().contains("Client.merged"));
+      assertTrue(detail.getNames().contains("Client.period"));
+      mergingListener.terminate();
+      assertTrue(summary.getNames().isEmpty());
+      assertEquals(1, detail.getNames().size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testModifiableUpdatePeriod() throws InterruptedException {
     final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.impl.SimplePortfolioNode;
+import com.opengamma.core.position.impl.SimplePosition;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.core.security.impl.SimpleSecurity;
+import com.opengamma.core.security.impl.SimpleSecurityLink;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.ExternalScheme;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link SecurityLinkResolver} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class SecurityLinkResolverTest {
+
+  private static final VersionCorrection VERSION_CORRECTION = VersionCorrection.LATEST;
+
+  private static Security security(final int i) {
+    return new SimpleSecurity(UniqueId.of("Sec", Integer.toString(i), "V"), ExternalIdBundle.of(ExternalId.of("Ticker", Integer.toString(i))), "TEST", "Security " + i);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static SecuritySource securitySource(final int count) {
+    final SecuritySource source = Mockito.mock(SecuritySource.class);
+    Mockito.when(source.get(Mockito.anyCollectionOf(ObjectId.class), Mockito.eq(VERSION_CORRECTION))).thenAnswer(new Answer<Map<ObjectId, Security>>() {
+      @Override
+      public Map<ObjectId, Security> answer(final InvocationOnMock invocation) {
+        final Map<ObjectId, Security> result = new HashMap<ObjectId, Security>();
+        for (ObjectId objectId : (Collection<ObjectId>) invocation.getArguments()[0]) {
+          final int i = Integer.parseInt(objectId.getValue());
+          if (i < count) {
+            result.put(objectId, security(i));
+          }
+        }
+        return result;
+      }
+    });
+    Mockito.when(source.getSingle(Mockito.anyCollectionOf(ExternalIdBundle.class), Mockito.eq(VERSION_CORRECTION))).thenAnswer(new Answer<Map<ExternalIdBundle, Security>>() {
+      @Override
+      public Map<ExternalIdBundle, Security> answer(final InvocationOnMock invocation) {
+        final Map<ExternalIdBundle, Security> result = new HashMap<ExternalIdBundle, Security>();
+        for (ExternalIdBundle bundle : (Collection<ExternalIdBundle>) invocation.getArguments()[0]) {
+          final int i = Integer.parseInt(bundle.getValue(ExternalScheme.of("Ticker")));
+          if (i < count) {
+            result.put(bundle, security(i));
+          }
+        }
+        return result;
+      }
+    });
+    return source;
+  }
+
+  private static SimplePortfolioNode portfolio() {
+    final SimplePortfolioNode root = new SimplePortfolioNode(UniqueId.of("Node", "0"), "Root");
+    final SimplePortfolioNode child = new SimplePortfolioNode(UniqueId.of("Node", "1"), "Child");
+    root.addChildNode(child);
+    for (int i = 0; i < 20; i++) {
+      final SimplePosition position = new SimplePosition();
+      position.setUniqueId(UniqueId.of("Pos", Integer.toString(i)));
+      position.setQuantity(BigDecimal.ONE);
+      if ((i & 1) == 0) {
+        position.setSecurityLink(new SimpleSecurityLink(ObjectId.of("Sec", Integer.toString(i / 2))));
+      } else {
+        position.setSecurityLink(new SimpleSecurityLink(ExternalId.of("Ticker", Integer.toString(i / 2))));
+      }
+      ((i < 10) ? root : child).addPosition(position);
+    }
+    return root;
+  }
+
+  private static Security target(final Position position) {
+    return position.getSecurityLink().getTarget();
+  }
+
+  public void testPrefetch() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final SecuritySource source = securitySource(8);
+      final SimplePortfolioNode root = portfolio();
+      final Collection<Security> securities = new SecurityLinkResolver(executor, source, VERSION_CORRECTION).prefetchSecurities(root);
+      // Each of the 8 securities is referenced once by identifier and once by ticker; the rest are missing
+      assertEquals(securities.size(), 8);
+      for (Position position : root.getPositions()) {
+        assertNotNull(target(position));
+      }
+      for (Position position : root.getChildNodes().get(0).getPositions()) {
+        if (Integer.parseInt(position.getUniqueId().getValue()) < 16) {
+          assertNotNull(target(position));
+        } else {
+          assertNull(target(position));
+        }
+      }
+      Mockito.verify(source, Mockito.never()).get(Mockito.any(ObjectId.class), Mockito.any(VersionCorrection.class));
+      Mockito.verify(source, Mockito.never()).getSingle(Mockito.any(ExternalIdBundle.class), Mockito.any(VersionCorrection.class));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testResolveUsesBulkFetch() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final SecuritySource source = securitySource(10);
+      final SimplePortfolioNode root = portfolio();
+      new SecurityLinkResolver(executor, source, VERSION_CORRECTION).resolveSecurities(root);
+      final Position position = root.getPositions().get(0);
+      assertEquals(target(position).getUniqueId().getValue(), "0");
+      Mockito.verify(source, Mockito.never()).get(Mockito.any(ObjectId.class), Mockito.any(VersionCorrection.class));
+      Mockito.verify(source, Mockito.never()).getSingle(Mockito.any(ExternalIdBundle.class), Mockito.any(VersionCorrection.class));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -6,7 +6,9 @@
 package com.opengamma.engine.view.cycle;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Set;
 
@@ -27,6 +29,7 @@ import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuil
 import com.opengamma.engine.depgraph.impl.DependencyGraphExplorerImpl;
 import com.opengamma.engine.depgraph.impl.DependencyGraphImpl;
 import com.opengamma.engine.depgraph.impl.DependencyNodeFunctionImpl;
+import com.opengamma.engine.depgraph.impl.DependentNodeIndex;
 import com.opengamma.engine.function.EmptyFunctionParameters;
 import com.opengamma.engine.function.FunctionCompilationContext;
 import com.opengamma.engine.function.MarketDataSourcingFunction;
@@ -185,4 +188,56 @@ public class LiveDataDeltaCalculatorTest {
     assertEquals(Sets.newHashSet(_node[4]), deltaCalculator.getChangedNodes());
   }
 
+  private LiveDataDeltaCalculator changedMarketDataCalculator(final Set<ValueSpecification> changedMarketData) {
+    return new LiveDataDeltaCalculator(DependentNodeIndex.of(_graph), _cache, _previousCache, Collections.<ValueSpecification>emptySet(), changedMarketData);
+  }
+
+  public void changedMarketData() {
+    put(_cache, 0, 6.0);
+    put(_previousCache, 0, 7.0);
+    put(_cache, 1, 6.0);
+    put(_previousCache, 1, 7.0);
+    // Only the reported values are compared
+    final LiveDataDeltaCalculator deltaCalculator = changedMarketDataCalculator(Collections.singleton(_value[0]));
+    deltaCalculator.computeDelta();
+    assertEquals(Sets.newHashSet(_node[1], _node[3]), deltaCalculator.getUnchangedNodes());
+    assertEquals(Sets.newHashSet(_node[0], _node[2], _node[4]), deltaCalculator.getChangedNodes());
+  }
+
+  public void changedMarketDataSameValue() {
+    put(_cache, 1, 6.0);
+    put(_previousCache, 1, 6.0);
+    // A value reported as changed that compares equal doesn't invalidate its dependents, nor do values which aren't market data in the graph
+    final LiveDataDeltaCalculator deltaCalculator = changedMarketDataCalculator(ImmutableSet.of(_value[1], _value[2]));
+    deltaCalculator.computeDelta();
+    assertEquals(ImmutableSet.copyOf(DependencyGraphImpl.getDependencyNodes(_graph)), deltaCalculator.getUnchangedNodes());
+    assertEquals(Collections.emptySet(), deltaCalculator.getChangedNodes());
+  }
+
+  public void indexRetainedWithGraph() {
+    assertSame(DependentNodeIndex.of(_graph), DependentNodeIndex.of(_graph));
+  }
+
+  public void bitSetReused() {
+    final DependentNodeIndex index = DependentNodeIndex.of(_graph);
+    put(_cache, 0, 6.0);
+    put(_previousCache, 0, 7.0);
+    final LiveDataDeltaCalculator deltaCalculator = deltaCalculator();
+    deltaCalculator.computeDelta();
+    assertEquals(3, deltaCalculator.getChangedNodes().size());
+    deltaCalculator.release();
+    final BitSet bitSet = index.borrowBitSet();
+    assertEquals(0, bitSet.cardinality());
+    index.releaseBitSet(bitSet);
+    assertSame(bitSet, index.borrowBitSet());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void releasedCalculator() {
+    final LiveDataDeltaCalculator deltaCalculator = deltaCalculator();
+    deltaCalculator.computeDelta();
+    deltaCalculator.release();
+    deltaCalculator.getChangedNodes();
+  }
+
 }
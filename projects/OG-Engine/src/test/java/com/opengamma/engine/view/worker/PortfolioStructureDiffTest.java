@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.impl.SimplePortfolioNode;
+import com.opengamma.core.position.impl.SimplePosition;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.UniqueIdSupplier;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link PortfolioStructureDiff} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class PortfolioStructureDiffTest {
+
+  private Position createPosition(final int i) {
+    return new SimplePosition(UniqueId.of("Test", Integer.toString(i)), BigDecimal.ONE, ExternalId.of("Test", Integer.toString(i)));
+  }
+
+  /**
+   * Creates a root node "A" with a child "B" holding positions 1 to size, and a child "C" holding position 100.
+   */
+  private SimplePortfolioNode createPortfolio(final UniqueIdSupplier uidSupplier, final int first, final int size) {
+    final SimplePortfolioNode root = new SimplePortfolioNode(uidSupplier.get(), "A");
+    final SimplePortfolioNode b = new SimplePortfolioNode(uidSupplier.get(), "B");
+    for (int i = first; i <= size; i++) {
+      b.addPosition(createPosition(i));
+    }
+    root.addChildNode(b);
+    final SimplePortfolioNode c = new SimplePortfolioNode(uidSupplier.get(), "C");
+    c.addPosition(createPosition(100));
+    root.addChildNode(c);
+    return root;
+  }
+
+  public void testUnchanged() {
+    final SimplePortfolioNode oldRoot = createPortfolio(new UniqueIdSupplier("Old"), 1, 10);
+    final SimplePortfolioNode newRoot = createPortfolio(new UniqueIdSupplier("New"), 1, 10);
+    final PortfolioStructureDiff diff = new PortfolioStructureDiff(oldRoot, newRoot);
+    assertEquals(diff.getMappedNodes().size(), 3);
+    assertEquals(diff.getChangedNodes(), Collections.emptySet());
+    assertEquals(diff.getAddedPositions(), Collections.emptySet());
+    assertEquals(diff.getRemovedPositions().size(), 0);
+  }
+
+  public void testPositionAdded() {
+    final SimplePortfolioNode oldRoot = createPortfolio(new UniqueIdSupplier("Old"), 1, 10);
+    final SimplePortfolioNode newRoot = createPortfolio(new UniqueIdSupplier("New"), 1, 11);
+    final PortfolioStructureDiff diff = new PortfolioStructureDiff(oldRoot, newRoot);
+    // All nodes are still mapped so the graph for the other positions can be kept
+    assertEquals(diff.getMappedNodes().size(), 3);
+    assertEquals(diff.getChangedNodes(), ImmutableSet.of(newRoot.getUniqueId(), newRoot.getChildNodes().get(0).getUniqueId()));
+    assertEquals(diff.getAddedPositions(), ImmutableSet.of(UniqueId.of("Test", "11")));
+    assertEquals(diff.getRemovedPositions().size(), 0);
+  }
+
+  public void testPositionRemoved() {
+    final SimplePortfolioNode oldRoot = createPortfolio(new UniqueIdSupplier("Old"), 1, 10);
+    final SimplePortfolioNode newRoot = createPortfolio(new UniqueIdSupplier("New"), 2, 10);
+    final PortfolioStructureDiff diff = new PortfolioStructureDiff(oldRoot, newRoot);
+    assertEquals(diff.getMappedNodes().size(), 3);
+    assertEquals(diff.getChangedNodes(), ImmutableSet.of(newRoot.getUniqueId(), newRoot.getChildNodes().get(0).getUniqueId()));
+    assertEquals(diff.getAddedPositions(), Collections.emptySet());
+    assertEquals(diff.getRemovedPositions().keySet(), ImmutableSet.of(UniqueId.of("Test", "1")));
+  }
+
+  public void testPositionMoved() {
+    final SimplePortfolioNode oldRoot = createPortfolio(new UniqueIdSupplier("Old"), 1, 10);
+    final SimplePortfolioNode newRoot = createPortfolio(new UniqueIdSupplier("New"), 2, 10);
+    ((SimplePortfolioNode) newRoot.getChildNodes().get(1)).addPosition(createPosition(1));
+    final PortfolioStructureDiff diff = new PortfolioStructureDiff(oldRoot, newRoot);
+    assertEquals(diff.getChangedNodes().size(), 3);
+    // Still held, but under a different node so must be resolved again
+    assertEquals(diff.getAddedPositions(), ImmutableSet.of(UniqueId.of("Test", "1")));
+    assertEquals(diff.getRemovedPositions().keySet(), ImmutableSet.of(UniqueId.of("Test", "1")));
+  }
+
+  public void testNodeAdded() {
+    final SimplePortfolioNode oldRoot = createPortfolio(new UniqueIdSupplier("Old"), 1, 10);
+    final UniqueIdSupplier uidSupplier = new UniqueIdSupplier("New");
+    final SimplePortfolioNode newRoot = createPortfolio(uidSupplier, 1, 10);
+    final SimplePortfolioNode d = new SimplePortfolioNode(uidSupplier.get(), "D");
+    d.addPosition(createPosition(200));
+    newRoot.addChildNode(d);
+    final PortfolioStructureDiff diff = new PortfolioStructureDiff(oldRoot, newRoot);
+    // The root can't be mapped but its unchanged children can
+    assertEquals(diff.getMappedNodes().size(), 2);
+    assertTrue(diff.getChangedNodes().contains(newRoot.getUniqueId()));
+    assertTrue(diff.getChangedNodes().contains(d.getUniqueId()));
+    assertEquals(diff.getChangedNodes().size(), 2);
+    assertEquals(diff.getAddedPositions(), ImmutableSet.of(UniqueId.of("Test", "200")));
+  }
+
+}
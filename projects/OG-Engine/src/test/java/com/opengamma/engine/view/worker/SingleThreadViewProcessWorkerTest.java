@@ -6,11 +6,21 @@
 package com.opengamma.engine.view.worker;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.testng.annotations.Test;
 import org.threeten.bp.Duration;
@@ -20,6 +30,7 @@ import com.google.common.collect.ImmutableMap;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.cache.MissingInput;
 import com.opengamma.engine.cache.MissingOutput;
+import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
 import com.opengamma.engine.marketdata.MarketDataListener;
 import com.opengamma.engine.marketdata.MarketDataPermissionProvider;
@@ -34,13 +45,19 @@ import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolver;
 import com.opengamma.engine.marketdata.spec.LiveMarketDataSpecification;
 import com.opengamma.engine.marketdata.spec.MarketData;
 import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
+import com.opengamma.engine.target.ComputationTargetReference;
 import com.opengamma.engine.test.TestViewResultListener;
 import com.opengamma.engine.test.ViewProcessorTestEnvironment;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewTargetResultModel;
 import com.opengamma.engine.view.client.ViewClient;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfigurationImpl;
+import com.opengamma.engine.view.compilation.CompiledViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
 import com.opengamma.engine.view.execution.ArbitraryViewCycleExecutionSequence;
 import com.opengamma.engine.view.execution.ExecutionFlags;
 import com.opengamma.engine.view.execution.ExecutionOptions;
@@ -50,7 +67,12 @@ import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.engine.view.impl.ViewProcessImpl;
 import com.opengamma.engine.view.impl.ViewProcessorImpl;
 import com.opengamma.engine.view.worker.SingleThreadViewProcessWorker.BorrowedThread;
+import com.opengamma.engine.view.worker.trigger.ViewCycleEligibility;
+import com.opengamma.engine.view.worker.trigger.ViewCycleTrigger;
+import com.opengamma.engine.view.worker.trigger.ViewCycleTriggerResult;
+import com.opengamma.engine.view.worker.trigger.ViewCycleType;
 import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.test.TestGroup;
@@ -253,6 +275,63 @@ public class SingleThreadViewProcessWorkerTest {
     }
   }
 
+  @Test
+  public void testSnapshotsReleasedThroughOverrideProvider() throws InterruptedException {
+    TestLifecycle.begin();
+    try {
+      final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+      final InMemoryLKVMarketDataProvider underlyingProvider = new InMemoryLKVMarketDataProvider();
+      underlyingProvider.addValue(ViewProcessorTestEnvironment.getPrimitive1(), 123d);
+      underlyingProvider.addValue(ViewProcessorTestEnvironment.getPrimitive2(), 456d);
+      final MarketDataProvider marketDataProvider = new TestLiveMarketDataProvider("source", underlyingProvider);
+      env.setMarketDataProvider(marketDataProvider);
+      env.init();
+
+      final ViewProcessorImpl vp = env.getViewProcessor();
+      vp.start();
+
+      final ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+      final TestViewResultListener resultListener = new TestViewResultListener();
+      client.setResultListener(resultListener);
+      final ViewExecutionOptions executionOptions = ExecutionOptions.infinite(MarketData.live(), ExecutionFlags.none().get());
+      client.attachToViewProcess(env.getViewDefinition().getUniqueId(), executionOptions);
+
+      resultListener.assertViewDefinitionCompiled(TIMEOUT);
+
+      // The process's provider wraps the snapshots with overrides; make sure there is one to apply
+      final ViewProcessImpl viewProcess = env.getViewProcess(vp, client.getUniqueId());
+      viewProcess.getLiveDataOverrideInjector().addValue(ViewProcessorTestEnvironment.getPrimitive2(), 789d);
+      final ViewProcessWorker currentWorker = env.getCurrentWorker(viewProcess);
+      final BorrowedThread recalcThread = ((SingleThreadViewProcessWorker) currentWorker).getThread();
+      assertThreadReachesState(recalcThread, Thread.State.TIMED_WAITING);
+
+      for (int i = 0; i < 5; i++) {
+        underlyingProvider.addValue(ViewProcessorTestEnvironment.getPrimitive1(), (double) i);
+        currentWorker.triggerCycle();
+        resultListener.assertCycleCompleted(TIMEOUT);
+        // Only the snapshot retained for the next delta cycle may still hold a version of the store
+        assertHeldVersionCount(underlyingProvider, 1);
+      }
+
+      client.shutdown();
+      assertThreadReachesState(recalcThread, Thread.State.TERMINATED);
+      assertHeldVersionCount(underlyingProvider, 0);
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  private void assertHeldVersionCount(final InMemoryLKVMarketDataProvider provider, final int maximum) throws InterruptedException {
+    // The previous snapshot is released just after the cycle completed notification
+    final long startTime = System.currentTimeMillis();
+    while (provider.getHeldVersionCount() > maximum) {
+      Thread.sleep(50);
+      if (System.currentTimeMillis() - startTime > TIMEOUT) {
+        throw new OpenGammaRuntimeException("Waited longer than " + TIMEOUT + " ms for held versions " + provider.getHeldVersionCount() + " to drop to " + maximum);
+      }
+    }
+  }
+
   @Test
   public void testDoNotWaitForMarketData() throws InterruptedException {
     TestLifecycle.begin();
@@ -393,6 +472,101 @@ public class SingleThreadViewProcessWorkerTest {
     }
   }
 
+  @Test
+  public void testPipelinedDeltaCycles() throws InterruptedException {
+    TestLifecycle.begin();
+    try {
+      final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+      env.init();
+
+      final ViewProcessorImpl vp = env.getViewProcessor();
+      vp.start();
+
+      final ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+      final TestViewResultListener resultListener = new TestViewResultListener();
+      client.setResultListener(resultListener);
+      final Instant time0 = Instant.now();
+      final ViewCycleExecutionOptions defaultCycleOptions = ViewCycleExecutionOptions.builder().setMarketDataSpecification(MarketData.live()).create();
+      final ViewExecutionOptions executionOptions = new ExecutionOptions(ArbitraryViewCycleExecutionSequence.of(time0, time0.plusMillis(10), time0.plusMillis(20), time0.plusMillis(30)),
+          ExecutionFlags.none().waitForInitialTrigger().runAsFastAsPossible().pipelinedExecution().get(), defaultCycleOptions);
+      client.attachToViewProcess(env.getViewDefinition().getUniqueId(), executionOptions);
+
+      final SingleThreadViewProcessWorker worker = (SingleThreadViewProcessWorker) env.getCurrentWorker(env.getViewProcess(vp, client.getUniqueId()));
+      final CycleTypeRecorder cycleTypes = new CycleTypeRecorder();
+      worker.addCycleTrigger(cycleTypes);
+      worker.triggerCycle();
+
+      resultListener.assertViewDefinitionCompiled(TIMEOUT);
+      for (int i = 0; i < 4; i++) {
+        resultListener.assertCycleCompleted(TIMEOUT);
+      }
+      resultListener.assertProcessCompleted(TIMEOUT);
+      // Each cycle after the first is a delta from the previous one, even if that was still executing when the next was triggered
+      assertEquals(Arrays.asList(ViewCycleType.FULL, ViewCycleType.DELTA, ViewCycleType.DELTA, ViewCycleType.DELTA), cycleTypes.getCycleTypes());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
+  @Test
+  public void testPipelinedCallbackOrderAcrossRecompilation() throws InterruptedException {
+    TestLifecycle.begin();
+    try {
+      final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+      env.init();
+
+      final ViewProcessorImpl vp = env.getViewProcessor();
+      vp.start();
+
+      final ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+      final BlockingResultListener resultListener = new BlockingResultListener();
+      client.setResultListener(resultListener);
+      final Instant time0 = Instant.now();
+      final ViewCycleExecutionOptions defaultCycleOptions = ViewCycleExecutionOptions.builder().setMarketDataSpecification(MarketData.live()).create();
+      final ViewExecutionOptions executionOptions = new ExecutionOptions(ArbitraryViewCycleExecutionSequence.of(time0, time0.plusMillis(10), time0.plusMillis(20)),
+          ExecutionFlags.none().pipelinedExecution().get(), defaultCycleOptions);
+      client.attachToViewProcess(env.getViewDefinition().getUniqueId(), executionOptions);
+
+      final SingleThreadViewProcessWorker worker = (SingleThreadViewProcessWorker) env.getCurrentWorker(env.getViewProcess(vp, client.getUniqueId()));
+      final CompiledViewDefinitionWithGraphsImpl compilationModel1 = (CompiledViewDefinitionWithGraphsImpl) resultListener.getViewDefinitionCompiled(TIMEOUT).getCompiledViewDefinition();
+      assertEquals(time0, resultListener.getCycleCompleted(TIMEOUT).getFullResult().getViewCycleExecutionOptions().getValuationTime());
+
+      // Trick the worker into recompiling after time0 + 10
+      final Collection<DependencyGraph> graphs = CompiledViewDefinitionWithGraphsImpl.getDependencyGraphs(compilationModel1);
+      final Collection<CompiledViewCalculationConfiguration> configs = new ArrayList<CompiledViewCalculationConfiguration>(graphs.size());
+      for (DependencyGraph graph : graphs) {
+        configs.add(CompiledViewCalculationConfigurationImpl.of(graph));
+      }
+      final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition = new CompiledViewDefinitionWithGraphsImpl(VersionCorrection.of(time0, time0), "",
+          compilationModel1.getViewDefinition(), graphs, Collections.<ComputationTargetReference, UniqueId>emptyMap(), compilationModel1.getPortfolio(),
+          compilationModel1.getFunctionInitId(), configs, null, null) {
+        @Override
+        public Instant getValidTo() {
+          return time0.plusMillis(10);
+        }
+      };
+      worker.cacheCompiledViewDefinition(compiledViewDefinition);
+
+      // Hold the tail completing the time0 + 10 cycle in its callback while the job thread prepares the next cycle, which needs a recompilation
+      resultListener.blockNextCycleCompleted();
+      worker.requestCycle();
+      assertEquals(time0.plusMillis(10), resultListener.getCycleCompleted(TIMEOUT).getFullResult().getViewCycleExecutionOptions().getValuationTime());
+      worker.requestCycle();
+      resultListener.assertNoCalls(Timeout.standardTimeoutMillis());
+      resultListener.release();
+
+      // The new compilation is only reported once the previous cycle has completed
+      final CompiledViewDefinition compilationModel2 = resultListener.getViewDefinitionCompiled(TIMEOUT).getCompiledViewDefinition();
+      assertNotSame(compilationModel1, compilationModel2);
+      assertNotSame(compiledViewDefinition, compilationModel2);
+      assertEquals(time0.plusMillis(20), resultListener.getCycleCompleted(TIMEOUT).getFullResult().getViewCycleExecutionOptions().getValuationTime());
+      resultListener.assertProcessCompleted(TIMEOUT);
+      resultListener.assertNoCalls(Timeout.standardTimeoutMillis());
+    } finally {
+      TestLifecycle.end();
+    }
+  }
+
   private void assertThreadReachesState(final BorrowedThread recalcThread, final Thread.State state) throws InterruptedException {
     final long startTime = System.currentTimeMillis();
     while (recalcThread.getState() != state) {
@@ -412,6 +586,59 @@ public class SingleThreadViewProcessWorkerTest {
     return resultValues;
   }
 
+  /**
+   * Records the type of each cycle triggered, without affecting the triggering.
+   */
+  private static class CycleTypeRecorder implements ViewCycleTrigger {
+
+    private final List<ViewCycleType> _cycleTypes = new CopyOnWriteArrayList<ViewCycleType>();
+
+    @Override
+    public ViewCycleTriggerResult query(final long cycleTimeNanos) {
+      return new ViewCycleTriggerResult(ViewCycleEligibility.ELIGIBLE, ViewCycleType.DELTA, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void cycleTriggered(final long cycleTimeNanos, final ViewCycleType cycleType) {
+      _cycleTypes.add(cycleType);
+    }
+
+    public List<ViewCycleType> getCycleTypes() {
+      return _cycleTypes;
+    }
+
+  }
+
+  /**
+   * Result listener which can hold the thread delivering a cycle completed call until released.
+   */
+  private static class BlockingResultListener extends TestViewResultListener {
+
+    private final CountDownLatch _release = new CountDownLatch(1);
+    private final AtomicBoolean _block = new AtomicBoolean();
+
+    public void blockNextCycleCompleted() {
+      _block.set(true);
+    }
+
+    public void release() {
+      _release.countDown();
+    }
+
+    @Override
+    public void cycleCompleted(final ViewComputationResultModel fullResult, final ViewDeltaResultModel deltaResult) {
+      super.cycleCompleted(fullResult, deltaResult);
+      if (_block.getAndSet(false)) {
+        try {
+          _release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+  }
+
   private static class TestLiveMarketDataProvider implements LiveMarketDataProvider {
 
     private final String _sourceName;
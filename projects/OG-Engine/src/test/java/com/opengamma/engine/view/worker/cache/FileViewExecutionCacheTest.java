@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.threeten.bp.Instant;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.impl.SimplePortfolio;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetResolver;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder;
+import com.opengamma.engine.depgraph.builder.TestDependencyGraphBuilder.NodeBuilder;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.config.FunctionConfigurationBundle;
+import com.opengamma.engine.function.config.FunctionConfigurationSource;
+import com.opengamma.engine.function.config.ParameterizedFunctionConfiguration;
+import com.opengamma.engine.target.ComputationTargetReference;
+import com.opengamma.engine.target.ComputationTargetRequirement;
+import com.opengamma.engine.target.ComputationTargetSpecificationResolver;
+import com.opengamma.engine.target.ComputationTargetType;
+import com.opengamma.engine.test.MockFunction;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
+import com.opengamma.engine.view.compilation.CompiledViewCalculationConfigurationImpl;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link FileViewExecutionCache} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class FileViewExecutionCacheTest {
+
+  private static final ComputationTargetReference SECURITY = new ComputationTargetRequirement(ComputationTargetType.SECURITY, ExternalId.of("Security", "Foo"));
+
+  private final Instant _now = Instant.now();
+  private File _directory;
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    _directory = Files.createTempDirectory("FileViewExecutionCacheTest").toFile();
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(_directory);
+  }
+
+  private Portfolio createPortfolio() {
+    return new SimplePortfolio(UniqueId.of("Portfolio", "0", "V"), "Portfolio");
+  }
+
+  private ViewDefinition createViewDefinition() {
+    final ViewDefinition viewDefinition = new ViewDefinition("TestView", UniqueId.of("Portfolio", "0"), "TestUser");
+    viewDefinition.setUniqueId(UniqueId.of("View", "0", "V"));
+    return viewDefinition;
+  }
+
+  private DependencyGraph createDependencyGraph() {
+    final TestDependencyGraphBuilder gb = new TestDependencyGraphBuilder("Default");
+    final NodeBuilder n1 = gb.addNode("Foo", ComputationTargetSpecification.NULL);
+    n1.addTerminalOutput("Foo");
+    final NodeBuilder n2 = gb.addNode("Bar", ComputationTargetSpecification.NULL);
+    n1.addInput(n2.addOutput("Bar"));
+    return gb.buildGraph();
+  }
+
+  private CompiledViewDefinitionWithGraphs createCompiledViewDefinitionWithGraphs(final long functionInitId) {
+    final ViewDefinition viewDefinition = createViewDefinition();
+    viewDefinition.addViewCalculationConfiguration(new ViewCalculationConfiguration(viewDefinition, "Default"));
+    final DependencyGraph graph = createDependencyGraph();
+    final Collection<DependencyGraph> graphs = Collections.singleton(graph);
+    final Collection<CompiledViewCalculationConfiguration> calcConfigs = Collections.<CompiledViewCalculationConfiguration>singleton(CompiledViewCalculationConfigurationImpl.of(graph));
+    final Map<ComputationTargetReference, UniqueId> resolutions = ImmutableMap.<ComputationTargetReference, UniqueId>of(SECURITY, UniqueId.of("Sec", "0", "V"));
+    return new CompiledViewDefinitionWithGraphsImpl(VersionCorrection.of(_now, _now), "", viewDefinition, graphs, resolutions, createPortfolio(), functionInitId, calcConfigs, null, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompiledFunctionService createFunctions(final long functionInitId, final String functionId, final UniqueId securityResolution) {
+    final ComputationTargetResolver targetResolver = Mockito.mock(ComputationTargetResolver.class);
+    Mockito.when(targetResolver.resolve(new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO, UniqueId.of("Portfolio", "0", "V")), VersionCorrection.of(_now, _now)))
+        .thenReturn(new ComputationTarget(ComputationTargetType.PORTFOLIO, createPortfolio()));
+    Mockito.when(targetResolver.resolve(new ComputationTargetSpecification(ComputationTargetType.of(ViewDefinition.class), UniqueId.of("View", "0", "V")), VersionCorrection.LATEST))
+        .thenReturn(new ComputationTarget(ComputationTargetType.of(ViewDefinition.class), createViewDefinition()));
+    final ComputationTargetSpecificationResolver specificationResolver = Mockito.mock(ComputationTargetSpecificationResolver.class);
+    Mockito.when(specificationResolver.getTargetSpecifications(Matchers.anySet(), Matchers.eq(VersionCorrection.LATEST))).thenReturn(
+        ImmutableMap.<ComputationTargetReference, ComputationTargetSpecification>of(SECURITY, new ComputationTargetSpecification(ComputationTargetType.SECURITY, securityResolution)));
+    Mockito.when(targetResolver.getSpecificationResolver()).thenReturn(specificationResolver);
+    final FunctionCompilationContext context = new FunctionCompilationContext();
+    context.setRawComputationTargetResolver(targetResolver);
+    context.setFunctionInitId(functionInitId);
+    final InMemoryFunctionRepository functionRepository = new InMemoryFunctionRepository();
+    functionRepository.addFunction(new MockFunction(functionId, ComputationTarget.NULL));
+    final CompiledFunctionService cfs = Mockito.mock(CompiledFunctionService.class);
+    Mockito.when(cfs.getFunctionCompilationContext()).thenReturn(context);
+    Mockito.when(cfs.getFunctionRepository()).thenReturn(functionRepository);
+    return cfs;
+  }
+
+  private FunctionConfigurationSource createConfiguration(final String parameter) {
+    final FunctionConfigurationBundle configuration = new FunctionConfigurationBundle();
+    configuration.addFunctions(new ParameterizedFunctionConfiguration(MockFunction.class.getName(), Collections.singleton(parameter)));
+    final FunctionConfigurationSource source = Mockito.mock(FunctionConfigurationSource.class);
+    Mockito.when(source.getFunctionConfiguration(Matchers.<Instant>any())).thenReturn(configuration);
+    return source;
+  }
+
+  private ViewExecutionCacheKey createKey() {
+    return new ViewExecutionCacheKey(UniqueId.of("View", "0", "V"), "Foo", "No-op");
+  }
+
+  public void testCaching() {
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    final CompiledViewDefinitionWithGraphs object = createCompiledViewDefinitionWithGraphs(1L);
+    final ViewExecutionCacheKey key = createKey();
+    // Miss
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+    // Store
+    cache.setCompiledViewDefinitionWithGraphs(key, object);
+    cache.flush();
+    assertEquals(_directory.list().length, 1);
+    // Hit the front cache
+    assertSame(cache.getCompiledViewDefinitionWithGraphs(key), object);
+    // Hit the file
+    cache.clearFrontCache();
+    final CompiledViewDefinitionWithGraphs cachedObject = cache.getCompiledViewDefinitionWithGraphs(key);
+    assertNotNull(cachedObject);
+    assertEquals(cachedObject.getCompiledCalculationConfigurations(), object.getCompiledCalculationConfigurations());
+    assertEquals(cachedObject.getResolvedIdentifiers(), object.getResolvedIdentifiers());
+    assertEquals(cachedObject.getResolverVersionCorrection(), object.getResolverVersionCorrection());
+    assertEquals(cachedObject.getPortfolio(), object.getPortfolio());
+    assertSame(cache.getCompiledViewDefinitionWithGraphs(key), cachedObject);
+    // Clear
+    cache.clear();
+    cache.flush();
+    assertNull(cache.getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testRestart() {
+    final ViewExecutionCacheKey key = createKey();
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    // Same function repository, new initialization identifier
+    final FileViewExecutionCache restarted = new FileViewExecutionCache(_directory, createFunctions(2L, "F1", UniqueId.of("Sec", "0", "V")));
+    final CompiledViewDefinitionWithGraphs cachedObject = restarted.getCompiledViewDefinitionWithGraphs(key);
+    assertNotNull(cachedObject);
+    assertEquals(((CompiledViewDefinitionWithGraphsImpl) cachedObject).getFunctionInitId(), 2L);
+  }
+
+  public void testRestartWithChangedFunctions() {
+    final ViewExecutionCacheKey key = createKey();
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    final FileViewExecutionCache restarted = new FileViewExecutionCache(_directory, createFunctions(2L, "F2", UniqueId.of("Sec", "0", "V")));
+    assertNull(restarted.getCompiledViewDefinitionWithGraphs(key));
+    restarted.flush();
+    assertEquals(_directory.list().length, 0);
+  }
+
+  public void testRestartWithChangedResolution() {
+    final ViewExecutionCacheKey key = createKey();
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    final CompiledFunctionService functions = createFunctions(2L, "F1", UniqueId.of("Sec", "0", "V2"));
+    final FileViewExecutionCache restarted = new FileViewExecutionCache(_directory, functions);
+    final CompiledViewDefinitionWithGraphs cachedObject = restarted.getCompiledViewDefinitionWithGraphs(key);
+    // The resolutions are left for the worker to check at the version-correction of the cycle that uses them
+    assertNotNull(cachedObject);
+    assertEquals(cachedObject.getResolverVersionCorrection(), VersionCorrection.of(_now, _now));
+    assertEquals(cachedObject.getResolvedIdentifiers(), ImmutableMap.<ComputationTargetReference, UniqueId>of(SECURITY, UniqueId.of("Sec", "0", "V")));
+    Mockito.verify(functions.getFunctionCompilationContext().getRawComputationTargetResolver().getSpecificationResolver(), Mockito.never()).getTargetSpecifications(
+        Matchers.<Set<ComputationTargetReference>>any(), Matchers.<VersionCorrection>any());
+  }
+
+  public void testRestartWithChangedConfiguration() {
+    final ViewExecutionCacheKey key = createKey();
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setFunctionConfigurationSource(createConfiguration("Foo"));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    // Same functions, constructed with different parameters
+    final FileViewExecutionCache restarted = new FileViewExecutionCache(_directory, createFunctions(2L, "F1", UniqueId.of("Sec", "0", "V")));
+    restarted.setFunctionConfigurationSource(createConfiguration("Bar"));
+    assertNull(restarted.getCompiledViewDefinitionWithGraphs(key));
+    restarted.flush();
+    assertEquals(_directory.list().length, 0);
+  }
+
+  public void testRestartWithSameConfiguration() {
+    final ViewExecutionCacheKey key = createKey();
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(1L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setFunctionConfigurationSource(createConfiguration("Foo"));
+    cache.setCompiledViewDefinitionWithGraphs(key, createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    final FileViewExecutionCache restarted = new FileViewExecutionCache(_directory, createFunctions(2L, "F1", UniqueId.of("Sec", "0", "V")));
+    restarted.setFunctionConfigurationSource(createConfiguration("Foo"));
+    assertNotNull(restarted.getCompiledViewDefinitionWithGraphs(key));
+  }
+
+  public void testEncodeKey() {
+    final UniqueId viewId = UniqueId.of("View", "0", "V");
+    final byte[] key = FileViewExecutionCache.encodeKey(new ViewExecutionCacheKey(viewId, (Serializable) ImmutableSet.of(String.class, Integer.class), "No-op"));
+    // Unordered hint keys are encoded independently of their iteration order
+    assertEquals(FileViewExecutionCache.encodeKey(new ViewExecutionCacheKey(viewId, (Serializable) ImmutableSet.of(Integer.class, String.class), "No-op")), key);
+    assertFalse(Arrays.equals(FileViewExecutionCache.encodeKey(new ViewExecutionCacheKey(viewId, (Serializable) ImmutableList.of(Integer.class, String.class), "No-op")), key));
+    assertFalse(Arrays.equals(FileViewExecutionCache.encodeKey(new ViewExecutionCacheKey(viewId, (Serializable) ImmutableSet.of(String.class, Integer.class), "Foo")), key));
+    assertFalse(Arrays.equals(FileViewExecutionCache.encodeKey(new ViewExecutionCacheKey(UniqueId.of("View", "0", "V2"), (Serializable) ImmutableSet.of(String.class, Integer.class), "No-op")),
+        key));
+  }
+
+  public void testStaleFunctionInitIdNotStored() {
+    final FileViewExecutionCache cache = new FileViewExecutionCache(_directory, createFunctions(2L, "F1", UniqueId.of("Sec", "0", "V")));
+    cache.setCompiledViewDefinitionWithGraphs(createKey(), createCompiledViewDefinitionWithGraphs(1L));
+    cache.flush();
+    assertEquals(_directory.list().length, 0);
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.worker.trigger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link TickBatchingTrigger} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class TickBatchingTriggerTest {
+
+  private static final long MS = 1000000L;
+
+  public void testNoTicks() {
+    final TickBatchingTrigger trigger = new TickBatchingTrigger(10, 500);
+    final ViewCycleTriggerResult result = trigger.query(0);
+    assertNull(result.getCycleEligibility());
+    assertNull(result.getNextStateChangeNanos());
+  }
+
+  public void testBatchFull() {
+    final TickBatchingTrigger trigger = new TickBatchingTrigger(10, 500);
+    assertTrue(trigger.ticked(4, 100 * MS));
+    ViewCycleTriggerResult result = trigger.query(101 * MS);
+    assertEquals(result.getCycleEligibility(), ViewCycleEligibility.PREVENT);
+    assertEquals(result.getNextStateChangeNanos(), (Long) (600 * MS));
+    assertFalse(trigger.ticked(4, 102 * MS));
+    assertTrue(trigger.ticked(4, 103 * MS));
+    assertFalse(trigger.ticked(4, 104 * MS));
+    result = trigger.query(105 * MS);
+    assertEquals(result.getCycleEligibility(), ViewCycleEligibility.FORCE);
+    assertEquals(result.getCycleType(), ViewCycleType.DELTA);
+    trigger.cycleTriggered(105 * MS, ViewCycleType.DELTA);
+    assertNull(trigger.query(106 * MS).getCycleEligibility());
+  }
+
+  public void testLatencyBudget() {
+    final TickBatchingTrigger trigger = new TickBatchingTrigger(0, 500);
+    trigger.ticked(1, 100 * MS);
+    trigger.ticked(1000, 101 * MS);
+    assertEquals(trigger.query(599 * MS).getCycleEligibility(), ViewCycleEligibility.PREVENT);
+    assertEquals(trigger.query(600 * MS).getCycleEligibility(), ViewCycleEligibility.FORCE);
+  }
+
+  public void testDeadlineResetByCycle() {
+    final TickBatchingTrigger trigger = new TickBatchingTrigger(0, 500);
+    assertTrue(trigger.ticked(1, 100 * MS));
+    trigger.cycleTriggered(200 * MS, ViewCycleType.DELTA);
+    assertTrue(trigger.ticked(1, 300 * MS));
+    final ViewCycleTriggerResult result = trigger.query(301 * MS);
+    assertEquals(result.getCycleEligibility(), ViewCycleEligibility.PREVENT);
+    assertEquals(result.getNextStateChangeNanos(), (Long) (800 * MS));
+  }
+
+  public void testLearnsCycleDuration() {
+    final TickBatchingTrigger trigger = new TickBatchingTrigger(10, 500);
+    trigger.ticked(1, 0);
+    trigger.cycleTriggered(0, ViewCycleType.FULL);
+    trigger.cycleCompleted(200 * MS);
+    assertEquals(trigger.getExpectedCycleNanos(), 200 * MS);
+    trigger.cycleCompleted(100 * MS);
+    assertEquals(trigger.getExpectedCycleNanos(), 175 * MS);
+    // Deadline is brought forward so that the cycle completes within the budget
+    trigger.ticked(1, 1000 * MS);
+    ViewCycleTriggerResult result = trigger.query(1001 * MS);
+    assertEquals(result.getCycleEligibility(), ViewCycleEligibility.PREVENT);
+    assertEquals(result.getNextStateChangeNanos(), (Long) (1325 * MS));
+    assertEquals(trigger.query(1325 * MS).getCycleEligibility(), ViewCycleEligibility.FORCE);
+    trigger.cycleTriggered(1325 * MS, ViewCycleType.DELTA);
+    // A full batch does not start a cycle before the previous one is expected to have finished
+    trigger.ticked(10, 1330 * MS);
+    result = trigger.query(1330 * MS);
+    assertEquals(result.getCycleEligibility(), ViewCycleEligibility.PREVENT);
+    assertEquals(result.getNextStateChangeNanos(), (Long) (1500 * MS));
+    assertEquals(trigger.query(1500 * MS).getCycleEligibility(), ViewCycleEligibility.FORCE);
+  }
+
+}
@@ -0,0 +1,25 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.analytics.fudgemsg;
+
+import com.opengamma.engine.cache.ValueCodecRegistry;
+import com.opengamma.util.SingletonFactoryBean;
+
+/**
+ * Bean for obtaining a {@link ValueCodecRegistry} containing the {@link AnalyticsValueCodecs}. The codecs are registered with the {@link ValueCodecRegistry#getDefault} instance
+ * so that any computation cache source in the process that has not been given a registry explicitly can also read the values. The registry should still be set on the
+ * computation cache source of each process sharing the caches, for example the view processor and its remote calculation nodes.
+ */
+public class AnalyticsValueCodecRegistryFactoryBean extends SingletonFactoryBean<ValueCodecRegistry> {
+
+  @Override
+  protected ValueCodecRegistry createObject() {
+    final ValueCodecRegistry registry = ValueCodecRegistry.getDefault();
+    AnalyticsValueCodecs.register(registry);
+    return registry;
+  }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.analytics.fudgemsg;
+
+import java.util.List;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.engine.cache.ValueCodec;
+import com.opengamma.engine.cache.ValueCodecRegistry;
+import com.opengamma.financial.analytics.DoubleLabelledMatrix1D;
+
+/**
+ * {@link ValueCodec} implementations for the matrix types commonly produced by analytic functions.
+ */
+public final class AnalyticsValueCodecs {
+
+  private static final int DOUBLE_MATRIX_1D = ValueCodecRegistry.FIRST_USER_CODEC;
+  private static final int DOUBLE_MATRIX_2D = ValueCodecRegistry.FIRST_USER_CODEC + 1;
+  private static final int DOUBLE_LABELLED_MATRIX_1D = ValueCodecRegistry.FIRST_USER_CODEC + 2;
+
+  private AnalyticsValueCodecs() {
+  }
+
+  /**
+   * Registers the codecs.
+   *
+   * @param registry the registry to update, not null
+   */
+  public static void register(final ValueCodecRegistry registry) {
+    registry.register(DOUBLE_MATRIX_1D, new DoubleMatrix1DCodec());
+    registry.register(DOUBLE_MATRIX_2D, new DoubleMatrix2DCodec());
+    registry.register(DOUBLE_LABELLED_MATRIX_1D, new DoubleLabelledMatrix1DCodec());
+  }
+
+  /**
+   * Codec for {@link DoubleMatrix1D}.
+   */
+  private static final class DoubleMatrix1DCodec implements ValueCodec<DoubleMatrix1D> {
+
+    private static final int DATA_FIELD = 0;
+
+    @Override
+    public Class<DoubleMatrix1D> getValueClass() {
+      return DoubleMatrix1D.class;
+    }
+
+    @Override
+    public boolean encode(final MutableFudgeMsg message, final DoubleMatrix1D value) {
+      message.add(null, DATA_FIELD, value.getData());
+      return true;
+    }
+
+    @Override
+    public DoubleMatrix1D decode(final FudgeMsg message) {
+      return new DoubleMatrix1D((double[]) message.getValue(DATA_FIELD));
+    }
+
+  }
+
+  /**
+   * Codec for {@link DoubleMatrix2D}, written as a single row-major array.
+   */
+  private static final class DoubleMatrix2DCodec implements ValueCodec<DoubleMatrix2D> {
+
+    private static final int ROWS_FIELD = 0;
+    private static final int COLUMNS_FIELD = 1;
+    private static final int DATA_FIELD = 2;
+
+    @Override
+    public Class<DoubleMatrix2D> getValueClass() {
+      return DoubleMatrix2D.class;
+    }
+
+    @Override
+    public boolean encode(final MutableFudgeMsg message, final DoubleMatrix2D value) {
+      final int rows = value.getNumberOfRows();
+      final int columns = value.getNumberOfColumns();
+      final double[][] matrix = value.getData();
+      final double[] data = new double[rows * columns];
+      for (int i = 0; i < rows; i++) {
+        System.arraycopy(matrix[i], 0, data, i * columns, columns);
+      }
+      message.add(null, ROWS_FIELD, rows);
+      message.add(null, COLUMNS_FIELD, columns);
+      message.add(null, DATA_FIELD, data);
+      return true;
+    }
+
+    @Override
+    public DoubleMatrix2D decode(final FudgeMsg message) {
+      final int rows = message.getInt(ROWS_FIELD);
+      final int columns = message.getInt(COLUMNS_FIELD);
+      final double[] data = (double[]) message.getValue(DATA_FIELD);
+      final double[][] matrix = new double[rows][columns];
+      for (int i = 0; i < rows; i++) {
+        System.arraycopy(data, i * columns, matrix[i], 0, columns);
+      }
+      return DoubleMatrix2D.noCopy(matrix);
+    }
+
+  }
+
+  /**
+   * Codec for {@link DoubleLabelledMatrix1D} where all of the labels are strings. Matrices with other label types are serialized normally.
+   */
+  private static final class DoubleLabelledMatrix1DCodec implements ValueCodec<DoubleLabelledMatrix1D> {
+
+    private static final int KEYS_FIELD = 0;
+    private static final int VALUES_FIELD = 1;
+    private static final int LABEL_FIELD = 2;
+    private static final int LABELS_TITLE_FIELD = 3;
+    private static final int VALUES_TITLE_FIELD = 4;
+
+    @Override
+    public Class<DoubleLabelledMatrix1D> getValueClass() {
+      return DoubleLabelledMatrix1D.class;
+    }
+
+    @Override
+    public boolean encode(final MutableFudgeMsg message, final DoubleLabelledMatrix1D value) {
+      final Object[] labels = value.getLabels();
+      for (Object label : labels) {
+        if (!(label instanceof String)) {
+          return false;
+        }
+      }
+      final Double[] keys = value.getKeys();
+      final double[] keyData = new double[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keyData[i] = keys[i];
+      }
+      message.add(null, KEYS_FIELD, keyData);
+      message.add(null, VALUES_FIELD, value.getValues());
+      for (Object label : labels) {
+        message.add(null, LABEL_FIELD, label);
+      }
+      if (value.getLabelsTitle() != null) {
+        message.add(null, LABELS_TITLE_FIELD, value.getLabelsTitle());
+      }
+      if (value.getValuesTitle() != null) {
+        message.add(null, VALUES_TITLE_FIELD, value.getValuesTitle());
+      }
+      return true;
+    }
+
+    @Override
+    public DoubleLabelledMatrix1D decode(final FudgeMsg message) {
+      final double[] keyData = (double[]) message.getValue(KEYS_FIELD);
+      final Double[] keys = new Double[keyData.length];
+      for (int i = 0; i < keyData.length; i++) {
+        keys[i] = keyData[i];
+      }
+      final List<FudgeField> labelFields = message.getAllByOrdinal(LABEL_FIELD);
+      final Object[] labels = new Object[labelFields.size()];
+      for (int i = 0; i < labels.length; i++) {
+        labels[i] = labelFields.get(i).getValue();
+      }
+      return new DoubleLabelledMatrix1D(keys, labels, message.getString(LABELS_TITLE_FIELD), (double[]) message.getValue(VALUES_FIELD),
+          message.getString(VALUES_TITLE_FIELD));
+    }
+
+  }
+
+}
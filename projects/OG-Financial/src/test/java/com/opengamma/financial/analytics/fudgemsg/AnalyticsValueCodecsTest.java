@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.analytics.fudgemsg;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.mapping.FudgeSerializer;
+import org.testng.annotations.Test;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.engine.cache.ValueCodecRegistry;
+import com.opengamma.financial.analytics.DoubleLabelledMatrix1D;
+import com.opengamma.util.test.TestGroup;
+
+/**
+ * Tests the {@link AnalyticsValueCodecs} class.
+ */
+@Test(groups = TestGroup.UNIT)
+public class AnalyticsValueCodecsTest extends AnalyticsTestBase {
+
+  private Object cycleCodec(final Object value) {
+    final ValueCodecRegistry registry = new ValueCodecRegistry();
+    AnalyticsValueCodecs.register(registry);
+    final FudgeMsg message = registry.encode(new FudgeSerializer(getFudgeContext()), value);
+    assertNotNull(message);
+    // Decode from the wire form, as a remote calculation node would
+    final FudgeMsg wire = getFudgeContext().deserialize(getFudgeContext().toByteArray(message)).getMessage();
+    return registry.decode(wire);
+  }
+
+  public void testDoubleMatrix1D() {
+    final DoubleMatrix1D matrix = new DoubleMatrix1D(new double[] {1.0, 2.0 });
+    assertEquals(matrix, cycleCodec(matrix));
+  }
+
+  public void testDoubleMatrix2D() {
+    final DoubleMatrix2D matrix = new DoubleMatrix2D(new double[][] { {1.0, 2.0, 3.0 }, {4.0, 5.0, 6.0 } });
+    assertEquals(matrix, cycleCodec(matrix));
+  }
+
+  public void testDoubleLabelledMatrix1D() {
+    final DoubleLabelledMatrix1D matrix = new DoubleLabelledMatrix1D(new Double[] {1.0, 2.0 }, new Object[] {"1Y", "2Y" }, "Tenor", new double[] {0.5, 0.75 }, "Rate");
+    assertEquals(matrix, cycleCodec(matrix));
+  }
+
+  public void testDoubleLabelledMatrix1DNonStringLabels() {
+    final DoubleLabelledMatrix1D matrix = new DoubleLabelledMatrix1D(new Double[] {1.0, 2.0 }, new Object[] {1, 2 }, new double[] {0.5, 0.75 });
+    final ValueCodecRegistry registry = new ValueCodecRegistry();
+    AnalyticsValueCodecs.register(registry);
+    assertNull(registry.encode(new FudgeSerializer(getFudgeContext()), matrix));
+  }
+
+  @Test(expectedExceptions = OpenGammaRuntimeException.class)
+  public void testUnregisteredCodec() {
+    final ValueCodecRegistry registry = new AnalyticsValueCodecRegistryFactoryBean().getObjectCreating();
+    final FudgeMsg message = registry.encode(new FudgeSerializer(getFudgeContext()), new DoubleMatrix1D(new double[] {1.0, 2.0 }));
+    assertNotNull(message);
+    // A process without the codecs cannot read the value
+    new ValueCodecRegistry().decode(message);
+  }
+
+  public void testFactoryBeanRegistersDefault() {
+    final ValueCodecRegistry registry = new AnalyticsValueCodecRegistryFactoryBean().getObjectCreating();
+    assertSame(ValueCodecRegistry.getDefault(), registry);
+    final DoubleMatrix1D matrix = new DoubleMatrix1D(new double[] {1.0, 2.0 });
+    final FudgeMsg message = new ValueCodecRegistry().encode(new FudgeSerializer(getFudgeContext()), matrix);
+    assertNull(message);
+    assertEquals(matrix, ValueCodecRegistry.getDefault().decode(registry.encode(new FudgeSerializer(getFudgeContext()), matrix)));
+  }
+
+}
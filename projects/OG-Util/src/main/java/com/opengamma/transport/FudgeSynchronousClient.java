@@ -46,7 +46,7 @@ public abstract class FudgeSynchronousClient implements FudgeMessageReceiver {
   /**
    * The map of pending requests keyed by correlation id.
    */
-  private final Map<Long, ClientRequestHolder> _pendingRequests = new ConcurrentHashMap<Long, ClientRequestHolder>();
+  private final Map<Long, PendingRequest> _pendingRequests = new ConcurrentHashMap<Long, PendingRequest>();
   /**
    * The timeout.
    */
@@ -132,11 +132,40 @@ public abstract class FudgeSynchronousClient implements FudgeMessageReceiver {
    * @return the result
    */
   protected FudgeMsg sendRequestAndWaitForResponse(FudgeMsg requestMsg, long correlationId) {
-    ClientRequestHolder requestHolder = new ClientRequestHolder();
+    return waitForResponse(sendRequest(requestMsg, correlationId));
+  }
+
+  /**
+   * Sends the message without waiting for the response. This allows a number of requests to be
+   * pipelined over the transport before blocking for any of the responses. Each call must be
+   * matched by a call to {@link #waitForResponse}.
+   * 
+   * @param requestMsg  the message, not null
+   * @param correlationId  the message id
+   * @return the handle to pass to {@link #waitForResponse}, not null
+   */
+  protected PendingRequest sendRequest(FudgeMsg requestMsg, long correlationId) {
+    PendingRequest requestHolder = new PendingRequest(correlationId);
     _pendingRequests.put(correlationId, requestHolder);
+    s_logger.debug("Sending message {}", correlationId);
     try {
-      s_logger.debug("Sending message {}", correlationId);
       getMessageSender().send(requestMsg);
+    } catch (RuntimeException e) {
+      _pendingRequests.remove(correlationId);
+      throw e;
+    }
+    return requestHolder;
+  }
+
+  /**
+   * Waits for the response to a message sent by {@link #sendRequest}.
+   * 
+   * @param requestHolder  the handle returned when the message was sent, not null
+   * @return the result
+   */
+  protected FudgeMsg waitForResponse(PendingRequest requestHolder) {
+    final long correlationId = requestHolder.correlationId;
+    try {
       try {
         s_logger.debug("Blocking for message result");
         requestHolder.latch.await(getTimeoutInMilliseconds(), TimeUnit.MILLISECONDS);
@@ -157,6 +186,16 @@ public abstract class FudgeSynchronousClient implements FudgeMessageReceiver {
     }
   }
 
+  /**
+   * Abandons a request sent by {@link #sendRequest} without waiting for the response. Any response
+   * that does arrive will be logged and discarded.
+   * 
+   * @param requestHolder  the handle returned when the message was sent, not null
+   */
+  protected void cancelRequest(PendingRequest requestHolder) {
+    _pendingRequests.remove(requestHolder.correlationId);
+  }
+
   protected void sendMessage(FudgeMsg message) {
     getMessageSender().send(message);
   }
@@ -180,7 +219,7 @@ public abstract class FudgeSynchronousClient implements FudgeMessageReceiver {
       }
       return;
     }
-    final ClientRequestHolder requestHolder = _pendingRequests.remove(correlationId);
+    final PendingRequest requestHolder = _pendingRequests.remove(correlationId);
     if (requestHolder == null) {
       s_logger.warn("Got a response on non-pending correlation Id {}", correlationId);
       return;
@@ -199,11 +238,16 @@ public abstract class FudgeSynchronousClient implements FudgeMessageReceiver {
 
   //-------------------------------------------------------------------------
   /**
-   * Data holder.
+   * Data holder for a request awaiting its response.
    */
-  private static final class ClientRequestHolder {
-    public FudgeMsg resultValue; // CSIGNORE: simple holder object
-    public final CountDownLatch latch = new CountDownLatch(1); // CSIGNORE: simple holder object
+  protected static final class PendingRequest {
+    private final long correlationId; // CSIGNORE: simple holder object
+    private volatile FudgeMsg resultValue; // CSIGNORE: simple holder object
+    private final CountDownLatch latch = new CountDownLatch(1); // CSIGNORE: simple holder object
+
+    private PendingRequest(final long correlationId) {
+      this.correlationId = correlationId;
+    }
   }
 
 }